@@ -19,10 +19,17 @@
 package com.nur1popcorn.basm.classfile;
 
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.AttributeRaw;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
 
+import java.io.Closeable;
+import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import static com.nur1popcorn.basm.Constants.*;
 
@@ -31,6 +38,11 @@ import static com.nur1popcorn.basm.Constants.*;
  * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.1">
  *     ClassFile 4.1.
  * </a>
+ * <p>The JavaClass can either be read from a stream or directly from a {@link ByteBuffer} or a slice of a
+ *    byte array. The latter avoids the per-byte overhead of streams and works with direct and memory-mapped
+ *    buffers (see {@link java.nio.channels.FileChannel#map}) alike.</p>
+ * <p>A single {@link ClassReader} may be reused for many JavaClasses using {@link #reset(byte[], int, int)},
+ *    in which case the scratch buffers which are never handed to a visitor are reused.</p>
  *
  * @see ConstantPool
  * @see FieldMethodInfo
@@ -79,7 +91,7 @@ public final class ClassReader {
      *     </li>
      * </ul>
      *
-     * @see #readHead()
+     * @see #readHead(boolean, boolean)
      * @see #accept(IClassVisitor, int)
      */
     public static final int READ_HEAD = 0x1;
@@ -177,10 +189,56 @@ public final class ClassReader {
                                        READ_METHODS |
                                        READ_FOOTER;
 
+    /**
+     * <p>Enables reading the {@link ConstantPool} lazily, only the offsets of the entries are recorded and
+     *    each entry is decoded once it is first requested. This is useful when only a small fraction of
+     *    the entries is ever used, e.g. when scanning or indexing classes.</p>
+     *
+     * @see ConstantPool#readLazy(DataInput)
+     * @see #accept(IClassVisitor, int)
+     */
+    public static final int LAZY_POOL = 0x20;
+
+    /**
+     * <p>Enables the hierarchy scan mode which only reads the access flags, the class' name, the super
+     *    class' name and the names of the implemented interfaces, which are passed to
+     *    {@link IClassVisitor#visitHierarchy(int, String, String, String[])}.</p>
+     * <p>The {@link ConstantPool} is read lazily and only the entries required to resolve the names are
+     *    decoded. The flag can not be combined with any other flags.</p>
+     *
+     * @see #readHierarchy(IClassVisitor)
+     * @see #accept(IClassVisitor, int)
+     */
+    public static final int READ_HIERARCHY = 0x40;
+
+    /**
+     * <p>Streams the fields and methods enabled by {@link #READ_FIELDS} and {@link #READ_METHODS} one by one
+     *    instead of reading them into arrays: every member is passed to
+     *    {@link IClassVisitor#visitField(int, int, int)} or {@link IClassVisitor#visitMethod(int, int, int)}
+     *    and its attributes are only read if a {@link IFieldMethodVisitor} is returned, otherwise they are
+     *    skipped. {@link IClassVisitor#visitFields(FieldMethodInfo[])} and
+     *    {@link IClassVisitor#visitMethods(FieldMethodInfo[])} are not invoked.</p>
+     *
+     * @see IFieldMethodVisitor
+     * @see #accept(IClassVisitor, int)
+     */
+    public static final int STREAM_MEMBERS = 0x80;
+
+    /**
+     * <p>Keeps the raw {@link ConstantPool}, fields and methods read from a buffer, which allows a
+     *    {@link ClassWriter} using {@link ClassWriter#COPY_UNMODIFIED} to copy them. An eagerly read
+     *    {@link ConstantPool} otherwise does not keep the buffer alive, a lazily read one always keeps it.</p>
+     *
+     * @see ConstantPool#read(DataInput, boolean)
+     * @see FieldMethodInfo#getSource()
+     * @see #accept(IClassVisitor, int)
+     */
+    public static final int KEEP_SOURCE = 0x100;
+
     /**
      * A table which can be indexed to obtain the expected size of any {@link ConstantPool} entry.
      */
-    private static final int CONSTANT_INFO_SKIP_TABLE[] = {
+    static final int CONSTANT_INFO_SKIP_TABLE[] = {
        -1,
        -1, // CONSTANT_Utf8
        -1,
@@ -198,11 +256,28 @@ public final class ClassReader {
        -1,
         3, // CONSTANT_MethodHandle
         2, // CONSTANT_MethodType
-       -1,
+        4, // CONSTANT_Dynamic
         4, // CONSTANT_Invokedynamic
+        2, // CONSTANT_Module
+        2, // CONSTANT_Package
     };
     
-    private DataInputStream in;
+    /* Shared by all JavaClasses which have no interfaces or members.
+     */
+    private static final int EMPTY_INTERFACES[] = {};
+    private static final FieldMethodInfo EMPTY_FIELD_METHODS[] = {};
+
+    private DataInput in;
+
+    /* The input reused by reset or null if the reader was never reset.
+     */
+    private ByteBufferDataInput buffer;
+
+    /* Scratch buffers of the hierarchy scan: the offsets of the constant pool's entries and the pointers to
+     * the interfaces. Both are reused across resets.
+     */
+    private int offsets[];
+    private int interfaceIndices[];
 
     private int minorVersion,
                 majorVersion;
@@ -225,7 +300,77 @@ public final class ClassReader {
     }
 
     public ClassReader(DataInputStream in) throws IOException {
+        this((DataInput) in);
+    }
+
+    /**
+     * @param buffer The buffer from which the JavaClass should be read, starting at the buffer's position
+     *               and ending at its limit. The buffer's position and limit are left untouched.
+     *
+     * @throws IOException If the JavaClass provided has an invalid file header.
+     */
+    public ClassReader(ByteBuffer buffer) throws IOException {
+        this(new ByteBufferDataInput(buffer));
+    }
+
+    /**
+     * @param buffer The byte array from which the JavaClass should be read.
+     * @param offset The index of the JavaClass' first byte.
+     * @param length The JavaClass' length.
+     *
+     * @throws IOException If the JavaClass provided has an invalid file header.
+     */
+    public ClassReader(byte buffer[], int offset, int length) throws IOException {
+        this(new ByteBufferDataInput(buffer, offset, length));
+    }
+
+    /**
+     * @param buffer The byte array from which the JavaClass should be read.
+     *
+     * @throws IOException If the JavaClass provided has an invalid file header.
+     */
+    public ClassReader(byte buffer[]) throws IOException {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Creates a {@link ClassReader} which has no JavaClass to read yet, one has to be provided using
+     * {@link #reset(byte[], int, int)} before every call to {@link #accept(IClassVisitor, int)}.
+     */
+    public ClassReader()
+    {}
+
+    private ClassReader(DataInput in) throws IOException {
         this.in = in;
+        readMagic();
+    }
+
+    /**
+     * <p>Moves the {@link ClassReader} to the given JavaClass, reusing the reader's input and scratch
+     *    buffers. This is meant for loops reading many JavaClasses on a single thread.</p>
+     * <p>Everything handed to a visitor is still freshly allocated and may therefore be kept.</p>
+     *
+     * @param buffer The byte array from which the JavaClass should be read.
+     * @param offset The index of the JavaClass' first byte.
+     * @param length The JavaClass' length.
+     *
+     * @throws IOException If the JavaClass provided has an invalid file header.
+     * @return This {@link ClassReader}.
+     */
+    public ClassReader reset(byte buffer[], int offset, int length) throws IOException {
+        if(this.buffer == null)
+            this.buffer = new ByteBufferDataInput(buffer, offset, length);
+        else
+            this.buffer.reset(buffer, offset, length);
+        in = this.buffer;
+        readMagic();
+        return this;
+    }
+
+    /**
+     * @throws IOException If the JavaClass provided has an invalid file header.
+     */
+    private void readMagic() throws IOException {
         final int magic = in.readInt();
         if(magic != MAGIC)
             throw new MalformedClassFileException(
@@ -271,16 +416,22 @@ public final class ClassReader {
      *     </li>
      * </ul>
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @param lazy whether or not the {@link ConstantPool} should be read lazily.
+     * @param keepSource whether or not the raw {@link ConstantPool} should be kept when it is read eagerly.
+     *
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see #accept(IClassVisitor, int)
      */
-    private void readHead() throws IOException {
+    private void readHead(boolean lazy, boolean keepSource) throws IOException {
         minorVersion = in.readUnsignedShort();
         majorVersion = in.readUnsignedShort();
 
         constantPool = new ConstantPool();
-        constantPool.read(in);
+        if(lazy)
+            constantPool.readLazy(in);
+        else
+            constantPool.read(in, keepSource);
     }
 
     /**
@@ -315,7 +466,7 @@ public final class ClassReader {
      *     </li>
      * </ul>
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see #accept(IClassVisitor, int)
      */
@@ -324,23 +475,163 @@ public final class ClassReader {
         thisClass = in.readUnsignedShort();
         superClass = in.readUnsignedShort();
 
-        interfaces = new int[in.readUnsignedShort()];
+        final int interfaceCount = in.readUnsignedShort();
+        interfaces = interfaceCount == 0 ?
+            EMPTY_INTERFACES : new int[interfaceCount];
         for(int i = 0; i < interfaces.length; i++)
             interfaces[i] = in.readUnsignedShort();
     }
 
+    /**
+     * <p>Reads the access flags and resolves the names of the class, its super class and its interfaces,
+     *    without decoding any other entries of the {@link ConstantPool}.</p>
+     *
+     * @param visitor the visitor whose {@link IClassVisitor#visitHierarchy(int, String, String, String[])}
+     *                method is invoked.
+     *
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
+     *
+     * @see #READ_HIERARCHY
+     */
+    private void readHierarchy(IClassVisitor visitor) throws IOException {
+        if(in instanceof ByteBufferDataInput) {
+            scanHierarchy(visitor, (ByteBufferDataInput) in);
+            return;
+        }
+        readHead(true, false);
+        readBody();
+        final String interfaceNames[] = new String[interfaces.length];
+        for(int i = 0; i < interfaces.length; i++)
+            interfaceNames[i] = indexClassName(interfaces[i]);
+        visitor.visitHierarchy(
+            access,
+            indexClassName(thisClass),
+            superClass == 0 ?
+                null : indexClassName(superClass),
+            interfaceNames
+        );
+    }
+
+    /**
+     * <p>Performs the hierarchy scan directly on the buffer: the offsets of the {@link ConstantPool}'s
+     *    entries are recorded into a scratch buffer and the names are read straight from it, no
+     *    {@link ConstantPool} is created.</p>
+     *
+     * @param visitor the visitor whose {@link IClassVisitor#visitHierarchy(int, String, String, String[])}
+     *                method is invoked.
+     * @param in the buffer from which the JavaClass is read.
+     *
+     * @throws IOException if an error occurs during the process of reading from the buffer.
+     */
+    private void scanHierarchy(IClassVisitor visitor, ByteBufferDataInput in) throws IOException {
+        minorVersion = in.readUnsignedShort();
+        majorVersion = in.readUnsignedShort();
+
+        final int cpSize = in.readUnsignedShort();
+        if(offsets == null || offsets.length < cpSize)
+            offsets = new int[Math.max(cpSize, 0x100)];
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
+            offsets[i] = in.position();
+            final byte tag = in.readByte();
+            final int size;
+            if(tag == CONSTANT_UTF8)
+                size = in.readUnsignedShort();
+            else {
+                size = ConstantPool.skipSize(tag);
+                // longs and doubles take up 2 spaces in the constant pool.
+                if(tag == CONSTANT_LONG ||
+                   tag == CONSTANT_DOUBLE)
+                    offsets[++i] = 0 /* padding */;
+            }
+            if(in.skipBytes(size) != size)
+                throw new EOFException("The constant pool exceeds the class provided.");
+        }
+
+        access = in.readUnsignedShort();
+        thisClass = in.readUnsignedShort();
+        superClass = in.readUnsignedShort();
+        final int interfaceCount = in.readUnsignedShort();
+        if(interfaceIndices == null || interfaceIndices.length < interfaceCount)
+            interfaceIndices = new int[Math.max(interfaceCount, 0x10)];
+        for(int i = 0; i < interfaceCount; i++)
+            interfaceIndices[i] = in.readUnsignedShort();
+
+        final String interfaceNames[] = new String[interfaceCount];
+        for(int i = 0; i < interfaceCount; i++)
+            interfaceNames[i] = scanClassName(in, cpSize, interfaceIndices[i]);
+        visitor.visitHierarchy(
+            access,
+            scanClassName(in, cpSize, thisClass),
+            superClass == 0 ?
+                null : scanClassName(in, cpSize, superClass),
+            interfaceNames
+        );
+    }
+
+    /**
+     * @param in the buffer from which the JavaClass is read.
+     * @param cpSize the size of the {@link ConstantPool}.
+     * @param index a pointer into the {@link ConstantPool}, pointing to a CONSTANT_Class.
+     *
+     * @throws IOException if an error occurs during the process of reading from the buffer.
+     * @return the name of the class referenced.
+     */
+    private String scanClassName(ByteBufferDataInput in, int cpSize, int index) throws IOException {
+        final int offset = scanOffset(in, cpSize, index, CONSTANT_CLASS);
+        in.position(scanOffset(in, cpSize, in.readUnsignedShort(offset + 1), CONSTANT_UTF8) + 1);
+        return in.readUTF();
+    }
+
+    /**
+     * @param in the buffer from which the JavaClass is read.
+     * @param cpSize the size of the {@link ConstantPool}.
+     * @param index a pointer into the {@link ConstantPool}.
+     * @param tag the tag expected at the index.
+     *
+     * @throws MalformedClassFileException if the index is out of bounds or the entry has a different tag.
+     * @return the offset of the entry at the given index.
+     */
+    private int scanOffset(ByteBufferDataInput in, int cpSize, int index, byte tag) {
+        if(index <= 0 || index >= cpSize || offsets[index] == 0)
+            throw new MalformedClassFileException(
+                "Index out of bounds: index=" + index +
+                ", length=" + cpSize
+            );
+        final int offset = offsets[index];
+        if(in.readByte(offset) != tag)
+            throw new MalformedClassFileException(
+                "The CONSTANT_Info at given index has an invalid tag: index=" + index +
+                ", expected_tag=" + tag +
+                ", tag=" + in.readByte(offset)
+            );
+        return offset;
+    }
+
+    /**
+     * @param index a pointer into the {@link ConstantPool}, pointing to a CONSTANT_Class.
+     *
+     * @return the name of the class referenced.
+     */
+    private String indexClassName(int index) {
+        final ConstantName constantClass = constantPool.getEntry(index, CONSTANT_CLASS);
+        return constantClass.indexName(constantPool)
+            .getBytes();
+    }
+
     /**
      * <p>Reads the fields of the JavaClass.</p>
      * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.1-200-J">
      *     Fields 4.1-200-J
      * </a>
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see #accept(IClassVisitor, int)
      */
     private void readFields() throws IOException {
-        fields = new FieldMethodInfo[in.readUnsignedShort()];
+        final int fieldCount = in.readUnsignedShort();
+        fields = fieldCount == 0 ?
+            EMPTY_FIELD_METHODS : new FieldMethodInfo[fieldCount];
         for(int i = 0; i < fields.length; i++)
             fields[i] = new FieldMethodInfo(in, constantPool);
     }
@@ -351,12 +642,14 @@ public final class ClassReader {
      *     Methods 4.1-200-L
      * </a>
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see #accept(IClassVisitor, int)
      */
     private void readMethods() throws IOException {
-        methods = new FieldMethodInfo[in.readUnsignedShort()];
+        final int methodCount = in.readUnsignedShort();
+        methods = methodCount == 0 ?
+            EMPTY_FIELD_METHODS : new FieldMethodInfo[methodCount];
         for(int i = 0; i < methods.length; i++)
             methods[i] = new FieldMethodInfo(in, constantPool);
     }
@@ -379,7 +672,7 @@ public final class ClassReader {
      *     Attributes Table 4.7-320
      * </a>
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see #accept(IClassVisitor, int)
      */
@@ -387,6 +680,57 @@ public final class ClassReader {
         attributes = AttributeInfo.read(in, constantPool);
     }
 
+    /**
+     * Streams either the methods or the fields of the JavaClass to the visitor, skipping the attributes of
+     * members for which no {@link IFieldMethodVisitor} is returned.
+     *
+     * @param visitor the visitor to which the members are streamed.
+     * @param fields whether the fields or the methods are read.
+     *
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
+     *
+     * @see #STREAM_MEMBERS
+     */
+    private void streamFieldMethods(IClassVisitor visitor, boolean fields) throws IOException {
+        final int count = in.readUnsignedShort();
+        for(int i = 0; i < count; i++) {
+            final int access = in.readUnsignedShort();
+            final int nameIndex = in.readUnsignedShort();
+            final int descIndex = in.readUnsignedShort();
+            final IFieldMethodVisitor memberVisitor = fields ?
+                visitor.visitField(access, nameIndex, descIndex) :
+                visitor.visitMethod(access, nameIndex, descIndex);
+            if(memberVisitor == null) {
+                skipAttributes();
+                continue;
+            }
+            final int attributeCount = in.readUnsignedShort();
+            for(int j = 0; j < attributeCount; j++) {
+                final int attributeNameIndex = in.readUnsignedShort();
+                memberVisitor.visitAttribute(new AttributeRaw(
+                    attributeNameIndex, in,
+                    constantPool.getAttributeFactory(attributeNameIndex)));
+            }
+            memberVisitor.visitEnd();
+        }
+    }
+
+    /**
+     * Skips the attributes of a field or method.
+     *
+     * @throws IOException if an error occurs during the process of skipping bytes.
+     */
+    private void skipAttributes() throws IOException {
+        final int attributeCount = in.readUnsignedShort();
+        for(int j = 0; j < attributeCount; j++) {
+            // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.6
+            // skip attribute name index.
+            in.skipBytes(2);
+            // read and skip attribute length.
+            in.skipBytes(in.readInt());
+        }
+    }
+
     /**
      * Skips either the methods or the fields of the JavaClass which is currently being read.
      *
@@ -400,17 +744,20 @@ public final class ClassReader {
             // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.5
             // skip access flags, name index and desc index.
             in.skipBytes(6);
-            final int attributeCount = in.readUnsignedShort();
-            for(int j = 0; j < attributeCount; j++) {
-                // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.6
-                // skip attribute name index.
-                in.skipBytes(2);
-                // read and skip attribute length.
-                in.skipBytes(in.readInt());
-            }
+            skipAttributes();
         }
     }
 
+    /**
+     * Closes the underlying stream if there is one, buffers do not need to be closed.
+     *
+     * @throws IOException if an error occurs during the process of closing the stream.
+     */
+    private void close() throws IOException {
+        if(in instanceof Closeable)
+            ((Closeable) in).close();
+    }
+
     /**
      * Visitor? I barely know her!
      *
@@ -419,20 +766,31 @@ public final class ClassReader {
      * @param visitor the visitor for whom the class is partially or fully read.
      * @param read the flags used to determine what parts of the class should be read.
      *
-     * @throws IOException if an error occurs during the process of reading from the {@link DataInputStream}.
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
      *
      * @see IClassVisitor
      * @see #READ_HEAD
      * @see #READ_BODY
      * @see #READ_FIELDS
      * @see #READ_METHODS
+     * @see #LAZY_POOL
+     * @see #READ_HIERARCHY
+     * @see #STREAM_MEMBERS
+     * @see #KEEP_SOURCE
      */
     public void accept(IClassVisitor visitor, int read) throws IOException {
+        if((read & READ_HIERARCHY) != 0) {
+            assert(read == READ_HIERARCHY);
+            readHierarchy(visitor);
+            close();
+            return;
+        }
+
         assert((read & READ_HEAD) != 0 ||
                 ((read & READ_FIELDS) == 0 &&
                  (read & READ_METHODS) == 0));
         if((read & READ_HEAD) != 0) {
-            readHead();
+            readHead((read & LAZY_POOL) != 0, (read & KEEP_SOURCE) != 0);
             visitor.visitHead(minorVersion, majorVersion, constantPool);
         } else {
             // skip minor/major version
@@ -455,7 +813,7 @@ public final class ClassReader {
         }
 
         if((read & (READ_BODY | READ_FIELDS | READ_METHODS)) == 0) {
-            in.close();
+            close();
             return;
         }
 
@@ -472,29 +830,38 @@ public final class ClassReader {
             // skip accessFlags, thisClass and superClass.
             in.skipBytes(6);
             // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.1-200-H
-            // skip interfaces.
-            in.skipBytes(in.readUnsignedShort());
+            // skip interfaces, each of them is a u2 pointer into the constant pool.
+            in.skipBytes(in.readUnsignedShort() << 1);
         }
 
         if((read & (READ_FIELDS | READ_METHODS | READ_FOOTER)) == 0) {
-            in.close();
+            close();
             return;
         }
 
+        final boolean stream = (read & STREAM_MEMBERS) != 0;
         if((read & (READ_FIELDS)) != 0) {
-            readFields();
-            visitor.visitFields(fields);
+            if(stream)
+                streamFieldMethods(visitor, true);
+            else {
+                readFields();
+                visitor.visitFields(fields);
+            }
         } else
             skipFieldMethods();
 
         if((read & (READ_METHODS | READ_FOOTER)) == 0) {
-            in.close();
+            close();
             return;
         }
 
         if((read & READ_METHODS) != 0) {
-            readMethods();
-            visitor.visitMethods(methods);
+            if(stream)
+                streamFieldMethods(visitor, false);
+            else {
+                readMethods();
+                visitor.visitMethods(methods);
+            }
         } else
             skipFieldMethods();
 
@@ -503,6 +870,6 @@ public final class ClassReader {
             visitor.visitFooter(attributes);
         }
 
-        in.close();
+        close();
     }
 }
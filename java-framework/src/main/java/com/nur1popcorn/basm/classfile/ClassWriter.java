@@ -19,19 +19,156 @@
 package com.nur1popcorn.basm.classfile;
 
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeStackMapTable;
+import com.nur1popcorn.basm.classfile.attributes.method.stackmap.FrameComputer;
+import com.nur1popcorn.basm.classfile.attributes.method.stackmap.ISuperClassResolver;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
+import com.nur1popcorn.basm.classfile.tree.methods.MaxsComputer;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+import com.nur1popcorn.basm.utils.FixedByteArrayOutputStream;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
 import static com.nur1popcorn.basm.Constants.MAGIC;
 
+/**
+ * The {@link ClassWriter} writes the JavaClass visited to a {@link DataOutputStream}.
+ * <p>Using {@link #COPY_UNMODIFIED} the fields and methods which have not been modified are copied as they
+ *    were read instead of being encoded again, given that the {@link ConstantPool} read is kept as is.</p>
+ * <p>A {@link ClassWriter} constructed without a {@link DataOutputStream} keeps the parts visited until the
+ *    footer is visited, it then computes the exact size of the JavaClass and writes it into a single array of
+ *    that size which is returned by {@link #toByteArray()}.</p>
+ *
+ * @see ClassReader
+ * @see IClassVisitor
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
 public final class ClassWriter implements IClassVisitor {
-    private final DataOutputStream out;
+    /**
+     * <p>Enables copying the {@link ConstantPool}, fields, methods and attributes which have not been
+     *    modified as they were read from a {@link ClassReader} reading a buffer.</p>
+     * <p>Fields and methods are only copied if the {@link ConstantPool} visited is the unmodified
+     *    {@link ConstantPool} they were read with. The {@link ClassReader} must keep the parts read using
+     *    {@link ClassReader#KEEP_SOURCE}, or read the {@link ConstantPool} using
+     *    {@link ClassReader#LAZY_POOL}, otherwise everything is encoded again.</p>
+     *
+     * @see FieldMethodInfo#getSource()
+     * @see ConstantPool#getSource()
+     */
+    public static final int COPY_UNMODIFIED = 0x1;
+
+    /**
+     * <p>Enables computing the {@link AttributeStackMapTable} of every method of a JavaClass whose major version
+     *    is 50 or greater, which is only supported when writing to an array.</p>
+     * <p>The classes referenced by the frames are added to the {@link ConstantPool}, which is why neither the
+     *    {@link ConstantPool} nor the methods are copied.</p>
+     *
+     * @see FrameComputer
+     */
+    public static final int COMPUTE_FRAMES = 0x2;
+
+    /**
+     * <p>Enables computing the 'max_stack' and 'max_locals' of every method's code, which is why the methods
+     *    are not copied. The maxs are computed before the frames.</p>
+     *
+     * @see MaxsComputer
+     */
+    public static final int COMPUTE_MAXS = 0x4;
+
+    /**
+     * <p>Enables dropping the entries of the {@link ConstantPool} which are not referenced once the JavaClass
+     *    has been written, which is only supported when writing to an array. The remaining entries are
+     *    renumbered and every reference to them is patched, the {@link ConstantPool} visited is not modified.</p>
+     * <p>A JavaClass containing an attribute whose layout is unknown is written as is.</p>
+     *
+     * @see ConstantPoolCompactor
+     * @see ConstantPoolGenerator#compact(int[], int[])
+     */
+    public static final int COMPACT_POOL = 0x8;
+
+    private DataOutputStream out;
+
+    private final int flags;
+
+    private final ISuperClassResolver resolver;
 
     private ConstantPool constantPool;
 
+    /* Whether or not the constant pool has been copied, which is required in order to copy fields and methods.
+     */
+    private boolean copy;
+
+    /* The parts visited which are kept until the footer is visited if no DataOutputStream was provided.
+     */
+    private int minorVersion,
+                majorVersion;
+    private int access,
+                thisClass,
+                superClass,
+                interfaces[];
+    private FieldMethodInfo fields[],
+                            methods[];
+
+    /* The array the JavaClass has been written to, null if the footer has not been visited yet.
+     */
+    private byte clazz[];
+
     public ClassWriter(DataOutputStream out) {
+        this(out, 0);
+    }
+
+    /**
+     * @param out the {@link DataOutputStream} to which the JavaClass should be written.
+     * @param flags the flags used to determine how the JavaClass should be written.
+     *
+     * @see #COPY_UNMODIFIED
+     * @see #COMPUTE_MAXS
+     */
+    public ClassWriter(DataOutputStream out, int flags) {
+        this(out, flags, null);
+    }
+
+    private ClassWriter(DataOutputStream out, int flags, ISuperClassResolver resolver) {
+        if((flags & COMPUTE_FRAMES) != 0 && (out != null || resolver == null))
+            throw new IllegalArgumentException("Frames can only be computed when writing to an array using a resolver.");
+        if((flags & COMPACT_POOL) != 0 && out != null)
+            throw new IllegalArgumentException("The constant pool can only be compacted when writing to an array.");
         this.out = out;
+        this.flags = flags;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Constructs a new {@link ClassWriter} writing the JavaClass to an array of the exact size required.
+     *
+     * @param flags the flags used to determine how the JavaClass should be written.
+     *
+     * @see #toByteArray()
+     * @see #COPY_UNMODIFIED
+     * @see #COMPACT_POOL
+     */
+    public ClassWriter(int flags) {
+        this(null, flags, null);
+    }
+
+    /**
+     * Constructs a new {@link ClassWriter} writing the JavaClass to an array of the exact size required.
+     *
+     * @param flags the flags used to determine how the JavaClass should be written.
+     * @param resolver the {@link ISuperClassResolver} used to merge object types when computing frames.
+     *
+     * @see #toByteArray()
+     * @see #COMPUTE_FRAMES
+     */
+    public ClassWriter(int flags, ISuperClassResolver resolver) {
+        this(null, flags, resolver);
     }
 
     /**
@@ -39,14 +176,26 @@ public final class ClassWriter implements IClassVisitor {
      */
     @Override
     public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) throws IOException {
+        this.constantPool = constantPool;
+        final ByteBufferDataInput source = constantPool.getSource();
+        copy = (flags & COPY_UNMODIFIED) != 0 &&
+               source != null;
+        if(out == null) {
+            this.minorVersion = minorVersion;
+            this.majorVersion = majorVersion;
+            return;
+        }
+
         // write out file header 0xcafebabe.
         out.writeInt(MAGIC);
 
         out.writeShort(minorVersion);
         out.writeShort(majorVersion);
 
-        (this.constantPool = constantPool)
-            .write(out);
+        if(copy)
+            source.writeTo(out, 0, source.size());
+        else
+            constantPool.write(out);
     }
 
     /**
@@ -54,6 +203,14 @@ public final class ClassWriter implements IClassVisitor {
      */
     @Override
     public void visitBody(int access, int thisClass, int superClass, int[] interfaces) throws IOException {
+        if(out == null) {
+            this.access = access;
+            this.thisClass = thisClass;
+            this.superClass = superClass;
+            this.interfaces = interfaces;
+            return;
+        }
+
         out.writeShort(access);
 
         out.writeShort(thisClass);
@@ -64,14 +221,58 @@ public final class ClassWriter implements IClassVisitor {
             out.writeShort(index);
     }
 
+    /**
+     * @param info the field or method which should be written.
+     *
+     * @return the field's or method's source if it can be copied, null otherwise.
+     */
+    private ByteBufferDataInput copyable(FieldMethodInfo info) {
+        return copy && info.getConstantPool() == constantPool ?
+            info.getSource() : null;
+    }
+
+    /**
+     * Writes the given field or method, unmodified ones are copied if possible.
+     *
+     * @param info the field or method which should be written.
+     *
+     * @throws IOException if an error occurs during the process of writing to the {@link DataOutputStream}.
+     */
+    private void write(FieldMethodInfo info) throws IOException {
+        final ByteBufferDataInput source = copyable(info);
+        if(source != null)
+            source.writeTo(out, 0, source.size());
+        else
+            info.write(out);
+    }
+
+    /**
+     * @param infos the fields or methods whose size should be computed.
+     *
+     * @return the number of bytes the fields or methods occupy including their length.
+     */
+    private int computeSize(FieldMethodInfo infos[]) {
+        int size = 2 /* u2 length */;
+        for(FieldMethodInfo info : infos) {
+            final ByteBufferDataInput source = copyable(info);
+            size += source != null ?
+                source.size() : info.computeSize();
+        }
+        return size;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void visitFields(FieldMethodInfo[] fields) throws IOException {
+        if(out == null) {
+            this.fields = fields;
+            return;
+        }
         out.writeShort(fields.length);
         for(FieldMethodInfo fieldInfo : fields)
-            fieldInfo.write(out);
+            write(fieldInfo);
     }
 
     /**
@@ -79,9 +280,22 @@ public final class ClassWriter implements IClassVisitor {
      */
     @Override
     public void visitMethods(FieldMethodInfo[] methods) throws IOException {
+        if((flags & COMPUTE_MAXS) != 0)
+            methods = computeMaxs(methods);
+        if(out == null) {
+            this.methods = methods;
+            return;
+        }
+        writeMethods(methods);
+    }
+
+    /* Writes the methods as they are, the maxs of methods kept until the footer is visited have already been
+     * computed and must not be recomputed after their frames have been computed.
+     */
+    private void writeMethods(FieldMethodInfo methods[]) throws IOException {
         out.writeShort(methods.length);
         for(FieldMethodInfo methodInfo : methods)
-            methodInfo.write(out);
+            write(methodInfo);
     }
 
     /**
@@ -89,8 +303,125 @@ public final class ClassWriter implements IClassVisitor {
      */
     @Override
     public void visitFooter(AttributeInfo[] attributes) throws IOException {
+        if(out != null) {
+            writeFooter(attributes);
+            return;
+        }
+        if(constantPool == null || interfaces == null || fields == null || methods == null)
+            throw new IllegalStateException("The head, body, fields and methods must be visited before the footer.");
+        if((flags & COMPUTE_FRAMES) != 0 && majorVersion >= 50)
+            computeFrames();
+
+        final ByteBufferDataInput source = constantPool.getSource();
+        int size = 8 /* u4 magic, u2 minor version, u2 major version */ +
+                   (copy ? source.size() : constantPool.computeSize()) +
+                   8 /* u2 access, u2 this class, u2 super class, u2 interfaces length */ +
+                   (interfaces.length << 1) +
+                   computeSize(fields) +
+                   computeSize(methods) +
+                   2 /* u2 attributes length */;
+        for(AttributeInfo attribute : attributes)
+            size += attribute.computeSize();
+
+        final FixedByteArrayOutputStream buffer = new FixedByteArrayOutputStream(size);
+        out = new DataOutputStream(buffer);
+        try {
+            visitHead(minorVersion, majorVersion, constantPool);
+            visitBody(access, thisClass, superClass, interfaces);
+            visitFields(fields);
+            writeMethods(methods);
+            writeFooter(attributes);
+            clazz = (flags & COMPACT_POOL) != 0 ?
+                ConstantPoolCompactor.compact(buffer.toByteArray()) :
+                buffer.toByteArray();
+        } finally {
+            out = null;
+        }
+    }
+
+    /**
+     * @param methods the methods whose maxs should be computed, they are not modified.
+     *
+     * @throws IOException if an error occurs during the process of reading a method's code.
+     * @return a copy of the methods whose code has been replaced with a copy whose maxs have been computed.
+     */
+    private FieldMethodInfo[] computeMaxs(FieldMethodInfo methods[]) throws IOException {
+        final MaxsComputer computer = new MaxsComputer(constantPool);
+        methods = methods.clone();
+        for(int i = 0; i < methods.length; i++) {
+            final FieldMethodInfo method = methods[i];
+            final AttributeCode code = method.findCode();
+            if(code == null)
+                continue;
+            final ConstantUTF8 desc = constantPool.getEntry(method.getDescIndex(), CONSTANT_UTF8);
+            methods[i] = replaceCode(method, computer.compute(method.getAccessFlags(), desc.getBytes(), code), constantPool);
+        }
+        return methods;
+    }
+
+    /**
+     * @param method the method whose code should be replaced, it is not modified.
+     * @param code the code which should replace the method's code.
+     * @param constantPool the {@link ConstantPool} the new method is indexing.
+     *
+     * @return a copy of the method whose code has been replaced.
+     */
+    private static FieldMethodInfo replaceCode(FieldMethodInfo method, AttributeCode code, ConstantPool constantPool) {
+        final AttributeInfo attributes[] = method.getAttributes().clone();
+        for(int j = 0; j < attributes.length; j++)
+            if("Code".equals(attributes[j].indexName(constantPool).getBytes()))
+                attributes[j] = code;
+        return new FieldMethodInfo(
+            method.getAccessFlags(),
+            method.getNameIndex(),
+            method.getDescIndex(),
+            attributes,
+            constantPool
+        );
+    }
+
+    /**
+     * Replaces the code of every method with a copy whose frames have been computed.
+     */
+    private void computeFrames() {
+        final ConstantPoolGenerator generator = constantPool instanceof ConstantPoolGenerator ?
+            (ConstantPoolGenerator) constantPool :
+            new ConstantPoolGenerator(constantPool.getEntries().clone());
+        final String owner = ((ConstantName) generator.getEntry(thisClass))
+            .indexName(generator)
+            .getBytes();
+        final FrameComputer computer = new FrameComputer(owner, generator, resolver);
+        methods = methods.clone();
+        for(int i = 0; i < methods.length; i++) {
+            final FieldMethodInfo method = methods[i];
+            final AttributeCode code = method.findCode();
+            if(code == null)
+                continue;
+            final ConstantUTF8 name = generator.getEntry(method.getNameIndex(), CONSTANT_UTF8),
+                               desc = generator.getEntry(method.getDescIndex(), CONSTANT_UTF8);
+            methods[i] = replaceCode(method, computer.compute(method.getAccessFlags(), name.getBytes(), desc.getBytes(), code), generator);
+        }
+        generator.trimToSize();
+        constantPool = generator;
+        // the constant pool read is no longer the one written.
+        copy = false;
+    }
+
+    private void writeFooter(AttributeInfo attributes[]) throws IOException {
         out.writeShort(attributes.length);
         for(AttributeInfo attribute : attributes)
             attribute.write(out, constantPool);
     }
+
+    /**
+     * @throws IllegalStateException if the {@link ClassWriter} was constructed with a {@link DataOutputStream}
+     *                               or its footer has not been visited yet.
+     *
+     * @return the JavaClass written, the array is not copied.
+     */
+    public byte[] toByteArray() {
+        if(clazz == null)
+            throw new IllegalStateException("The JavaClass has not been written to an array.");
+        return clazz;
+    }
 }
@@ -18,17 +18,25 @@
 
 package com.nur1popcorn.basm.classfile;
 
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.IAttributeFactory;
 import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
 import com.nur1popcorn.basm.classfile.constants.IConstantPoolPointer;
 import com.nur1popcorn.basm.classfile.constants.IConstantVisitor;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import static com.nur1popcorn.basm.Constants.CONSTANT_DOUBLE;
 import static com.nur1popcorn.basm.Constants.CONSTANT_LONG;
+import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
+import static com.nur1popcorn.basm.classfile.ClassReader.CONSTANT_INFO_SKIP_TABLE;
 
 /**
  * <p>
@@ -50,12 +58,21 @@ import static com.nur1popcorn.basm.Constants.CONSTANT_LONG;
  *         </a>
  *     </li>
  * </ul>
+ * <p>
+ *    The table may also be read lazily, in which case only the offsets of the entries are recorded and
+ *    the entries are decoded once they are first requested.
+ * </p>
+ * <p>
+ *    A {@link ConstantPool} is not thread-safe, requesting entries which have not been decoded yet modifies
+ *    the table and attaches the entries decoded.
+ * </p>
  *
  * @see ConstantInfo
  * @see IConstantVisitor
  * @see ClassReader
  *
- * @see #read(DataInputStream)
+ * @see #read(DataInput)
+ * @see #readLazy(DataInput)
  * @see #write(DataOutputStream)
  *
  * @see #accept(IConstantVisitor)
@@ -69,6 +86,20 @@ public class ConstantPool implements Iterable<ConstantInfo> {
      */
     protected ConstantInfo cpEntries[];
 
+    /* The raw constant pool including its length, exactly as it was read, or null if it is not kept. Entries
+     * which have not been decoded yet are decoded on demand using the table of offsets into it, one for every
+     * entry, pointing at the entry's tag. The 1st and every entry following a 'CONSTANT_Long' or
+     * 'CONSTANT_Double' have an offset of 0. The table is null once all entries have been decoded.
+     */
+    private ByteBufferDataInput source;
+    private int offsets[];
+
+    /* A cache of the attribute factories resolved for the attribute names, indexed by the names' indices.
+     * The 'CONSTANT_Utf8s' the factories were resolved for are kept in order to detect modifications.
+     */
+    private ConstantUTF8 attributeNames[];
+    private IAttributeFactory attributeFactories[];
+
     /**
      * @param cpEntries The table representing the various constants embedded into the class file. The 1st and
      *                  every entry following a 'CONSTANT_Long' or 'CONSTANT_Double' are expected to be null.
@@ -84,14 +115,32 @@ public class ConstantPool implements Iterable<ConstantInfo> {
     {}
 
     /**
-     * Reads the {@link ConstantPool}'s length and entries from the given {@link DataInputStream}.
+     * Reads the {@link ConstantPool}'s length and entries from the given {@link DataInput}, the raw
+     * {@link ConstantPool} is not kept.
+     *
+     * @param in The {@link DataInput} from which the {@link ConstantPool} should be read.
+     * @throws IOException If an error occurs during the process of reading from the {@link DataOutputStream}.
+     *
+     * @see #read(DataInput, boolean)
+     */
+    public final void read(DataInput in) throws IOException {
+        read(in, false);
+    }
+
+    /**
+     * Reads the {@link ConstantPool}'s length and entries from the given {@link DataInput}.
      *
-     * @param in The {@link DataInputStream} from which the {@link ConstantPool} should be read.
+     * @param in The {@link DataInput} from which the {@link ConstantPool} should be read.
+     * @param keepSource Whether or not the raw {@link ConstantPool} should be kept if it is read from a
+     *                   {@link ByteBufferDataInput}, which keeps the buffer alive.
      * @throws IOException If an error occurs during the process of reading from the {@link DataOutputStream}.
      *
-     * @see ConstantInfo#read(DataInputStream)
+     * @see ConstantInfo#read(DataInput)
+     * @see #getSource()
      */
-    public final void read(DataInputStream in) throws IOException {
+    public final void read(DataInput in, boolean keepSource) throws IOException {
+        final int start = keepSource && in instanceof ByteBufferDataInput ?
+            ((ByteBufferDataInput) in).position() : -1;
         final int cpSize = in.readUnsignedShort();
         cpEntries = new ConstantInfo[cpSize];
         for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
@@ -115,6 +164,153 @@ public class ConstantPool implements Iterable<ConstantInfo> {
                tag == CONSTANT_DOUBLE)
                 i++ /* padding */;
         }
+
+        if(start != -1) {
+            final ByteBufferDataInput bin = (ByteBufferDataInput) in;
+            source = bin.slice(start, bin.position() - start);
+        }
+    }
+
+    /**
+     * Reads the {@link ConstantPool}'s length and records the offsets of its entries, the entries themselves
+     * are decoded when they are first requested using {@link #getEntry(int)}. If the {@link DataInput}
+     * provided is not a {@link ByteBufferDataInput} the raw constant pool is copied.
+     *
+     * @param in The {@link DataInput} from which the {@link ConstantPool} should be read.
+     * @throws IOException If an error occurs during the process of reading from the {@link DataInput}.
+     *
+     * @see #getEntry(int)
+     */
+    public final void readLazy(DataInput in) throws IOException {
+        if(in instanceof ByteBufferDataInput) {
+            final ByteBufferDataInput bin = (ByteBufferDataInput) in;
+            final int start = bin.position();
+            final int cpSize = bin.readUnsignedShort();
+            cpEntries = new ConstantInfo[cpSize];
+            offsets = new int[cpSize];
+            for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
+                offsets[i] = bin.position() - start;
+                final byte tag = bin.readByte();
+                final int size;
+                if(tag == CONSTANT_UTF8)
+                    size = bin.readUnsignedShort();
+                else {
+                    size = skipSize(tag);
+                    // longs and doubles take up 2 spaces in the constant pool.
+                    if(tag == CONSTANT_LONG ||
+                       tag == CONSTANT_DOUBLE)
+                        i++ /* padding */;
+                }
+                if(bin.skipBytes(size) != size)
+                    throw new EOFException("The constant pool exceeds the class provided.");
+            }
+            source = bin.slice(start, bin.position() - start);
+        } else {
+            final int cpSize = in.readUnsignedShort();
+            cpEntries = new ConstantInfo[cpSize];
+            offsets = new int[cpSize];
+            byte raw[] = new byte[Math.max(0x10, cpSize * 8)];
+            raw[0] = (byte) (cpSize >>> 8);
+            raw[1] = (byte) cpSize;
+            int length = 2;
+            for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
+                offsets[i] = length;
+                final byte tag = in.readByte();
+                final int size;
+                if(tag == CONSTANT_UTF8)
+                    size = 2 + in.readUnsignedShort();
+                else {
+                    size = skipSize(tag);
+                    // longs and doubles take up 2 spaces in the constant pool.
+                    if(tag == CONSTANT_LONG ||
+                       tag == CONSTANT_DOUBLE)
+                        i++ /* padding */;
+                }
+                if(length + 1 + size > raw.length)
+                    raw = Arrays.copyOf(raw, Math.max(raw.length << 1, length + 1 + size));
+                raw[length++] = tag;
+                if(tag == CONSTANT_UTF8) {
+                    raw[length++] = (byte) ((size - 2) >>> 8);
+                    raw[length++] = (byte) (size - 2);
+                    in.readFully(raw, length, size - 2);
+                    length += size - 2;
+                } else {
+                    in.readFully(raw, length, size);
+                    length += size;
+                }
+            }
+            source = new ByteBufferDataInput(raw, 0, length);
+        }
+    }
+
+    /**
+     * @param tag The tag of a 'CONSTANT_Info' which is not a 'CONSTANT_Utf8'.
+     *
+     * @throws IOException If the tag is invalid.
+     * @return The size of the 'CONSTANT_Info's' contents excluding the tag.
+     */
+    static int skipSize(byte tag) throws IOException {
+        final int size = tag > 0 && tag < CONSTANT_INFO_SKIP_TABLE.length ?
+            CONSTANT_INFO_SKIP_TABLE[tag] : -1;
+        if(size < 0)
+            throw new IOException("Invalid constant pool entry tag: " + Integer.toHexString(tag));
+        return size;
+    }
+
+    /**
+     * Decodes the lazily read 'CONSTANT_Info' at the given index and attaches it to the {@link ConstantPool}.
+     *
+     * @param index The index of the 'CONSTANT_Info' which should be decoded.
+     * @return The decoded 'CONSTANT_Info'.
+     */
+    private ConstantInfo decode(int index) {
+        final ConstantInfo info;
+        try {
+            // the entry is read from its own slice, the source's cursor is never moved.
+            final int offset = offsets[index];
+            info = ConstantInfo.read(source.slice(offset, source.size() - offset));
+        } catch(IOException e) {
+            throw new MalformedClassFileException(
+                "The CONSTANT_Info at index: index=" + index + " could not be read", e);
+        }
+        cpEntries[index] = info;
+        // the referenced entries are decoded whilst attaching.
+        if(info instanceof IConstantPoolPointer)
+            ((IConstantPoolPointer) info)
+                .attach(this);
+        return info;
+    }
+
+    /**
+     * Decodes all entries which have not been requested yet.
+     */
+    private void decodeAll() {
+        if(offsets == null)
+            return;
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpEntries.length; i++)
+            if(cpEntries[i] == null && offsets[i] != 0)
+                decode(i);
+        offsets = null;
+    }
+
+    /**
+     * Get the tag of the 'CONSTANT_Info' at the given offset without decoding it.
+     *
+     * @param index The index of the 'CONSTANT_Info' whose tag should be returned.
+     * @throws MalformedClassFileException If the index is out of bounds.
+     * @return The tag of the constant pool entry at the given index or 0 if there is no entry.
+     */
+    public final byte getTag(int index) throws MalformedClassFileException {
+        if(index < 0 || index >= cpEntries.length)
+            throw new MalformedClassFileException(
+                "Index out of bounds: index=" + index +
+                ", length=" + cpEntries.length
+            );
+        final ConstantInfo info = cpEntries[index];
+        if(info != null)
+            return info.getTag();
+        return offsets != null && offsets[index] != 0 ?
+            source.readByte(offsets[index]) : 0;
     }
 
     /**
@@ -124,6 +320,7 @@ public class ConstantPool implements Iterable<ConstantInfo> {
      * @throws IOException If an error occurs during the process of writing to the {@link DataOutputStream}.
      */
     public final void write(DataOutputStream os) throws IOException {
+        decodeAll();
         os.writeShort(cpEntries.length);
         for(int i = 1 /* the cp's size is 1 less than given */; i < cpEntries.length; i++) {
             final ConstantInfo info = cpEntries[i];
@@ -137,6 +334,38 @@ public class ConstantPool implements Iterable<ConstantInfo> {
         os.flush();
     }
 
+    /**
+     * Computes the number of bytes written by {@link #write(DataOutputStream)} without decoding the entries
+     * which have not been requested yet.
+     *
+     * @throws IOException If an entry which has not been decoded yet has an invalid tag.
+     * @return The size of the {@link ConstantPool}'s length and entries.
+     */
+    public final int computeSize() throws IOException {
+        int size = 2 /* u2 length */;
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpEntries.length; i++) {
+            final ConstantInfo info = cpEntries[i];
+            final byte tag;
+            if(info != null) {
+                tag = info.getTag();
+                size += tag == CONSTANT_UTF8 ?
+                    3 + ((ConstantUTF8) info).getRawLength() :
+                    1 + skipSize(tag);
+            } else if(offsets != null && offsets[i] != 0) {
+                tag = source.readByte(offsets[i]);
+                size += tag == CONSTANT_UTF8 ?
+                    3 + source.readUnsignedShort(offsets[i] + 1) :
+                    1 + skipSize(tag);
+            } else
+                continue;
+            // longs and doubles take up 2 spaces in the constant pool.
+            if(tag == CONSTANT_LONG ||
+               tag == CONSTANT_DOUBLE)
+                i++ /* padding */;
+        }
+        return size;
+    }
+
     /**
      * Accepts a {@link IConstantVisitor}, transverses the {@link ConstantPool} and calls the
      * for the 'CONSTANT_Info' appropriate 'visitXXX()' methods to notify the visitor of
@@ -145,6 +374,7 @@ public class ConstantPool implements Iterable<ConstantInfo> {
      * @param visitor The {@link IConstantVisitor} whose callbacks will be invoked.
      */
     public final void accept(IConstantVisitor visitor) {
+        decodeAll();
         for(int i = 1 /* the cp's size is 1 less than given */; i < cpEntries.length; i++) {
             final ConstantInfo info = cpEntries[i];
             info.accept(visitor);
@@ -169,7 +399,10 @@ public class ConstantPool implements Iterable<ConstantInfo> {
                 "Index out of bounds: index=" + index +
                 ", length=" + cpEntries.length
             );
-        return cpEntries[index];
+        final ConstantInfo info = cpEntries[index];
+        if(info == null && offsets != null && offsets[index] != 0)
+            return decode(index);
+        return info;
     }
 
     /**
@@ -202,10 +435,45 @@ public class ConstantPool implements Iterable<ConstantInfo> {
         return (T) info;
     }
 
+    /**
+     * Get the factory registered for the attribute whose name is located at the given offset, the result is
+     * cached for each index.
+     *
+     * @param nameIndex The index of the 'CONSTANT_Utf8' representing the attribute's name.
+     * @throws MalformedClassFileException If the 'CONSTANT_Info' at the given offset is not a 'CONSTANT_Utf8'.
+     * @return The factory registered for the attribute or null if the attribute is unknown.
+     *
+     * @see AttributeInfo#getFactory(String)
+     */
+    public final IAttributeFactory getAttributeFactory(int nameIndex) {
+        final ConstantUTF8 name = getEntry(nameIndex, CONSTANT_UTF8);
+        if(attributeNames == null || attributeNames.length <= nameIndex) {
+            attributeNames = new ConstantUTF8[cpEntries.length];
+            attributeFactories = new IAttributeFactory[cpEntries.length];
+        }
+        if(attributeNames[nameIndex] != name) {
+            attributeFactories[nameIndex] = AttributeInfo.getFactory(name.getBytes());
+            attributeNames[nameIndex] = name;
+        }
+        return attributeFactories[nameIndex];
+    }
+
+    /**
+     * @return The raw constant pool including its length, exactly as it was read or null if the
+     *         {@link ConstantPool} was read eagerly without keeping it or not read from a
+     *         {@link ByteBufferDataInput}.
+     *
+     * @see #read(DataInput, boolean)
+     */
+    public final ByteBufferDataInput getSource() {
+        return source;
+    }
+
     /**
      * @return The constant pool.
      */
     public final ConstantInfo[] getEntries() {
+        decodeAll();
         return cpEntries;
     }
 
@@ -243,6 +511,7 @@ public class ConstantPool implements Iterable<ConstantInfo> {
     public String toString() {
         final StringBuilder stringBuilder = new StringBuilder()
             .append("ConstantPool[");
+        decodeAll();
         if(cpEntries.length != 0) {
             stringBuilder.append(cpEntries[0]);
             for(int i = 1; i < cpEntries.length; i++)
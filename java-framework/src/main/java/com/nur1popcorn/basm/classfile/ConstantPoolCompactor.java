@@ -0,0 +1,485 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile;
+
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+import com.nur1popcorn.basm.utils.ByteDataInputStream;
+import com.nur1popcorn.basm.utils.FixedByteArrayOutputStream;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.nur1popcorn.basm.Constants.*;
+
+/**
+ * The {@link ConstantPoolCompactor} drops the entries of a JavaClass' {@link ConstantPool} which are not
+ * referenced and renumbers the remaining ones using {@link ConstantPoolGenerator#compact(int[], int[])}.
+ * <p>The JavaClass is compacted after it has been written, which is why every reference into the
+ * {@link ConstantPool} is found by walking the JavaClass' bytes and patched in place, no matter whether it is
+ * stored by an attribute, an instruction or the JavaClass itself. Entries loaded by 'ldc' keep an index which
+ * fits into a single byte, so the code's length never changes.</p>
+ * <p>A JavaClass containing an attribute whose layout is unknown is not compacted, since the references it
+ * may contain can not be found.</p>
+ *
+ * @see ClassWriter#COMPACT_POOL
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+final class ConstantPoolCompactor {
+    private final byte clazz[];
+
+    /* The position of the byte currently walked.
+     */
+    private int position;
+
+    private final ConstantInfo cpEntries[];
+
+    /* The positions of the u2 and u1 references found, the number of references to every entry and the
+     * number of those which are loaded by 'ldc'.
+     */
+    private int wideReferences[] = new int[0x100],
+                wideCount;
+    private int narrowReferences[] = new int[0x10],
+                narrowCount;
+    private final int references[],
+                      loads[];
+
+    private ConstantPoolCompactor(byte clazz[], ConstantInfo cpEntries[], int position) {
+        this.clazz = clazz;
+        this.cpEntries = cpEntries;
+        this.position = position;
+        references = new int[cpEntries.length];
+        loads = new int[cpEntries.length];
+    }
+
+    /**
+     * @param clazz The JavaClass whose {@link ConstantPool} should be compacted, it is not modified.
+     *
+     * @throws IOException If an error occurs during the process of reading the {@link ConstantPool}.
+     * @throws MalformedClassFileException If a reference into the {@link ConstantPool} is invalid.
+     * @return The compacted JavaClass or the given one if it contains an attribute whose layout is unknown.
+     */
+    static byte[] compact(byte clazz[]) throws IOException {
+        final ByteBufferDataInput in = new ByteBufferDataInput(clazz);
+        in.position(8 /* u4 magic, u2 minor version, u2 major version */);
+        final ConstantPool constantPool = new ConstantPool();
+        constantPool.read(in);
+        final ConstantPoolCompactor compactor = new ConstantPoolCompactor(clazz, constantPool.getEntries(), in.position());
+        final int poolEnd = compactor.position;
+        if(!compactor.walkClass())
+            return clazz;
+        if(compactor.position != clazz.length)
+            throw new MalformedClassFileException("The JavaClass has trailing bytes.");
+
+        final ConstantPoolGenerator generator = new ConstantPoolGenerator(compactor.cpEntries);
+        final int indices[] = generator.compact(compactor.references, compactor.loads);
+        generator.trimToSize();
+
+        final FixedByteArrayOutputStream buffer = new FixedByteArrayOutputStream(8 + generator.computeSize() + clazz.length - poolEnd);
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.write(clazz, 0, 8);
+        generator.write(out);
+        out.write(clazz, poolEnd, clazz.length - poolEnd);
+        final byte compacted[] = buffer.toByteArray();
+        // the references following the constant pool are moved by the difference in size.
+        final int offset = compacted.length - clazz.length;
+        for(int i = 0; i < compactor.wideCount; i++) {
+            final int at = compactor.wideReferences[i];
+            final int index = indices[(clazz[at] & 0xff) << 8 | clazz[at + 1] & 0xff];
+            compacted[at + offset] = (byte) (index >>> 8);
+            compacted[at + offset + 1] = (byte) index;
+        }
+        for(int i = 0; i < compactor.narrowCount; i++) {
+            final int at = compactor.narrowReferences[i];
+            final int index = indices[clazz[at] & 0xff];
+            if(index > 0xff)
+                throw new IllegalStateException("The entry loaded by 'ldc' was moved to index=" + index + ".");
+            compacted[at + offset] = (byte) index;
+        }
+        return compacted;
+    }
+
+    private int u1() {
+        if(position >= clazz.length)
+            throw new MalformedClassFileException("The JavaClass ends unexpectedly.");
+        return clazz[position++] & 0xff;
+    }
+
+    private int u2() {
+        return u1() << 8 | u1();
+    }
+
+    private int u4() {
+        return u2() << 16 | u2();
+    }
+
+    private void skip(int length) {
+        if(length < 0 || length > clazz.length - position)
+            throw new MalformedClassFileException("The JavaClass ends unexpectedly.");
+        position += length;
+    }
+
+    /**
+     * Records the u2 reference at the current position and skips it.
+     *
+     * @param optional Whether or not the reference may be 0.
+     *
+     * @return The index referenced.
+     */
+    private int reference(boolean optional) {
+        final int at = position;
+        final int index = u2();
+        if(index == 0 && optional)
+            return 0;
+        check(index);
+        if(wideCount == wideReferences.length)
+            wideReferences = Arrays.copyOf(wideReferences, wideCount << 1);
+        wideReferences[wideCount++] = at;
+        references[index]++;
+        return index;
+    }
+
+    private int reference() {
+        return reference(false);
+    }
+
+    /**
+     * Records the u1 reference of an 'ldc' at the current position and skips it.
+     */
+    private void load() {
+        final int at = position;
+        final int index = u1();
+        check(index);
+        if(narrowCount == narrowReferences.length)
+            narrowReferences = Arrays.copyOf(narrowReferences, narrowCount << 1);
+        narrowReferences[narrowCount++] = at;
+        references[index]++;
+        loads[index]++;
+    }
+
+    private void check(int index) {
+        if(index <= 0 || index >= cpEntries.length || cpEntries[index] == null)
+            throw new MalformedClassFileException("The reference to index=" + index + " is invalid.");
+    }
+
+    private void references(int count) {
+        for(int i = 0; i < count; i++)
+            reference();
+    }
+
+    /**
+     * @return Whether or not all references of the JavaClass could be found.
+     */
+    private boolean walkClass() throws IOException {
+        skip(2 /* u2 access */);
+        reference();
+        reference(true);
+        references(u2());
+        for(int members = 2 /* fields and methods */; members > 0; members--)
+            for(int i = u2(); i > 0; i--) {
+                skip(2 /* u2 access */);
+                reference();
+                reference();
+                if(!walkAttributes())
+                    return false;
+            }
+        return walkAttributes();
+    }
+
+    /**
+     * @return Whether or not all references of the attributes could be found.
+     */
+    private boolean walkAttributes() throws IOException {
+        for(int i = u2(); i > 0; i--) {
+            final ConstantInfo name = cpEntries[reference()];
+            if(!(name instanceof ConstantUTF8))
+                throw new MalformedClassFileException("The attribute's name is not a CONSTANT_Utf8.");
+            final int length = u4();
+            final int end = position + length;
+            if(!walkAttribute(((ConstantUTF8) name).getBytes(), length))
+                return false;
+            if(position != end)
+                throw new MalformedClassFileException(
+                    "The attribute=" + ((ConstantUTF8) name).getBytes() + " has an invalid length.");
+        }
+        return true;
+    }
+
+    /**
+     * @param name The attribute's name.
+     * @param length The attribute's length.
+     *
+     * @return Whether or not the attribute's layout is known.
+     */
+    private boolean walkAttribute(String name, int length) throws IOException {
+        switch(name) {
+            case "Synthetic":
+            case "Deprecated":
+            case "SourceDebugExtension":
+            case "LineNumberTable":
+                skip(length);
+                break;
+            case "ConstantValue":
+            case "Signature":
+            case "SourceFile":
+            case "ModuleMainClass":
+            case "NestHost":
+                reference();
+                break;
+            case "Exceptions":
+            case "ModulePackages":
+            case "NestMembers":
+                references(u2());
+                break;
+            case "Code":
+                return walkCode();
+            case "StackMapTable":
+                for(int i = u2(); i > 0; i--)
+                    walkFrame();
+                break;
+            case "InnerClasses":
+                for(int i = u2(); i > 0; i--) {
+                    reference();
+                    reference(true);
+                    reference(true);
+                    skip(2 /* u2 inner class access flags */);
+                }
+                break;
+            case "EnclosingMethod":
+                reference();
+                reference(true);
+                break;
+            case "LocalVariableTable":
+            case "LocalVariableTypeTable":
+                for(int i = u2(); i > 0; i--) {
+                    skip(4 /* u2 start pc, u2 length */);
+                    reference();
+                    reference();
+                    skip(2 /* u2 index */);
+                }
+                break;
+            case "BootstrapMethods":
+                for(int i = u2(); i > 0; i--) {
+                    reference();
+                    references(u2());
+                }
+                break;
+            case "MethodParameters":
+                for(int i = u1(); i > 0; i--) {
+                    reference(true);
+                    skip(2 /* u2 access flags */);
+                }
+                break;
+            case "Module":
+                walkModule();
+                break;
+            case "RuntimeVisibleAnnotations":
+            case "RuntimeInvisibleAnnotations":
+                walkAnnotations();
+                break;
+            case "RuntimeVisibleParameterAnnotations":
+            case "RuntimeInvisibleParameterAnnotations":
+                for(int i = u1(); i > 0; i--)
+                    walkAnnotations();
+                break;
+            case "RuntimeVisibleTypeAnnotations":
+            case "RuntimeInvisibleTypeAnnotations":
+                for(int i = u2(); i > 0; i--)
+                    walkTypeAnnotation();
+                break;
+            case "AnnotationDefault":
+                walkElementValue();
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether or not all references of the code and its attributes could be found.
+     */
+    private boolean walkCode() throws IOException {
+        skip(4 /* u2 max stack, u2 max locals */);
+        final int length = u4();
+        final int start = position;
+        skip(length);
+        final byte code[] = Arrays.copyOfRange(clazz, start, start + length);
+        final ByteDataInputStream in = new ByteDataInputStream(code);
+        while(in.position() < length) {
+            final int at = in.position();
+            switch(code[at]) {
+                case LDC:
+                    position = start + at + 1;
+                    load();
+                    break;
+                case LDC_W:
+                case LDC2_W:
+                case GETSTATIC:
+                case PUTSTATIC:
+                case GETFIELD:
+                case PUTFIELD:
+                case INVOKEVIRTUAL:
+                case INVOKESPECIAL:
+                case INVOKESTATIC:
+                case INVOKEINTERFACE:
+                case INVOKEDYNAMIC:
+                case NEW:
+                case ANEWARRAY:
+                case CHECKCAST:
+                case INSTANCEOF:
+                case MULTIANEWARRAY:
+                    position = start + at + 1;
+                    reference();
+                    break;
+            }
+            in.skipInstruction();
+        }
+        if(in.position() != length)
+            throw new MalformedClassFileException("The last instruction exceeds the code.");
+        position = start + length;
+
+        for(int i = u2(); i > 0; i--) {
+            skip(6 /* u2 start pc, u2 end pc, u2 handler pc */);
+            reference(true);
+        }
+        return walkAttributes();
+    }
+
+    private void walkFrame() {
+        final int type = u1();
+        if(type < 64 /* same */)
+            return;
+        if(type < 128 /* same locals 1 stack item */)
+            walkVerificationType();
+        else if(type == 247 /* same locals 1 stack item extended */) {
+            skip(2 /* u2 offset delta */);
+            walkVerificationType();
+        } else if(type >= 248 && type <= 251 /* chop, same extended */)
+            skip(2 /* u2 offset delta */);
+        else if(type >= 252 && type <= 254 /* append */) {
+            skip(2 /* u2 offset delta */);
+            for(int i = type - 251; i > 0; i--)
+                walkVerificationType();
+        } else if(type == 255 /* full */) {
+            skip(2 /* u2 offset delta */);
+            for(int i = u2(); i > 0; i--)
+                walkVerificationType();
+            for(int i = u2(); i > 0; i--)
+                walkVerificationType();
+        } else
+            throw new MalformedClassFileException("The frame type=" + type + " is invalid.");
+    }
+
+    private void walkVerificationType() {
+        final int tag = u1();
+        if(tag == 7 /* object */)
+            reference();
+        else if(tag == 8 /* uninitialized */)
+            skip(2 /* u2 offset */);
+    }
+
+    private void walkModule() {
+        reference();
+        skip(2 /* u2 module flags */);
+        reference(true);
+        for(int i = u2(); i > 0; i--) {
+            reference();
+            skip(2 /* u2 requires flags */);
+            reference(true);
+        }
+        for(int exportsOpens = 2 /* exports and opens */; exportsOpens > 0; exportsOpens--)
+            for(int i = u2(); i > 0; i--) {
+                reference();
+                skip(2 /* u2 flags */);
+                references(u2());
+            }
+        references(u2());
+        for(int i = u2(); i > 0; i--) {
+            reference();
+            references(u2());
+        }
+    }
+
+    private void walkAnnotations() {
+        for(int i = u2(); i > 0; i--)
+            walkAnnotation();
+    }
+
+    private void walkAnnotation() {
+        reference();
+        for(int i = u2(); i > 0; i--) {
+            reference();
+            walkElementValue();
+        }
+    }
+
+    private void walkTypeAnnotation() {
+        final int target = u1();
+        switch(target) {
+            case 0x00: case 0x01: case 0x16:
+                skip(1);
+                break;
+            case 0x10: case 0x11: case 0x12: case 0x17:
+            case 0x42: case 0x43: case 0x44: case 0x45: case 0x46:
+                skip(2);
+                break;
+            case 0x13: case 0x14: case 0x15:
+                break;
+            case 0x40: case 0x41:
+                skip(u2() * 6 /* u2 start pc, u2 length, u2 index */);
+                break;
+            case 0x47: case 0x48: case 0x49: case 0x4a: case 0x4b:
+                skip(3);
+                break;
+            default:
+                throw new MalformedClassFileException("The target type=" + target + " is invalid.");
+        }
+        skip(u1() << 1 /* u1 type path kind, u1 type argument index */);
+        walkAnnotation();
+    }
+
+    private void walkElementValue() {
+        final int tag = u1();
+        switch(tag) {
+            case 'B': case 'C': case 'D': case 'F': case 'I':
+            case 'J': case 'S': case 'Z': case 's': case 'c':
+                reference();
+                break;
+            case 'e':
+                reference();
+                reference();
+                break;
+            case '@':
+                walkAnnotation();
+                break;
+            case '[':
+                for(int i = u2(); i > 0; i--)
+                    walkElementValue();
+                break;
+            default:
+                throw new MalformedClassFileException("The element value tag=" + (char) tag + " is invalid.");
+        }
+    }
+}
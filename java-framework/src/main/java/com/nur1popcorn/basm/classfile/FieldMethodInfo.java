@@ -20,12 +20,15 @@ package com.nur1popcorn.basm.classfile;
 
 import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.AttributeRaw;
 import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
 import com.nur1popcorn.basm.classfile.tree.Type;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
 
@@ -42,6 +45,14 @@ public final class FieldMethodInfo extends AccessFlags {
      */
     private AttributeInfo attributes[];
 
+    /* The raw field or method exactly as it was read and a copy of the values read, used to detect whether
+     * or not the field or method has been modified. The source is null if it was not read from a
+     * ByteBufferDataInput or the constant pool's source has not been kept.
+     */
+    private ByteBufferDataInput source;
+    private int sourceAccess;
+    private AttributeInfo sourceAttributes[];
+
     /**
      * @param access
      * @param nameIndex
@@ -63,12 +74,32 @@ public final class FieldMethodInfo extends AccessFlags {
      *
      * @throws IOException
      */
-    public FieldMethodInfo(DataInputStream in, ConstantPool constantPool) throws IOException {
+    public FieldMethodInfo(DataInput in, ConstantPool constantPool) throws IOException {
+        // the source is only of use if the constant pool's source has been kept as well.
+        this(in instanceof ByteBufferDataInput && constantPool.getSource() != null ?
+                 ((ByteBufferDataInput) in).position() : -1,
+             in, constantPool);
+    }
+
+    /**
+     * @param start
+     * @param in
+     * @param constantPool
+     *
+     * @throws IOException
+     */
+    private FieldMethodInfo(int start, DataInput in, ConstantPool constantPool) throws IOException {
         this(in.readUnsignedShort(),
              in.readUnsignedShort(),
              in.readUnsignedShort(),
              AttributeInfo.read(in, constantPool),
              constantPool);
+        if(start != -1) {
+            final ByteBufferDataInput bin = (ByteBufferDataInput) in;
+            source = bin.slice(start, bin.position() - start);
+            sourceAccess = access;
+            sourceAttributes = attributes.clone();
+        }
     }
 
     /**
@@ -86,16 +117,64 @@ public final class FieldMethodInfo extends AccessFlags {
             attributeInfo.write(os, constantPool);
     }
 
+    /**
+     * @return The number of bytes written by {@link #write(DataOutputStream)}.
+     */
+    public int computeSize() {
+        int size = 8 /* u2 access, u2 name index, u2 desc index, u2 attributes length */;
+        for(AttributeInfo attributeInfo : attributes)
+            size += attributeInfo.computeSize();
+        return size;
+    }
+
+    /**
+     * @return The raw field or method exactly as it was read or null if it was not read from a
+     *         {@link ByteBufferDataInput} or has been modified since.
+     */
+    public ByteBufferDataInput getSource() {
+        if(source == null ||
+           access != sourceAccess ||
+           !Arrays.equals(attributes, sourceAttributes))
+            return null;
+        return source;
+    }
+
     /**
      * @return
      */
+    public ConstantPool getConstantPool() {
+        return constantPool;
+    }
+
+    /**
+     * Parses the Code attribute and replaces its {@link AttributeRaw} with the result, so that changes made
+     * to the returned attribute are written. The field or method is no longer considered unmodified.
+     *
+     * @return The Code attribute or null if there is none.
+     */
     public AttributeCode getCode() {
-        for(AttributeInfo info : attributes)
-            if(info instanceof AttributeCode)
-                return (AttributeCode) info;
+        for(int i = 0; i < attributes.length; i++)
+            if("Code".equals(attributes[i].indexName(constantPool).getBytes())) {
+                if(attributes[i] instanceof AttributeRaw)
+                    attributes[i] = findCode();
+                return (AttributeCode) attributes[i];
+            }
         return null;
     }
 
+    /**
+     * @return The Code attribute which must not be modified or null if there is none, unlike
+     *         {@link #getCode()} the attributes are not replaced.
+     */
+    AttributeCode findCode() {
+        try {
+            return (AttributeCode) AttributeInfo.find(attributes, "Code", constantPool);
+        } catch(IOException e) {
+            throw new MalformedClassFileException(
+                "The Code attribute could not be read: " + getName(), e);
+        }
+    }
+
     /**
      * @return
      */
@@ -123,7 +202,7 @@ public final class FieldMethodInfo extends AccessFlags {
     public String getName() {
         final ConstantUTF8 name =
             constantPool.getEntry(nameIndex, CONSTANT_UTF8);
-        return name.bytes;
+        return name.getBytes();
     }
 
     /**
@@ -132,6 +211,6 @@ public final class FieldMethodInfo extends AccessFlags {
     public Type getDesc() {
         final ConstantUTF8 desc =
             constantPool.getEntry(descIndex, CONSTANT_UTF8);
-        return Type.getType(desc.bytes);
+        return Type.getType(desc.getBytes());
     }
 }
@@ -78,6 +78,24 @@ public interface IClassVisitor {
     default void visitBody(int access, int thisClass, int superClass, int interfaces[]) throws IOException
     {}
 
+    /**
+     * <p>Visits the names making up the class' hierarchy, only invoked by the hierarchy scan mode.</p>
+     *
+     * @param access <p>The read-class's access flags.</p>
+     *               <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.1-200-E">
+     *                   AccessFlags 4.1-200-E
+     *               </a>
+     * @param thisClass the internal name of the class read.
+     * @param superClass the internal name of the class-read's super class or null if there is none.
+     * @param interfaces the internal names of the classes-read's implemented interfaces.
+     *
+     * @throws IOException if an error occurs while reading the JavaClass.
+     *
+     * @see ClassReader#READ_HIERARCHY
+     */
+    default void visitHierarchy(int access, String thisClass, String superClass, String interfaces[]) throws IOException
+    {}
+
     /**
      * Visits the methods of the JavaClass.
      *
@@ -98,6 +116,38 @@ public interface IClassVisitor {
     default void visitFields(FieldMethodInfo fields[]) throws IOException
     {}
 
+    /**
+     * <p>Visits a single field of the JavaClass, only invoked when the members are streamed.</p>
+     *
+     * @param access the field's access flags.
+     * @param nameIndex a pointer into the {@link ConstantPool}, pointing to the field's name.
+     * @param descIndex a pointer into the {@link ConstantPool}, pointing to the field's descriptor.
+     *
+     * @throws IOException if an error occurs while reading the JavaClass.
+     * @return the visitor of the field's attributes or null if the field should be skipped.
+     *
+     * @see ClassReader#STREAM_MEMBERS
+     */
+    default IFieldMethodVisitor visitField(int access, int nameIndex, int descIndex) throws IOException {
+        return null;
+    }
+
+    /**
+     * <p>Visits a single method of the JavaClass, only invoked when the members are streamed.</p>
+     *
+     * @param access the method's access flags.
+     * @param nameIndex a pointer into the {@link ConstantPool}, pointing to the method's name.
+     * @param descIndex a pointer into the {@link ConstantPool}, pointing to the method's descriptor.
+     *
+     * @throws IOException if an error occurs while reading the JavaClass.
+     * @return the visitor of the method's attributes or null if the method should be skipped.
+     *
+     * @see ClassReader#STREAM_MEMBERS
+     */
+    default IFieldMethodVisitor visitMethod(int access, int nameIndex, int descIndex) throws IOException {
+        return null;
+    }
+
     /**
      * Visits the footer part of the JavaClass.
      *
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile;
+
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+
+import java.io.IOException;
+
+/**
+ * The {@link IFieldMethodVisitor} visits a single field or method whose attributes are streamed by the
+ * {@link ClassReader}, it is obtained using {@link IClassVisitor#visitField(int, int, int)} or
+ * {@link IClassVisitor#visitMethod(int, int, int)}.
+ *
+ * @see ClassReader#STREAM_MEMBERS
+ * @see IClassVisitor
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public interface IFieldMethodVisitor {
+    /**
+     * Visits one of the member's attributes, which are visited in the order in which they are stored.
+     *
+     * @param attribute the attribute read, which is resolved using {@link AttributeInfo#find} or
+     *                  {@link com.nur1popcorn.basm.classfile.attributes.AttributeRaw#resolve}.
+     *
+     * @throws IOException if an error occurs while reading the JavaClass.
+     */
+    default void visitAttribute(AttributeInfo attribute) throws IOException
+    {}
+
+    /**
+     * Visits the end of the member, after all of its attributes were visited.
+     *
+     * @throws IOException if an error occurs while reading the JavaClass.
+     */
+    default void visitEnd() throws IOException
+    {}
+}
@@ -5,4 +5,7 @@ public class MalformedClassFileException extends RuntimeException {
     public MalformedClassFileException(String message) {
         super(message);
     }
+    public MalformedClassFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile;
+
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.nur1popcorn.basm.Constants.*;
+
+/**
+ * The {@link ReferenceMatcher} finds references to classes, fields, methods and strings by only walking the
+ * {@link ConstantPool} of a JavaClass, the fields, methods and attributes are never read. The patterns are
+ * compiled into a table of modified UTF-8 strings and every 'CONSTANT_Utf8' is looked up in that table at the
+ * byte level, nothing but the matches found is allocated.
+ *
+ * <p>The matcher is immutable once all patterns were added and may be shared by multiple threads.</p>
+ *
+ * @see ConstantPool
+ * @see com.nur1popcorn.basm.utils.ReferenceSearch
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ReferenceMatcher {
+    private final List<Pattern> patterns = new ArrayList<>();
+
+    /* The distinct strings used by the patterns in modified UTF-8 and an open addressing hash table which maps
+     * the hashes of the strings to their indices plus one.
+     */
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private int table[] = new int[0x10];
+
+    /**
+     * Adds a pattern matching every reference to the class with the given name.
+     *
+     * @param name The internal name of the class, e.g. "java/lang/reflect/Method".
+     *
+     * @return This {@link ReferenceMatcher}.
+     */
+    public ReferenceMatcher addClass(String name) {
+        return add(new Pattern(Pattern.CLASS, name, null, null));
+    }
+
+    /**
+     * Adds a pattern matching every reference to the fields or methods with the given owner, name and
+     * descriptor, e.g. owner "java/lang/reflect/Method" and name "invoke".
+     *
+     * @param owner The internal name of the member's owner or null if the owner does not matter.
+     * @param name The member's name.
+     * @param desc The member's descriptor or null if the descriptor does not matter.
+     *
+     * @return This {@link ReferenceMatcher}.
+     */
+    public ReferenceMatcher addMember(String owner, String name, String desc) {
+        if(name == null)
+            throw new IllegalArgumentException("The member's name must not be null.");
+        return add(new Pattern(Pattern.MEMBER, owner, name, desc));
+    }
+
+    /**
+     * Adds a pattern matching every 'CONSTANT_Utf8' equal to the given string, which includes string
+     * constants, names and descriptors.
+     *
+     * @param value The string which should be matched.
+     *
+     * @return This {@link ReferenceMatcher}.
+     */
+    public ReferenceMatcher addUTF8(String value) {
+        return add(new Pattern(Pattern.UTF8, value, null, null));
+    }
+
+    private ReferenceMatcher add(Pattern pattern) {
+        pattern.owner = intern(pattern.ownerName);
+        pattern.name = intern(pattern.memberName);
+        pattern.desc = intern(pattern.memberDesc);
+        patterns.add(pattern);
+        return this;
+    }
+
+    /**
+     * @param string The string which should be added to the table.
+     *
+     * @return The index of the string or -1 if the string is null.
+     */
+    private int intern(String string) {
+        if(string == null)
+            return -1;
+        final Integer present = stringIndices.get(string);
+        if(present != null)
+            return present;
+        final int index = strings.size();
+        stringIndices.put(string, index);
+        strings.add(new ConstantUTF8(string).getRawBytes());
+        if(strings.size() * 2 > table.length) {
+            table = new int[table.length << 1];
+            for(int i = 0; i < strings.size(); i++)
+                insert(i);
+        } else
+            insert(index);
+        return index;
+    }
+
+    private void insert(int index) {
+        final byte string[] = strings.get(index);
+        int slot = hash(string) & (table.length - 1);
+        while(table[slot] != 0)
+            slot = (slot + 1) & (table.length - 1);
+        table[slot] = index + 1;
+    }
+
+    private static int hash(byte string[]) {
+        int hash = string.length;
+        for(byte b : string)
+            hash = 31 * hash + b;
+        return hash;
+    }
+
+    /**
+     * @return The patterns added in the order in which they were added.
+     */
+    public List<Pattern> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    /**
+     * @param clazz The byte array containing the JavaClass.
+     *
+     * @throws IOException If the JavaClass is malformed.
+     * @return The patterns matched by the JavaClass in the order in which they were added.
+     *
+     * @see #match(ByteBufferDataInput)
+     */
+    public List<Pattern> match(byte clazz[]) throws IOException {
+        return match(new ByteBufferDataInput(clazz));
+    }
+
+    /**
+     * Walks the {@link ConstantPool} of the given JavaClass and matches its entries against the patterns.
+     *
+     * @param in The buffer containing the JavaClass, starting at its magic value.
+     *
+     * @throws IOException If the JavaClass is malformed.
+     * @return The patterns matched by the JavaClass in the order in which they were added.
+     */
+    public List<Pattern> match(ByteBufferDataInput in) throws IOException {
+        final int magic = in.readInt();
+        if(magic != MAGIC)
+            throw new MalformedClassFileException(
+                "The class provided has an invalid file header: " +
+                Integer.toHexString(magic)
+            );
+        // skip minor/major version
+        in.skipBytes(4);
+
+        // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4
+        final int cpSize = in.readUnsignedShort();
+        final int offsets[] = new int[cpSize];
+        // the index of the pattern's string every 'CONSTANT_Utf8' is equal to plus one.
+        final int utf8Strings[] = new int[cpSize];
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
+            final int offset = in.position();
+            offsets[i] = offset;
+            final byte tag = in.readByte();
+            final int size;
+            if(tag == CONSTANT_UTF8) {
+                size = in.readUnsignedShort();
+                utf8Strings[i] = lookup(in, offset + 3, size) + 1;
+            } else {
+                size = ConstantPool.skipSize(tag);
+                // longs and doubles take up 2 spaces in the constant pool.
+                if(tag == CONSTANT_LONG ||
+                   tag == CONSTANT_DOUBLE)
+                    i++ /* padding */;
+            }
+            if(in.skipBytes(size) != size)
+                throw new EOFException("The constant pool exceeds the class provided.");
+        }
+
+        final boolean matched[] = new boolean[patterns.size()];
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpSize; i++) {
+            final int offset = offsets[i];
+            if(offset == 0)
+                continue;
+            switch(in.readByte(offset)) {
+                case CONSTANT_UTF8:
+                    if(utf8Strings[i] != 0)
+                        for(int j = 0; j < matched.length; j++) {
+                            final Pattern pattern = patterns.get(j);
+                            matched[j] |= pattern.kind == Pattern.UTF8 &&
+                                          pattern.owner == utf8Strings[i] - 1;
+                        }
+                    break;
+                case CONSTANT_CLASS: {
+                    final int name = string(in, offsets, utf8Strings, in.readUnsignedShort(offset + 1));
+                    if(name != -1)
+                        for(int j = 0; j < matched.length; j++) {
+                            final Pattern pattern = patterns.get(j);
+                            matched[j] |= pattern.kind == Pattern.CLASS &&
+                                          pattern.owner == name;
+                        }
+                    break;
+                }
+                case CONSTANT_FIELD_REF:
+                case CONSTANT_METHOD_REF:
+                case CONSTANT_INTERFACE_METHOD_REF: {
+                    final int classIndex = in.readUnsignedShort(offset + 1);
+                    final int nameAndTypeIndex = in.readUnsignedShort(offset + 3);
+                    final int nameAndType = offset(offsets, nameAndTypeIndex);
+                    if(in.readByte(nameAndType) != CONSTANT_NAME_AND_TYPE)
+                        throw new MalformedClassFileException(
+                            "The CONSTANT_Info at given index is not a CONSTANT_NameAndType: index=" +
+                            nameAndTypeIndex);
+                    final int name = string(in, offsets, utf8Strings, in.readUnsignedShort(nameAndType + 1));
+                    if(name == -1)
+                        break;
+                    final int desc = string(in, offsets, utf8Strings, in.readUnsignedShort(nameAndType + 3));
+                    final int classOffset = offset(offsets, classIndex);
+                    final int owner = in.readByte(classOffset) != CONSTANT_CLASS ?
+                        -1 : string(in, offsets, utf8Strings, in.readUnsignedShort(classOffset + 1));
+                    for(int j = 0; j < matched.length; j++) {
+                        final Pattern pattern = patterns.get(j);
+                        matched[j] |= pattern.kind == Pattern.MEMBER &&
+                                      pattern.name == name &&
+                                      (pattern.owner == -1 || pattern.owner == owner) &&
+                                      (pattern.desc == -1 || pattern.desc == desc);
+                    }
+                    break;
+                }
+            }
+        }
+
+        List<Pattern> result = Collections.emptyList();
+        for(int i = 0; i < matched.length; i++)
+            if(matched[i]) {
+                if(result.isEmpty())
+                    result = new ArrayList<>();
+                result.add(patterns.get(i));
+            }
+        return result;
+    }
+
+    /**
+     * @param offsets The offsets of the constant pool's entries.
+     * @param index A pointer into the constant pool.
+     *
+     * @throws MalformedClassFileException If the index is out of bounds.
+     * @return The offset of the entry at the given index.
+     */
+    private static int offset(int offsets[], int index) {
+        if(index <= 0 || index >= offsets.length || offsets[index] == 0)
+            throw new MalformedClassFileException(
+                "Index out of bounds: index=" + index +
+                ", length=" + offsets.length
+            );
+        return offsets[index];
+    }
+
+    /**
+     * @param index A pointer into the constant pool, pointing to a 'CONSTANT_Utf8'.
+     *
+     * @throws MalformedClassFileException If the index does not point to a 'CONSTANT_Utf8'.
+     * @return The index of the pattern's string the 'CONSTANT_Utf8' is equal to or -1 if there is none.
+     */
+    private static int string(ByteBufferDataInput in, int offsets[], int utf8Strings[], int index) {
+        if(in.readByte(offset(offsets, index)) != CONSTANT_UTF8)
+            throw new MalformedClassFileException(
+                "The CONSTANT_Info at given index is not a CONSTANT_Utf8: index=" + index);
+        return utf8Strings[index] - 1;
+    }
+
+    /**
+     * @param in The buffer containing the string.
+     * @param offset The offset of the string's first byte.
+     * @param length The string's length in bytes.
+     *
+     * @return The index of the pattern's string equal to the given string or -1 if there is none.
+     */
+    private int lookup(ByteBufferDataInput in, int offset, int length) {
+        int hash = length;
+        for(int i = 0; i < length; i++)
+            hash = 31 * hash + in.readByte(offset + i);
+        for(int slot = hash & (table.length - 1);; slot = (slot + 1) & (table.length - 1)) {
+            final int index = table[slot] - 1;
+            if(index == -1)
+                return -1;
+            final byte string[] = strings.get(index);
+            if(string.length == length && equals(in, offset, string))
+                return index;
+        }
+    }
+
+    private static boolean equals(ByteBufferDataInput in, int offset, byte string[]) {
+        for(int i = 0; i < string.length; i++)
+            if(in.readByte(offset + i) != string[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * The {@link Pattern} describes a single reference searched for.
+     */
+    public static final class Pattern {
+        private static final int CLASS = 0,
+                                 MEMBER = 1,
+                                 UTF8 = 2;
+
+        private final int kind;
+        private final String ownerName,
+                             memberName,
+                             memberDesc;
+
+        /* The indices of the strings in the matcher's table or -1 if they do not matter.
+         */
+        private int owner,
+                    name,
+                    desc;
+
+        Pattern(int kind, String ownerName, String memberName, String memberDesc) {
+            this.kind = kind;
+            this.ownerName = ownerName;
+            this.memberName = memberName;
+            this.memberDesc = memberDesc;
+        }
+
+        @Override
+        public String toString() {
+            switch(kind) {
+                case CLASS:
+                    return ownerName;
+                case MEMBER:
+                    return (ownerName == null ? "*" : ownerName) + "." + memberName +
+                           (memberDesc == null ? "" : memberDesc);
+                default:
+                    return '"' + ownerName + '"';
+            }
+        }
+    }
+}
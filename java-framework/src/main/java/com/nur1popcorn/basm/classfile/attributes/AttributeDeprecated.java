@@ -20,12 +20,12 @@ package com.nur1popcorn.basm.classfile.attributes;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeDeprecated extends AttributeInfo {
-    public AttributeDeprecated(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeDeprecated(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
     }
 
@@ -25,15 +25,11 @@ import com.nur1popcorn.basm.classfile.attributes.field.AttributeConstantValue;
 import com.nur1popcorn.basm.classfile.attributes.method.*;
 import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.AbstractMap.SimpleEntry;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
 
@@ -50,71 +46,67 @@ import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
  * @since 1.0.0-alpha
  */
 public abstract class AttributeInfo {
-    private static Map<String, Constructor<? extends AttributeInfo>> ATTRIBUTE_CONSTRUCTOR_MAP; static {
-        try { // setup constructor map for dynamic invocation.
-            ATTRIBUTE_CONSTRUCTOR_MAP = Stream.of(
-                /*
-                 * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.2">
-                 *     Attribute ConstantValue 4.7.2
-                 * </a>
-                 */
-                new SimpleEntry<>("ConstantValue", AttributeConstantValue.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                /*
-                 * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.3">
-                 *     Attribute Code 4.7.3
-                 * </a>
-                 */
-                new SimpleEntry<>("Code", AttributeCode.class.getDeclaredConstructor(int.class, DataInputStream.class, ConstantPool.class)),
-                /*
-                 * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.4">
-                 *     Attribute StackMapTable 4.7.4
-                 * </a>
-                 */
-                new SimpleEntry<>("StackMapTable", AttributeStackMapTable.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                /*
-                 * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.5">
-                 *     Attribute Exceptions 4.7.5
-                 * </a>
-                 */
-                new SimpleEntry<>("Exceptions", AttributeExceptions.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-
-                new SimpleEntry<>("InnerClasses", AttributeInnerClasses.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("EnclosingMethod", AttributeEnclosingMethod.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("Synthetic", AttributeSynthetic.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("Signature", AttributeSignature.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("SourceFile", AttributeSourceFile.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("SourceDebugExtension", AttributeSourceDebugExtension.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-
-                new SimpleEntry<>("LineNumberTable", AttributeLineNumberTable.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("LocalVariableTable", AttributeLocalVariableTable.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("LocalVariableTypeTable", AttributeLocalVariableTypeTable.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-
-                new SimpleEntry<>("Deprecated", AttributeDeprecated.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeVisibleAnnotations", AttributeRuntimeVisibleAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeInvisibleAnnotations", AttributeRuntimeInvisibleAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeVisibleParameterAnnotations", AttributeRuntimeVisibleParameterAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeInvisibleParameterAnnotations", AttributeRuntimeInvisibleParameterAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeVisibleTypeAnnotations", AttributeRuntimeVisibleTypeAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("RuntimeInvisibleTypeAnnotations", AttributeRuntimeInvisibleTypeAnnotations.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("AnnotationDefault", AttributeAnnotationDefault.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                /*
-                 * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.23">
-                 *     Bootstrap Methods 4.7.23
-                 * </a>
-                 */
-                new SimpleEntry<>("BootstrapMethods", AttributeBootstrapMethods.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-
-                new SimpleEntry<>("MethodParameters", AttributeMethodParameters.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-
-                new SimpleEntry<>("Module", AttributeModule.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("ModulePackages", AttributeModulePackages.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("ModuleMainClass", AttributeModuleMainClass.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("NestHost", AttributeNestHost.class.getDeclaredConstructor(int.class, DataInputStream.class)),
-                new SimpleEntry<>("NestMembers", AttributeNestMembers.class.getDeclaredConstructor(int.class, DataInputStream.class))
-            ).collect(Collectors.toMap(SimpleEntry::getKey, SimpleEntry::getValue));
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
-        }
+    /* A map of factories used to construct the attributes, keyed by the attributes' names.
+     */
+    private static final Map<String, IAttributeFactory> ATTRIBUTE_FACTORY_MAP = new ConcurrentHashMap<>(); static {
+        /*
+         * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.2">
+         *     Attribute ConstantValue 4.7.2
+         * </a>
+         */
+        register("ConstantValue", (nameIndex, in, constantPool) -> new AttributeConstantValue(nameIndex, in));
+        /*
+         * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.3">
+         *     Attribute Code 4.7.3
+         * </a>
+         */
+        register("Code", AttributeCode::new);
+        /*
+         * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.4">
+         *     Attribute StackMapTable 4.7.4
+         * </a>
+         */
+        register("StackMapTable", (nameIndex, in, constantPool) -> new AttributeStackMapTable(nameIndex, in));
+        /*
+         * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.5">
+         *     Attribute Exceptions 4.7.5
+         * </a>
+         */
+        register("Exceptions", (nameIndex, in, constantPool) -> new AttributeExceptions(nameIndex, in));
+
+        register("InnerClasses", (nameIndex, in, constantPool) -> new AttributeInnerClasses(nameIndex, in));
+        register("EnclosingMethod", (nameIndex, in, constantPool) -> new AttributeEnclosingMethod(nameIndex, in));
+        register("Synthetic", (nameIndex, in, constantPool) -> new AttributeSynthetic(nameIndex, in));
+        register("Signature", (nameIndex, in, constantPool) -> new AttributeSignature(nameIndex, in));
+        register("SourceFile", (nameIndex, in, constantPool) -> new AttributeSourceFile(nameIndex, in));
+        register("SourceDebugExtension", (nameIndex, in, constantPool) -> new AttributeSourceDebugExtension(nameIndex, in));
+
+        register("LineNumberTable", (nameIndex, in, constantPool) -> new AttributeLineNumberTable(nameIndex, in));
+        register("LocalVariableTable", (nameIndex, in, constantPool) -> new AttributeLocalVariableTable(nameIndex, in));
+        register("LocalVariableTypeTable", (nameIndex, in, constantPool) -> new AttributeLocalVariableTypeTable(nameIndex, in));
+
+        register("Deprecated", (nameIndex, in, constantPool) -> new AttributeDeprecated(nameIndex, in));
+        register("RuntimeVisibleAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeVisibleAnnotations(nameIndex, in));
+        register("RuntimeInvisibleAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeInvisibleAnnotations(nameIndex, in));
+        register("RuntimeVisibleParameterAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeVisibleParameterAnnotations(nameIndex, in));
+        register("RuntimeInvisibleParameterAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeInvisibleParameterAnnotations(nameIndex, in));
+        register("RuntimeVisibleTypeAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeVisibleTypeAnnotations(nameIndex, in));
+        register("RuntimeInvisibleTypeAnnotations", (nameIndex, in, constantPool) -> new AttributeRuntimeInvisibleTypeAnnotations(nameIndex, in));
+        register("AnnotationDefault", (nameIndex, in, constantPool) -> new AttributeAnnotationDefault(nameIndex, in));
+        /*
+         * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.7.23">
+         *     Bootstrap Methods 4.7.23
+         * </a>
+         */
+        register("BootstrapMethods", (nameIndex, in, constantPool) -> new AttributeBootstrapMethods(nameIndex, in));
+
+        register("MethodParameters", (nameIndex, in, constantPool) -> new AttributeMethodParameters(nameIndex, in));
+
+        register("Module", (nameIndex, in, constantPool) -> new AttributeModule(nameIndex, in));
+        register("ModulePackages", (nameIndex, in, constantPool) -> new AttributeModulePackages(nameIndex, in));
+        register("ModuleMainClass", (nameIndex, in, constantPool) -> new AttributeModuleMainClass(nameIndex, in));
+        register("NestHost", (nameIndex, in, constantPool) -> new AttributeNestHost(nameIndex, in));
+        register("NestMembers", (nameIndex, in, constantPool) -> new AttributeNestMembers(nameIndex, in));
     }
 
     protected int nameIndex /* u2 */,
@@ -123,10 +115,10 @@ public abstract class AttributeInfo {
     /**
      * @param nameIndex is a entry into the {@link ConstantPool} and represents the
      *                  {@link AttributeInfo}'s identifier
-     * @param in the {@link DataInputStream} from which the {@link AttributeInfo}'s
+     * @param in the {@link DataInput} from which the {@link AttributeInfo}'s
      *           length should be read.
      */
-    public AttributeInfo(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeInfo(int nameIndex, DataInput in) throws IOException {
         this.nameIndex = nameIndex;
         attributeLength = in.readInt();
     }
@@ -160,49 +152,83 @@ public abstract class AttributeInfo {
         return constantPool.getEntry(nameIndex, CONSTANT_UTF8);
     }
 
+    /**
+     * @return the index of the CONSTANT_Utf8 inside of the {@link ConstantPool} representing the
+     *         {@link AttributeInfo}'s identifier.
+     */
+    public int getNameIndex() {
+        return nameIndex;
+    }
+
     public int getAttributeLength() {
         return attributeLength;
     }
 
     /**
-     * @param in the {@link DataInputStream} from which the {@link AttributeInfo}s
+     * @return the number of bytes written by {@link #write(DataOutputStream, ConstantPool)} including the
+     *         attribute's identifier index and length.
+     */
+    public int computeSize() {
+        return 6 /* u2 name index, u4 length */ + attributeLength;
+    }
+
+    /**
+     * Registers a factory for the attributes with the given name, replacing any factory previously registered.
+     *
+     * @param name the attribute's name.
+     * @param factory the factory used to construct the attribute.
+     */
+    public static void register(String name, IAttributeFactory factory) {
+        ATTRIBUTE_FACTORY_MAP.put(name, factory);
+    }
+
+    /**
+     * @param name the attribute's name.
+     *
+     * @return the factory registered for the attributes with the given name or null if the attribute is unknown.
+     */
+    public static IAttributeFactory getFactory(String name) {
+        return ATTRIBUTE_FACTORY_MAP.get(name);
+    }
+
+    /**
+     * <p>Reads the attributes from the given {@link DataInput}.</p>
+     * <p>The attributes' contents are not parsed, instead they are kept as {@link AttributeRaw}s which can be
+     *    resolved using {@link AttributeRaw#resolve(ConstantPool)}.</p>
+     *
+     * @param in the {@link DataInput} from which the {@link AttributeInfo}s
      *           should be read.
      * @param constantPool the {@link ConstantPool} is used to index the attribute's
      *                     identifier and may or may not be used to construct certain
      *                     attributes.
+     *
+     * @see ConstantPool#getAttributeFactory(int)
      */
-    public static AttributeInfo[] read(DataInputStream in, ConstantPool constantPool) throws IOException {
+    public static AttributeInfo[] read(DataInput in, ConstantPool constantPool) throws IOException {
         final AttributeInfo attributes[] = new AttributeInfo[in.readUnsignedShort()];
-        try {
-            for(int i = 0; i < attributes.length; i++) {
-                final int nameIndex = in.readUnsignedShort();
-                final ConstantUTF8 name = constantPool.getEntry(nameIndex, CONSTANT_UTF8);
-                final Constructor<? extends AttributeInfo> constructor =
-                    ATTRIBUTE_CONSTRUCTOR_MAP.get(name.bytes);
-                attributes[i] = constructor.newInstance(
-                   constructor.getParameterCount() == 2 ?
-                       new Object[] {
-                           nameIndex,
-                           in
-                       } :
-                       /* some constructors like AttributeCode's require the constantpool
-                          to be passed as a parameter. */
-                       new Object[] {
-                           nameIndex,
-                           in,
-                           constantPool
-                       });
-            }
-        } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
-        } catch (InvocationTargetException e) {
-            //rethrow IOException.
-            final Throwable cause = e.getCause();
-            if(cause instanceof IOException)
-                throw (IOException) cause;
-            else
-                e.printStackTrace();
+        for(int i = 0; i < attributes.length; i++) {
+            final int nameIndex = in.readUnsignedShort();
+            attributes[i] = new AttributeRaw(
+                nameIndex, in,
+                constantPool.getAttributeFactory(nameIndex));
         }
         return attributes;
     }
+
+    /**
+     * @param attributes the attributes which should be searched.
+     * @param name the name of the attribute which should be found.
+     * @param constantPool the {@link ConstantPool} which should be indexed.
+     *
+     * @throws IOException if an error occurs during the process of parsing the attribute.
+     *
+     * @return the first attribute with the given name, it is parsed if possible or null if there is none.
+     */
+    public static AttributeInfo find(AttributeInfo attributes[], String name, ConstantPool constantPool) throws IOException {
+        for(AttributeInfo info : attributes)
+            if(info.indexName(constantPool).getBytes().equals(name))
+                return info instanceof AttributeRaw ?
+                    ((AttributeRaw) info).resolve(constantPool) : info;
+        return null;
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+package com.nur1popcorn.basm.classfile.attributes;
+
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The {@link AttributeRaw} keeps an attribute's contents as a raw slice of bytes. The contents are only
+ * parsed once {@link #resolve(ConstantPool)} is invoked, attributes without a registered
+ * {@link IAttributeFactory} are opaque. The attribute is always written back as it was read, changes to
+ * the parsed attribute are not reflected, instead the {@link AttributeRaw} should be replaced by the
+ * modified attribute.
+ *
+ * @see AttributeInfo
+ * @see IAttributeFactory
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class AttributeRaw extends AttributeInfo {
+    /* The factory used to parse the attribute, null if the attribute is unknown.
+     */
+    private final IAttributeFactory factory;
+
+    /* The attribute's length followed by its contents.
+     */
+    private final ByteBufferDataInput body;
+
+    /* The parsed attribute, null if it has not been parsed yet.
+     */
+    private AttributeInfo resolved;
+
+    /**
+     * @param nameIndex is a entry into the {@link ConstantPool} and represents the
+     *                  {@link AttributeInfo}'s identifier
+     * @param in the {@link DataInput} from which the {@link AttributeInfo}'s
+     *           length and contents should be read. The contents of a
+     *           {@link ByteBufferDataInput} are not copied.
+     * @param factory the factory used to parse the attribute or null if the attribute is unknown.
+     */
+    public AttributeRaw(int nameIndex, DataInput in, IAttributeFactory factory) throws IOException {
+        super(nameIndex, in);
+        this.factory = factory;
+        if(attributeLength < 0)
+            throw new MalformedClassFileException(
+                "The attribute has an invalid length: length=" + attributeLength);
+        if(in instanceof ByteBufferDataInput) {
+            final ByteBufferDataInput bin = (ByteBufferDataInput) in;
+            final int start = bin.position() - 4 /* length */;
+            if(bin.skipBytes(attributeLength) != attributeLength)
+                throw new MalformedClassFileException(
+                    "The attribute exceeds the class provided: length=" + attributeLength);
+            body = bin.slice(start, 4 + attributeLength);
+        } else {
+            final byte raw[] = new byte[4 + attributeLength];
+            raw[0] = (byte) (attributeLength >>> 24);
+            raw[1] = (byte) (attributeLength >>> 16);
+            raw[2] = (byte) (attributeLength >>> 8);
+            raw[3] = (byte) attributeLength;
+            in.readFully(raw, 4, attributeLength);
+            body = new ByteBufferDataInput(raw);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(DataOutputStream os, ConstantPool constantPool) throws IOException {
+        os.writeShort(nameIndex);
+        body.writeTo(os, 0, body.size());
+    }
+
+    /**
+     * Parses the attribute using its factory, the result is cached.
+     *
+     * @param constantPool the {@link ConstantPool} which may or may not be used to construct certain
+     *                     attributes.
+     *
+     * @throws IOException if an error occurs during the process of parsing the attribute.
+     *
+     * @return the parsed attribute or this if the attribute is unknown.
+     */
+    public AttributeInfo resolve(ConstantPool constantPool) throws IOException {
+        if(factory == null)
+            return this;
+        if(resolved == null)
+            resolved = factory.create(nameIndex, body.slice(0, body.size()), constantPool);
+        return resolved;
+    }
+
+    /**
+     * @return whether or not a factory is registered for the attribute.
+     */
+    public boolean isKnown() {
+        return factory != null;
+    }
+
+    /**
+     * @return a copy of the attribute's contents excluding the attribute's name and length.
+     */
+    public byte[] getBody() {
+        final byte raw[] = new byte[attributeLength];
+        body.readFully(4 /* length */, raw, 0, attributeLength);
+        return raw;
+    }
+}
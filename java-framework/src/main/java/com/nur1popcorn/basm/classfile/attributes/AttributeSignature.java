@@ -20,14 +20,14 @@ package com.nur1popcorn.basm.classfile.attributes;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeSignature extends AttributeInfo {
     private final int signatureIndex;
 
-    public AttributeSignature(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeSignature(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         signatureIndex = in.readUnsignedShort();
     }
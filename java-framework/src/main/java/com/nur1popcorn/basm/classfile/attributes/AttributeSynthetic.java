@@ -21,12 +21,12 @@ package com.nur1popcorn.basm.classfile.attributes;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeSynthetic extends AttributeInfo {
-    public AttributeSynthetic(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeSynthetic(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
     }
 
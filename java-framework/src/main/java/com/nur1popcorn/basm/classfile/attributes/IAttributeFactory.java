@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+package com.nur1popcorn.basm.classfile.attributes;
+
+import com.nur1popcorn.basm.classfile.ConstantPool;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * The {@link IAttributeFactory} constructs a specific type of {@link AttributeInfo}. Factories are registered
+ * by attribute name using {@link AttributeInfo#register(String, IAttributeFactory)}.
+ *
+ * @see AttributeInfo
+ * @see AttributeRaw
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+@FunctionalInterface
+public interface IAttributeFactory {
+    /**
+     * @param nameIndex is a entry into the {@link ConstantPool} and represents the
+     *                  {@link AttributeInfo}'s identifier.
+     * @param in the {@link DataInput} from which the {@link AttributeInfo}'s length
+     *           and contents should be read.
+     * @param constantPool the {@link ConstantPool} which may or may not be used to construct
+     *                     the attribute.
+     *
+     * @throws IOException if an error occurs during the process of reading from the {@link DataInput}.
+     *
+     * @return the constructed {@link AttributeInfo}.
+     */
+    AttributeInfo create(int nameIndex, DataInput in, ConstantPool constantPool) throws IOException;
+}
@@ -2,7 +2,7 @@ package com.nur1popcorn.basm.classfile.attributes.annotation;
 
 import com.nur1popcorn.basm.classfile.attributes.annotation.element.ElementValuePair;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -10,7 +10,7 @@ public class Annotation {
     private final int typeIndex;
     private final ElementValuePair[] elementValuePairs;
 
-    public Annotation(DataInputStream in) throws IOException {
+    public Annotation(DataInput in) throws IOException {
         typeIndex = in.readUnsignedShort();
         elementValuePairs = new ElementValuePair[in.readUnsignedShort()];
         for(int i = 0; i < elementValuePairs.length; i++)
@@ -22,14 +22,14 @@ import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 import com.nur1popcorn.basm.classfile.attributes.annotation.element.ElementValue;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeAnnotationDefault extends AttributeInfo {
     private final ElementValue defaultValue;
 
-    public AttributeAnnotationDefault(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeAnnotationDefault(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         defaultValue = ElementValue.read(in);
     }
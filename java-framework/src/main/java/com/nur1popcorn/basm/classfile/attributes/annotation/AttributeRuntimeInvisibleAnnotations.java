@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.annotation;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeRuntimeInvisibleAnnotations extends AttributeInfo {
     private final Annotation[] annotations;
 
-    public AttributeRuntimeInvisibleAnnotations(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeRuntimeInvisibleAnnotations(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         annotations = new Annotation[in.readUnsignedShort()];
         for(int i = 0; i < annotations.length; i++)
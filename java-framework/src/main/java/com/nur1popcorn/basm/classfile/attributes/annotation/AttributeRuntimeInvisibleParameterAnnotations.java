@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.annotation;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeRuntimeInvisibleParameterAnnotations extends AttributeInfo {
     private final ParameterAnnotation[] parameterAnnotations;
 
-    public AttributeRuntimeInvisibleParameterAnnotations(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeRuntimeInvisibleParameterAnnotations(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         parameterAnnotations = new ParameterAnnotation[in.readUnsignedByte()];
         for(int i = 0; i < parameterAnnotations.length; i++)
@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.annotation;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeRuntimeVisibleParameterAnnotations extends AttributeInfo {
     private final ParameterAnnotation[] parameterAnnotations;
 
-    public AttributeRuntimeVisibleParameterAnnotations(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeRuntimeVisibleParameterAnnotations(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         parameterAnnotations = new ParameterAnnotation[in.readUnsignedByte()];
         for(int i = 0; i < parameterAnnotations.length; i++)
@@ -22,14 +22,14 @@ import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 import com.nur1popcorn.basm.classfile.attributes.annotation.type.TypeAnnotation;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeRuntimeVisibleTypeAnnotations extends AttributeInfo {
     private final TypeAnnotation[] annotations;
 
-    public AttributeRuntimeVisibleTypeAnnotations(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeRuntimeVisibleTypeAnnotations(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         annotations = new TypeAnnotation[in.readUnsignedShort()];
         for(int i = 0; i < annotations.length; i++)
@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class ParameterAnnotation {
     private final Annotation[] annotations;
 
-    public ParameterAnnotation(DataInputStream in) throws IOException  {
+    public ParameterAnnotation(DataInput in) throws IOException  {
         annotations = new Annotation[in.readUnsignedShort()];
         for (int i = 0; i < annotations.length; i++)
             annotations[i] = new Annotation(in);
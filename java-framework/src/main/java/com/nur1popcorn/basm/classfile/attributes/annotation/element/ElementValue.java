@@ -1,6 +1,6 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.element;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -11,7 +11,7 @@ public abstract class ElementValue {
         this.tag = tag;
     }
 
-    public static ElementValue read(DataInputStream in) throws IOException {
+    public static ElementValue read(DataInput in) throws IOException {
         final int tag = in.readUnsignedByte();
         switch(tag) {
             case 'B':
@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.element;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class ElementValueClass extends ElementValue {
     private final int classInfoIndex;
 
-    public ElementValueClass(int tag, DataInputStream in) throws IOException {
+    public ElementValueClass(int tag, DataInput in) throws IOException {
         super(tag);
         classInfoIndex = in.readUnsignedShort();
     }
@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.element;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class ElementValueConstant extends ElementValue {
     private final int constValueIndex;
 
-    public ElementValueConstant(int tag, DataInputStream in) throws IOException {
+    public ElementValueConstant(int tag, DataInput in) throws IOException {
         super(tag);
         constValueIndex = in.readUnsignedShort();
     }
@@ -1,6 +1,6 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.element;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -8,7 +8,7 @@ public class ElementValueEnum extends ElementValue {
     private final int typeNameIndex,
                       constNameIndex;
 
-    public ElementValueEnum(int tag, DataInputStream in) throws IOException {
+    public ElementValueEnum(int tag, DataInput in) throws IOException {
         super(tag);
         typeNameIndex = in.readUnsignedShort();
         constNameIndex = in.readUnsignedShort();
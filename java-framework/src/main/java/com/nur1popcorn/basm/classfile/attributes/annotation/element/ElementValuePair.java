@@ -1,6 +1,6 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.element;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -8,7 +8,7 @@ public class ElementValuePair {
     private final int elementNameIndex;
     private final ElementValue value;
 
-    public ElementValuePair(DataInputStream in) throws IOException  {
+    public ElementValuePair(DataInput in) throws IOException  {
         elementNameIndex = in.readUnsignedShort();
         value = ElementValue.read(in);
     }
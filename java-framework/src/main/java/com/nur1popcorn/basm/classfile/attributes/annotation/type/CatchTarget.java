@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class CatchTarget extends TargetInfo {
     private final int exceptionTableIndex;
 
-    public CatchTarget(DataInputStream in) throws IOException  {
+    public CatchTarget(DataInput in) throws IOException  {
         exceptionTableIndex = in.readUnsignedShort();
     }
 
@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class LocalvarTarget extends TargetInfo {
     private final Entry[] table;
 
-    public LocalvarTarget(DataInputStream in) throws IOException  {
+    public LocalvarTarget(DataInput in) throws IOException  {
         table = new Entry[in.readUnsignedShort()];
         for (int i = 0; i < table.length; i++)
             table[i] = new Entry(in);
@@ -24,7 +24,7 @@ public class LocalvarTarget extends TargetInfo {
                           length,
                           index;
 
-        public Entry(DataInputStream in) throws IOException {
+        public Entry(DataInput in) throws IOException {
             startPC = in.readUnsignedShort();
             length = in.readUnsignedShort();
             index = in.readUnsignedShort();
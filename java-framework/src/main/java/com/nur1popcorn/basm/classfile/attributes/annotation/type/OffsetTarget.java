@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class OffsetTarget extends TargetInfo {
     private final int offset;
 
-    public OffsetTarget(DataInputStream in) throws IOException  {
+    public OffsetTarget(DataInput in) throws IOException  {
         offset = in.readUnsignedShort();
     }
 
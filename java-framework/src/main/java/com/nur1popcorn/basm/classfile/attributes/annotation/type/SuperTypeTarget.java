@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class SuperTypeTarget extends TargetInfo {
     private final int supertypeIndex;
 
-    public SuperTypeTarget(DataInputStream in) throws IOException  {
+    public SuperTypeTarget(DataInput in) throws IOException  {
         supertypeIndex = in.readUnsignedShort();
     }
 
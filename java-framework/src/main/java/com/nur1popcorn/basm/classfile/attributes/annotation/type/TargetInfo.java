@@ -1,11 +1,11 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public abstract class TargetInfo {
-    public static TargetInfo read(int targetType, DataInputStream in) throws IOException {
+    public static TargetInfo read(int targetType, DataInput in) throws IOException {
         switch (targetType) {
             case 0x00:
             case 0x01:
@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class ThrowsTarget extends TargetInfo {
     private final int throwsTypeIndex;
 
-    public ThrowsTarget(DataInputStream in) throws IOException  {
+    public ThrowsTarget(DataInput in) throws IOException  {
         throwsTypeIndex = in.readUnsignedShort();
     }
 
@@ -2,7 +2,7 @@ package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
 import com.nur1popcorn.basm.classfile.attributes.annotation.element.ElementValuePair;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -13,7 +13,7 @@ public class TypeAnnotation {
     private final TypePath targetPath;
     private final ElementValuePair[] elementValuePairs;
 
-    public TypeAnnotation(DataInputStream in) throws IOException {
+    public TypeAnnotation(DataInput in) throws IOException {
         targetType = in.readUnsignedByte();
         targetInfo = TargetInfo.read(targetType, in);
         targetPath = new TypePath(in);
@@ -1,6 +1,6 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -8,7 +8,7 @@ public class TypeArgumentTarget extends TargetInfo {
     private final int offset,
                       typeArgumentIndex;
 
-    public TypeArgumentTarget(DataInputStream in) throws IOException {
+    public TypeArgumentTarget(DataInput in) throws IOException {
         offset = in.readUnsignedShort();
         typeArgumentIndex = in.readUnsignedByte();
     }
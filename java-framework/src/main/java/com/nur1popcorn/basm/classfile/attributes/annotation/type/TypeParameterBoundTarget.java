@@ -1,6 +1,6 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -8,7 +8,7 @@ public class TypeParameterBoundTarget extends TargetInfo {
     private final int typeParameterIndex,
                       boundIndex;
 
-    public TypeParameterBoundTarget(DataInputStream in) throws IOException {
+    public TypeParameterBoundTarget(DataInput in) throws IOException {
         typeParameterIndex = in.readUnsignedByte();
         boundIndex = in.readUnsignedByte();
     }
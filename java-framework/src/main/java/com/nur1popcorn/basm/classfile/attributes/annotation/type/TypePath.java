@@ -1,13 +1,13 @@
 package com.nur1popcorn.basm.classfile.attributes.annotation.type;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class TypePath {
     private final Path[] paths;
 
-    public TypePath(DataInputStream in) throws IOException {
+    public TypePath(DataInput in) throws IOException {
         paths = new Path[in.readUnsignedByte()];
         for (int i = 0; i < paths.length; i++)
             paths[i] = new Path(in);
@@ -23,7 +23,7 @@ public class TypePath {
         private final int typePathKind,
                           typeArgumentIndex;
 
-        public Path(DataInputStream in) throws IOException {
+        public Path(DataInput in) throws IOException {
             typePathKind = in.readUnsignedByte();
             typeArgumentIndex = in.readUnsignedByte();
         }
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -40,7 +40,7 @@ public final class AttributeBootstrapMethods extends AttributeInfo {
 
     private BootstrapMethod bootstrapMethods[] /* length: u2 */;
 
-    public AttributeBootstrapMethods(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeBootstrapMethods(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         bootstrapMethods = new BootstrapMethod[in.readUnsignedShort()];
         for(int i = 0; i < bootstrapMethods.length; i++)
@@ -74,7 +74,7 @@ public final class AttributeBootstrapMethods extends AttributeInfo {
         private int bootstrapArguments[] /* length: u2
                                             entries: u2 */;
 
-        public BootstrapMethod(DataInputStream in) throws IOException {
+        public BootstrapMethod(DataInput in) throws IOException {
             bootstrapMethodRef = in.readUnsignedShort();
             bootstrapArguments = new int[in.readUnsignedShort()];
             for(int i = 0; i < bootstrapArguments.length; i++)
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -29,7 +29,7 @@ public class AttributeEnclosingMethod extends AttributeInfo {
     private final int classIndex,
                       methodIndex;
 
-    public AttributeEnclosingMethod(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeEnclosingMethod(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         classIndex = in.readUnsignedShort();
         methodIndex = in.readUnsignedShort();
@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeInnerClasses extends AttributeInfo {
     private final InnerClass[] innerClasses;
 
-    public AttributeInnerClasses(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeInnerClasses(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         innerClasses = new InnerClass[in.readUnsignedShort()];
         for(int i = 0; i < innerClasses.length; i++)
@@ -49,7 +49,7 @@ public class AttributeInnerClasses extends AttributeInfo {
                           innerNameIndex,
                           innerClassAccessFlags;
 
-        public InnerClass(DataInputStream in) throws IOException {
+        public InnerClass(DataInput in) throws IOException {
             innerClassInfoIndex = in.readUnsignedShort();
             outerClassInfoIndex = in.readUnsignedShort();
             innerNameIndex = in.readUnsignedShort();
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -41,7 +41,7 @@ public class AttributeModule extends AttributeInfo {
     private final int[] usesIndex;
     private final ProvidesEntry[] provides;
 
-    public AttributeModule(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeModule(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         moduleName = in.readUnsignedShort();
         moduleFlags = in.readUnsignedShort();
@@ -103,7 +103,7 @@ public class AttributeModule extends AttributeInfo {
                           requiresFlags,
                           requiresVersionIndex;
 
-        public RequiresEntry(DataInputStream in) throws IOException {
+        public RequiresEntry(DataInput in) throws IOException {
             requiresIndex = in.readUnsignedShort();
             requiresFlags = in.readUnsignedShort();
             requiresVersionIndex = in.readUnsignedShort();
@@ -121,7 +121,7 @@ public class AttributeModule extends AttributeInfo {
                           exportsFlags;
         private final int[] exportsToIndex;
 
-        public ExportsEntry(DataInputStream in) throws IOException {
+        public ExportsEntry(DataInput in) throws IOException {
             exportsIndex = in.readUnsignedShort();
             exportsFlags = in.readUnsignedShort();
             exportsToIndex = new int[in.readUnsignedShort()];
@@ -143,7 +143,7 @@ public class AttributeModule extends AttributeInfo {
                           opensFlags;
         private final int[] opensToIndex;
 
-        public OpensEntry(DataInputStream in) throws IOException {
+        public OpensEntry(DataInput in) throws IOException {
             opensIndex = in.readUnsignedShort();
             opensFlags = in.readUnsignedShort();
             opensToIndex = new int[in.readUnsignedShort()];
@@ -164,7 +164,7 @@ public class AttributeModule extends AttributeInfo {
         private final int providesIndex;
         private final int[] withIndex;
 
-        public ProvidesEntry(DataInputStream in) throws IOException {
+        public ProvidesEntry(DataInput in) throws IOException {
             providesIndex = in.readUnsignedShort();
             withIndex = new int[in.readUnsignedShort()];
             for(int i = 0; i < withIndex.length; i++)
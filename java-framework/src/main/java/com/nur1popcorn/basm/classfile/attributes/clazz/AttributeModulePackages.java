@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeModulePackages extends AttributeInfo {
     private final int[] packageIndex;
 
-    public AttributeModulePackages(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeModulePackages(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         packageIndex = new int[in.readUnsignedShort()];
         for(int i = 0; i < packageIndex.length; i++)
@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeNestHost extends AttributeInfo {
     private final int hostClassIndex;
 
-    public AttributeNestHost(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeNestHost(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         hostClassIndex = in.readUnsignedShort();
     }
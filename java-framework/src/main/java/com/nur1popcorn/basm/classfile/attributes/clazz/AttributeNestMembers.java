@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeNestMembers extends AttributeInfo {
     private final int[] classes;
 
-    public AttributeNestMembers(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeNestMembers(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         classes = new int[in.readUnsignedShort()];
         for(int i = 0; i < classes.length; i++)
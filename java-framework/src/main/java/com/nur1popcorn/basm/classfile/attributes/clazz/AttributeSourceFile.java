@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.clazz;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeSourceFile extends AttributeInfo {
     private final int sourcefileIndex;
 
-    public AttributeSourceFile(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeSourceFile(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         sourcefileIndex = in.readUnsignedShort();
     }
@@ -22,7 +22,7 @@ import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -46,10 +46,10 @@ public final class AttributeConstantValue extends AttributeInfo {
     /**
      * @param nameIndex is a entry into the {@link ConstantPool} and represents the
      *                  {@link AttributeInfo}'s identifier
-     * @param in the {@link DataInputStream} from which the constantValueIndex should be
+     * @param in the {@link DataInput} from which the constantValueIndex should be
      *           read.
      */
-    public AttributeConstantValue(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeConstantValue(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         constantValueIndex = in.readUnsignedShort();
     }
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -35,7 +35,7 @@ public class AttributeCode extends AttributeInfo {
     private ExceptionTableEntry exceptionTable[] /* length: u2 */;
     private AttributeInfo attributes[] /* length: u2 */;
 
-    public AttributeCode(int nameIndex, DataInputStream in, ConstantPool constantPool) throws IOException {
+    public AttributeCode(int nameIndex, DataInput in, ConstantPool constantPool) throws IOException {
         super(nameIndex, in);
         maxStack = in.readUnsignedShort();
         maxLocals = in.readUnsignedShort();
@@ -61,13 +61,17 @@ public class AttributeCode extends AttributeInfo {
         computeLength();
     }
 
+    /**
+     * Computes the attribute's length from its contents, it should be invoked once the contents have been
+     * modified.
+     */
     public void computeLength() {
-        // TODO: make part of AttributeInfo.
-        int attributeLength = 12 + code.length;
-        for(ExceptionTableEntry entry : exceptionTable)
-            attributeLength += 8;
+        int attributeLength = 12 /* u2 max stack, u2 max locals, u4 code length,
+                                    u2 exception table length, u2 attributes length */ +
+                              code.length +
+                              (exceptionTable.length << 3);
         for(AttributeInfo attributeInfo : attributes)
-            attributeLength += attributeInfo.getAttributeLength();
+            attributeLength += attributeInfo.computeSize();
         this.attributeLength = attributeLength;
     }
 
@@ -78,8 +82,7 @@ public class AttributeCode extends AttributeInfo {
         os.writeShort(maxLocals);
 
         os.writeInt(code.length);
-        for(byte b : code)
-            os.writeByte(b);
+        os.write(code);
 
         os.writeShort(exceptionTable.length);
         for(ExceptionTableEntry entry : exceptionTable)
@@ -107,13 +110,28 @@ public class AttributeCode extends AttributeInfo {
         return maxLocals;
     }
 
+    public ExceptionTableEntry[] getExceptionTable() {
+        return exceptionTable;
+    }
+
+    public AttributeInfo[] getAttributes() {
+        return attributes;
+    }
+
     public static class ExceptionTableEntry {
         private int startPc /* u2 */,
                     endPc /* u2 */,
                     handlerPc /* u2 */,
                     catchType /* u2 */;
 
-        public ExceptionTableEntry(DataInputStream in) throws IOException {
+        public ExceptionTableEntry(int startPc, int endPc, int handlerPc, int catchType) {
+            this.startPc = startPc;
+            this.endPc = endPc;
+            this.handlerPc = handlerPc;
+            this.catchType = catchType;
+        }
+
+        public ExceptionTableEntry(DataInput in) throws IOException {
             startPc = in.readUnsignedShort();
             endPc = in.readUnsignedShort();
             handlerPc = in.readUnsignedShort();
@@ -126,5 +144,25 @@ public class AttributeCode extends AttributeInfo {
             os.writeShort(handlerPc);
             os.writeShort(catchType);
         }
+
+        public int getStartPc() {
+            return startPc;
+        }
+
+        public int getEndPc() {
+            return endPc;
+        }
+
+        public int getHandlerPc() {
+            return handlerPc;
+        }
+
+        /**
+         * @return a pointer into the constant pool pointing at the CONSTANT_Class caught or 0 if any exception
+         *         is caught.
+         */
+        public int getCatchType() {
+            return catchType;
+        }
     }
 }
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -41,7 +41,7 @@ public final class AttributeExceptions extends AttributeInfo {
                                          entries: u2 */;
 
     //TODO: add write toString etc
-    public AttributeExceptions(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeExceptions(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         exceptionIndexTable = new int[in.readUnsignedShort()];
         for(int i = 0; i < exceptionIndexTable.length; i++)
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -40,7 +40,7 @@ import java.io.IOException;
 public final class AttributeLineNumberTable extends AttributeInfo {
     private LineNumberTableEntry lineNumberTable[] /* length: u2 */;
 
-    public AttributeLineNumberTable(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeLineNumberTable(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         lineNumberTable = new LineNumberTableEntry[in.readUnsignedShort()];
         for(int i = 0; i < lineNumberTable.length; i++)
@@ -95,10 +95,10 @@ public final class AttributeLineNumberTable extends AttributeInfo {
         }
 
         /**
-         * @param in the {@link DataInputStream} from which the {@link LineNumberTableEntry}
+         * @param in the {@link DataInput} from which the {@link LineNumberTableEntry}
          *           should be read.
          */
-        public LineNumberTableEntry(DataInputStream in) throws IOException {
+        public LineNumberTableEntry(DataInput in) throws IOException {
             this(in.readUnsignedShort(),
                  in.readUnsignedShort());
         }
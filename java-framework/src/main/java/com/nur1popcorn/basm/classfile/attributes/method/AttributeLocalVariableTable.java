@@ -22,7 +22,7 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -40,7 +40,7 @@ import java.io.IOException;
 public final class AttributeLocalVariableTable extends AttributeInfo {
     private LocalVariableTableEntry localVariableTable[] /* length: u2 */;
 
-    public AttributeLocalVariableTable(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeLocalVariableTable(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         int len = in.readUnsignedShort();
         localVariableTable = new LocalVariableTableEntry[len];
@@ -98,7 +98,7 @@ public final class AttributeLocalVariableTable extends AttributeInfo {
             this.index = index;
         }
 
-        public LocalVariableTableEntry(DataInputStream in) throws IOException {
+        public LocalVariableTableEntry(DataInput in) throws IOException {
             this(in.readUnsignedShort(),
                  in.readUnsignedShort(),
                  in.readUnsignedShort(),
@@ -21,7 +21,7 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -39,7 +39,7 @@ import java.io.IOException;
 public final class AttributeLocalVariableTypeTable extends AttributeInfo {
     private LocalVariableTypeTableEntry localVariableTypeTable[] /* length: u2 */;
 
-    public AttributeLocalVariableTypeTable(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeLocalVariableTypeTable(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         localVariableTypeTable = new LocalVariableTypeTableEntry[in.readUnsignedShort()];
         for(int i = 0; i < localVariableTypeTable.length; i++)
@@ -93,7 +93,7 @@ public final class AttributeLocalVariableTypeTable extends AttributeInfo {
             this.index = index;
         }
 
-        public LocalVariableTypeTableEntry(DataInputStream in) throws IOException {
+        public LocalVariableTypeTableEntry(DataInput in) throws IOException {
             this(in.readUnsignedShort(),
                  in.readUnsignedShort(),
                  in.readUnsignedShort(),
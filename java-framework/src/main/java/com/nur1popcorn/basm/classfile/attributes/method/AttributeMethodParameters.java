@@ -21,14 +21,14 @@ package com.nur1popcorn.basm.classfile.attributes.method;
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
 public class AttributeMethodParameters extends AttributeInfo {
     private final Parameter[] parameters;
 
-    public AttributeMethodParameters(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeMethodParameters(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         parameters = new Parameter[in.readUnsignedShort()];
         for(int i = 0; i < parameters.length; i++)
@@ -47,7 +47,7 @@ public class AttributeMethodParameters extends AttributeInfo {
         private final int nameIndex,
                           accessFlags;
 
-        public Parameter(DataInputStream in) throws IOException {
+        public Parameter(DataInput in) throws IOException {
             nameIndex = in.readUnsignedShort();
             accessFlags = in.readUnsignedShort();
         }
@@ -18,19 +18,46 @@
 
 package com.nur1popcorn.basm.classfile.attributes.method;
 
+import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 import com.nur1popcorn.basm.classfile.attributes.method.stackmap.StackMapFrame;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 public final class AttributeStackMapTable extends AttributeInfo {
     private StackMapFrame entries[] /* length: u2 */;
 
-    public AttributeStackMapTable(int nameIndex, DataInputStream in) throws IOException {
+    public AttributeStackMapTable(int nameIndex, DataInput in) throws IOException {
         super(nameIndex, in);
         entries = new StackMapFrame[in.readUnsignedShort()];
         for(int i = 0; i < entries.length; i++)
             entries[i] = StackMapFrame.read(in);
     }
+
+    /**
+     * @param nameIndex is a entry into the {@link ConstantPool} pointing at the CONSTANT_Utf8 'StackMapTable'.
+     * @param entries the frames ordered by their offsets.
+     */
+    public AttributeStackMapTable(int nameIndex, StackMapFrame entries[]) {
+        super(nameIndex, 0);
+        this.entries = entries;
+        int attributeLength = 2 /* u2 number of entries */;
+        for(StackMapFrame entry : entries)
+            attributeLength += entry.computeSize();
+        this.attributeLength = attributeLength;
+    }
+
+    @Override
+    public void write(DataOutputStream os, ConstantPool constantPool) throws IOException {
+        super.write(os, constantPool);
+        os.writeShort(entries.length);
+        for(StackMapFrame entry : entries)
+            entry.write(os);
+    }
+
+    public StackMapFrame[] getEntries() {
+        return entries;
+    }
 }
@@ -18,13 +18,46 @@
 
 package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
 public class AppendedFrame extends StackMapFrame {
-    private int offsetDelta;
-    private VariableInfo locals[];
+    private int offsetDelta /* u2 */;
+    private VariableInfo locals[] /* length: tag - 251 */;
 
     public AppendedFrame(byte tag, int offsetDelta, VariableInfo locals[]) {
         super(tag);
         this.offsetDelta = offsetDelta;
         this.locals = locals;
     }
+
+    @Override
+    public void write(DataOutputStream os) throws IOException {
+        super.write(os);
+        os.writeShort(offsetDelta);
+        for(VariableInfo local : locals)
+            local.write(os);
+    }
+
+    @Override
+    public int computeSize() {
+        int size = 3 /* u1 tag, u2 offset delta */;
+        for(VariableInfo local : locals)
+            size += local.computeSize();
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "append_frame[" + offsetDelta + ", " + Arrays.toString(locals) + "]";
+    }
+
+    public int getOffsetDelta() {
+        return offsetDelta;
+    }
+
+    public VariableInfo[] getLocals() {
+        return locals;
+    }
 }
@@ -0,0 +1,1185 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+
+package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
+
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode.ExceptionTableEntry;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeStackMapTable;
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantInvokeDynamic;
+import com.nur1popcorn.basm.classfile.constants.ConstantMethodRef;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantNameAndType;
+import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.nur1popcorn.basm.Constants.*;
+import static com.nur1popcorn.basm.classfile.AccessFlags.ACC_STATIC;
+
+/**
+ * <p>The {@link FrameComputer} computes the {@link AttributeStackMapTable} of a method's code. The types of the
+ *    locals and the stack are propagated from the method's descriptor using a worklist over the basic blocks,
+ *    types flowing into the same block are merged until none of them changes anymore.</p>
+ * <p>Verification types are encoded as ints: The lower 4 bits hold the item's tag, the remaining bits hold the
+ *    index of the class' name for 'Object_variable_info's and the offset of the 'new' instruction for
+ *    'Uninitialized_variable_info's. Longs and doubles occupy 2 slots, the second one being top.</p>
+ * <p>Code which cannot be reached is replaced with nops followed by an athrow and removed from the exception
+ *    table, just like javac would have never emitted it, since a frame is required after every unconditional
+ *    branch.</p>
+ * <p>A {@link FrameComputer} is not thread safe, it should be used for all methods of a single class in order
+ *    to share the names and the merges resolved.</p>
+ *
+ * @see AttributeStackMapTable
+ * @see ISuperClassResolver
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class FrameComputer {
+    /* The flags kept for every offset of the code.
+     */
+    private static final byte INSTRUCTION = 0x1,
+                              FRAME = 0x2,
+                              QUEUED = 0x4,
+                              UNREACHABLE = 0x8;
+
+    private static final String OBJECT = "java/lang/Object",
+                                THROWABLE = "java/lang/Throwable";
+
+    /* The arrays created by 'newarray' indexed by their atype - 4.
+     */
+    private static final String ARRAY_TYPES[] = {
+        "[Z", "[C", "[F", "[D", "[B", "[S", "[I", "[J"
+    };
+
+    /* The 'VariableInfo's of the types without payload indexed by their tags.
+     */
+    private static final VariableInfo VARIABLE_INFOS[] = {
+        new VariableInfo((byte) ITEM_TOP),
+        new VariableInfo((byte) ITEM_INTEGER),
+        new VariableInfo((byte) ITEM_FLOAT),
+        new VariableInfo((byte) ITEM_DOUBLE),
+        new VariableInfo((byte) ITEM_LONG),
+        new VariableInfo((byte) ITEM_NULL),
+        new VariableInfo((byte) ITEM_UNINITIALISED_THIS)
+    };
+
+    private final String owner;
+    private final ConstantPoolGenerator constantPool;
+    private final ISuperClassResolver resolver;
+
+    /* The names of the classes encoded, indexed by the payload of their types, and the merges of two
+     * object types which have already been resolved keyed by both types.
+     */
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> types = new HashMap<>();
+    private final Map<Long, Integer> merges = new HashMap<>();
+
+    /* The state of the method whose frames are being computed. Every frame stored consists of the stack's
+     * size followed by the locals and the stack.
+     */
+    private byte code[];
+    private byte flags[];
+    private int frames[][];
+    private ExceptionTableEntry exceptionTable[];
+    private int catchTypes[];
+    private int maxStack,
+                maxLocals;
+
+    private int worklist[],
+                pending;
+
+    /* The frame of the instruction being simulated.
+     */
+    private int locals[],
+                stack[],
+                top;
+
+    /**
+     * @param owner the internal name of the class whose methods' frames should be computed.
+     * @param constantPool the {@link ConstantPoolGenerator} the methods are indexing, the classes required
+     *                     by the frames are added to it.
+     * @param resolver the {@link ISuperClassResolver} used to merge two object types.
+     */
+    public FrameComputer(String owner, ConstantPoolGenerator constantPool, ISuperClassResolver resolver) {
+        this.owner = owner;
+        this.constantPool = constantPool;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param access the method's access flags.
+     * @param name the method's name.
+     * @param desc the method's descriptor.
+     * @param attribute the method's code whose frames should be computed, it is not modified.
+     *
+     * @throws MalformedClassFileException if the code is invalid or uses jsr and ret.
+     *
+     * @return a copy of the code given with the {@link AttributeStackMapTable} computed, its unreachable code
+     *         is replaced.
+     */
+    public AttributeCode compute(int access, String name, String desc, AttributeCode attribute) {
+        code = attribute.getByteCode().clone();
+        exceptionTable = attribute.getExceptionTable();
+        maxStack = attribute.getMaxStack();
+        maxLocals = attribute.getMaxLocals();
+        flags = new byte[code.length];
+        frames = new int[code.length][];
+        worklist = new int[code.length];
+        pending = 0;
+        locals = new int[maxLocals];
+        stack = new int[maxStack];
+
+        scan();
+        catchTypes = new int[exceptionTable.length];
+        for(int i = 0; i < exceptionTable.length; i++) {
+            final int catchType = exceptionTable[i].getCatchType();
+            catchTypes[i] = object(catchType == 0 ?
+                THROWABLE : className(catchType));
+        }
+
+        // the implicit frame derived from the method's descriptor.
+        final int initial[] = new int[maxLocals];
+        int index = 0;
+        if((access & ACC_STATIC) == 0)
+            index = local(initial, index, "<init>".equals(name) && !OBJECT.equals(owner) ?
+                ITEM_UNINITIALISED_THIS : object(owner));
+        for(int i = 1; desc.charAt(i) != ')';) {
+            final int end = skip(desc, i);
+            index = local(initial, index, type(desc, i, end));
+            i = end;
+        }
+
+        System.arraycopy(initial, 0, locals, 0, maxLocals);
+        top = 0;
+        merge(0, -1);
+        while(pending != 0) {
+            final int start = worklist[--pending];
+            flags[start] &= ~QUEUED;
+            execute(start);
+        }
+
+        final ExceptionTableEntry table[] = removeUnreachable();
+        final List<StackMapFrame> entries = emit(initial);
+
+        final int stackMapTable = constantPool.findUTF8("StackMapTable");
+        final List<AttributeInfo> attributes = new ArrayList<>();
+        for(AttributeInfo info : attribute.getAttributes())
+            if(!"StackMapTable".equals(info.indexName(constantPool).getBytes()))
+                attributes.add(info);
+        if(!entries.isEmpty())
+            attributes.add(new AttributeStackMapTable(stackMapTable, entries.toArray(new StackMapFrame[0])));
+        final AttributeCode result = new AttributeCode(
+            constantPool.findUTF8("Code"),
+            maxStack,
+            maxLocals,
+            code,
+            table,
+            attributes.toArray(new AttributeInfo[0])
+        );
+        code = null;
+        flags = null;
+        frames = null;
+        return result;
+    }
+
+    /**
+     * Finds all instructions and marks all offsets requiring a frame: the targets of branches, the handlers and
+     * the instructions following unconditional branches.
+     */
+    private void scan() {
+        for(int pc = 0; pc < code.length;) {
+            flags[pc] |= INSTRUCTION;
+            final int next = pc + length(pc);
+            switch(code[pc]) {
+                case IFEQ: case IFNE: case IFLT: case IFGE: case IFGT: case IFLE:
+                case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPGE: case IF_ICMPGT: case IF_ICMPLE:
+                case IF_ACMPEQ: case IF_ACMPNQ: case IFNULL: case IFNONNULL:
+                    mark(pc + s2(pc + 1));
+                    break;
+                case GOTO:
+                    mark(pc + s2(pc + 1));
+                    mark(next);
+                    break;
+                case GOTO_W:
+                    mark(pc + s4(pc + 1));
+                    mark(next);
+                    break;
+                case TABLESWITCH: {
+                    final int base = (pc + 4) & ~3;
+                    mark(pc + s4(base));
+                    for(int i = 0, length = s4(base + 8) - s4(base + 4) + 1; i < length; i++)
+                        mark(pc + s4(base + 12 + (i << 2)));
+                    mark(next);
+                }   break;
+                case LOOKUPSWITCH: {
+                    final int base = (pc + 4) & ~3;
+                    mark(pc + s4(base));
+                    for(int i = 0, length = s4(base + 4); i < length; i++)
+                        mark(pc + s4(base + 12 + (i << 3)));
+                    mark(next);
+                }   break;
+                case IRETURN: case LRETURN: case FRETURN: case DRETURN: case ARETURN: case RETURN:
+                case ATHROW:
+                    mark(next);
+                    break;
+                case JSR: case JSR_W: case RET:
+                    throw new MalformedClassFileException(
+                        "Frames cannot be computed for jsr and ret: offset=" + pc + ".");
+            }
+            pc = next;
+        }
+        for(ExceptionTableEntry entry : exceptionTable)
+            mark(entry.getHandlerPc());
+        for(int pc = 0; pc < code.length; pc++)
+            if(flags[pc] == FRAME)
+                throw new MalformedClassFileException(
+                    "The target is not the start of an instruction: offset=" + pc + ".");
+    }
+
+    private void mark(int target) {
+        if(target == code.length)
+            return;
+        if(target < 0 || target > code.length)
+            throw new MalformedClassFileException(
+                "The target is out of bounds: offset=" + target + ".");
+        flags[target] |= FRAME;
+    }
+
+    /**
+     * Simulates the basic block starting at the given offset and merges its frame into its successors.
+     */
+    private void execute(int start) {
+        final int frame[] = frames[start];
+        top = frame[0];
+        System.arraycopy(frame, 1, locals, 0, maxLocals);
+        System.arraycopy(frame, 1 + maxLocals, stack, 0, top);
+        for(int pc = start;;) {
+            final boolean covered = mergeHandlers(pc);
+            final int next = pc + length(pc);
+            final boolean proceeds = execute(pc, code[pc]);
+            // stores are verified against the handlers using the locals before and after the instruction.
+            if(covered)
+                mergeHandlers(pc);
+            if(!proceeds)
+                return;
+            if(next >= code.length)
+                throw new MalformedClassFileException(
+                    "The code must not fall off its end: offset=" + pc + ".");
+            if((flags[next] & FRAME) != 0) {
+                merge(next, -1);
+                return;
+            }
+            pc = next;
+        }
+    }
+
+    /**
+     * @return whether or not the instruction at the given offset is covered by any handler.
+     */
+    private boolean mergeHandlers(int pc) {
+        boolean result = false;
+        for(int i = 0; i < exceptionTable.length; i++) {
+            final ExceptionTableEntry entry = exceptionTable[i];
+            if(entry.getStartPc() <= pc && pc < entry.getEndPc()) {
+                merge(entry.getHandlerPc(), catchTypes[i]);
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges the current frame into the frame of the given offset and queues it if it has changed.
+     *
+     * @param pc the offset whose frame should be merged.
+     * @param catchType the type of the exception caught or -1 if the current stack should be used.
+     */
+    private void merge(int pc, int catchType) {
+        final int size = catchType < 0 ? top : 1;
+        int frame[] = frames[pc];
+        if(frame == null) {
+            frame = frames[pc] = new int[1 + maxLocals + Math.max(maxStack, 1)];
+            frame[0] = size;
+            System.arraycopy(locals, 0, frame, 1, maxLocals);
+            if(catchType < 0)
+                System.arraycopy(stack, 0, frame, 1 + maxLocals, top);
+            else
+                frame[1 + maxLocals] = catchType;
+            queue(pc);
+            return;
+        }
+        if(frame[0] != size)
+            throw new MalformedClassFileException(
+                "The stack sizes do not match: offset=" + pc + ", " + frame[0] + " != " + size + ".");
+        boolean changed = false;
+        for(int i = 0; i < maxLocals; i++) {
+            final int type = mergeTypes(frame[1 + i], locals[i]);
+            if(type != frame[1 + i]) {
+                frame[1 + i] = type;
+                changed = true;
+            }
+        }
+        for(int i = 0; i < size; i++) {
+            final int type = mergeTypes(frame[1 + maxLocals + i], catchType < 0 ?
+                stack[i] : catchType);
+            if(type != frame[1 + maxLocals + i]) {
+                frame[1 + maxLocals + i] = type;
+                changed = true;
+            }
+        }
+        if(changed)
+            queue(pc);
+    }
+
+    private void queue(int pc) {
+        if((flags[pc] & QUEUED) == 0) {
+            flags[pc] |= QUEUED;
+            worklist[pending++] = pc;
+        }
+    }
+
+    /**
+     * @return the most specific type both types given are assignable to.
+     */
+    private int mergeTypes(int first, int second) {
+        if(first == second)
+            return first;
+        final int firstTag = first & 0xf,
+                  secondTag = second & 0xf;
+        if(firstTag == ITEM_NULL && secondTag == ITEM_OBJECT)
+            return second;
+        if(firstTag == ITEM_OBJECT && secondTag == ITEM_NULL)
+            return first;
+        if(firstTag != ITEM_OBJECT || secondTag != ITEM_OBJECT)
+            return ITEM_TOP;
+        final long key = first < second ?
+            (long) first << 32 | second :
+            (long) second << 32 | first;
+        Integer type = merges.get(key);
+        if(type == null)
+            merges.put(key, type = object(getCommonSuperClass(names.get(first >>> 4), names.get(second >>> 4))));
+        return type;
+    }
+
+    /**
+     * @return the internal name of the most specific class both classes or arrays are assignable to.
+     */
+    private String getCommonSuperClass(String first, String second) {
+        if(OBJECT.equals(first) || OBJECT.equals(second))
+            return OBJECT;
+        final boolean firstArray = first.charAt(0) == '[',
+                      secondArray = second.charAt(0) == '[';
+        if(!firstArray && !secondArray)
+            return resolver.getCommonSuperClass(first, second);
+        if(!firstArray || !secondArray)
+            return OBJECT;
+        int dimensions = 0;
+        while(first.charAt(dimensions) == '[' && second.charAt(dimensions) == '[')
+            dimensions++;
+        final char firstComponent = first.charAt(dimensions),
+                   secondComponent = second.charAt(dimensions);
+        final StringBuilder builder = new StringBuilder();
+        if(firstComponent == 'L' && secondComponent == 'L') {
+            for(int i = 0; i < dimensions; i++)
+                builder.append('[');
+            return builder.append('L')
+                          .append(getCommonSuperClass(
+                              first.substring(dimensions + 1, first.length() - 1),
+                              second.substring(dimensions + 1, second.length() - 1)))
+                          .append(';')
+                          .toString();
+        }
+        // arrays of primitives are only assignable to objects.
+        if(firstComponent != 'L' && firstComponent != '[' ||
+           secondComponent != 'L' && secondComponent != '[')
+            dimensions--;
+        if(dimensions == 0)
+            return OBJECT;
+        for(int i = 0; i < dimensions; i++)
+            builder.append('[');
+        return builder.append('L')
+                      .append(OBJECT)
+                      .append(';')
+                      .toString();
+    }
+
+    /**
+     * Simulates the given instruction using the current frame.
+     *
+     * @return whether or not the instruction can fall through to the next one.
+     */
+    private boolean execute(int pc, byte opcode) {
+        switch(opcode) {
+            case NOP:
+            case INEG: case LNEG: case FNEG: case DNEG:
+            case I2B: case I2C: case I2S:
+            case IINC:
+                break;
+            case ACONST_NULL:
+                push(ITEM_NULL);
+                break;
+            case ICONST_M1: case ICONST_0: case ICONST_1: case ICONST_2: case ICONST_3: case ICONST_4: case ICONST_5:
+            case BIPUSH: case SIPUSH:
+                push(ITEM_INTEGER);
+                break;
+            case LCONST_0: case LCONST_1:
+                push2(ITEM_LONG);
+                break;
+            case FCONST_0: case FCONST_1: case FCONST_2:
+                push(ITEM_FLOAT);
+                break;
+            case DCONST_0: case DCONST_1:
+                push2(ITEM_DOUBLE);
+                break;
+            case LDC:
+                ldc(code[pc + 1] & 0xff);
+                break;
+            case LDC_W: case LDC2_W:
+                ldc(u2(pc + 1));
+                break;
+            case ILOAD: case LLOAD: case FLOAD: case DLOAD: case ALOAD:
+                load(opcode, code[pc + 1] & 0xff);
+                break;
+            case ILOAD_0: case ILOAD_1: case ILOAD_2: case ILOAD_3:
+            case LLOAD_0: case LLOAD_1: case LLOAD_2: case LLOAD_3:
+            case FLOAD_0: case FLOAD_1: case FLOAD_2: case FLOAD_3:
+            case DLOAD_0: case DLOAD_1: case DLOAD_2: case DLOAD_3:
+            case ALOAD_0: case ALOAD_1: case ALOAD_2: case ALOAD_3:
+                load((byte) (ILOAD + ((opcode - ILOAD_0) >> 2)), (opcode - ILOAD_0) & 3);
+                break;
+            case IALOAD: case BALOAD: case CALOAD: case SALOAD:
+                pop(2);
+                push(ITEM_INTEGER);
+                break;
+            case LALOAD:
+                pop(2);
+                push2(ITEM_LONG);
+                break;
+            case FALOAD:
+                pop(2);
+                push(ITEM_FLOAT);
+                break;
+            case DALOAD:
+                pop(2);
+                push2(ITEM_DOUBLE);
+                break;
+            case AALOAD:
+                pop(1);
+                push(component(pc, pop()));
+                break;
+            case ISTORE: case LSTORE: case FSTORE: case DSTORE: case ASTORE:
+                store(opcode, code[pc + 1] & 0xff);
+                break;
+            case ISTORE_0: case ISTORE_1: case ISTORE_2: case ISTORE_3:
+            case LSTORE_0: case LSTORE_1: case LSTORE_2: case LSTORE_3:
+            case FSTORE_0: case FSTORE_1: case FSTORE_2: case FSTORE_3:
+            case DSTORE_0: case DSTORE_1: case DSTORE_2: case DSTORE_3:
+            case ASTORE_0: case ASTORE_1: case ASTORE_2: case ASTORE_3:
+                store((byte) (ISTORE + ((opcode - ISTORE_0) >> 2)), (opcode - ISTORE_0) & 3);
+                break;
+            case IASTORE: case FASTORE: case AASTORE: case BASTORE: case CASTORE: case SASTORE:
+                pop(3);
+                break;
+            case LASTORE: case DASTORE:
+                pop(4);
+                break;
+            case POP:
+                pop(1);
+                break;
+            case POP2:
+                pop(2);
+                break;
+            case DUP: {
+                final int value = pop();
+                push(value);
+                push(value);
+            }   break;
+            case DUP_X1: {
+                final int value1 = pop(),
+                          value2 = pop();
+                push(value1);
+                push(value2);
+                push(value1);
+            }   break;
+            case DUP_X2: {
+                final int value1 = pop(),
+                          value2 = pop(),
+                          value3 = pop();
+                push(value1);
+                push(value3);
+                push(value2);
+                push(value1);
+            }   break;
+            case DUP2: {
+                final int value1 = pop(),
+                          value2 = pop();
+                push(value2);
+                push(value1);
+                push(value2);
+                push(value1);
+            }   break;
+            case DUP2_X1: {
+                final int value1 = pop(),
+                          value2 = pop(),
+                          value3 = pop();
+                push(value2);
+                push(value1);
+                push(value3);
+                push(value2);
+                push(value1);
+            }   break;
+            case DUP2_X2: {
+                final int value1 = pop(),
+                          value2 = pop(),
+                          value3 = pop(),
+                          value4 = pop();
+                push(value2);
+                push(value1);
+                push(value4);
+                push(value3);
+                push(value2);
+                push(value1);
+            }   break;
+            case SWAP: {
+                final int value1 = pop(),
+                          value2 = pop();
+                push(value1);
+                push(value2);
+            }   break;
+            case IADD: case ISUB: case IMUL: case IDIV: case IREM:
+            case ISHL: case ISHR: case IUSHR: case IAND: case IOR: case IXOR:
+            case FCMPL: case FCMPG:
+                pop(2);
+                push(ITEM_INTEGER);
+                break;
+            case LADD: case LSUB: case LMUL: case LDIV: case LREM:
+            case LAND: case LOR: case LXOR:
+                pop(4);
+                push2(ITEM_LONG);
+                break;
+            case LSHL: case LSHR: case LUSHR:
+                pop(3);
+                push2(ITEM_LONG);
+                break;
+            case FADD: case FSUB: case FMUL: case FDIV: case FREM:
+                pop(2);
+                push(ITEM_FLOAT);
+                break;
+            case DADD: case DSUB: case DMUL: case DDIV: case DREM:
+                pop(4);
+                push2(ITEM_DOUBLE);
+                break;
+            case I2L: case F2L:
+                pop(1);
+                push2(ITEM_LONG);
+                break;
+            case I2F:
+                pop(1);
+                push(ITEM_FLOAT);
+                break;
+            case I2D: case F2D:
+                pop(1);
+                push2(ITEM_DOUBLE);
+                break;
+            case L2I: case D2I:
+                pop(2);
+                push(ITEM_INTEGER);
+                break;
+            case L2F: case D2F:
+                pop(2);
+                push(ITEM_FLOAT);
+                break;
+            case L2D:
+                pop(2);
+                push2(ITEM_DOUBLE);
+                break;
+            case D2L:
+                pop(2);
+                push2(ITEM_LONG);
+                break;
+            case F2I:
+                pop(1);
+                push(ITEM_INTEGER);
+                break;
+            case LCMP: case DCMPL: case DCMPG:
+                pop(4);
+                push(ITEM_INTEGER);
+                break;
+            case IFEQ: case IFNE: case IFLT: case IFGE: case IFGT: case IFLE:
+            case IFNULL: case IFNONNULL:
+                pop(1);
+                merge(pc + s2(pc + 1), -1);
+                break;
+            case IF_ICMPEQ: case IF_ICMPNE: case IF_ICMPLT: case IF_ICMPGE: case IF_ICMPGT: case IF_ICMPLE:
+            case IF_ACMPEQ: case IF_ACMPNQ:
+                pop(2);
+                merge(pc + s2(pc + 1), -1);
+                break;
+            case GOTO:
+                merge(pc + s2(pc + 1), -1);
+                return false;
+            case GOTO_W:
+                merge(pc + s4(pc + 1), -1);
+                return false;
+            case TABLESWITCH: {
+                pop(1);
+                final int base = (pc + 4) & ~3;
+                merge(pc + s4(base), -1);
+                for(int i = 0, length = s4(base + 8) - s4(base + 4) + 1; i < length; i++)
+                    merge(pc + s4(base + 12 + (i << 2)), -1);
+            }   return false;
+            case LOOKUPSWITCH: {
+                pop(1);
+                final int base = (pc + 4) & ~3;
+                merge(pc + s4(base), -1);
+                for(int i = 0, length = s4(base + 4); i < length; i++)
+                    merge(pc + s4(base + 12 + (i << 3)), -1);
+            }   return false;
+            case IRETURN: case LRETURN: case FRETURN: case DRETURN: case ARETURN: case RETURN:
+            case ATHROW:
+                return false;
+            case GETSTATIC:
+                push(fieldDesc(pc));
+                break;
+            case PUTSTATIC:
+                pop(size(fieldDesc(pc)));
+                break;
+            case GETFIELD: {
+                final String desc = fieldDesc(pc);
+                pop(1);
+                push(desc);
+            }   break;
+            case PUTFIELD:
+                pop(size(fieldDesc(pc)) + 1);
+                break;
+            case INVOKEVIRTUAL: case INVOKESPECIAL: case INVOKESTATIC: case INVOKEINTERFACE: {
+                final ConstantNameAndType nameAndType = ((ConstantMethodRef) constantPool.getEntry(u2(pc + 1)))
+                    .indexNameAndType(constantPool);
+                final String desc = nameAndType.indexDesc(constantPool).getBytes();
+                pop(size(desc));
+                if(opcode != INVOKESTATIC) {
+                    final int receiver = pop();
+                    if(opcode == INVOKESPECIAL &&
+                       "<init>".equals(nameAndType.indexName(constantPool).getBytes()))
+                        initialize(pc, receiver);
+                }
+                push(desc);
+            }   break;
+            case INVOKEDYNAMIC: {
+                final String desc = ((ConstantInvokeDynamic) constantPool.getEntry(u2(pc + 1)))
+                    .indexNameAndType(constantPool)
+                    .indexDesc(constantPool)
+                    .getBytes();
+                pop(size(desc));
+                push(desc);
+            }   break;
+            case NEW:
+                push(pc << 4 | ITEM_UNINITIALISED);
+                break;
+            case NEWARRAY: {
+                final int atype = (code[pc + 1] & 0xff) - 4;
+                if(atype < 0 || atype >= ARRAY_TYPES.length)
+                    throw new MalformedClassFileException(
+                        "Invalid array type: offset=" + pc + ".");
+                pop(1);
+                push(object(ARRAY_TYPES[atype]));
+            }   break;
+            case ANEWARRAY: {
+                final String name = className(u2(pc + 1));
+                pop(1);
+                push(object(name.charAt(0) == '[' ?
+                    "[" + name : "[L" + name + ";"));
+            }   break;
+            case ARRAYLENGTH: case INSTANCEOF:
+                pop(1);
+                push(ITEM_INTEGER);
+                break;
+            case CHECKCAST:
+                pop(1);
+                push(object(className(u2(pc + 1))));
+                break;
+            case MONITORENTER: case MONITOREXIT:
+                pop(1);
+                break;
+            case WIDE: {
+                final byte wide = code[pc + 1];
+                final int index = u2(pc + 2);
+                switch(wide) {
+                    case ILOAD: case LLOAD: case FLOAD: case DLOAD: case ALOAD:
+                        load(wide, index);
+                        break;
+                    case ISTORE: case LSTORE: case FSTORE: case DSTORE: case ASTORE:
+                        store(wide, index);
+                        break;
+                    case IINC:
+                        break;
+                    default:
+                        throw new MalformedClassFileException(
+                            "Invalid wide instruction: offset=" + pc + ".");
+                }
+            }   break;
+            case MULTIANEWARRAY:
+                pop(code[pc + 3] & 0xff);
+                push(object(className(u2(pc + 1))));
+                break;
+            default:
+                throw new MalformedClassFileException(
+                    "Invalid opcode=" + (opcode & 0xff) + ": offset=" + pc + ".");
+        }
+        return true;
+    }
+
+    private void ldc(int index) {
+        final ConstantInfo info = constantPool.getEntry(index);
+        switch(info.getTag()) {
+            case CONSTANT_INTEGER:
+                push(ITEM_INTEGER);
+                break;
+            case CONSTANT_FLOAT:
+                push(ITEM_FLOAT);
+                break;
+            case CONSTANT_LONG:
+                push2(ITEM_LONG);
+                break;
+            case CONSTANT_DOUBLE:
+                push2(ITEM_DOUBLE);
+                break;
+            case CONSTANT_STRING:
+                push(object("java/lang/String"));
+                break;
+            case CONSTANT_CLASS:
+                push(object("java/lang/Class"));
+                break;
+            case CONSTANT_METHOD_TYPE:
+                push(object("java/lang/invoke/MethodType"));
+                break;
+            case CONSTANT_METHOD_HANDLE:
+                push(object("java/lang/invoke/MethodHandle"));
+                break;
+            case CONSTANT_DYNAMIC: {
+                final String desc = ((ConstantInvokeDynamic) info)
+                    .indexNameAndType(constantPool)
+                    .indexDesc(constantPool)
+                    .getBytes();
+                final int type = type(desc, 0, desc.length());
+                if(type == ITEM_LONG || type == ITEM_DOUBLE)
+                    push2(type);
+                else
+                    push(type);
+            }   break;
+            default:
+                throw new MalformedClassFileException(
+                    "The constant cannot be loaded: index=" + index + ".");
+        }
+    }
+
+    private void load(byte opcode, int index) {
+        switch(opcode) {
+            case ILOAD:
+                push(ITEM_INTEGER);
+                break;
+            case LLOAD:
+                push2(ITEM_LONG);
+                break;
+            case FLOAD:
+                push(ITEM_FLOAT);
+                break;
+            case DLOAD:
+                push2(ITEM_DOUBLE);
+                break;
+            default:
+                if(index >= maxLocals)
+                    throw new MalformedClassFileException(
+                        "The local is out of bounds: index=" + index + ".");
+                push(locals[index]);
+        }
+    }
+
+    private void store(byte opcode, int index) {
+        switch(opcode) {
+            case ISTORE:
+                pop(1);
+                local(locals, index, ITEM_INTEGER);
+                break;
+            case LSTORE:
+                pop(2);
+                local(locals, index, ITEM_LONG);
+                break;
+            case FSTORE:
+                pop(1);
+                local(locals, index, ITEM_FLOAT);
+                break;
+            case DSTORE:
+                pop(2);
+                local(locals, index, ITEM_DOUBLE);
+                break;
+            default:
+                local(locals, index, pop());
+        }
+    }
+
+    /**
+     * Stores the given type in the given locals invalidating any long or double it overwrites.
+     *
+     * @return the index following the type stored.
+     */
+    private int local(int locals[], int index, int type) {
+        final int size = type == ITEM_LONG || type == ITEM_DOUBLE ? 2 : 1;
+        if(index + size > maxLocals)
+            throw new MalformedClassFileException(
+                "The local is out of bounds: index=" + index + ".");
+        if(index > 0) {
+            final int previous = locals[index - 1];
+            if(previous == ITEM_LONG || previous == ITEM_DOUBLE)
+                locals[index - 1] = ITEM_TOP;
+        }
+        locals[index] = type;
+        if(size == 2)
+            locals[index + 1] = ITEM_TOP;
+        return index + size;
+    }
+
+    /**
+     * Replaces the uninitialized type given with the class it has been initialized to.
+     */
+    private void initialize(int pc, int type) {
+        final int tag = type & 0xf;
+        if(tag != ITEM_UNINITIALISED_THIS && tag != ITEM_UNINITIALISED)
+            return;
+        final int initialized = object(tag == ITEM_UNINITIALISED_THIS ?
+            owner : className(u2((type >>> 4) + 1)));
+        for(int i = 0; i < maxLocals; i++)
+            if(locals[i] == type)
+                locals[i] = initialized;
+        for(int i = 0; i < top; i++)
+            if(stack[i] == type)
+                stack[i] = initialized;
+    }
+
+    /**
+     * @return the type of the components of the array given.
+     */
+    private int component(int pc, int array) {
+        if(array == ITEM_NULL)
+            return ITEM_NULL;
+        final String name = (array & 0xf) == ITEM_OBJECT ?
+            names.get(array >>> 4) : null;
+        if(name == null || name.charAt(0) != '[')
+            throw new MalformedClassFileException(
+                "Expected an array of references: offset=" + pc + ".");
+        return type(name, 1, name.length());
+    }
+
+    private void push(int type) {
+        if(top == maxStack)
+            throw new MalformedClassFileException(
+                "The stack exceeds its maximum size: max_stack=" + maxStack + ".");
+        stack[top++] = type;
+    }
+
+    private void push2(int type) {
+        push(type);
+        push(ITEM_TOP);
+    }
+
+    /**
+     * Pushes the type of the field or the return type of the method described.
+     */
+    private void push(String desc) {
+        final int start = desc.charAt(0) == '(' ?
+            desc.indexOf(')') + 1 : 0;
+        if(desc.charAt(start) == 'V')
+            return;
+        final int type = type(desc, start, desc.length());
+        if(type == ITEM_LONG || type == ITEM_DOUBLE)
+            push2(type);
+        else
+            push(type);
+    }
+
+    private int pop() {
+        if(top == 0)
+            throw new MalformedClassFileException("The stack must not be empty.");
+        return stack[--top];
+    }
+
+    private void pop(int size) {
+        if(top < size)
+            throw new MalformedClassFileException("The stack must not be empty.");
+        top -= size;
+    }
+
+    /**
+     * @return the number of slots occupied by the field or the arguments of the method described.
+     */
+    private static int size(String desc) {
+        if(desc.charAt(0) != '(')
+            return desc.charAt(0) == 'J' || desc.charAt(0) == 'D' ? 2 : 1;
+        int size = 0;
+        for(int i = 1; desc.charAt(i) != ')';) {
+            final char c = desc.charAt(i);
+            size += c == 'J' || c == 'D' ? 2 : 1;
+            i = skip(desc, i);
+        }
+        return size;
+    }
+
+    /**
+     * @return the index following the field descriptor starting at the given index.
+     */
+    private static int skip(String desc, int index) {
+        while(desc.charAt(index) == '[')
+            index++;
+        return desc.charAt(index) == 'L' ?
+            desc.indexOf(';', index) + 1 : index + 1;
+    }
+
+    /**
+     * @return the type of the field descriptor ranging from start to end.
+     */
+    private int type(String desc, int start, int end) {
+        switch(desc.charAt(start)) {
+            case 'Z': case 'B': case 'C': case 'S': case 'I':
+                return ITEM_INTEGER;
+            case 'F':
+                return ITEM_FLOAT;
+            case 'J':
+                return ITEM_LONG;
+            case 'D':
+                return ITEM_DOUBLE;
+            case 'L':
+                return object(desc.substring(start + 1, end - 1));
+            case '[':
+                return object(desc.substring(start, end));
+            default:
+                throw new MalformedClassFileException("Invalid descriptor: " + desc + ".");
+        }
+    }
+
+    /**
+     * @param name the internal name of a class or the descriptor of an array.
+     *
+     * @return the object type of the class given.
+     */
+    private int object(String name) {
+        Integer type = types.get(name);
+        if(type == null) {
+            types.put(name, type = names.size() << 4 | ITEM_OBJECT);
+            names.add(name);
+        }
+        return type;
+    }
+
+    private String className(int index) {
+        return ((ConstantName) constantPool.getEntry(index))
+            .indexName(constantPool)
+            .getBytes();
+    }
+
+    private String fieldDesc(int pc) {
+        return ((ConstantMethodRef) constantPool.getEntry(u2(pc + 1)))
+            .indexNameAndType(constantPool)
+            .indexDesc(constantPool)
+            .getBytes();
+    }
+
+    /**
+     * Replaces every basic block which has not been reached with nops followed by an athrow, whose frame only
+     * consists of a 'java/lang/Throwable' on the stack, and removes them from the exception table.
+     *
+     * @return the exception table without the blocks which have not been reached.
+     */
+    private ExceptionTableEntry[] removeUnreachable() {
+        boolean unreachable = false;
+        for(int pc = 0; pc < code.length; pc++) {
+            if((flags[pc] & FRAME) == 0 || frames[pc] != null)
+                continue;
+            unreachable = true;
+            int end = pc + 1;
+            while(end < code.length && (flags[end] & FRAME) == 0)
+                end++;
+            for(int i = pc; i < end; i++) {
+                code[i] = NOP;
+                flags[i] |= UNREACHABLE;
+            }
+            code[end - 1] = ATHROW;
+            final int frame[] = frames[pc] = new int[1 + maxLocals + 1];
+            frame[0] = 1;
+            frame[1 + maxLocals] = object(THROWABLE);
+            pc = end - 1;
+        }
+        if(!unreachable)
+            return exceptionTable;
+        maxStack = Math.max(maxStack, 1);
+
+        // the ranges are split around the blocks which have not been reached.
+        final List<ExceptionTableEntry> table = new ArrayList<>();
+        for(ExceptionTableEntry entry : exceptionTable) {
+            final int end = entry.getEndPc();
+            int start = -1;
+            for(int pc = entry.getStartPc(); pc <= end; pc++) {
+                final boolean reached = pc < end && (flags[pc] & UNREACHABLE) == 0;
+                if(reached && start < 0)
+                    start = pc;
+                else if(!reached && start >= 0) {
+                    table.add(new ExceptionTableEntry(start, pc, entry.getHandlerPc(), entry.getCatchType()));
+                    start = -1;
+                }
+            }
+        }
+        return table.toArray(new ExceptionTableEntry[0]);
+    }
+
+    /**
+     * Encodes the frames using the smallest kind of frame possible, each of them relative to the previous one.
+     *
+     * @param initial the locals of the implicit frame derived from the method's descriptor.
+     *
+     * @return the frames of all offsets requiring one.
+     */
+    private List<StackMapFrame> emit(int initial[]) {
+        final List<StackMapFrame> entries = new ArrayList<>();
+        int previous[] = new int[maxLocals],
+            current[] = new int[maxLocals];
+        final int items[] = new int[Math.max(maxStack, 1)];
+        int previousLength = collapse(initial, 0, maxLocals, previous, true);
+        int last = -1;
+        for(int pc = 0; pc < code.length; pc++) {
+            if((flags[pc] & FRAME) == 0)
+                continue;
+            final int frame[] = frames[pc];
+            final int length = collapse(frame, 1, maxLocals, current, true),
+                      size = collapse(frame, 1 + maxLocals, frame[0], items, false);
+            final int delta = last < 0 ?
+                pc : pc - last - 1;
+            final int difference = length - previousLength;
+            boolean same = true;
+            for(int i = 0, common = Math.min(length, previousLength); i < common && same; i++)
+                same = previous[i] == current[i];
+
+            final StackMapFrame entry;
+            if(same && difference == 0 && size == 0)
+                entry = delta < 64 ?
+                    new SameFrame((byte) delta) :
+                    new SameFrameExtended((byte) 251, delta);
+            else if(same && difference == 0 && size == 1)
+                entry = delta < 64 ?
+                    new SameLocals1StackItemFrame((byte) (64 + delta), info(items[0])) :
+                    new SameLocals1StackItemFrameExtended((byte) 247, delta, info(items[0]));
+            else if(same && size == 0 && difference < 0 && difference >= -3)
+                // chop_frame
+                entry = new SameFrameExtended((byte) (251 + difference), delta);
+            else if(same && size == 0 && difference > 0 && difference <= 3)
+                entry = new AppendedFrame((byte) (251 + difference), delta, infos(current, previousLength, length));
+            else
+                entry = new FullFrame((byte) 255, delta, infos(current, 0, length), infos(items, 0, size));
+            entries.add(entry);
+
+            final int swap[] = previous;
+            previous = current;
+            current = swap;
+            previousLength = length;
+            last = pc;
+        }
+        return entries;
+    }
+
+    /**
+     * Collapses the 2 slots of longs and doubles into a single type.
+     *
+     * @param trim whether or not the trailing tops should be removed.
+     *
+     * @return the number of types collapsed.
+     */
+    private static int collapse(int frame[], int from, int length, int types[], boolean trim) {
+        int size = 0;
+        for(int i = from, end = from + length; i < end; i++) {
+            final int type = frame[i];
+            types[size++] = type;
+            if(type == ITEM_LONG || type == ITEM_DOUBLE)
+                i++;
+        }
+        if(trim)
+            while(size > 0 && types[size - 1] == ITEM_TOP)
+                size--;
+        return size;
+    }
+
+    private VariableInfo info(int type) {
+        switch(type & 0xf) {
+            case ITEM_OBJECT:
+                return new ObjectVariableInfo((byte) ITEM_OBJECT, constantPool.findClass(names.get(type >>> 4)));
+            case ITEM_UNINITIALISED:
+                return new UninitializedVariableInfo((byte) ITEM_UNINITIALISED, type >>> 4);
+            default:
+                return VARIABLE_INFOS[type];
+        }
+    }
+
+    private VariableInfo[] infos(int types[], int from, int to) {
+        final VariableInfo infos[] = new VariableInfo[to - from];
+        for(int i = from; i < to; i++)
+            infos[i - from] = info(types[i]);
+        return infos;
+    }
+
+    private int u2(int index) {
+        return (code[index] & 0xff) << 8 | code[index + 1] & 0xff;
+    }
+
+    private int s2(int index) {
+        return (short) u2(index);
+    }
+
+    private int s4(int index) {
+        return code[index] << 24 | (code[index + 1] & 0xff) << 16 | (code[index + 2] & 0xff) << 8 | code[index + 3] & 0xff;
+    }
+
+    /**
+     * @return the length of the instruction at the given offset.
+     */
+    private int length(int pc) {
+        final byte opcode = code[pc];
+        switch(opcode) {
+            case TABLESWITCH: {
+                final int base = (pc + 4) & ~3;
+                return base - pc + 12 + ((s4(base + 8) - s4(base + 4) + 1) << 2);
+            }
+            case LOOKUPSWITCH: {
+                final int base = (pc + 4) & ~3;
+                return base - pc + 8 + (s4(base + 4) << 3);
+            }
+            case WIDE:
+                return code[pc + 1] == IINC ? 6 : 4;
+        }
+        final byte parameters = OPCODE_PARAMETERS[opcode & 0xff];
+        if(parameters == UNKNOWN_PARAMETERS)
+            throw new MalformedClassFileException(
+                "Invalid opcode=" + (opcode & 0xff) + ": offset=" + pc + ".");
+        return 1 + parameters;
+    }
+}
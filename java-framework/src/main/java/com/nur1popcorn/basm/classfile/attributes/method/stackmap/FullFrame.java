@@ -18,8 +18,12 @@
 
 package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
 public class FullFrame extends StackMapFrame {
-    private int offsetDelta;
+    private int offsetDelta /* u2 */;
     private VariableInfo locals[] /* length: u2 */;
     private VariableInfo stack[] /* length: u2 */;
 
@@ -29,4 +33,43 @@ public class FullFrame extends StackMapFrame {
         this.locals = locals;
         this.stack = stack;
     }
+
+    @Override
+    public void write(DataOutputStream os) throws IOException {
+        super.write(os);
+        os.writeShort(offsetDelta);
+        os.writeShort(locals.length);
+        for(VariableInfo local : locals)
+            local.write(os);
+        os.writeShort(stack.length);
+        for(VariableInfo item : stack)
+            item.write(os);
+    }
+
+    @Override
+    public int computeSize() {
+        int size = 7 /* u1 tag, u2 offset delta, u2 locals length, u2 stack length */;
+        for(VariableInfo local : locals)
+            size += local.computeSize();
+        for(VariableInfo item : stack)
+            size += item.computeSize();
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "full_frame[" + offsetDelta + ", " + Arrays.toString(locals) + ", " + Arrays.toString(stack) + "]";
+    }
+
+    public int getOffsetDelta() {
+        return offsetDelta;
+    }
+
+    public VariableInfo[] getLocals() {
+        return locals;
+    }
+
+    public VariableInfo[] getStack() {
+        return stack;
+    }
 }
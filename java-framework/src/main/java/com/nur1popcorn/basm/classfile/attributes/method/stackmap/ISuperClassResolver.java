@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+
+package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
+
+/**
+ * The {@link ISuperClassResolver} provides the class hierarchy required by the {@link FrameComputer} in order to
+ * merge two object types.
+ *
+ * @see FrameComputer
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public interface ISuperClassResolver {
+    /**
+     * Interfaces are treated like 'java/lang/Object' by the verifier, so that the common super class of any
+     * type and an interface is 'java/lang/Object'.
+     *
+     * @param first the internal name of the first class, it is never an array.
+     * @param second the internal name of the second class, it is never an array.
+     *
+     * @return the internal name of the most specific class both classes are assignable to.
+     */
+    String getCommonSuperClass(String first, String second);
+}
@@ -38,11 +38,20 @@ public final class ObjectVariableInfo extends VariableInfo {
         os.writeShort(cpIndex);
     }
 
+    @Override
+    public int computeSize() {
+        return 3 /* u1 tag, u2 cpool index */;
+    }
+
     @Override
     public String toString() {
         return "Object_variable_info[" + cpIndex + "]";
     }
 
+    public int getCpIndex() {
+        return cpIndex;
+    }
+
     public ConstantName indexClass(ConstantPool constantPool) {
         return (ConstantName)  constantPool.getEntry(cpIndex);
     }
@@ -18,6 +18,12 @@
 
 package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The same_frame_extended (tag 251) and the chop_frame (tags 248 to 250) share the same layout.
+ */
 public class SameFrameExtended extends StackMapFrame {
     private int offsetDelta /* u2 */;
 
@@ -25,4 +31,26 @@ public class SameFrameExtended extends StackMapFrame {
         super(tag);
         this.offsetDelta = offsetDelta;
     }
+
+    @Override
+    public void write(DataOutputStream os) throws IOException {
+        super.write(os);
+        os.writeShort(offsetDelta);
+    }
+
+    @Override
+    public int computeSize() {
+        return 3 /* u1 tag, u2 offset delta */;
+    }
+
+    @Override
+    public String toString() {
+        return ((tag & 0xff) == 251 ? "same_frame_extended[" : "chop_frame[" + (251 - (tag & 0xff)) + ", ") +
+                   offsetDelta +
+               "]";
+    }
+
+    public int getOffsetDelta() {
+        return offsetDelta;
+    }
 }
@@ -24,7 +24,7 @@ import java.io.IOException;
 public final class SameLocals1StackItemFrame extends StackMapFrame {
     private VariableInfo verificationType;
 
-    public SameLocals1StackItemFrame(byte tag, VariableInfo verificationType) throws IOException {
+    public SameLocals1StackItemFrame(byte tag, VariableInfo verificationType) {
         super(tag);
         this.verificationType = verificationType;
     }
@@ -35,6 +35,11 @@ public final class SameLocals1StackItemFrame extends StackMapFrame {
         verificationType.write(os);
     }
 
+    @Override
+    public int computeSize() {
+        return 1 /* u1 tag */ + verificationType.computeSize();
+    }
+
     @Override
     public String toString() {
         return "same_locals_1_stack_item_frame[" +
@@ -38,6 +38,11 @@ public class SameLocals1StackItemFrameExtended extends StackMapFrame {
         verificationType.write(os);
     }
 
+    @Override
+    public int computeSize() {
+        return 3 /* u1 tag, u2 offset delta */ + verificationType.computeSize();
+    }
+
     @Override
     public String toString() {
         return "same_locals_1_stack_item_frame_extended[" +
@@ -46,4 +51,12 @@ public class SameLocals1StackItemFrameExtended extends StackMapFrame {
                    verificationType.toString() +
                "]";
     }
+
+    public int getOffsetDelta() {
+        return offsetDelta;
+    }
+
+    public VariableInfo getVerificationType() {
+        return verificationType;
+    }
 }
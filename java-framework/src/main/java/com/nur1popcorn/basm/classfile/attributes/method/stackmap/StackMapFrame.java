@@ -20,7 +20,7 @@ package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
 
 import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -39,6 +39,13 @@ public abstract class StackMapFrame {
         os.writeByte(tag);
     }
 
+    /**
+     * @return the number of bytes written by {@link #write(DataOutputStream)}.
+     */
+    public int computeSize() {
+        return 1 /* u1 tag */;
+    }
+
     //TODO: desc
     public final byte getTag() {
         return tag;
@@ -54,10 +61,10 @@ public abstract class StackMapFrame {
      * 252-254 append_frame
      * 255     full_frame
      *
-     * @param in the {@link DataInputStream} from which the {@link AttributeInfo}s
+     * @param in the {@link DataInput} from which the {@link AttributeInfo}s
      *           should be read.
      */
-    public static StackMapFrame read(DataInputStream in) throws IOException {
+    public static StackMapFrame read(DataInput in) throws IOException {
         final byte tag = in.readByte();
         final int u1 = Byte.toUnsignedInt(tag);
         if(u1 < 248) {
@@ -68,27 +75,13 @@ public abstract class StackMapFrame {
                                                              VariableInfo.read(in));
             else if(u1 < 64)
                 // same_frame
-                return new StackMapFrame(tag) {
-                    @Override
-                    public String toString() {
-                        return "same_frame[" + (this.tag & 0xff) + "]";
-                    }
-                };
+                return new SameFrame(tag);
             else /* if(u1 < 127) */
                 // same_locals_1_stack_item_frame
                 return new SameLocals1StackItemFrame(tag, VariableInfo.read(in));
         } else if(u1 < 252) {
-            if (u1 == 251)
-                // same_frame_extended
-                return new SameFrameExtended(tag, in.readUnsignedShort());
-            else
-                // chop_frame
-                return new SameFrameExtended(tag, in.readUnsignedShort()) {
-                    @Override
-                    public String toString() {
-                        return "chop_frame[" + (this.tag & 0xff) + "]";
-                    }
-                };
+            // same_frame_extended or chop_frame
+            return new SameFrameExtended(tag, in.readUnsignedShort());
         } else if(u1 == 255) {
             // full_frame
             int offsetDelta = in.readUnsignedShort();
@@ -26,6 +26,7 @@ public final class UninitializedVariableInfo extends VariableInfo {
 
     public UninitializedVariableInfo(byte tag, int offset) {
         super(tag);
+        this.offset = offset;
     }
 
     @Override
@@ -34,6 +35,11 @@ public final class UninitializedVariableInfo extends VariableInfo {
         os.writeShort(offset);
     }
 
+    @Override
+    public int computeSize() {
+        return 3 /* u1 tag, u2 offset */;
+    }
+
     @Override
     public String toString() {
         return "Uninitialized_variable_info[" + offset + "]";
@@ -18,7 +18,7 @@
 
 package com.nur1popcorn.basm.classfile.attributes.method.stackmap;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -35,6 +35,13 @@ public class VariableInfo {
         os.writeByte(tag);
     }
 
+    /**
+     * @return the number of bytes written by {@link #write(DataOutputStream)}.
+     */
+    public int computeSize() {
+        return 1 /* u1 tag */;
+    }
+
     @Override
     public String toString() {
         return ITEM_INFO_NAMES[tag];
@@ -44,7 +51,7 @@ public class VariableInfo {
         return tag;
     }
 
-    public static VariableInfo read(DataInputStream in) throws IOException {
+    public static VariableInfo read(DataInput in) throws IOException {
         final byte tag = in.readByte();
         return tag == ITEM_OBJECT ?
                    new ObjectVariableInfo(tag, in.readUnsignedShort()) :
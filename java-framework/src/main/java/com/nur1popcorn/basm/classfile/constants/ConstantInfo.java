@@ -20,7 +20,7 @@ package com.nur1popcorn.basm.classfile.constants;
 
 import com.nur1popcorn.basm.utils.WeakHashSet;
 
-import java.io.DataInputStream;
+import java.io.DataInput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Set;
@@ -41,7 +41,7 @@ import static com.nur1popcorn.basm.Constants.*;
  *
  * @see #accept(IConstantVisitor)
  *
- * @see #read(DataInputStream)
+ * @see #read(DataInput)
  * @see #write(DataOutputStream)
  *
  * @author nur1popcorn
@@ -149,18 +149,22 @@ public abstract class ConstantInfo {
 
     /**
      * This factory method reads the next 'CONSTANT_Info's' tag and contents from the provided
-     * {@link DataInputStream} and then invokes the for the 'CONSTANT_Info' appropriate constructor.
+     * {@link DataInput} and then invokes the for the 'CONSTANT_Info' appropriate constructor.
      *
-     * @param in The {@link DataInputStream} from which the appropriate type of 'CONSTANT_Info' should be read.
-     * @throws IOException If an error occurs during the process of reading from the {@link DataInputStream}.
+     * @param in The {@link DataInput} from which the appropriate type of 'CONSTANT_Info' should be read.
+     * @throws IOException If an error occurs during the process of reading from the {@link DataInput}.
      * @return The next 'CONSTANT_Info' which was read and constructed based on the data provided by
-     *         the given {@link DataInputStream}
+     *         the given {@link DataInput}
      */
-    public static ConstantInfo read(DataInputStream in) throws IOException {
+    public static ConstantInfo read(DataInput in) throws IOException {
         final byte identifier = in.readByte();
         switch(identifier) {
-            case CONSTANT_UTF8:
-                return new ConstantUTF8(in.readUTF());
+            case CONSTANT_UTF8: {
+                // the string is only decoded once it is requested.
+                final byte raw[] = new byte[in.readUnsignedShort()];
+                in.readFully(raw);
+                return new ConstantUTF8(raw);
+            }
             case CONSTANT_INTEGER:
                 return new ConstantInteger(in.readInt());
             case CONSTANT_FLOAT:
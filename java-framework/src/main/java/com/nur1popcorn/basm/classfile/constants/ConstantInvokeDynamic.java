@@ -115,6 +115,14 @@ public final class ConstantInvokeDynamic extends ConstantInfo implements IConsta
         nameAndTypeIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        nameAndTypeIndex = indices[nameAndTypeIndex];
+    }
+
     /**
      * @return
      */
@@ -69,7 +69,7 @@ public final class ConstantMethodHandle extends ConstantInfo implements IConstan
     @Override
     public void write(DataOutputStream os) throws IOException {
         super.write(os);
-        os.writeByte(refIndex);
+        os.writeByte(refKind);
         os.writeShort(refIndex);
     }
 
@@ -108,6 +108,14 @@ public final class ConstantMethodHandle extends ConstantInfo implements IConstan
         refIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        refIndex = indices[refIndex];
+    }
+
     /**
      * @return the type of reference and its behavior in bytecode.
      */
@@ -119,6 +119,15 @@ public final class ConstantMethodRef extends ConstantInfo implements IConstantPo
             nameAndTypeIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        classIndex = indices[classIndex];
+        nameAndTypeIndex = indices[nameAndTypeIndex];
+    }
+
     /**
      * @return
      */
@@ -125,6 +125,14 @@ public final class ConstantName extends ConstantInfo implements IConstantPoolPoi
         this.nameIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        nameIndex = indices[nameIndex];
+    }
+
     /**
      * @return
      */
@@ -115,6 +115,15 @@ public final class ConstantNameAndType extends ConstantInfo implements IConstant
             descIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        nameIndex = indices[nameIndex];
+        descIndex = indices[descIndex];
+    }
+
     /**
      * @return
      */
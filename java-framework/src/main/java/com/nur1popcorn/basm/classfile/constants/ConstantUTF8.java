@@ -18,8 +18,13 @@
 
 package com.nur1popcorn.basm.classfile.constants;
 
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.utils.ModifiedUTF8;
+
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
 
 import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
 
@@ -84,10 +89,18 @@ import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
  * @since 1.0.0-alpha
  */
 public final class ConstantUTF8 extends ConstantInfo {
-    /*
-     *
+    /* The string's modified UTF-8 representation, exactly as it appears inside of the class file.
+     * It is used to compare, hash and write the constant.
+     */
+    private byte raw[];
+
+    /* The decoded string, it is only decoded once it is requested.
      */
-    public String bytes;
+    private String bytes;
+
+    /* The cached hash code, 0 if it has not been computed yet.
+     */
+    private int hash;
 
     /**
      * @param bytes the string from which the string {@link ConstantInfo} is supposed to
@@ -98,13 +111,27 @@ public final class ConstantUTF8 extends ConstantInfo {
         this.bytes = bytes;
     }
 
+    /**
+     * @param raw the modified UTF-8 representation of the string excluding the length, the array is not
+     *            copied and must not be modified afterwards.
+     */
+    public ConstantUTF8(byte raw[]) {
+        super(CONSTANT_UTF8);
+        this.raw = raw;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void write(DataOutputStream os) throws IOException {
         super.write(os);
-        os.writeUTF(bytes);
+        final byte raw[] = getRawBytes();
+        if(raw.length > 0xffff)
+            throw new UTFDataFormatException(
+                "encoded string too long: " + raw.length + " bytes");
+        os.writeShort(raw.length);
+        os.write(raw);
     }
 
     /**
@@ -115,25 +142,76 @@ public final class ConstantUTF8 extends ConstantInfo {
         visitor.visitUTF8(this);
     }
 
+    /**
+     * @throws MalformedClassFileException If the raw bytes are not valid modified UTF-8.
+     * @return The decoded string.
+     */
+    public String getBytes() {
+        if(bytes == null)
+            try {
+                bytes = ModifiedUTF8.decode(raw);
+            } catch(UTFDataFormatException e) {
+                throw new MalformedClassFileException("Malformed CONSTANT_Utf8", e);
+            }
+        return bytes;
+    }
+
+    /**
+     * @return The string's modified UTF-8 representation excluding the length, the array returned must not
+     *         be modified.
+     */
+    public byte[] getRawBytes() {
+        if(raw == null)
+            raw = ModifiedUTF8.encode(bytes);
+        return raw;
+    }
+
+    /**
+     * @return The length of the string's modified UTF-8 representation, the string is not encoded in order
+     *         to compute it.
+     */
+    public int getRawLength() {
+        return raw != null ?
+            raw.length : ModifiedUTF8.length(bytes);
+    }
+
+    /**
+     * Checks whether or not the string starts with the given prefix without decoding it.
+     *
+     * @param prefix The modified UTF-8 representation of the prefix.
+     *
+     * @return Whether or not the string starts with the given prefix.
+     */
+    public boolean startsWith(byte prefix[]) {
+        final byte raw[] = getRawBytes();
+        if(prefix.length > raw.length)
+            return false;
+        for(int i = 0; i < prefix.length; i++)
+            if(raw[i] != prefix[i])
+                return false;
+        return true;
+    }
+
     @Override
     public boolean equals(Object other) {
         if(other instanceof ConstantUTF8) {
             final ConstantUTF8 constantUtf8 = (ConstantUTF8) other;
-            return (constantUtf8.bytes == null && bytes == null) ||
-                    bytes.equals(constantUtf8.bytes);
+            return Arrays.equals(getRawBytes(), constantUtf8.getRawBytes());
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return bytes.hashCode() * 33 ^ getTag();
+        if(hash == 0)
+            hash = Arrays.hashCode(getRawBytes()) * 33 ^ getTag();
+        return hash;
     }
 
     @Override
     public String toString() {
         return super.toString() + "[" +
-            bytes +
+            getBytes() +
         "]";
     }
 }
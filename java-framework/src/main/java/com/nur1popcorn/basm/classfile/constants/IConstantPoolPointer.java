@@ -24,4 +24,12 @@ public interface IConstantPoolPointer {
     void attach(ConstantPool constantPool);
     void dispose(ConstantPool constantPool);
     void update(int oldIndex, int newIndex);
+
+    /**
+     * Updates all indices at once, unlike {@link #update(int, int)} an index which has already been updated
+     * is never mistaken for one which has not.
+     *
+     * @param indices A table mapping every old index to its new index.
+     */
+    void remap(int indices[]);
 }
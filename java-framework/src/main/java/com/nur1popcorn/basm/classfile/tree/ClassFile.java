@@ -63,12 +63,20 @@ public final class ClassFile extends AccessFlags implements IClassVisitor, IClas
             );
     }
 
+    public ClassFile(byte clazz[]) throws IOException {
+        new ClassReader(clazz)
+            .accept(
+                this,
+                READ_ALL
+            );
+    }
+
     @Override
     public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
         this.minorVersion = minorVersion;
         this.majorVersion = majorVersion;
         // TODO: fix
-        this.constantPool = new ConstantPoolGenerator(constantPool.getEntries());
+        this.constantPool = new ConstantPoolGenerator(constantPool.getEntries().clone());
     }
 
     @Override
@@ -77,19 +85,19 @@ public final class ClassFile extends AccessFlags implements IClassVisitor, IClas
 
         this.thisClass = ((ConstantName) constantPool.getEntry(thisClass))
             .indexName(constantPool)
-            .bytes;
+            .getBytes();
         this.superClass = superClass == 0 ?
             null :
             ((ConstantName) constantPool.getEntry(superClass, CONSTANT_CLASS))
                 .indexName(constantPool)
-                .bytes;
+                .getBytes();
 
         this.interfaces = new ArrayList<>(interfaces.length);
         for(int index : interfaces)
             this.interfaces.add(
                 ((ConstantName)constantPool.getEntry(index))
                     .indexName(constantPool)
-                    .bytes
+                    .getBytes()
             );
     }
 
@@ -126,6 +134,18 @@ public final class ClassFile extends AccessFlags implements IClassVisitor, IClas
 
     }
 
+    public ConstantPoolGenerator getConstantPool() {
+        return constantPool;
+    }
+
+    public String getThisClass() {
+        return thisClass;
+    }
+
+    public String getSuperClass() {
+        return superClass;
+    }
+
     public List<String> getInterfaces() {
         return interfaces;
     }
@@ -22,10 +22,14 @@ import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.IClassVersionProvider;
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
 import com.nur1popcorn.basm.classfile.constants.*;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.LDCInstruction;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import static com.nur1popcorn.basm.Constants.*;
 import static com.nur1popcorn.basm.classfile.IClassVersionProvider.JAVA_7;
@@ -65,6 +69,9 @@ public final class ConstantPoolGenerator extends ConstantPool {
         super(cpEntries);
         // TODO: impl interface for verifying.
         this.provider = null;
+        for(int i = 1 /* the cp's size is 1 less than given */; i < cpEntries.length; i++)
+            if(cpEntries[i] != null)
+                lookup.putIfAbsent(cpEntries[i], i);
     }
 
     /**
@@ -105,7 +112,7 @@ public final class ConstantPoolGenerator extends ConstantPool {
         if(tag == CONSTANT_LONG ||
            tag == CONSTANT_DOUBLE)
             index++ /* padding */;
-        return index;
+        return ret;
     }
 
     private void removeSafe(int index) {
@@ -194,6 +201,176 @@ public final class ConstantPoolGenerator extends ConstantPool {
             throw new ConstantLostException(pointers);
     }
 
+    /**
+     * <p>Rebuilds the {@link ConstantPool}, dropping all entries which are not referenced and renumbering
+     *    the remaining ones in a single pass.</p>
+     * <p>An entry is live if it is pointed at by an attached {@link IConstantPoolPointer} which is not an
+     *    entry of this {@link ConstantPool}, or by a live entry. Entries loaded by 'ldc' or 'ldc_w' are moved
+     *    to the front ordered by the number of instructions loading them, so that as many of them as possible
+     *    can be loaded using 'ldc'. All other entries keep their relative order. Every pointer of a live entry
+     *    is then updated using {@link IConstantPoolPointer#remap(int[])}.</p>
+     * <p>Anything referencing the {@link ConstantPool} without being attached, like attributes, must either be
+     *    attached or remapped by the caller using the table returned.</p>
+     *
+     * @return A table mapping every old index to its new index or 0 if the entry was dropped.
+     *
+     * @see #compact(int[], int[])
+     */
+    public int[] compact() {
+        return compact(null, null);
+    }
+
+    /**
+     * Rebuilds the {@link ConstantPool} just like {@link #compact()}, additionally keeping the entries which
+     * are referenced without being attached alive, e.g. by a class file which is remapped by the caller.
+     * Entries loaded by 'ldc' are moved to the front and since every one of them had an index which fits
+     * into a single byte, so do their new indices.
+     *
+     * @param references The number of references to every entry which are not attached, indexed by the
+     *                   entries' indices, or null if there are none.
+     * @param loads The number of those references which are loaded by 'ldc', indexed by the entries' indices,
+     *              or null if there are none.
+     *
+     * @return A table mapping every old index to its new index or 0 if the entry was dropped.
+     */
+    public int[] compact(int references[], int loads[]) {
+        final ConstantInfo entries[] = cpEntries;
+        final int length = Math.min(index, entries.length);
+        final Map<ConstantInfo, Integer> positions = new IdentityHashMap<>();
+        for(int i = 1 /* the cp's size is 1 less than given */; i < length; i++)
+            if(entries[i] != null) {
+                positions.put(entries[i], i);
+                // the entries must point at each other for their liveness to be propagated.
+                if(entries[i] instanceof IConstantPoolPointer)
+                    ((IConstantPoolPointer) entries[i])
+                        .attach(this);
+            }
+
+        // mark the entries pointed at from outside of the cp and count the edges between entries.
+        final boolean live[] = new boolean[length];
+        final int counts[] = new int[length];
+        final int worklist[] = new int[length];
+        int top = 0;
+        final int edgeCounts[] = new int[length + 1];
+        for(int i = 1; i < length; i++) {
+            final ConstantInfo info = entries[i];
+            if(info != null && references != null && i < references.length && references[i] != 0) {
+                if(loads != null && i < loads.length)
+                    counts[i] += loads[i];
+                live[i] = true;
+                worklist[top++] = i;
+            }
+            if(info == null || !info.hasPointers())
+                continue;
+            for(IConstantPoolPointer pointer : info.getPointers()) {
+                final Integer from = pointer instanceof ConstantInfo ?
+                    positions.get(pointer) : null;
+                if(from != null) {
+                    edgeCounts[from + 1]++;
+                    continue;
+                }
+                if(pointer instanceof LDCInstruction &&
+                   ((LDCInstruction) pointer).getOpcode() != LDC2_W)
+                    counts[i]++;
+                if(!live[i]) {
+                    live[i] = true;
+                    worklist[top++] = i;
+                }
+            }
+        }
+
+        // the entries referenced by every entry, stored contiguously.
+        for(int i = 1; i <= length; i++)
+            edgeCounts[i] += edgeCounts[i - 1];
+        final int edges[] = new int[edgeCounts[length]];
+        final int cursors[] = Arrays.copyOf(edgeCounts, length);
+        for(int i = 1; i < length; i++) {
+            final ConstantInfo info = entries[i];
+            if(info == null || !info.hasPointers())
+                continue;
+            for(IConstantPoolPointer pointer : info.getPointers()) {
+                final Integer from = pointer instanceof ConstantInfo ?
+                    positions.get(pointer) : null;
+                if(from != null)
+                    edges[cursors[from]++] = i;
+            }
+        }
+
+        // propagate liveness to the entries referenced by live entries.
+        while(top != 0) {
+            final int from = worklist[--top];
+            for(int i = edgeCounts[from]; i < edgeCounts[from + 1]; i++) {
+                final int to = edges[i];
+                if(!live[to]) {
+                    live[to] = true;
+                    worklist[top++] = to;
+                }
+            }
+        }
+
+        // entries loaded by 'ldc' are ordered by the number of loads, ties are broken by their index.
+        int loaded = 0;
+        final long keys[] = new long[length];
+        for(int i = 1; i < length; i++)
+            if(live[i] && counts[i] != 0)
+                keys[loaded++] = (long) (Integer.MAX_VALUE - counts[i]) << 32 | i;
+        Arrays.sort(keys, 0, loaded);
+
+        final int indices[] = new int[length];
+        int next = 1 /* the cp's size is 1 less than given */;
+        for(int i = 0; i < loaded; i++)
+            indices[(int) keys[i]] = next++;
+        for(int i = 1; i < length; i++) {
+            final ConstantInfo info = entries[i];
+            if(info == null || !live[i] || counts[i] != 0)
+                continue;
+            indices[i] = next++;
+            // longs and doubles take up 2 spaces in the constant pool.
+            final int tag = info.getTag();
+            if(tag == CONSTANT_LONG ||
+               tag == CONSTANT_DOUBLE)
+                next++ /* padding */;
+        }
+
+        final ConstantInfo compacted[] = new ConstantInfo[next];
+        final Set<IConstantPoolPointer> pointers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(int i = 1; i < length; i++) {
+            final ConstantInfo info = entries[i];
+            if(info == null)
+                continue;
+            if(!live[i]) {
+                // dead entries must not keep their pointers' targets alive.
+                if(info instanceof IConstantPoolPointer)
+                    ((IConstantPoolPointer) info)
+                        .dispose(this);
+                continue;
+            }
+            compacted[indices[i]] = info;
+        }
+        for(ConstantInfo info : compacted)
+            if(info != null && info.hasPointers())
+                Collections.addAll(pointers, info.getPointers());
+        for(IConstantPoolPointer pointer : pointers)
+            pointer.remap(indices);
+
+        cpEntries = compacted;
+        index = next;
+        lookup = new HashMap<>();
+        for(int i = 1; i < next; i++)
+            if(compacted[i] != null)
+                lookup.putIfAbsent(compacted[i], i);
+        return indices;
+    }
+
+    /**
+     * Shrinks the table of entries to the entries which have been added, the table is grown ahead of time
+     * and must not contain any trailing space when the {@link ConstantPool} is written.
+     */
+    public void trimToSize() {
+        if(index < cpEntries.length)
+            cpEntries = Arrays.copyOf(cpEntries, index);
+    }
+
     /**
      *
      *
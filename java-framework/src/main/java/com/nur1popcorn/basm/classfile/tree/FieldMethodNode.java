@@ -56,6 +56,8 @@ public abstract class FieldMethodNode extends AccessFlags implements IConstantPo
              info.getNameIndex(),
              info.getDescIndex(),
              constantPool);
+        // nodes read are attached in order for their name and desc to be kept alive.
+        attach(constantPool);
     }
 
     /**
@@ -91,6 +93,15 @@ public abstract class FieldMethodNode extends AccessFlags implements IConstantPo
             descIndex = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        nameIndex = indices[nameIndex];
+        descIndex = indices[descIndex];
+    }
+
     public abstract void accept(IFieldMethodNodeVisitor visitor);
 
     /**
@@ -109,7 +120,7 @@ public abstract class FieldMethodNode extends AccessFlags implements IConstantPo
      * @return
      */
     private ConstantUTF8 indexDesc(ConstantPool constantPool) {
-        return constantPool.getEntry(nameIndex, CONSTANT_UTF8);
+        return constantPool.getEntry(descIndex, CONSTANT_UTF8);
     }
 
     /**
@@ -117,7 +128,7 @@ public abstract class FieldMethodNode extends AccessFlags implements IConstantPo
      */
     public String getName() {
         return indexName(constantPool)
-            .bytes;
+            .getBytes();
     }
 
     /**
@@ -126,7 +137,7 @@ public abstract class FieldMethodNode extends AccessFlags implements IConstantPo
     public Type getDesc() {
         return Type.getType(
             indexDesc(constantPool)
-                .bytes
+                .getBytes()
         );
     }
 }
@@ -259,17 +259,12 @@ public final class Type {
         final LinkedList<Type> types = new LinkedList<>();
         for(int i = 1; i < descriptor.length() && descriptor.charAt(i) != ')'; i++) {
             types.add(Type.getType(descriptor, i));
-            switch(descriptor.charAt(i++)) {
-                case '[':
-                    while(descriptor.charAt(i) == '[')
-                        i++;
-                    if(descriptor.charAt(i) != 'L')
-                        break;
-                    // fallthrough.
-                case 'L':
-                    while(descriptor.charAt(i) != ';')
-                        i++;
-            }
+            // skip to the last character of the parameter's descriptor.
+            while(descriptor.charAt(i) == '[')
+                i++;
+            if(descriptor.charAt(i) == 'L')
+                while(descriptor.charAt(i) != ';')
+                    i++;
         }
         return types;
     }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile.tree.methods;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The {@link BatchEditor} collects insertions and removals relative to the {@link InstructionHandle}s of an
+ *    {@link InstructionList} and applies all of them in a single pass. The list is not modified until the
+ *    edits are applied, which is why it can be transversed while the edits are collected, e.g. in order to
+ *    inject a sequence of {@link com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction}s
+ *    in front of every return.</p>
+ *
+ * <p>Removals are applied as a whole: An {@link InstructionHandle} is only considered lost if it is still
+ *    pointed at once all of the handles removed no longer point at anything, if any handle is lost none
+ *    of the edits are applied.</p>
+ *
+ * @see InstructionList#insertBefore(InstructionHandle, InstructionList)
+ * @see InstructionList#insertAfter(InstructionHandle, InstructionList)
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class BatchEditor {
+    private final InstructionList instructions;
+
+    /* The edits indexed by the handles they are relative to, handles are compared by identity.
+     */
+    private final Map<InstructionHandle, Edit> edits = new LinkedHashMap<>();
+
+    private static final class Edit {
+        private InstructionList before,
+                                after;
+        private boolean remove;
+    }
+
+    /**
+     * @param instructions The {@link InstructionList} which should be edited.
+     */
+    public BatchEditor(InstructionList instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * Inserts the {@link InstructionHandle}s of the given list in front of the target once the edits are
+     * applied, sequences inserted in front of the same target keep the order in which they were inserted.
+     *
+     * @param target The {@link InstructionHandle} in front of which the handles are to be inserted.
+     * @param list The {@link InstructionList} whose handles are to be inserted, it is empty afterwards.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited.
+     */
+    public void insertBefore(InstructionHandle target, InstructionList list) {
+        final Edit edit = edit(target);
+        if(edit.before == null)
+            edit.before = new InstructionList();
+        edit.before.append(list);
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} in front of which the element is to be inserted.
+     * @param element The {@link InstructionHandle} which is to be inserted.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited or the
+     *                                  element is part of a list.
+     *
+     * @see #insertBefore(InstructionHandle, InstructionList)
+     */
+    public void insertBefore(InstructionHandle target, InstructionHandle element) {
+        final Edit edit = edit(target);
+        if(edit.before == null)
+            edit.before = new InstructionList();
+        edit.before.add(element);
+    }
+
+    /**
+     * Inserts the {@link InstructionHandle}s of the given list after the target once the edits are applied,
+     * sequences inserted after the same target keep the order in which they were inserted.
+     *
+     * @param target The {@link InstructionHandle} after which the handles are to be inserted.
+     * @param list The {@link InstructionList} whose handles are to be inserted, it is empty afterwards.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited.
+     */
+    public void insertAfter(InstructionHandle target, InstructionList list) {
+        final Edit edit = edit(target);
+        if(edit.after == null)
+            edit.after = new InstructionList();
+        edit.after.append(list);
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} after which the element is to be inserted.
+     * @param element The {@link InstructionHandle} which is to be inserted.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited or the
+     *                                  element is part of a list.
+     *
+     * @see #insertAfter(InstructionHandle, InstructionList)
+     */
+    public void insertAfter(InstructionHandle target, InstructionHandle element) {
+        final Edit edit = edit(target);
+        if(edit.after == null)
+            edit.after = new InstructionList();
+        edit.after.add(element);
+    }
+
+    /**
+     * Removes the target once the edits are applied, the handles inserted relative to it are kept.
+     *
+     * @param target The {@link InstructionHandle} which is to be removed.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited.
+     */
+    public void remove(InstructionHandle target) {
+        edit(target).remove = true;
+    }
+
+    /**
+     * Applies all of the edits collected and discards them afterwards.
+     *
+     * @throws IllegalArgumentException If a target has been removed from the list since it was edited.
+     * @throws InstructionLostException If a handle which is to be removed is still pointed at, in which case
+     *                                  none of the edits are applied and all of them are kept.
+     */
+    public void apply() {
+        for(InstructionHandle target : edits.keySet())
+            instructions.checkLinked(target);
+        // the handles removed no longer keep the handles they point at from being removed.
+        for(Map.Entry<InstructionHandle, Edit> entry : edits.entrySet())
+            if(entry.getValue().remove)
+                instructions.dispose(entry.getKey());
+        for(Map.Entry<InstructionHandle, Edit> entry : edits.entrySet())
+            if(entry.getValue().remove && entry.getKey().hasPointers()) {
+                final InstructionLostException exception =
+                    new InstructionLostException(entry.getKey().getPointers());
+                for(Map.Entry<InstructionHandle, Edit> removed : edits.entrySet())
+                    if(removed.getValue().remove)
+                        instructions.attach(removed.getKey());
+                throw exception;
+            }
+
+        for(Map.Entry<InstructionHandle, Edit> entry : edits.entrySet()) {
+            final InstructionHandle target = entry.getKey();
+            final Edit edit = entry.getValue();
+            if(edit.before != null)
+                instructions.insertBefore(target, edit.before);
+            if(edit.after != null)
+                instructions.insertAfter(target, edit.after);
+            if(edit.remove)
+                instructions.unlink(target);
+        }
+        edits.clear();
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} whose edit should be returned.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list which is edited.
+     * @return The edit relative to the given target.
+     */
+    private Edit edit(InstructionHandle target) {
+        instructions.checkLinked(target);
+        Edit edit = edits.get(target);
+        if(edit == null)
+            edits.put(target, edit = new Edit());
+        return edit;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile.tree.methods;
+
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode.ExceptionTableEntry;
+import com.nur1popcorn.basm.classfile.constants.IConstantPoolPointer;
+
+/**
+ * The {@link ExceptionHandler} is an entry of a method's exception table whose range and handler are
+ * {@link InstructionHandle}s rather than offsets. Once attached it keeps the handles it points at from
+ * being removed and follows them if they are replaced, just like jumps and switches do. The class caught
+ * is kept alive and renumbered the same way once the handler is attached to the {@link ConstantPool}.
+ *
+ * @see IInstructionPointer
+ * @see IConstantPoolPointer
+ * @see MethodNode#getExceptionHandlers()
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ExceptionHandler implements IInstructionPointer, IConstantPoolPointer {
+    /* The range protected by the handler, the end is exclusive and null if the range ends with the code.
+     */
+    private InstructionHandle start,
+                              end;
+    private InstructionHandle handler;
+
+    /* A pointer into the constant pool pointing at the CONSTANT_Class caught or 0 if any exception is caught.
+     */
+    private int catchType;
+
+    /**
+     * @param start The first {@link InstructionHandle} protected by the handler.
+     * @param end The {@link InstructionHandle} following the last one protected or null if the range ends
+     *            with the code.
+     * @param handler The {@link InstructionHandle} at which the handler starts.
+     * @param catchType A pointer into the {@link ConstantPool} pointing at the CONSTANT_Class caught or 0 if
+     *                  any exception is caught.
+     */
+    public ExceptionHandler(InstructionHandle start, InstructionHandle end, InstructionHandle handler, int catchType) {
+        this.start = start;
+        this.end = end;
+        this.handler = handler;
+        this.catchType = catchType;
+    }
+
+    /**
+     * @param entry The entry of the exception table which should be resolved.
+     * @param labels The {@link InstructionHandle}s of the code indexed by their offsets.
+     *
+     * @throws MalformedClassFileException If an offset of the entry is not the start of an instruction.
+     * @return The {@link ExceptionHandler} pointing at the labels of the entry's offsets.
+     *
+     * @see InstructionList#computeLabels(byte[])
+     */
+    static ExceptionHandler read(ExceptionTableEntry entry, InstructionHandle labels[]) {
+        return new ExceptionHandler(
+            label(labels, entry.getStartPc()),
+            entry.getEndPc() == labels.length ?
+                null : label(labels, entry.getEndPc()),
+            label(labels, entry.getHandlerPc()),
+            entry.getCatchType()
+        );
+    }
+
+    private static InstructionHandle label(InstructionHandle labels[], int offset) {
+        if(offset >= labels.length || labels[offset] == null)
+            throw new MalformedClassFileException(
+                "The exception handler's offset is not the start of an instruction: offset=" + offset);
+        return labels[offset];
+    }
+
+    /**
+     * @param instructions The {@link InstructionList} the handler's {@link InstructionHandle}s are part of.
+     *
+     * @throws IllegalArgumentException If a handle is not part of the list.
+     * @return The entry of the exception table at the current offsets of the handles.
+     */
+    public ExceptionTableEntry toEntry(InstructionList instructions) {
+        return new ExceptionTableEntry(
+            instructions.computeIndex(start),
+            instructions.computeIndex(end),
+            instructions.computeIndex(handler),
+            catchType
+        );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attach(InstructionList instructions) {
+        start.addPointer(this);
+        if(end != null)
+            end.addPointer(this);
+        handler.addPointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose(InstructionList instructions) {
+        start.removePointer(this);
+        if(end != null)
+            end.removePointer(this);
+        handler.removePointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(InstructionHandle oldTarget, InstructionHandle newTarget) {
+        if(start != oldTarget &&
+           end != oldTarget &&
+           handler != oldTarget)
+            return;
+        if(start == oldTarget)
+            start = newTarget;
+        if(end == oldTarget)
+            end = newTarget;
+        if(handler == oldTarget)
+            handler = newTarget;
+        // the handler is only attached to the new target if it was attached to the old one.
+        if(oldTarget.removePointer(this))
+            newTarget.addPointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attach(ConstantPool constantPool) {
+        if(catchType != 0)
+            constantPool.getEntry(catchType)
+                .addPointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose(ConstantPool constantPool) {
+        if(catchType != 0)
+            constantPool.getEntry(catchType)
+                .removePointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(int oldIndex, int newIndex) {
+        if(catchType == oldIndex)
+            catchType = newIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        if(catchType != 0)
+            catchType = indices[catchType];
+    }
+
+    /**
+     * @return The first {@link InstructionHandle} protected by the handler.
+     */
+    public InstructionHandle getStart() {
+        return start;
+    }
+
+    /**
+     * @return The {@link InstructionHandle} following the last one protected or null if the range ends
+     *         with the code.
+     */
+    public InstructionHandle getEnd() {
+        return end;
+    }
+
+    /**
+     * @return The {@link InstructionHandle} at which the handler starts.
+     */
+    public InstructionHandle getHandler() {
+        return handler;
+    }
+
+    /**
+     * @return A pointer into the {@link ConstantPool} pointing at the CONSTANT_Class caught or 0 if any
+     *         exception is caught.
+     */
+    public int getCatchType() {
+        return catchType;
+    }
+}
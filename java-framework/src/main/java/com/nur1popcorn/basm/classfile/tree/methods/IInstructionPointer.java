@@ -21,5 +21,13 @@ package com.nur1popcorn.basm.classfile.tree.methods;
 public interface IInstructionPointer {
     void attach(InstructionList instructions);
     void dispose(InstructionList instructions);
-    void update(int newIndex);
+
+    /**
+     * Redirects the pointer from one {@link InstructionHandle} to another, which is invoked if the handle
+     * pointed at is replaced.
+     *
+     * @param oldTarget The {@link InstructionHandle} which is being replaced.
+     * @param newTarget The {@link InstructionHandle} replacing it.
+     */
+    void update(InstructionHandle oldTarget, InstructionHandle newTarget);
 }
@@ -38,13 +38,26 @@ public final class InstructionHandle implements Iterable<InstructionHandle> {
     InstructionHandle next,
                       prev;
 
+    /* The list the handle is part of and its index, which is only up to date while the list's index view
+     * is valid.
+     */
+    InstructionList list;
+    int index;
 
-    private final Instruction handle;
+    /* Only assigned by the list after the handle has been created, the handles of code being read are created
+     * before the instructions in order for the targets of jumps and switches to be resolved in a single pass.
+     */
+    Instruction handle;
+
+    /**
+     * Constructs a new label whose {@link Instruction} is not read yet.
+     */
+    InstructionHandle() {}
 
     /**
      * @param handle
      */
-    InstructionHandle(Instruction handle) {
+    public InstructionHandle(Instruction handle) {
         this.handle = handle;
     }
 
@@ -59,9 +72,12 @@ public final class InstructionHandle implements Iterable<InstructionHandle> {
 
     /**
      * @param pointer
+     *
+     * @return Whether or not the pointer was pointing at the handle.
      */
-    public final void removePointer(IInstructionPointer pointer) {
-        pointers.remove(pointer);
+    public final boolean removePointer(IInstructionPointer pointer) {
+        return pointers != null &&
+               pointers.remove(pointer);
     }
 
     /**
@@ -20,8 +20,13 @@ package com.nur1popcorn.basm.classfile.tree.methods;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.constants.IConstantPoolPointer;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.CPInstruction;
 import com.nur1popcorn.basm.classfile.tree.methods.instructions.IInstructionVisitor;
 import com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.InstructionFactory;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.JumpInstruction;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.LocalVariableInstruction;
 import com.nur1popcorn.basm.classfile.tree.methods.instructions.SwitchInstruction;
 import com.nur1popcorn.basm.classfile.tree.methods.instructions.WideInstruction;
 import com.nur1popcorn.basm.utils.ByteDataInputStream;
@@ -30,19 +35,33 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
 
 import static com.nur1popcorn.basm.Constants.*;
 import static com.nur1popcorn.basm.Constants.OPCODE_MNEMONICS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.IINC_INS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.JUMP_INS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.LDC_INS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.LOCAL_VARIABLE_INS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.NO_PARAM_INS;
 import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.SWITCH_INS;
+import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.UNKNOWN_VALUE;
 import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.WIDE_INS;
 import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instruction.indexType;
 
 /**
  * The {@link InstructionList} class is derived from the abstract {@link AbstractList} class and
- * implements a resizeable array and linked list made up of {@link InstructionHandle}s. These
- * {@link InstructionHandle}s allow for {@link Instruction}s to be recycled and provide iterability.
- * The list can be modified by invoking any of the set(), add() and remove() methods, where removing
+ * implements a linked list made up of {@link InstructionHandle}s. These {@link InstructionHandle}s
+ * allow for {@link Instruction}s to be recycled, provide iterability and serve as the labels which
+ * jumps, switches and exception handlers point at, which is why inserting or removing a handle never
+ * requires any of the other handles or pointers to be updated. The list can be modified in constant
+ * time by invoking any of the insertBefore(), insertAfter() and remove() methods, where removing
  * {@link InstructionHandle}s might result in an {@link InstructionLostException} being thrown.
+ * Index based access is provided by a view which is rebuilt lazily after the list has been modified,
+ * modifying the list by index therefore takes linear time.
  * Further more, the list's {@link Instruction}'s can be transversed by invoking the accept()
  * method. Deserialization is handled by a package local constructor, where as serialization is
  * handled by the write() method.
@@ -50,6 +69,13 @@ import static com.nur1popcorn.basm.classfile.tree.methods.instructions.Instructi
  * @see #write(DataOutputStream)
  * @see #accept(IInstructionVisitor)
  *
+ * @see #insertBefore(InstructionHandle, InstructionHandle)
+ * @see #insertAfter(InstructionHandle, InstructionHandle)
+ * @see #insertBefore(InstructionHandle, InstructionList)
+ * @see #insertAfter(InstructionHandle, InstructionList)
+ * @see #remove(Object)
+ * @see BatchEditor
+ *
  * @see #get(int)
  * @see #set(int, InstructionHandle)
  * @see #add(int, InstructionHandle)
@@ -66,9 +92,21 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
     private static final int DEFAULT_SIZE = 37;
 
     private InstructionHandle first, last;
-    private InstructionHandle instructions[];
     private int size;
 
+    /* The index view of the list, which is only up to date if the list has not been modified since it was
+     * last rebuilt. The indices of the handles are assigned whenever the view is rebuilt.
+     */
+    private InstructionHandle instructions[];
+    private boolean indexed;
+
+    /* The offsets of the instructions followed by the code's length, only the first entries up to the
+     * number of valid offsets are up to date. The offsets are indexed by the index view, which is why
+     * modifying the list invalidates all of them.
+     */
+    private int offsets[];
+    private int validOffsets;
+
     /**
      * Constructs a new {@link InstructionList}, reads the {@link Instruction}s from the specified
      * byte code, inserts them into mentioned list and links them together.
@@ -76,28 +114,67 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
      * @param code The serialized {@link Instruction}s which should be read and added to the list.
      * @param constantPool The {@link ConstantPool} referenced by the read {@link Instruction}s.
      *
-     * @see Instruction#read(ByteDataInputStream, ConstantPool)
+     * @see Instruction#read(ByteDataInputStream, ConstantPool, InstructionHandle[])
      *
      * @throws IOException If an error occurs during the process of reading from the {@link ByteDataInputStream}.
      * @throws MalformedClassFileException If an {@link Instruction} is unknown or malformed.
      */
     InstructionList(byte code[], ConstantPool constantPool) throws IOException {
+        this(code, computeLabels(code), constantPool, true);
+    }
+
+    /**
+     * @param code The serialized {@link Instruction}s which should be read and added to the list.
+     * @param labels The {@link InstructionHandle}s of the {@link Instruction}s indexed by their offsets,
+     *               whose {@link Instruction}s are read and which are then linked together.
+     * @param constantPool The {@link ConstantPool} referenced by the read {@link Instruction}s.
+     * @param attach Whether or not the {@link Instruction}s read should be attached to the constants
+     *               and handles referenced, which is not required if the list is only analysed.
+     *
+     * @throws IOException If an error occurs during the process of reading from the {@link ByteDataInputStream}.
+     * @throws MalformedClassFileException If an {@link Instruction} is unknown or malformed.
+     *
+     * @see #computeLabels(byte[])
+     */
+    InstructionList(byte code[], InstructionHandle labels[], ConstantPool constantPool, boolean attach) throws IOException {
         final ByteDataInputStream in = new ByteDataInputStream(code);
-        int length = 0;
-        while(in.available() != 0) {
-            in.skipInstruction();
-            length++;
+        instructions = new InstructionHandle[0];
+        for(int offset; (offset = in.position()) < code.length;) {
+            final InstructionHandle ih = labels[offset];
+            final Instruction instruction = ih.handle = Instruction.read(in, constantPool, labels);
+            // the constants referenced are kept alive by the instructions read.
+            if(attach && instruction instanceof IConstantPoolPointer)
+                ((IConstantPoolPointer) instruction)
+                    .attach(constantPool);
+            link(last, ih, null);
+            if(attach && instruction instanceof IInstructionPointer)
+                ((IInstructionPointer) instruction)
+                    .attach(this);
         }
-        instructions = new InstructionHandle[length];
-        in.reset();
-        for(int i = 0; i < length; i++)
-            add(new InstructionHandle(
-                Instruction.read(in, constantPool)));
+    }
+
+    /**
+     * Creates a label for the offset of every {@link Instruction} in the given byte code in a single pass,
+     * which allows the targets of all jumps and switches to be resolved without rescanning the byte code.
+     *
+     * @param code The serialized {@link Instruction}s whose offsets should be labeled.
+     *
+     * @throws IOException If an error occurs during the process of reading from the {@link ByteDataInputStream}.
+     * @throws MalformedClassFileException If an {@link Instruction} is unknown.
+     * @return The {@link InstructionHandle}s of the {@link Instruction}s indexed by their offsets and null for
+     *         offsets which are not the start of an {@link Instruction}.
+     */
+    static InstructionHandle[] computeLabels(byte code[]) throws IOException {
+        final InstructionHandle labels[] = new InstructionHandle[code.length];
+        final ByteDataInputStream in = new ByteDataInputStream(code);
+        for(int offset; (offset = in.position()) < code.length; in.skipInstruction())
+            labels[offset] = new InstructionHandle();
+        return labels;
     }
 
     /**
      * Constructs a new empty {@link InstructionList} instance.
-     * @param size The {@link InstructionList}'s initial capacity.
+     * @param size The initial capacity of the {@link InstructionList}'s index view.
      */
     public InstructionList(int size) {
         instructions = new InstructionHandle[size];
@@ -117,10 +194,15 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
      * @throws IOException If an error occurs during the process of writing to the {@link DataOutputStream}.
      */
     public void write(DataOutputStream os) throws IOException {
+        // the instructions might have been modified without modifying the list.
+        validOffsets = 0;
+        relaxJumps();
         os.writeInt(computeSize());
-        for(InstructionHandle ih : this)
+        // the instructions' positions are relative to the start of the code.
+        final DataOutputStream code = new DataOutputStream(os);
+        for(InstructionHandle ih = first; ih != null; ih = ih.next)
             ih.getHandle()
-              .write(os, this);
+              .write(code, this);
     }
 
     /**
@@ -131,7 +213,7 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
      * @param visitor The {@link IInstructionVisitor} whose callbacks will be invoked.
      */
     public void accept(IInstructionVisitor visitor) {
-        for(InstructionHandle ih : this)
+        for(InstructionHandle ih = first; ih != null; ih = ih.next)
             ih.getHandle()
               .accept(visitor);
     }
@@ -151,11 +233,12 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
     @Override
     public InstructionHandle get(int index) {
         rangeCheck(index);
-        return instructions[index];
+        return index()[index];
     }
 
     /**
-     * Replaces the {@link InstructionHandle} at the given index.
+     * Replaces the {@link InstructionHandle} at the given index, the {@link IInstructionPointer}s pointing
+     * at the replaced {@link InstructionHandle} are redirected to the given one.
      *
      * @param index The index of the {@link InstructionHandle} which is to be replaced.
      * @param element The {@link InstructionHandle} with which the other {@link InstructionHandle}
@@ -165,20 +248,46 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
      */
     @Override
     public InstructionHandle set(int index, InstructionHandle element) {
-        modCount++;
         rangeCheck(index);
-        final InstructionHandle old = instructions[index];
-        instructions[index] = element;
-        final IInstructionPointer pointers[] = old.getPointers();
-        for(IInstructionPointer pointer : pointers)
-            element.addPointer(pointer);
+        final InstructionHandle old = index()[index];
+        checkUnlinked(element);
         if((element.prev = old.prev) == null)
             first = element;
+        else
+            element.prev.next = element;
         if((element.next = old.next) == null)
             last = element;
+        else
+            element.next.prev = element;
+        element.list = this;
+        old.list = null;
+        old.next = old.prev = null;
+        // the list's structure is unchanged, which is why the view is patched rather than invalidated.
+        instructions[element.index = index] = element;
+        if(validOffsets > index + 1)
+            validOffsets = index + 1;
+
+        dispose(old);
+        for(IInstructionPointer pointer : old.getPointers())
+            pointer.update(old, element);
+        attach(element);
         return old;
     }
 
+    /**
+     * Appends the {@link InstructionHandle} to the end of the list.
+     *
+     * @param element The {@link InstructionHandle} which is to be appended.
+     * @return Always true.
+     */
+    @Override
+    public boolean add(InstructionHandle element) {
+        checkUnlinked(element);
+        link(last, element, null);
+        attach(element);
+        return true;
+    }
+
     /**
      * Inserts the {@link InstructionHandle} at the given index.
      *
@@ -188,29 +297,79 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
     @Override
     public void add(int index, InstructionHandle element) {
         rangeCheckAdd(index);
-        final int oldSize = size;
-        grow(++size);
-        System.arraycopy(
-            instructions, index,
-            instructions, index + 1, oldSize - index
-        );
-        instructions[index] = element;
-        if(oldSize == 0)
-            last = first = element;
-        else if(oldSize == index)
-            last = (element.prev = instructions[index - 1])
-                .next = element;
-        else if(index == 0)
-                first = (element.next = first)
-                    .prev = element;
+        if(index == size)
+            add(element);
         else
-            (((element.prev = instructions[index - 1])
-                .next = element)
-                    .next = instructions[index + 1])
-                        .prev = element;
-        for(int i = index + 1; i < size; i++)
-            for(IInstructionPointer pointer : instructions[i].getPointers())
-                pointer.update(i);
+            insertBefore(index()[index], element);
+    }
+
+    /**
+     * Inserts the {@link InstructionHandle} in front of the given target in constant time.
+     *
+     * @param target The {@link InstructionHandle} in front of which the element is to be inserted.
+     * @param element The {@link InstructionHandle} which is to be inserted.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list or the element is part of a list.
+     */
+    public void insertBefore(InstructionHandle target, InstructionHandle element) {
+        checkLinked(target);
+        checkUnlinked(element);
+        link(target.prev, element, target);
+        attach(element);
+    }
+
+    /**
+     * Inserts the {@link InstructionHandle} after the given target in constant time.
+     *
+     * @param target The {@link InstructionHandle} after which the element is to be inserted.
+     * @param element The {@link InstructionHandle} which is to be inserted.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list or the element is part of a list.
+     */
+    public void insertAfter(InstructionHandle target, InstructionHandle element) {
+        checkLinked(target);
+        checkUnlinked(element);
+        link(target, element, target.next);
+        attach(element);
+    }
+
+    /**
+     * Moves the {@link InstructionHandle}s of the given list in front of the target, the time taken only
+     * depends on the number of handles moved. The jumps and switches moved keep pointing at their targets.
+     *
+     * @param target The {@link InstructionHandle} in front of which the handles are to be inserted.
+     * @param list The {@link InstructionList} whose handles are to be inserted, it is empty afterwards.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list or the list is inserted into
+     *                                  itself.
+     */
+    public void insertBefore(InstructionHandle target, InstructionList list) {
+        checkLinked(target);
+        splice(target.prev, list, target);
+    }
+
+    /**
+     * Moves the {@link InstructionHandle}s of the given list after the target, the time taken only depends
+     * on the number of handles moved. The jumps and switches moved keep pointing at their targets.
+     *
+     * @param target The {@link InstructionHandle} after which the handles are to be inserted.
+     * @param list The {@link InstructionList} whose handles are to be inserted, it is empty afterwards.
+     *
+     * @throws IllegalArgumentException If the target is not part of the list or the list is inserted into
+     *                                  itself.
+     */
+    public void insertAfter(InstructionHandle target, InstructionList list) {
+        checkLinked(target);
+        splice(target, list, target.next);
+    }
+
+    /**
+     * Moves the {@link InstructionHandle}s of the given list to the end of the list.
+     *
+     * @param list The {@link InstructionList} whose handles are to be appended, it is empty afterwards.
+     */
+    void append(InstructionList list) {
+        splice(last, list, null);
     }
 
     /**
@@ -218,36 +377,129 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
      *
      * @param index The index of the {@link InstructionHandle} which is to be removed.
      * @throws InstructionLostException If the number of {@link IInstructionPointer}s pointing at the to
-     *         be removed {@link InstructionHandle} is greater than 0.
+     *         be removed {@link InstructionHandle} is greater than 0, in which case it is not removed.
      * @return The {@link InstructionHandle} which was removed.
      */
     @Override
     public InstructionHandle remove(int index) {
-        modCount++;
         rangeCheck(index);
-        final InstructionHandle old = instructions[index];
-        final int moved = size - index - 1;
-        if(moved > 0)
-            System.arraycopy(
-                instructions, index + 1,
-                instructions, index, moved
-            );
-        instructions[--size] = null;
-        if(size != 0) {
-            final InstructionHandle element = instructions[index];
-            if((element.prev = old.prev) == null)
-                first = element;
-            if((element.next = old.next) == null)
-                last = element;
-            for(int i = index; i < size; i++)
-                for(IInstructionPointer pointer : instructions[i].getPointers())
-                    pointer.update(i);
-        }
-        if(old.hasPointers())
-            throw new InstructionLostException(old.getPointers());
+        final InstructionHandle old = index()[index];
+        remove(old);
         return old;
     }
 
+    /**
+     * Removes the given {@link InstructionHandle} from the {@link InstructionList} in constant time.
+     *
+     * @param o The {@link InstructionHandle} which is to be removed.
+     * @throws InstructionLostException If the number of {@link IInstructionPointer}s pointing at the to
+     *         be removed {@link InstructionHandle} is greater than 0, in which case it is not removed.
+     * @return Whether or not the {@link InstructionHandle} was part of the list.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if(!contains(o))
+            return false;
+        final InstructionHandle old = (InstructionHandle) o;
+        // an instruction pointing at its own handle does not prevent it from being removed.
+        dispose(old);
+        if(old.hasPointers()) {
+            attach(old);
+            throw new InstructionLostException(old.getPointers());
+        }
+        unlink(old);
+        return true;
+    }
+
+    /**
+     * @param o The object whose index should be returned.
+     * @return The index of the given {@link InstructionHandle} or -1 if it is not part of the list.
+     */
+    @Override
+    public int indexOf(Object o) {
+        if(!contains(o))
+            return -1;
+        index();
+        return ((InstructionHandle) o).index;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndexOf(Object o) {
+        // a handle is part of the list at most once.
+        return indexOf(o);
+    }
+
+    /**
+     * @param o The object which should be tested.
+     * @return Whether or not the given object is an {@link InstructionHandle} which is part of the list.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof InstructionHandle &&
+               ((InstructionHandle) o).list == this;
+    }
+
+    /**
+     * Removes all {@link InstructionHandle}s, the handles are only pointed at by each other, which is why
+     * no {@link InstructionLostException} is thrown.
+     */
+    @Override
+    public void clear() {
+        for(InstructionHandle ih = first; ih != null;) {
+            final InstructionHandle next = ih.next;
+            dispose(ih);
+            ih.next = ih.prev = null;
+            ih.list = null;
+            ih = next;
+        }
+        first = last = null;
+        size = 0;
+        invalidate();
+    }
+
+    /**
+     * @return An {@link Iterator} following the links of the {@link InstructionHandle}s, which unlike
+     *         the index based iterator does not rebuild the index view if a handle is removed.
+     */
+    @Override
+    public Iterator<InstructionHandle> iterator() {
+        return new Iterator<InstructionHandle>() {
+            private InstructionHandle cursor = first,
+                                      current;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor != null;
+            }
+
+            @Override
+            public InstructionHandle next() {
+                if(modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if(cursor == null)
+                    throw new NoSuchElementException();
+                current = cursor;
+                cursor = cursor.next;
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if(current == null)
+                    throw new IllegalStateException();
+                if(modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                InstructionList.this.remove(current);
+                current = null;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
     /**
      * @return The first {@link InstructionHandle} in the list.
      */
@@ -262,6 +514,144 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
         return last;
     }
 
+    /**
+     * Links the {@link InstructionHandle} in between the given handles and invalidates the index view.
+     *
+     * @param prev The {@link InstructionHandle} preceding the element or null if it is to be the first one.
+     * @param element The {@link InstructionHandle} which is to be linked.
+     * @param next The {@link InstructionHandle} following the element or null if it is to be the last one.
+     */
+    private void link(InstructionHandle prev, InstructionHandle element, InstructionHandle next) {
+        if((element.prev = prev) == null)
+            first = element;
+        else
+            prev.next = element;
+        if((element.next = next) == null)
+            last = element;
+        else
+            next.prev = element;
+        element.list = this;
+        size++;
+        invalidate();
+    }
+
+    /**
+     * Links the {@link InstructionHandle}s of the given list in between the given handles, empties the given
+     * list and invalidates the index views of both lists.
+     *
+     * @param prev The {@link InstructionHandle} preceding the handles or null if they are to be the first ones.
+     * @param list The {@link InstructionList} whose handles are to be linked.
+     * @param next The {@link InstructionHandle} following the handles or null if they are to be the last ones.
+     */
+    private void splice(InstructionHandle prev, InstructionList list, InstructionHandle next) {
+        if(list == this)
+            throw new IllegalArgumentException("The list can not be inserted into itself.");
+        if(list.size == 0)
+            return;
+        for(InstructionHandle ih = list.first; ih != null; ih = ih.next)
+            ih.list = this;
+        if((list.first.prev = prev) == null)
+            first = list.first;
+        else
+            prev.next = list.first;
+        if((list.last.next = next) == null)
+            last = list.last;
+        else
+            next.prev = list.last;
+        size += list.size;
+        invalidate();
+        list.first = list.last = null;
+        list.size = 0;
+        list.invalidate();
+    }
+
+    /**
+     * Unlinks the {@link InstructionHandle} from its neighbours and invalidates the index view.
+     *
+     * @param element The {@link InstructionHandle} which is to be unlinked.
+     */
+    void unlink(InstructionHandle element) {
+        if(element.prev == null)
+            first = element.next;
+        else
+            element.prev.next = element.next;
+        if(element.next == null)
+            last = element.prev;
+        else
+            element.next.prev = element.prev;
+        element.next = element.prev = null;
+        element.list = null;
+        size--;
+        invalidate();
+    }
+
+    /**
+     * Attaches the {@link Instruction} of the given {@link InstructionHandle} to the handles it points at.
+     */
+    void attach(InstructionHandle element) {
+        final Instruction instruction = element.getHandle();
+        if(instruction instanceof IInstructionPointer)
+            ((IInstructionPointer) instruction)
+                .attach(this);
+    }
+
+    /**
+     * Disposes the {@link Instruction} of the given {@link InstructionHandle}, which no longer keeps the
+     * handles it points at from being removed.
+     */
+    void dispose(InstructionHandle element) {
+        final Instruction instruction = element.getHandle();
+        if(instruction instanceof IInstructionPointer)
+            ((IInstructionPointer) instruction)
+                .dispose(this);
+    }
+
+    /**
+     * Invalidates the index view and the offsets indexed by it.
+     */
+    private void invalidate() {
+        modCount++;
+        indexed = false;
+        validOffsets = 0;
+    }
+
+    /**
+     * Rebuilds the index view if the list has been modified since it was last built.
+     *
+     * @return The {@link InstructionHandle}s in the order they are linked in.
+     */
+    private InstructionHandle[] index() {
+        if(!indexed) {
+            if(instructions.length < size)
+                instructions = new InstructionHandle[size << 1];
+            int index = 0;
+            for(InstructionHandle ih = first; ih != null; ih = ih.next)
+                instructions[ih.index = index++] = ih;
+            // the handles removed since the view was last built should not be kept alive.
+            Arrays.fill(instructions, size, instructions.length, null);
+            indexed = true;
+        }
+        return instructions;
+    }
+
+    /**
+     * @param element The {@link InstructionHandle} which should be tested.
+     * @throws IllegalArgumentException If the {@link InstructionHandle} is not part of the list.
+     */
+    void checkLinked(InstructionHandle element) {
+        if(element.list != this)
+            throw new IllegalArgumentException("The handle is not part of the list.");
+    }
+
+    /**
+     * @param element The {@link InstructionHandle} which should be tested.
+     * @throws IllegalArgumentException If the {@link InstructionHandle} is already part of a list.
+     */
+    private void checkUnlinked(InstructionHandle element) {
+        if(element.list != null)
+            throw new IllegalArgumentException("The handle is already part of a list.");
+    }
+
     /**
      * @param index The index which should be tested.
      * @throws IndexOutOfBoundsException If the index is not in range of the instruction array.
@@ -284,64 +674,336 @@ public final class InstructionList extends AbstractList<InstructionHandle> imple
     }
 
     /**
-     * Grows the instruction array if the given value is bigger than the capacity of said array.
-     * @param size The minimum capacity.
-     */
-    private void grow(int size) {
-        modCount++;
-        final InstructionHandle old[] = instructions;
-        if(old.length < size)
-            instructions = Arrays.copyOf(
-                old,
-                size << 1
-            );
-    }
-
-    /**
-     * @return A clone of this {@link InstructionList}'s instance.
+     * @return A clone of this {@link InstructionList}'s instance, whose jumps and switches are copied and
+     *         point at the cloned {@link InstructionHandle}s.
      */
     public Object clone() {
         try {
             final InstructionList il = (InstructionList) super.clone();
-            il.instructions = Arrays.copyOf(instructions, size);
+            il.first = il.last = null;
+            il.size = 0;
+            il.instructions = new InstructionHandle[size];
+            il.indexed = false;
+            il.offsets = null;
+            il.validOffsets = 0;
             il.modCount = 0;
+            final InstructionHandle handles[] = index();
+            final InstructionHandle copies[] = new InstructionHandle[size];
+            for(int i = 0; i < size; i++)
+                il.link(il.last, copies[i] = new InstructionHandle(handles[i].getHandle()), null);
+            for(InstructionHandle copy : copies) {
+                final Instruction instruction = copy.getHandle();
+                switch(indexType(instruction.getOpcode())) {
+                    case JUMP_INS: {
+                        final JumpInstruction jump = (JumpInstruction) instruction;
+                        final JumpInstruction jumpCopy = InstructionFactory.createJump(
+                            jump.getOpcode(), copies[indexTarget(jump.getTarget())]);
+                        if(jump.isWide())
+                            jumpCopy.widen();
+                        copy.handle = jumpCopy;
+                    }   break;
+                    case SWITCH_INS: {
+                        final SwitchInstruction switchInstruction = (SwitchInstruction) instruction;
+                        final TreeMap<Integer, InstructionHandle> targets = new TreeMap<>();
+                        for(int i = 0; i < switchInstruction.getCount(); i++)
+                            targets.put(
+                                switchInstruction.getKey(i),
+                                copies[indexTarget(switchInstruction.getTarget(i))]);
+                        copy.handle = InstructionFactory.createSwitch(
+                            switchInstruction.getOpcode(),
+                            copies[indexTarget(switchInstruction.getDefaultTarget())],
+                            targets);
+                    }   break;
+                }
+                il.attach(copy);
+            }
             return il;
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Returns the offset of the {@link Instruction} at the given index, the offsets which have been invalidated
+     * are recomputed in a single pass up to the end of the list.
+     *
+     * @param index The index of the {@link Instruction} whose offset should be returned or the list's size in
+     *              order to get the code's length.
+     *
+     * @throws IndexOutOfBoundsException If the index is neither in range of the instruction array nor the
+     *                                   size of the list.
+     * @throws MalformedClassFileException If an {@link Instruction} is invalid.
+     * @return The offset of the {@link Instruction} at the given index.
+     */
+    public int getOffset(int index) {
+        rangeCheckAdd(index);
+        if(index >= validOffsets) {
+            final InstructionHandle instructions[] = index();
+            if(offsets == null || offsets.length <= size)
+                offsets = new int[instructions.length + 1];
+            if(validOffsets == 0)
+                offsets[validOffsets++] = 0;
+            for(int i = validOffsets; i <= size; i++)
+                offsets[i] = offsets[i - 1] + computeLength(instructions[i - 1].getHandle(), offsets[i - 1]);
+            validOffsets = size + 1;
+        }
+        return offsets[index];
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} jumped to.
+     *
+     * @throws MalformedClassFileException If the target is not part of the list.
+     * @return The index of the target.
+     */
+    private int indexTarget(InstructionHandle target) {
+        final int index = indexOf(target);
+        if(index < 0)
+            throw new MalformedClassFileException("The target is not part of the list.");
+        return index;
+    }
+
+    /**
+     * Widens the jumps whose targets are out of the range of a short offset until all of them are in range.
+     * Every pass widens the jumps which are out of range given the offsets of the previous pass. Widening a
+     * jump only ever increases the distances the other jumps have to cover, which is why the passes reach a
+     * fixpoint, usually after one or two passes.
+     *
+     * @see JumpInstruction#widen()
+     */
+    private void relaxJumps() {
+        int widened;
+        do {
+            widened = -1;
+            final InstructionHandle instructions[] = index();
+            for(int i = 0; i < size; i++) {
+                final Instruction instruction = instructions[i].getHandle();
+                if(indexType(instruction.getOpcode()) != JUMP_INS)
+                    continue;
+                final JumpInstruction jump = (JumpInstruction) instruction;
+                if(jump.isWide())
+                    continue;
+                final int offset = getOffset(indexTarget(jump.getTarget())) - getOffset(i);
+                if(offset != (short) offset) {
+                    jump.widen();
+                    if(widened == -1)
+                        widened = i;
+                }
+            }
+            if(widened != -1 && validOffsets > widened + 1)
+                validOffsets = widened + 1;
+        } while(widened != -1);
+    }
+
+    /**
+     * @param instruction The {@link Instruction} whose length should be computed.
+     * @param offset The offset of the {@link Instruction}, which determines the padding of switches.
+     *
+     * @throws MalformedClassFileException If the {@link Instruction} is invalid.
+     * @return The number of bytes the {@link Instruction} occupies.
+     */
+    private static int computeLength(Instruction instruction, int offset) {
+        final byte opcode = instruction.getOpcode();
+        switch(indexType(opcode)) {
+            case SWITCH_INS: {
+                // skip the padding following the opcode.
+                final int padding = -(offset + 1) & 0x3;
+                final int count = ((SwitchInstruction) instruction).getCount();
+                return opcode == TABLESWITCH ?
+                    1 + padding + 12 + (count << 2) :
+                    1 + padding + 8 + (count << 3);
+            }
+            case WIDE_INS:
+                return ((WideInstruction) instruction)
+                    .getOpcodeParameter() == IINC ? 6 : 4;
+            case JUMP_INS:
+                return ((JumpInstruction) instruction)
+                    .computeLength();
+            case LDC_INS:
+                // an 'ldc' whose index does not fit into a single byte is written as an 'ldc_w'.
+                if(opcode == LDC && ((CPInstruction) instruction).getIndex() > 0xff)
+                    return 3;
+                // fallthrough.
+            default: {
+                final int parameters = OPCODE_PARAMETERS[opcode & 0xff];
+                if(parameters == UNKNOWN_PARAMETERS)
+                    throw new MalformedClassFileException(
+                        "The opcode=" + OPCODE_MNEMONICS[opcode & 0xff] + " is invalid."
+                    );
+                return 1 + parameters;
+            }
+        }
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} whose offset should be returned or null in order to get the
+     *               code's length.
+     *
+     * @return The offset of the given {@link InstructionHandle}.
+     */
     public int computeIndex(InstructionHandle target) {
-        int index = 0;
-        for(InstructionHandle current = getFirst(); current != target; current = current.next) {
-            final Instruction handle = current.getHandle();
-            final byte opcode = handle.getOpcode();
-            index++; // add opcode length
+        if(target == null)
+            return getOffset(size);
+        checkLinked(target);
+        return getOffset(indexOf(target));
+    }
+
+    /**
+     * @return The number of bytes the {@link Instruction}s occupy.
+     */
+    public int computeSize() {
+        return getOffset(size);
+    }
+
+    /**
+     * Computes the maximum depth of the operand stack by walking the control flow graph once. The depth
+     * at an instruction is only computed when it is first reached, as it is the same for every path
+     * leading to it in verifiable code.
+     *
+     * @param handlers The {@link InstructionHandle}s at which exception handlers start.
+     *
+     * @throws MalformedClassFileException If the effect of an {@link Instruction} on the stack is unknown
+     *                                     or a target is not part of the list.
+     * @return The maximum number of slots occupied by the operand stack.
+     *
+     * @see Instruction#getStackModifier()
+     */
+    public int computeMaxStack(InstructionHandle handlers[]) {
+        final InstructionHandle instructions[] = index();
+        final int depths[] = new int[size];
+        Arrays.fill(depths, -1);
+        // every instruction is queued at most once.
+        final int queue[] = new int[size];
+        int queued = 0;
+        if(size != 0)
+            queued = enqueue(depths, queue, queued, 0, 0);
+        for(InstructionHandle handler : handlers)
+            queued = enqueue(depths, queue, queued, indexTarget(handler), 1);
+        int maxStack = handlers.length != 0 ? 1 : 0;
+        while(queued != 0) {
+            final int index = queue[--queued];
+            final Instruction instruction = instructions[index].getHandle();
+            final byte opcode = instruction.getOpcode();
+            switch(opcode) {
+                case IRETURN:
+                case LRETURN:
+                case FRETURN:
+                case DRETURN:
+                case ARETURN:
+                case RETURN:
+                case ATHROW:
+                case RET:
+                    continue;
+            }
+            final int modifier = instruction.getStackModifier();
+            // only the effect of instructions without parameters is taken from the table as is.
+            if(modifier == UNKNOWN_VALUE && indexType(opcode) == NO_PARAM_INS)
+                throw new MalformedClassFileException(
+                    "The opcode=" + OPCODE_MNEMONICS[opcode & 0xff] + " has an unknown effect on the stack."
+                );
+            final int depth = depths[index] + modifier;
+            if(depth > maxStack)
+                maxStack = depth;
             switch(indexType(opcode)) {
+                case JUMP_INS:
+                    queued = enqueue(depths, queue, queued, indexTarget(((JumpInstruction) instruction).getTarget()), depth);
+                    switch(opcode) {
+                        case GOTO:
+                        case GOTO_W:
+                            continue;
+                        case JSR:
+                        case JSR_W:
+                            // the return address is only pushed for the subroutine.
+                            queued = enqueue(depths, queue, queued, index + 1, depth - 1);
+                            continue;
+                    }
+                    break;
                 case SWITCH_INS: {
-                    final SwitchInstruction instruction = (SwitchInstruction) handle;
-                    index += opcode == TABLESWITCH ?
-                        (-index & 0x3) + 12 + (instruction.getCount() << 2) :
-                        (-index & 0x3) + 8 + (instruction.getCount() << 3);
-                }   break;
-                case WIDE_INS:
-                    index += ((WideInstruction) handle)
-                        .getOpcodeParameter() == IINC ? 5 : 3;
+                    final SwitchInstruction switchInstruction = (SwitchInstruction) instruction;
+                    queued = enqueue(depths, queue, queued, indexTarget(switchInstruction.getDefaultTarget()), depth);
+                    for(int i = 0; i < switchInstruction.getCount(); i++)
+                        queued = enqueue(depths, queue, queued, indexTarget(switchInstruction.getTarget(i)), depth);
+                }   continue;
+            }
+            if(index + 1 < size)
+                queued = enqueue(depths, queue, queued, index + 1, depth);
+        }
+        return maxStack;
+    }
+
+    /**
+     * Queues the {@link Instruction} at the given index if it has not been reached yet.
+     *
+     * @return The new number of queued {@link Instruction}s.
+     */
+    private int enqueue(int depths[], int queue[], int queued, int index, int depth) {
+        rangeCheck(index);
+        if(depths[index] < 0) {
+            depths[index] = depth;
+            queue[queued++] = index;
+        }
+        return queued;
+    }
+
+    /**
+     * @return The number of local variable slots accessed by the {@link Instruction}s, which does not
+     *         include the slots of the method's parameters which are never accessed.
+     */
+    public int computeMaxLocals() {
+        int maxLocals = 0;
+        for(InstructionHandle current = first; current != null; current = current.next) {
+            final Instruction instruction = current.getHandle();
+            byte opcode = instruction.getOpcode();
+            final int index;
+            switch(indexType(opcode)) {
+                case LOCAL_VARIABLE_INS:
+                case IINC_INS:
+                    index = ((LocalVariableInstruction) instruction).getIndex();
                     break;
-                default: {
-                    final int parameters = OPCODE_PARAMETERS[opcode & 0xff];
-                    if(parameters == UNKNOWN_PARAMETERS)
-                        throw new MalformedClassFileException(
-                            "The opcode=" + OPCODE_MNEMONICS[opcode & 0xff] + " is invalid."
-                        );
-                    index += parameters;
+                case WIDE_INS: {
+                    final WideInstruction wideInstruction = (WideInstruction) instruction;
+                    index = wideInstruction.getIndex();
+                    opcode = wideInstruction.getOpcodeParameter();
                 }   break;
+                case NO_PARAM_INS:
+                    // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-6.html#jvms-6.5.iload_n
+                    if(opcode >= ILOAD_0 && opcode <= ALOAD_3) {
+                        index = (opcode - ILOAD_0) & 0x3;
+                        break;
+                    }
+                    // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-6.html#jvms-6.5.istore_n
+                    if(opcode >= ISTORE_0 && opcode <= ASTORE_3) {
+                        index = (opcode - ISTORE_0) & 0x3;
+                        break;
+                    }
+                    // fallthrough.
+                default:
+                    continue;
             }
+            final int locals = index + computeLocalSize(opcode);
+            if(locals > maxLocals)
+                maxLocals = locals;
         }
-        return index;
+        return maxLocals;
     }
 
-    public int computeSize() {
-        return computeIndex(null);
+    /**
+     * @param opcode The opcode of the instruction which accesses the local variable.
+     * @return The number of slots occupied by the local variable accessed.
+     */
+    private static int computeLocalSize(byte opcode) {
+        switch(opcode) {
+            case LLOAD:
+            case DLOAD:
+            case LSTORE:
+            case DSTORE:
+            case LLOAD_0: case LLOAD_1: case LLOAD_2: case LLOAD_3:
+            case DLOAD_0: case DLOAD_1: case DLOAD_2: case DLOAD_3:
+            case LSTORE_0: case LSTORE_1: case LSTORE_2: case LSTORE_3:
+            case DSTORE_0: case DSTORE_1: case DSTORE_2: case DSTORE_3:
+                return 2;
+            default:
+                return 1;
+        }
     }
 }
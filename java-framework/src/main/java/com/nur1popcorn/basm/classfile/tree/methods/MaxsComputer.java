@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+
+package com.nur1popcorn.basm.classfile.tree.methods;
+
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode.ExceptionTableEntry;
+import com.nur1popcorn.basm.classfile.tree.Type;
+
+import java.io.IOException;
+
+import static com.nur1popcorn.basm.classfile.AccessFlags.ACC_STATIC;
+
+/**
+ * <p>The {@link MaxsComputer} computes the 'max_stack' and 'max_locals' of a method's code. The code is read
+ *    into an {@link InstructionList} whose control flow graph is walked once in order to compute the maximum
+ *    depth of the operand stack, the maximum number of locals is derived from the method's descriptor and the
+ *    local variables accessed.</p>
+ *
+ * @see InstructionList#computeMaxStack(InstructionHandle[])
+ * @see InstructionList#computeMaxLocals()
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class MaxsComputer {
+    private final ConstantPool constantPool;
+
+    /**
+     * @param constantPool the {@link ConstantPool} the methods are indexing.
+     */
+    public MaxsComputer(ConstantPool constantPool) {
+        this.constantPool = constantPool;
+    }
+
+    /**
+     * @param access the method's access flags.
+     * @param desc the method's descriptor.
+     * @param attribute the method's code whose maxs should be computed, it is not modified.
+     *
+     * @throws IOException if an error occurs during the process of reading the code.
+     * @throws MalformedClassFileException if the code is invalid.
+     *
+     * @return a copy of the code whose 'max_stack' and 'max_locals' have been computed.
+     */
+    public AttributeCode compute(int access, String desc, AttributeCode attribute) throws IOException {
+        final byte code[] = attribute.getByteCode();
+        final InstructionHandle labels[] = InstructionList.computeLabels(code);
+        final InstructionList instructions = new InstructionList(code, labels, constantPool, false);
+
+        final ExceptionTableEntry exceptionTable[] = attribute.getExceptionTable();
+        final InstructionHandle handlers[] = new InstructionHandle[exceptionTable.length];
+        for(int i = 0; i < handlers.length; i++) {
+            final int handlerPc = exceptionTable[i].getHandlerPc();
+            if(handlerPc >= code.length || labels[handlerPc] == null)
+                throw new MalformedClassFileException(
+                    "The exception handler's offset is out of bounds: handler_pc=" + handlerPc);
+            handlers[i] = labels[handlerPc];
+        }
+
+        int parameters = (access & ACC_STATIC) == 0 ? 1 : 0;
+        for(Type parameter : Type.getType(desc).getParameters())
+            parameters += parameter.getStackModifier();
+
+        return new AttributeCode(
+            attribute.getNameIndex(),
+            instructions.computeMaxStack(handlers),
+            Math.max(parameters, instructions.computeMaxLocals()),
+            code,
+            exceptionTable,
+            attribute.getAttributes()
+        );
+    }
+}
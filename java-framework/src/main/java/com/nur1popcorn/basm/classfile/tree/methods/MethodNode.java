@@ -20,14 +20,24 @@ package com.nur1popcorn.basm.classfile.tree.methods;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode.ExceptionTableEntry;
 import com.nur1popcorn.basm.classfile.tree.FieldMethodNode;
 import com.nur1popcorn.basm.classfile.tree.IFieldMethodNodeVisitor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public final class MethodNode extends FieldMethodNode {
     private final InstructionList instructionList;
 
+    /* The handlers are attached to the handles of the instruction list, which only keep them alive as long
+     * as they are referenced here.
+     */
+    private final List<ExceptionHandler> exceptionHandlers = new ArrayList<>();
+
     /**
      * @param access
      * @param nameIndex
@@ -46,12 +56,14 @@ public final class MethodNode extends FieldMethodNode {
     public MethodNode(FieldMethodInfo info, ConstantPool constantPool) throws IOException {
         super(info, constantPool);
         //TODO: remove this
-        if (info.getCode() != null)
-            instructionList = new InstructionList(
-                info.getCode().getByteCode(),
-                constantPool
-            );
-        else
+        final AttributeCode code = info.getCode();
+        if (code != null) {
+            final byte byteCode[] = code.getByteCode();
+            final InstructionHandle labels[] = InstructionList.computeLabels(byteCode);
+            instructionList = new InstructionList(byteCode, labels, constantPool, true);
+            for(ExceptionTableEntry entry : code.getExceptionTable())
+                addExceptionHandler(ExceptionHandler.read(entry, labels));
+        } else
             instructionList = new InstructionList();
     }
 
@@ -68,4 +80,50 @@ public final class MethodNode extends FieldMethodNode {
         // TODO: remove
         return instructionList;
     }
+
+    /**
+     * Attaches the {@link ExceptionHandler} to the {@link InstructionHandle}s and the class caught it points
+     * at and appends it to the exception table.
+     *
+     * @param handler The {@link ExceptionHandler} which should be added.
+     */
+    public void addExceptionHandler(ExceptionHandler handler) {
+        handler.attach(instructionList);
+        handler.attach(constantPool);
+        exceptionHandlers.add(handler);
+    }
+
+    /**
+     * Removes the {@link ExceptionHandler} from the exception table, it no longer keeps the
+     * {@link InstructionHandle}s and the class caught it points at from being removed.
+     *
+     * @param handler The {@link ExceptionHandler} which should be removed.
+     *
+     * @return Whether or not the handler was part of the exception table.
+     */
+    public boolean removeExceptionHandler(ExceptionHandler handler) {
+        if(!exceptionHandlers.remove(handler))
+            return false;
+        handler.dispose(instructionList);
+        handler.dispose(constantPool);
+        return true;
+    }
+
+    /**
+     * @return The {@link ExceptionHandler}s in the order they are tried in.
+     */
+    public List<ExceptionHandler> getExceptionHandlers() {
+        return Collections.unmodifiableList(exceptionHandlers);
+    }
+
+    /**
+     * @return The exception table at the current offsets of the {@link InstructionHandle}s.
+     */
+    public ExceptionTableEntry[] getExceptionTable() {
+        final ExceptionTableEntry exceptionTable[] = new ExceptionTableEntry[exceptionHandlers.size()];
+        for(int i = 0; i < exceptionTable.length; i++)
+            exceptionTable[i] = exceptionHandlers.get(i)
+                .toEntry(instructionList);
+        return exceptionTable;
+    }
 }
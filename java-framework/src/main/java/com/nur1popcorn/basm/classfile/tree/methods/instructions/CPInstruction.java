@@ -95,6 +95,21 @@ public abstract class CPInstruction extends Instruction implements IConstantPool
         index = newIndex;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remap(int indices[]) {
+        index = indices[index];
+    }
+
+    /**
+     * @return The index of the 'CONSTANT_Info' referenced.
+     */
+    public int getIndex() {
+        return index;
+    }
+
     /**
      * @return
      */
@@ -2,6 +2,7 @@ package com.nur1popcorn.basm.classfile.tree.methods.instructions;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.constants.ConstantMethodRef;
 import com.nur1popcorn.basm.classfile.constants.ConstantNameAndType;
 import com.nur1popcorn.basm.classfile.tree.Type;
 
@@ -17,15 +18,21 @@ public abstract class FieldMethodInstruction extends CPInstruction {
         super(opcode, index, cp);
     }
 
+    /**
+     * @return The 'CONSTANT_NameAndType' of the referenced field or method.
+     */
+    private ConstantNameAndType indexNameAndType() {
+        return ((ConstantMethodRef) getConstant())
+            .indexNameAndType(cp);
+    }
+
     /**
      * @return
      */
     public Type getDesc() {
-        final ConstantNameAndType nameAndType =
-            cp.getEntry(index, CONSTANT_NAME_AND_TYPE);
         return Type.getType(
-            nameAndType.indexDesc(cp)
-                       .bytes
+            indexNameAndType().indexDesc(cp)
+                              .getBytes()
         );
     }
 
@@ -33,46 +40,51 @@ public abstract class FieldMethodInstruction extends CPInstruction {
      * @return
      */
     public String getName() {
-        final ConstantNameAndType nameAndType =
-            cp.getEntry(index, CONSTANT_NAME_AND_TYPE);
-        return nameAndType.indexName(cp)
-                          .bytes;
+        return indexNameAndType().indexName(cp)
+                                 .getBytes();
     }
 
     /**
      * {@inheritDoc}
+     * <p>The effect is derived from the descriptor of the referenced field or method.</p>
      *
      * @throws MalformedClassFileException
      */
     @Override
-    public byte getStackModifier() {
-        byte result = 0;
+    public int getStackModifier() {
+        final Type desc = getDesc();
         switch(opcode) {
             case GETFIELD:
-            case PUTFIELD:
-                result--;
-                // fallthrough.
+                return desc.getStackModifier() - 1;
             case GETSTATIC:
+                return desc.getStackModifier();
+            case PUTFIELD:
+                return -desc.getStackModifier() - 1;
             case PUTSTATIC:
-                result += getDesc()
-                    .getStackModifier();
-                return result;
+                return -desc.getStackModifier();
             case INVOKEVIRTUAL:
             case INVOKESPECIAL:
             case INVOKEINTERFACE:
-                result--;
-                // fallthrough.
-            case INVOKESTATIC: {
-                final Type desc = getDesc();
-                for(Type parameter : desc.getParameters())
-                    result += parameter.getStackModifier();
-                result += desc.getReturnType()
-                              .getStackModifier();
-                return result;
-            }
+                return computeStackModifier(desc) - 1;
+            case INVOKESTATIC:
+                return computeStackModifier(desc);
             default:
                 throw new MalformedClassFileException(
                     "The opcode provided is invalid: opcode=" + Integer.toHexString(opcode));
         }
     }
+
+    /**
+     * @param desc The descriptor of the method invoked.
+     *
+     * @return The number of stack slots occupied by the method's return value minus the number of
+     *         stack slots occupied by its parameters.
+     */
+    static int computeStackModifier(Type desc) {
+        int result = desc.getReturnType()
+                         .getStackModifier();
+        for(Type parameter : desc.getParameters())
+            result -= parameter.getStackModifier();
+        return result;
+    }
 }
@@ -22,6 +22,7 @@ import com.nur1popcorn.basm.classfile.ConstantPool;
 import com.nur1popcorn.basm.classfile.IClassVersionProvider;
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
 import com.nur1popcorn.basm.classfile.tree.Type;
+import com.nur1popcorn.basm.classfile.tree.methods.InstructionHandle;
 import com.nur1popcorn.basm.classfile.tree.methods.InstructionList;
 import com.nur1popcorn.basm.utils.ByteDataInputStream;
 
@@ -206,9 +207,9 @@ public abstract class Instruction {
      */
     private static final int STACK_SIZE_MODIFIER_TABLE[] = {
         0x11111110, 0x22111221, 0x12121111, 0x22111112,
-        0x22111122, 0x11111122, 0xef111111, 0xefffffef,
-        0xeffffeee, 0xeffffeee, 0xfeeeeded, 0x0222111e,
-        0xefefefef, 0xefefefef, 0x0000efef, 0xefefefef,
+        0x22111122, 0x0f111122, 0xefffff0f, 0xefffffef,
+        0xeffffeee, 0xdffffeee, 0xfddddcdc, 0x0222111e,
+        0xefefefef, 0xefefefef, 0x0000efef, 0xefffffff,
         0x1010efef, 0x0f1100ff, 0xdffd000f, 0xeffffffd,
         0x0eeeeeee, 0x8888ff01, 0x88888888, 0x80001888,
         0xff88ff00, 0x88888010, 0x88888888, 0x88888888,
@@ -262,18 +263,29 @@ public abstract class Instruction {
     }
 
     /**
+     * @param opcode The opcode whose predicted effect on the stack size should be returned.
      *
-     *
-     * @return
+     * @return The number of stack slots the opcode pushes minus the number of slots it pops or
+     *         {@link #UNKNOWN_VALUE} if the effect can not be predicted from the opcode alone.
      */
-    public byte getStackModifier() {
-        final int opcode = this.opcode & 0xff;
-        byte value = (byte) ((STACK_SIZE_MODIFIER_TABLE[opcode / 8] >> ((opcode % 8) * 4)) & 0xf);
+    public static byte indexStackModifier(int opcode) {
+        byte value = (byte) ((STACK_SIZE_MODIFIER_TABLE[(opcode &= 0xff) / 8] >> ((opcode % 8) * 4)) & 0xf);
         if((value & 0x8) != 0)
             value |= 0xf0;
         return value;
     }
 
+    /**
+     * Should be overwritten by instructions whose effect on the stack size depends on their parameters,
+     * whose result is exact and therefore never denotes an unknown effect.
+     *
+     * @return The number of stack slots the instruction pushes minus the number of slots it pops or
+     *         {@link #UNKNOWN_VALUE} if the effect can not be predicted.
+     */
+    public int getStackModifier() {
+        return indexStackModifier(opcode);
+    }
+
     /**
      * @return
      */
@@ -303,13 +315,17 @@ public abstract class Instruction {
     /**
      * @param in
      * @param cp
+     * @param labels The {@link InstructionHandle}s of the instructions indexed by their offsets, which are
+     *               used to resolve the targets of jumps and switches.
      *
      * @throws IOException
      * @throws MalformedClassFileException
      *
      * @return
+     *
+     * @see InstructionList#computeLabels(byte[])
      */
-    public static Instruction read(ByteDataInputStream in, ConstantPool cp) throws IOException {
+    public static Instruction read(ByteDataInputStream in, ConstantPool cp, InstructionHandle labels[]) throws IOException {
         final int start = in.position();
         final byte opcode = in.readByte();
         switch(indexType(opcode)) {
@@ -328,11 +344,11 @@ public abstract class Instruction {
                 switch(opcode) {
                     case LDC:
                         return new LDCInstruction(
-                            opcode, in.readByte(), cp);
+                            opcode, in.readUnsignedByte(), cp);
                     case LDC_W:
                     case LDC2_W:
                         return new LDCInstruction(
-                            opcode, in.readShort(), cp);
+                            opcode, in.readUnsignedShort(), cp);
                 }
             case LOCAL_VARIABLE_INS:
                 return new LocalVariableInstruction(
@@ -341,24 +357,24 @@ public abstract class Instruction {
                 return new IIncInstruction(
                     opcode, in.readByte(), in.readByte());
             case JUMP_INS: {
-                final int index;
+                final InstructionHandle target;
                 switch (opcode) {
                     // a 4 byte index must be constructed for the goto_w & jsr_w opcodes.
                     // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-6.html#jvms-6.5.goto_w
                     // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-6.html#jvms-6.5.jsr_w
                     case GOTO_W:
                     case JSR_W:
-                        index = recomputeIndex(in, start, in.readInt());
-                        return new JumpInstruction(opcode, index);
+                        target = labelTarget(labels, start, in.readInt());
+                        return new JumpInstruction(opcode, target);
                     default:
-                        index = recomputeIndex(in, start, in.readShort());
-                        return new JumpInstruction(opcode, index);
+                        target = labelTarget(labels, start, in.readShort());
+                        return new JumpInstruction(opcode, target);
                 }
             }
             case SWITCH_INS: {
                 // skip padding bytes and read default index.
                 in.skipBytes(-in.position() & 0x3);
-                final int defaultIndex = recomputeIndex(in, start, in.readInt());
+                final InstructionHandle defaultTarget = labelTarget(labels, start, in.readInt());
                 switch(opcode) {
                     case TABLESWITCH: {
                         final int low = in.readInt();
@@ -366,26 +382,26 @@ public abstract class Instruction {
 
                         final int length = high - low + 1;
 
-                        final int indices[] = new int[length];
+                        final InstructionHandle targets[] = new InstructionHandle[length];
                         final int keys[] = new int[length];
                         for(int i = 0; i < length; i++) {
                             keys[i] = low + i;
-                            indices[i] = recomputeIndex(in, start, in.readInt());
+                            targets[i] = labelTarget(labels, start, in.readInt());
                         }
 
                         return new SwitchInstruction(
-                            opcode, defaultIndex, keys, indices);
+                            opcode, defaultTarget, keys, targets);
                     }
                     case LOOKUPSWITCH: {
                         final int length = in.readInt();
-                        final int indices[] = new int[length];
+                        final InstructionHandle targets[] = new InstructionHandle[length];
                         final int keys[] = new int[length];
                         for(int i = 0; i < length; i++) {
                             keys[i] = in.readInt();
-                            indices[i] = recomputeIndex(in, start, in.readInt());
+                            targets[i] = labelTarget(labels, start, in.readInt());
                         }
                         return new SwitchInstruction(
-                            opcode, defaultIndex, keys, indices);
+                            opcode, defaultTarget, keys, targets);
                     }
                 }
             }
@@ -432,17 +448,19 @@ public abstract class Instruction {
         }
     }
 
-    private static int recomputeIndex(ByteDataInputStream in, int start, int defaultIndex) throws IOException {
-        final int target = start + defaultIndex;
-        final int oldPosition = in.position();
-        in.reset();
-        int index = 0;
-        while(in.position() < target) {
-            in.skipInstruction();
-            index++;
-        }
-        in.reset();
-        in.skipBytes(oldPosition);
-        return index;
+    /**
+     * @param labels The {@link InstructionHandle}s of the instructions indexed by their offsets.
+     * @param start The offset of the jump or switch instruction.
+     * @param offset The target's offset relative to the instruction.
+     *
+     * @throws MalformedClassFileException If the target is not the start of an instruction.
+     * @return The {@link InstructionHandle} jumped to.
+     */
+    private static InstructionHandle labelTarget(InstructionHandle labels[], int start, int offset) {
+        final int target = start + offset;
+        if(target < 0 || target >= labels.length || labels[target] == null)
+            throw new MalformedClassFileException(
+                "The target is not the start of an instruction: offset=" + target);
+        return labels[target];
     }
 }
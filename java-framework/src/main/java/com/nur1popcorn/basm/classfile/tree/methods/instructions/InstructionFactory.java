@@ -23,10 +23,12 @@ import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
 import com.nur1popcorn.basm.classfile.tree.Type;
 import com.nur1popcorn.basm.classfile.tree.methods.InstructionHandle;
 
+import java.util.Map;
 import java.util.TreeMap;
 
 import static com.nur1popcorn.basm.Constants.LDC;
 import static com.nur1popcorn.basm.Constants.LDC_W;
+import static com.nur1popcorn.basm.Constants.TABLESWITCH;
 import static com.nur1popcorn.basm.classfile.tree.Type.*;
 
 public final class InstructionFactory {
@@ -504,7 +506,7 @@ public final class InstructionFactory {
      */
     public CPInstruction createLDC(int index) {
         return new LDCInstruction(
-            index > 0x100 ?
+            index > 0xff ?
                 LDC_W:
                 LDC,
             index, gen);
@@ -740,17 +742,35 @@ public final class InstructionFactory {
 
     /**
      * @param opcode
-     * @param target
+     * @param target The {@link InstructionHandle} which should be jumped to.
      *
      * @return
      */
-    public static JumpInstruction createJump(byte opcode, int target) {
+    public static JumpInstruction createJump(byte opcode, InstructionHandle target) {
         return new JumpInstruction(opcode, target);
     }
 
-    public SwitchInstruction createSwitch(byte opcode,
-                                          InstructionHandle defaultTarget,
-                                          TreeMap<Integer, InstructionHandle> targets) {
-        return null;
+    /**
+     * @param opcode Either 'tableswitch' or 'lookupswitch'.
+     * @param defaultTarget The {@link InstructionHandle} jumped to if none of the keys match.
+     * @param targets The {@link InstructionHandle}s jumped to indexed by their keys.
+     *
+     * @throws IllegalArgumentException If the keys of a 'tableswitch' are not consecutive.
+     * @return
+     */
+    public static SwitchInstruction createSwitch(byte opcode,
+                                                 InstructionHandle defaultTarget,
+                                                 TreeMap<Integer, InstructionHandle> targets) {
+        final int keys[] = new int[targets.size()];
+        final InstructionHandle handles[] = new InstructionHandle[targets.size()];
+        int i = 0;
+        for(Map.Entry<Integer, InstructionHandle> entry : targets.entrySet()) {
+            keys[i] = entry.getKey();
+            if(opcode == TABLESWITCH && keys[i] != keys[0] + i)
+                throw new IllegalArgumentException(
+                    "The keys of a tableswitch must be consecutive: key=" + keys[i]);
+            handles[i++] = entry.getValue();
+        }
+        return new SwitchInstruction(opcode, defaultTarget, keys, handles);
     }
 }
@@ -1,6 +1,8 @@
 package com.nur1popcorn.basm.classfile.tree.methods.instructions;
 
 import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.constants.ConstantInvokeDynamic;
+import com.nur1popcorn.basm.classfile.tree.Type;
 import com.nur1popcorn.basm.classfile.tree.methods.InstructionList;
 
 import java.io.DataOutputStream;
@@ -18,6 +20,27 @@ public final class InvokeDynamicInstruction extends CPInstruction {
         // TODO: impl
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>The effect is derived from the descriptor of the call site.</p>
+     */
+    @Override
+    public int getStackModifier() {
+        return FieldMethodInstruction.computeStackModifier(getDesc());
+    }
+
+    /**
+     * @return The descriptor of the call site.
+     */
+    public Type getDesc() {
+        return Type.getType(
+            ((ConstantInvokeDynamic) getConstant())
+                .indexNameAndType(cp)
+                .indexDesc(cp)
+                .getBytes()
+        );
+    }
+
     @Override
     public void write(DataOutputStream os, InstructionList instructions) throws IOException {
         super.write(os, instructions);
@@ -19,21 +19,27 @@
 package com.nur1popcorn.basm.classfile.tree.methods.instructions;
 
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.tree.methods.IInstructionPointer;
+import com.nur1popcorn.basm.classfile.tree.methods.InstructionHandle;
 import com.nur1popcorn.basm.classfile.tree.methods.InstructionList;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 
-import static com.nur1popcorn.basm.Constants.GOTO_W;
-import static com.nur1popcorn.basm.Constants.JSR_W;
+import static com.nur1popcorn.basm.Constants.*;
 
-public final class JumpInstruction extends Instruction {
-    private int target;
+public final class JumpInstruction extends Instruction implements IInstructionPointer {
+    private InstructionHandle target;
+
+    /* Whether or not the conditional jump is written as the inverted jump over a 'goto_w', which allows it to
+     * reach targets out of the range of a short offset.
+     */
+    private boolean wide;
 
     /**
      * @param opcode
      */
-    JumpInstruction(byte opcode, int target) {
+    JumpInstruction(byte opcode, InstructionHandle target) {
         super(opcode);
         this.target = target;
     }
@@ -46,11 +52,123 @@ public final class JumpInstruction extends Instruction {
         visitor.visitJumpInstruction(this);
     }
 
-    private static int computeOffset(InstructionList instructions, int position, int targetIndex) {
-        if(targetIndex < 0 || targetIndex >= instructions.size())
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attach(InstructionList instructions) {
+        target.addPointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose(InstructionList instructions) {
+        target.removePointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(InstructionHandle oldTarget, InstructionHandle newTarget) {
+        if(target == oldTarget)
+            setTarget(newTarget);
+    }
+
+    /**
+     * @return The {@link InstructionHandle} jumped to.
+     */
+    public InstructionHandle getTarget() {
+        return target;
+    }
+
+    /**
+     * @param target The {@link InstructionHandle} which should be jumped to, the jump is only attached to it if
+     *               it was attached to the previous target.
+     */
+    public void setTarget(InstructionHandle target) {
+        if(this.target.removePointer(this))
+            target.addPointer(this);
+        this.target = target;
+    }
+
+    /**
+     * Widens the jump in order for it to reach targets out of the range of a short offset: 'goto' and 'jsr'
+     * are replaced with 'goto_w' and 'jsr_w', conditional jumps are written as the inverted jump over a
+     * 'goto_w' jumping to the target.
+     */
+    public void widen() {
+        switch(opcode) {
+            case GOTO:
+                opcode = GOTO_W;
+                break;
+            case JSR:
+                opcode = JSR_W;
+                break;
+            case GOTO_W:
+            case JSR_W:
+                break;
+            default:
+                wide = true;
+                break;
+        }
+    }
+
+    /**
+     * @return Whether or not the jump is able to reach targets out of the range of a short offset.
+     */
+    public boolean isWide() {
+        return wide ||
+               opcode == GOTO_W ||
+               opcode == JSR_W;
+    }
+
+    /**
+     * @return The number of bytes the jump occupies.
+     */
+    public int computeLength() {
+        return wide ? 8 /* inverted jump, goto_w */ :
+               isWide() ? 5 : 3;
+    }
+
+    /**
+     * @param opcode The opcode of the conditional jump which should be inverted.
+     *
+     * @throws MalformedClassFileException If the opcode is not a conditional jump.
+     * @return The opcode of the jump whose condition is the negation of the given jump's condition.
+     */
+    private static byte invert(byte opcode) {
+        switch(opcode) {
+            case IFEQ:      return IFNE;
+            case IFNE:      return IFEQ;
+            case IFLT:      return IFGE;
+            case IFGE:      return IFLT;
+            case IFGT:      return IFLE;
+            case IFLE:      return IFGT;
+            case IF_ICMPEQ: return IF_ICMPNE;
+            case IF_ICMPNE: return IF_ICMPEQ;
+            case IF_ICMPLT: return IF_ICMPGE;
+            case IF_ICMPGE: return IF_ICMPLT;
+            case IF_ICMPGT: return IF_ICMPLE;
+            case IF_ICMPLE: return IF_ICMPGT;
+            case IF_ACMPEQ: return IF_ACMPNQ;
+            case IF_ACMPNQ: return IF_ACMPEQ;
+            case IFNULL:    return IFNONNULL;
+            case IFNONNULL: return IFNULL;
+            default:
+                throw new MalformedClassFileException(
+                    "The opcode=" + OPCODE_MNEMONICS[opcode & 0xff] + " is not a conditional jump.");
+        }
+    }
+
+    private static int computeOffset(InstructionList instructions, int position, InstructionHandle target) {
+        final int targetIndex = instructions.indexOf(target);
+        if(targetIndex < 0)
             throw new MalformedClassFileException(
-                "Invalid jump instruction's targetIndex= " + targetIndex + " out of bounds.");
-        return instructions.computeIndex(instructions.get(targetIndex)) - position;
+                "Invalid jump instruction's target, it is not part of the list.");
+        return instructions.getOffset(targetIndex) - position;
     }
 
     /**
@@ -59,6 +177,14 @@ public final class JumpInstruction extends Instruction {
     @Override
     public void write(DataOutputStream os, InstructionList instructions) throws IOException {
         final int position = os.size();
+        if(wide) {
+            // the inverted jump skips the goto_w following it.
+            os.writeByte(invert(opcode));
+            os.writeShort(8);
+            os.writeByte(GOTO_W);
+            os.writeInt(computeOffset(instructions, position + 3, target));
+            return;
+        }
         os.writeByte(opcode);
         final int targetIndex = computeOffset(instructions, position, target);
         switch(opcode) {
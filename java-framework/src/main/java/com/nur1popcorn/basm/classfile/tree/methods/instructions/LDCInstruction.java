@@ -125,6 +125,21 @@ public final class LDCInstruction extends CPInstruction {
                 "The CONSTANT_Info at index: index=" + index + " is null");
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>An 'ldc_w' whose new index fits into a single byte is turned into an 'ldc'.</p>
+     */
+    @Override
+    public void remap(int indices[]) {
+        index = indices[index];
+        if(opcode == LDC_W &&
+           index <= 0xff)
+            opcode = LDC;
+        else if(opcode == LDC &&
+                index > 0xff)
+            opcode = LDC_W;
+    }
+
     /**
      * @param cp
      *
@@ -151,7 +166,7 @@ public final class LDCInstruction extends CPInstruction {
                     case CONSTANT_CLASS:
                         return ((ConstantName) info)
                             .indexName(cp)
-                            .bytes;
+                            .getBytes();
                     case CONSTANT_METHOD_TYPE:
                     case CONSTANT_METHOD_HANDLE:
                         // TODO: handle method handle and method type.
@@ -22,6 +22,22 @@ public final class MultiANewArrayInstruction extends Instruction {
 
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>The dimensions are popped and the array created is pushed.</p>
+     */
+    @Override
+    public int getStackModifier() {
+        return 1 - getDimensions();
+    }
+
+    /**
+     * @return The number of dimensions which are created.
+     */
+    public int getDimensions() {
+        return dimensions & 0xff;
+    }
+
     @Override
     public void write(DataOutputStream os, InstructionList instructions) throws IOException {
         super.write(os, instructions);
@@ -19,33 +19,34 @@
 package com.nur1popcorn.basm.classfile.tree.methods.instructions;
 
 import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.tree.methods.IInstructionPointer;
+import com.nur1popcorn.basm.classfile.tree.methods.InstructionHandle;
 import com.nur1popcorn.basm.classfile.tree.methods.InstructionList;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.nur1popcorn.basm.Constants.LOOKUPSWITCH;
 import static com.nur1popcorn.basm.Constants.TABLESWITCH;
 
-public final class SwitchInstruction extends Instruction {
-    private int defaultIndex;
+public final class SwitchInstruction extends Instruction implements IInstructionPointer {
+    private InstructionHandle defaultTarget;
     private final List<Integer> keys;
-    private final List<Integer> indices;
+    private final List<InstructionHandle> targets;
 
     /**
      * @param opcode
      */
-    SwitchInstruction(byte opcode, int defaultIndex, int keys[], int indices[]) {
+    SwitchInstruction(byte opcode, InstructionHandle defaultTarget, int keys[], InstructionHandle targets[]) {
         super(opcode);
-        this.defaultIndex = defaultIndex;
+        this.defaultTarget = defaultTarget;
         this.keys = new ArrayList<>(keys.length);
         for(int i : keys)
             this.keys.add(i);
-        this.indices = new ArrayList<>(indices.length);
-        for(int i : indices)
-            this.indices.add(i);
+        this.targets = new ArrayList<>(Arrays.asList(targets));
     }
 
     /**
@@ -56,11 +57,52 @@ public final class SwitchInstruction extends Instruction {
         visitor.visitSwitchInstruction(this);
     }
 
-    private static int computeOffset(InstructionList instructions, int position, int targetIndex) {
-        if(targetIndex < 0 || targetIndex >= instructions.size())
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attach(InstructionList instructions) {
+        defaultTarget.addPointer(this);
+        for(InstructionHandle target : targets)
+            target.addPointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose(InstructionList instructions) {
+        defaultTarget.removePointer(this);
+        for(InstructionHandle target : targets)
+            target.removePointer(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(InstructionHandle oldTarget, InstructionHandle newTarget) {
+        boolean updated = false;
+        if(defaultTarget == oldTarget) {
+            defaultTarget = newTarget;
+            updated = true;
+        }
+        for(int i = 0; i < targets.size(); i++)
+            if(targets.get(i) == oldTarget) {
+                targets.set(i, newTarget);
+                updated = true;
+            }
+        // every occurrence of the old target has been replaced.
+        if(updated && oldTarget.removePointer(this))
+            newTarget.addPointer(this);
+    }
+
+    private static int computeOffset(InstructionList instructions, int position, InstructionHandle target) {
+        final int targetIndex = instructions.indexOf(target);
+        if(targetIndex < 0)
             throw new MalformedClassFileException(
-                "Invalid switch instruction's targetIndex= " + targetIndex + " out of bounds.");
-        return instructions.computeIndex(instructions.get(targetIndex)) - position;
+                "Invalid switch instruction's target, it is not part of the list.");
+        return instructions.getOffset(targetIndex) - position;
     }
 
     /**
@@ -85,7 +127,7 @@ public final class SwitchInstruction extends Instruction {
         */
         while((os.size() & 0x3) != 0)
             os.writeByte(0);
-        os.writeInt(computeOffset(instructions, start, defaultIndex));
+        os.writeInt(computeOffset(instructions, start, defaultTarget));
         switch(opcode) {
             case TABLESWITCH:
                 // https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-6.html#jvms-6.5.tableswitch
@@ -93,20 +135,45 @@ public final class SwitchInstruction extends Instruction {
                 final int high = low + getCount() - 1;
                 os.writeInt(low);
                 os.writeInt(high);
-                for(int index : indices)
-                    os.writeInt(computeOffset(instructions, start, index));
+                for(InstructionHandle target : targets)
+                    os.writeInt(computeOffset(instructions, start, target));
                 break;
             case LOOKUPSWITCH:
                 os.writeInt(getCount());
                 for(int i = 0; i < getCount(); i++) {
                     os.writeInt(keys.get(i));
-                    os.writeInt(computeOffset(instructions, start, indices.get(i)));
+                    os.writeInt(computeOffset(instructions, start, targets.get(i)));
                 }
                 break;
         }
     }
 
     public int getCount() {
-        return indices.size();
+        return targets.size();
+    }
+
+    /**
+     * @return The {@link InstructionHandle} jumped to if none of the keys match.
+     */
+    public InstructionHandle getDefaultTarget() {
+        return defaultTarget;
+    }
+
+    /**
+     * @param i The position of the key which should be returned.
+     *
+     * @return The key at the given position.
+     */
+    public int getKey(int i) {
+        return keys.get(i);
+    }
+
+    /**
+     * @param i The position of the key whose target should be returned.
+     *
+     * @return The {@link InstructionHandle} jumped to if the key at the given position matches.
+     */
+    public InstructionHandle getTarget(int i) {
+        return targets.get(i);
     }
 }
@@ -61,7 +61,23 @@ public final class WideInstruction extends Instruction {
             os.writeShort(constant);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>The effect is the effect of the widened opcode.</p>
+     */
+    @Override
+    public int getStackModifier() {
+        return indexStackModifier(opcode);
+    }
+
     public byte getOpcodeParameter() {
         return opcode;
     }
+
+    /**
+     * @return The index of the local variable accessed.
+     */
+    public int getIndex() {
+        return index;
+    }
 }
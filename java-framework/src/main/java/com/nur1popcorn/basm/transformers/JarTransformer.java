@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.transformers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The {@link JarTransformer} streams a jar from its input to its output, transforming every class it contains
+ * using the {@link ITransformer} provided. The classes are transformed on a bounded pool of workers while
+ * the jar is being read, any other entries are copied as they are read. The number of classes which are
+ * held in memory at any given time is capped: Once the cap is reached no further entries are read until a
+ * transformed class has been written, the memory required therefore does not depend on the jar's size.
+ * <p>Transformed classes are written as they complete, the order of the entries is hence not preserved.</p>
+ *
+ * @see ITransformer
+ * @see VisitorTransformer
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class JarTransformer implements ITransformer {
+    private final ITransformer transformer;
+
+    private final int threads,
+                      maxInFlight;
+
+    /**
+     * @param transformer The {@link ITransformer} used to transform the classes, it must be thread safe.
+     */
+    public JarTransformer(ITransformer transformer) {
+        this(transformer,
+             Runtime.getRuntime().availableProcessors(),
+             Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param transformer The {@link ITransformer} used to transform the classes, it must be thread safe.
+     * @param threads The number of workers used to transform the classes.
+     * @param maxInFlight The maximum number of classes held in memory at any given time.
+     */
+    public JarTransformer(ITransformer transformer, int threads, int maxInFlight) {
+        if(threads < 1 || maxInFlight < 1)
+            throw new IllegalArgumentException(
+                "threads=" + threads + ", maxInFlight=" + maxInFlight);
+        this.transformer = transformer;
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /* A transformed class waiting to be written.
+     */
+    private static final class Result {
+        private final ZipEntry entry;
+        private final byte clazz[];
+
+        Result(ZipEntry entry, byte clazz[]) {
+            this.entry = entry;
+            this.clazz = clazz;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transform(InputStream in, OutputStream out) throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+            final ZipInputStream zin = new ZipInputStream(in);
+            final ZipOutputStream zout = new ZipOutputStream(out);
+            final byte buffer[] = new byte[0x2000];
+            int inFlight = 0;
+            for(ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+                final ZipEntry outEntry = new ZipEntry(entry.getName());
+                outEntry.setTime(entry.getTime());
+                if(entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    // copy other entries as they are read.
+                    zout.putNextEntry(outEntry);
+                    for(int read; (read = zin.read(buffer)) != -1;)
+                        zout.write(buffer, 0, read);
+                    zout.closeEntry();
+                } else {
+                    // block until a class has been written once the cap is reached.
+                    if(inFlight == maxInFlight) {
+                        write(zout, completionService.take());
+                        inFlight--;
+                    }
+                    final byte clazz[] = readAll(zin, buffer);
+                    completionService.submit(() -> {
+                        final ByteArrayOutputStream transformed = new ByteArrayOutputStream(clazz.length);
+                        transformer.transform(new ByteArrayInputStream(clazz), transformed);
+                        return new Result(outEntry, transformed.toByteArray());
+                    });
+                    inFlight++;
+                }
+                // write classes which have already been transformed.
+                for(Future<Result> result; (result = completionService.poll()) != null; inFlight--)
+                    write(zout, result);
+            }
+            for(; inFlight > 0; inFlight--)
+                write(zout, completionService.take());
+            zout.finish();
+            zout.flush();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted whilst transforming the jar.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void write(ZipOutputStream zout, Future<Result> future) throws IOException, InterruptedException {
+        final Result result;
+        try {
+            result = future.get();
+        } catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+        zout.putNextEntry(result.entry);
+        zout.write(result.clazz);
+        zout.closeEntry();
+    }
+
+    private static byte[] readAll(InputStream in, byte buffer[]) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(int read; (read = in.read(buffer)) != -1;)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+}
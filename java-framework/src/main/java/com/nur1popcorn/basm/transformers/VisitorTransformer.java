@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.transformers;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ClassWriter;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.UnaryOperator;
+
+import static com.nur1popcorn.basm.classfile.ClassReader.KEEP_SOURCE;
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
+import static com.nur1popcorn.basm.classfile.ClassWriter.COPY_UNMODIFIED;
+
+/**
+ * The {@link VisitorTransformer} transforms a class by passing it through a chain of {@link IClassVisitor}s
+ * which ends in a {@link ClassWriter}. The class is read from a buffer keeping its source, unmodified fields
+ * and methods are therefore copied.
+ *
+ * @see ClassReader
+ * @see ClassWriter
+ * @see JarTransformer
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class VisitorTransformer implements ITransformer {
+    private final UnaryOperator<IClassVisitor> chain;
+
+    private final int read;
+
+    /**
+     * @param chain A function creating the chain of {@link IClassVisitor}s for a class, given the
+     *              {@link ClassWriter} the chain should delegate to. It is invoked once for every class.
+     */
+    public VisitorTransformer(UnaryOperator<IClassVisitor> chain) {
+        this(chain, READ_ALL);
+    }
+
+    /**
+     * @param chain A function creating the chain of {@link IClassVisitor}s for a class, given the
+     *              {@link ClassWriter} the chain should delegate to. It is invoked once for every class.
+     * @param read The flags passed to the {@link ClassReader}, the {@link ClassWriter} requires every part of
+     *             the class to be read, which is why they must be {@link ClassReader#READ_ALL} optionally
+     *             combined with {@link ClassReader#LAZY_POOL}.
+     *
+     * @throws IllegalArgumentException If the flags do not read every part of the class or contain flags the
+     *                                  {@link ClassWriter} does not support.
+     *
+     * @see ClassReader#accept(IClassVisitor, int)
+     */
+    public VisitorTransformer(UnaryOperator<IClassVisitor> chain, int read) {
+        if((read & ~LAZY_POOL) != READ_ALL)
+            throw new IllegalArgumentException(
+                "The flags must be READ_ALL optionally combined with LAZY_POOL: read=0x" + Integer.toHexString(read));
+        this.chain = chain;
+        this.read = read;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transform(InputStream in, OutputStream out) throws IOException {
+        final ByteArrayOutputStream clazz = new ByteArrayOutputStream();
+        final byte buffer[] = new byte[0x2000];
+        for(int length; (length = in.read(buffer)) != -1;)
+            clazz.write(buffer, 0, length);
+
+        final ClassWriter classWriter = new ClassWriter(COPY_UNMODIFIED);
+        new ClassReader(clazz.toByteArray())
+            .accept(chain.apply(classWriter), read | KEEP_SOURCE);
+        out.write(classWriter.toByteArray());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The {@link BootImage} provides the platform classes of a Java 9+ runtime, which are no longer stored in
+ * jars on the boot class path. The classes are read either from the runtime image using the "jrt:/"
+ * filesystem or from the jmod files of a JDK. The packages of all modules are mapped to the module
+ * containing them when the image is opened, resolving a class is therefore a single lookup.
+ *
+ * @see ClassPool
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class BootImage implements Closeable {
+    /* The prefix of the entries of a jmod file containing classes.
+     */
+    private static final String JMOD_CLASSES = "classes/";
+
+    /* Maps the internal name of each package to the module containing it.
+     */
+    private final Map<String, String> packages;
+
+    /* The "jrt:/" filesystem or null if the image consists of jmod files.
+     */
+    private final FileSystem fileSystem;
+
+    /* Whether the filesystem was created by the image and therefore has to be closed by it.
+     */
+    private final boolean owned;
+
+    /* The jmod files mapped by the names of their modules.
+     */
+    private final Map<String, ZipFile> jmods;
+
+    private BootImage(FileSystem fileSystem, boolean owned) throws IOException {
+        this.fileSystem = fileSystem;
+        this.owned = owned;
+        jmods = Collections.emptyMap();
+        packages = new HashMap<>();
+        // the "/packages" directory contains a directory for each package which in turn contains a link to
+        // the module containing it.
+        try(DirectoryStream<Path> packageDirs = Files.newDirectoryStream(fileSystem.getPath("/packages"))) {
+            for(Path packageDir : packageDirs) {
+                final String packageName = packageDir.getFileName()
+                    .toString()
+                    .replace('.', '/');
+                try(DirectoryStream<Path> modules = Files.newDirectoryStream(packageDir)) {
+                    for(Path module : modules)
+                        packages.putIfAbsent(packageName, module.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    private BootImage(Map<String, ZipFile> jmods) {
+        fileSystem = null;
+        owned = false;
+        this.jmods = jmods;
+        packages = new HashMap<>();
+        for(Map.Entry<String, ZipFile> jmod : jmods.entrySet()) {
+            final Enumeration<? extends ZipEntry> enumeration = jmod.getValue().entries();
+            while(enumeration.hasMoreElements()) {
+                final String name = enumeration.nextElement().getName();
+                final int index = name.lastIndexOf('/');
+                if(name.startsWith(JMOD_CLASSES) &&
+                   name.endsWith(".class") &&
+                   index > JMOD_CLASSES.length())
+                    packages.putIfAbsent(name.substring(JMOD_CLASSES.length(), index), jmod.getKey());
+            }
+        }
+    }
+
+    /**
+     * @throws IOException If an error occurs during the process of reading the image.
+     * @return The image of the running Java runtime or null if the runtime does not provide one, which is
+     *         the case for Java 8 and lower.
+     */
+    public static BootImage open() throws IOException {
+        final FileSystem fileSystem;
+        try {
+            fileSystem = FileSystems.getFileSystem(URI.create("jrt:/"));
+        } catch(FileSystemNotFoundException | ProviderNotFoundException e) {
+            return null;
+        }
+        return new BootImage(fileSystem, false);
+    }
+
+    /**
+     * Opens the image of the Java runtime installed in the given directory. The runtime image is preferred,
+     * if it is not present the jmod files are used instead.
+     *
+     * @param javaHome The directory in which the Java runtime is installed.
+     *
+     * @throws IOException If the directory contains neither a runtime image nor jmod files or if an error
+     *                     occurs during the process of reading the image.
+     * @return The image of the Java runtime installed in the given directory.
+     */
+    public static BootImage open(Path javaHome) throws IOException {
+        if(Files.isRegularFile(javaHome.resolve("lib").resolve("modules")))
+            try {
+                return new BootImage(
+                    FileSystems.newFileSystem(
+                        URI.create("jrt:/"),
+                        Collections.singletonMap("java.home", javaHome.toString())),
+                    true);
+            } catch(ProviderNotFoundException | UnsupportedOperationException ignored) {
+                // the running runtime can not read runtime images, the jmod files are used instead.
+            }
+        final Path jmodDir = javaHome.resolve("jmods");
+        if(!Files.isDirectory(jmodDir))
+            throw new IOException("The directory provided contains no Java runtime: " + javaHome);
+        return openJmods(jmodDir);
+    }
+
+    /**
+     * @param jmodDir The directory containing the jmod files.
+     *
+     * @throws IOException If an error occurs during the process of opening the jmod files.
+     * @return The image consisting of all jmod files contained by the given directory.
+     */
+    public static BootImage openJmods(Path jmodDir) throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(jmodDir, "*.jmod")) {
+            for(Path path : stream)
+                paths.add(path);
+        }
+        Collections.sort(paths);
+        final Map<String, ZipFile> jmods = new HashMap<>();
+        try {
+            for(Path path : paths) {
+                final String fileName = path.getFileName().toString();
+                jmods.put(
+                    fileName.substring(0, fileName.length() - ".jmod".length()),
+                    new ZipFile(path.toFile()));
+            }
+        } catch(IOException e) {
+            for(ZipFile jmod : jmods.values())
+                try {
+                    jmod.close();
+                } catch(IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            throw e;
+        }
+        return new BootImage(jmods);
+    }
+
+    /**
+     * @param packageName The internal name of a package, e.g. "java/lang".
+     *
+     * @return The name of the module containing the package or null if none of the modules contain it.
+     */
+    public String getModule(String packageName) {
+        return packages.get(packageName);
+    }
+
+    /**
+     * @return The internal names of all packages contained by the image.
+     */
+    public Collection<String> getPackages() {
+        return Collections.unmodifiableSet(packages.keySet());
+    }
+
+    /**
+     * @param className The internal name of the class which should be opened, e.g. "java/lang/Object".
+     *
+     * @throws IOException If an error occurs during the process of opening the class.
+     * @return An {@link InputStream} of the class' contents or null if the image does not contain it.
+     */
+    public InputStream open(String className) throws IOException {
+        final int index = className.lastIndexOf('/');
+        if(index == -1)
+            return null;
+        final String module = packages.get(className.substring(0, index));
+        if(module == null)
+            return null;
+        if(fileSystem != null) {
+            final Path path = fileSystem.getPath("/modules", module, className + ".class");
+            return Files.isRegularFile(path) ?
+                Files.newInputStream(path) : null;
+        }
+        final ZipFile jmod = jmods.get(module);
+        final ZipEntry entry = jmod.getEntry(JMOD_CLASSES + className + ".class");
+        return entry == null ?
+            null : jmod.getInputStream(entry);
+    }
+
+    /**
+     * Closes the jmod files or the filesystem opened by the image.
+     *
+     * @throws IOException If an error occurs during the process of closing the image.
+     */
+    @Override
+    public void close() throws IOException {
+        if(owned)
+            fileSystem.close();
+        IOException exception = null;
+        for(ZipFile jmod : jmods.values())
+            try {
+                jmod.close();
+            } catch(IOException e) {
+                if(exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        if(exception != null)
+            throw exception;
+    }
+}
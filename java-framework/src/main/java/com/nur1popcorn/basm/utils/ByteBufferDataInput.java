@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@link ByteBufferDataInput} implements the {@link DataInput} interface on top of a {@link ByteBuffer}
+ * or a slice of a byte array. Unlike a {@link DataInputStream} it does not copy or synchronize anything, the
+ * data is read straight out of the backing buffer, which may be a heap, direct or memory-mapped buffer.
+ * Besides the usual cursor based methods the class provides absolute-offset accessors, which are relative
+ * to the start of the slice and leave the cursor untouched.
+ *
+ * @see com.nur1popcorn.basm.classfile.ClassReader
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ByteBufferDataInput implements DataInput {
+    /* A private duplicate of the buffer provided, it is only read using absolute gets and its position is
+     * never moved.
+     */
+    private ByteBuffer buffer;
+
+    /* The absolute index of the slice's first byte and the absolute index following the slice's last byte
+     * inside of the buffer.
+     */
+    private int start,
+                end;
+
+    /* The cursor's position relative to the start of the slice.
+     */
+    private int position;
+
+    /**
+     * @param buffer The buffer from which should be read. The slice starts at the buffer's current position
+     *               and ends at its limit, neither of them are modified.
+     */
+    public ByteBufferDataInput(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate()
+                            .order(ByteOrder.BIG_ENDIAN);
+        start = buffer.position();
+        end = buffer.limit();
+    }
+
+    /**
+     * @param buffer The byte array from which should be read.
+     * @param offset The index of the slice's first byte.
+     * @param length The slice's length.
+     */
+    public ByteBufferDataInput(byte buffer[], int offset, int length) {
+        this(ByteBuffer.wrap(buffer, offset, length));
+    }
+
+    /**
+     * @param buffer The byte array from which should be read.
+     */
+    public ByteBufferDataInput(byte buffer[]) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Moves the {@link ByteBufferDataInput} to a slice of the given byte array and resets the cursor, which
+     * allows a single instance to be reused for many slices. The byte array is only wrapped again if it
+     * differs from the one currently read. Slices created before are not affected.
+     *
+     * @param buffer The byte array from which should be read.
+     * @param offset The index of the slice's first byte.
+     * @param length The slice's length.
+     */
+    public void reset(byte buffer[], int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > buffer.length || offset + length < 0)
+            throw new IndexOutOfBoundsException(
+                "offset=" + offset + ", length=" + length + ", size=" + buffer.length);
+        if(!this.buffer.hasArray() ||
+           this.buffer.array() != buffer ||
+           this.buffer.arrayOffset() != 0)
+            this.buffer = ByteBuffer.wrap(buffer);
+        start = offset;
+        end = offset + length;
+        position = 0;
+    }
+
+    /**
+     * @param length The number of bytes which are about to be read.
+     *
+     * @throws EOFException If less than the given number of bytes are remaining.
+     */
+    private void require(int length) throws EOFException {
+        if(length > end - start - position)
+            throw new EOFException(
+                "position=" + position + ", length=" + length + ", size=" + (end - start));
+    }
+
+    /**
+     * @return The cursor's position relative to the start of the slice.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * @param position The cursor's new position relative to the start of the slice.
+     */
+    public void position(int position) {
+        if(position < 0 || position > end - start)
+            throw new IndexOutOfBoundsException(
+                "position=" + position + ", size=" + (end - start));
+        this.position = position;
+    }
+
+    /**
+     * @return The slice's length.
+     */
+    public int size() {
+        return end - start;
+    }
+
+    /**
+     * @return The number of bytes between the cursor and the end of the slice.
+     */
+    public int remaining() {
+        return end - start - position;
+    }
+
+    /**
+     * @param offset The offset of the first byte which is about to be read relative to the start of the slice.
+     * @param length The number of bytes which are about to be read.
+     *
+     * @throws MalformedClassFileException If the bytes exceed the slice.
+     */
+    private void check(int offset, int length) {
+        if(offset < 0 || length < 0 || length > end - start - offset)
+            throw new MalformedClassFileException(
+                "offset=" + offset + ", length=" + length + ", size=" + (end - start));
+    }
+
+    /**
+     * @param offset The offset of the byte relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The signed byte at the given offset.
+     */
+    public byte readByte(int offset) {
+        check(offset, 1);
+        return buffer.get(start + offset);
+    }
+
+    /**
+     * @param offset The offset of the byte relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The unsigned byte at the given offset.
+     */
+    public int readUnsignedByte(int offset) {
+        check(offset, 1);
+        return buffer.get(start + offset) & 0xff;
+    }
+
+    /**
+     * @param offset The offset of the short relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The signed short at the given offset.
+     */
+    public short readShort(int offset) {
+        check(offset, 2);
+        return buffer.getShort(start + offset);
+    }
+
+    /**
+     * @param offset The offset of the short relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The unsigned short at the given offset.
+     */
+    public int readUnsignedShort(int offset) {
+        check(offset, 2);
+        return buffer.getShort(start + offset) & 0xffff;
+    }
+
+    /**
+     * @param offset The offset of the int relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The int at the given offset.
+     */
+    public int readInt(int offset) {
+        check(offset, 4);
+        return buffer.getInt(start + offset);
+    }
+
+    /**
+     * @param offset The offset of the long relative to the start of the slice.
+     *
+     * @throws MalformedClassFileException If the value exceeds the slice.
+     * @return The long at the given offset.
+     */
+    public long readLong(int offset) {
+        check(offset, 8);
+        return buffer.getLong(start + offset);
+    }
+
+    /**
+     * Copies bytes from the given offset into the destination array without moving the cursor.
+     *
+     * @param offset The offset of the first byte relative to the start of the slice.
+     * @param b The destination array.
+     * @param off The index at which the first byte should be stored.
+     * @param len The number of bytes which should be copied.
+     *
+     * @throws MalformedClassFileException If the bytes exceed the slice.
+     */
+    public void readFully(int offset, byte b[], int off, int len) {
+        check(offset, len);
+        if(buffer.hasArray())
+            System.arraycopy(
+                buffer.array(), buffer.arrayOffset() + start + offset,
+                b, off, len
+            );
+        else {
+            // bulk gets move the position, which is why a duplicate is used.
+            final ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(start + offset);
+            duplicate.get(b, off, len);
+        }
+    }
+
+    /**
+     * Writes bytes from the given offset to the given {@link DataOutput} without moving the cursor. Bytes
+     * backed by an array are written straight from the array.
+     *
+     * @param out The {@link DataOutput} to which the bytes should be written.
+     * @param offset The offset of the first byte relative to the start of the slice.
+     * @param length The number of bytes which should be written.
+     *
+     * @throws IOException If an error occurs during the process of writing to the {@link DataOutput}.
+     */
+    public void writeTo(DataOutput out, int offset, int length) throws IOException {
+        if(offset < 0 || length < 0 || offset + length > end - start)
+            throw new IndexOutOfBoundsException(
+                "offset=" + offset + ", length=" + length + ", size=" + (end - start));
+        if(buffer.hasArray())
+            out.write(buffer.array(), buffer.arrayOffset() + start + offset, length);
+        else {
+            final byte chunk[] = new byte[Math.min(length, 0x2000)];
+            for(int written = 0; written < length; written += chunk.length) {
+                final int size = Math.min(chunk.length, length - written);
+                readFully(offset + written, chunk, 0, size);
+                out.write(chunk, 0, size);
+            }
+        }
+    }
+
+    /**
+     * @param offset The offset of the sub-slice relative to the start of this slice.
+     * @param length The sub-slice's length.
+     *
+     * @return A new {@link ByteBufferDataInput} sharing this one's buffer.
+     */
+    public ByteBufferDataInput slice(int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > end - start)
+            throw new IndexOutOfBoundsException(
+                "offset=" + offset + ", length=" + length + ", size=" + (end - start));
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(start + offset + length)
+             .position(start + offset);
+        return new ByteBufferDataInput(slice);
+    }
+
+    @Override
+    public void readFully(byte b[]) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte b[], int off, int len) throws IOException {
+        require(len);
+        readFully(position, b, off, len);
+        position += len;
+    }
+
+    @Override
+    public int skipBytes(int n) {
+        final int skipped = Math.max(0, Math.min(n, remaining()));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(1);
+        return readByte(position++);
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        require(1);
+        return readUnsignedByte(position++);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(2);
+        final short value = readShort(position);
+        position += 2;
+        return value;
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        require(2);
+        final int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readUnsignedShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(4);
+        final int value = readInt(position);
+        position += 4;
+        return value;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(8);
+        final long value = readLong(position);
+        position += 8;
+        return value;
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Every byte is converted to the character of the same value, just like
+     *    {@link java.io.DataInputStream#readLine()} does.</p>
+     */
+    @Override
+    public String readLine() throws IOException {
+        final int size = size();
+        if(position >= size)
+            return null;
+        final StringBuilder line = new StringBuilder();
+        while(position < size) {
+            final int c = readUnsignedByte();
+            if(c == '\n')
+                break;
+            if(c == '\r') {
+                // a carriage return followed by a line feed terminates a single line.
+                if(position < size && readUnsignedByte(position) == '\n')
+                    position++;
+                break;
+            }
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Strings inside of array backed buffers are decoded in place using {@link ModifiedUTF8}.</p>
+     */
+    @Override
+    public String readUTF() throws IOException {
+        if(!buffer.hasArray())
+            return DataInputStream.readUTF(this);
+        final int length = readUnsignedShort();
+        require(length);
+        final String string = ModifiedUTF8.decode(buffer.array(), buffer.arrayOffset() + start + position, length);
+        position += length;
+        return string;
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import com.nur1popcorn.basm.classfile.tree.ClassFile;
+import com.nur1popcorn.basm.classfile.tree.fields.FieldNode;
+import com.nur1popcorn.basm.classfile.tree.methods.InstructionList;
+import com.nur1popcorn.basm.classfile.tree.methods.MethodNode;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@link ClassCache} is a thread-safe cache of {@link ClassFile}s which may be shared by multiple
+ * {@link ClassPool}s and threads. Each class is loaded at most once, concurrent requests for a class which
+ * is being loaded wait for the first request to complete. Failed loads are not cached.
+ *
+ * <p>The cache is either unbounded, bounded by the number of classes, bounded by the estimated number of
+ * bytes occupied by the classes or holds the classes using {@link SoftReference}s. Bounded caches evict the
+ * least recently used classes first.</p>
+ *
+ * @see ClassPool
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ClassCache {
+    private final ConcurrentHashMap<String, Node> map = new ConcurrentHashMap<>();
+
+    /* The classes which were loaded successfully in access order, only maintained for bounded caches.
+     */
+    private final LinkedHashMap<String, Node> order = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxSize,
+                       maxWeight;
+    private final ToLongFunction<ClassFile> weigher;
+
+    /* The queue to which the soft references of collected classes are enqueued or null if the classes are
+     * strongly referenced.
+     */
+    private final ReferenceQueue<ClassFile> queue;
+
+    /* The total weight of all classes in the access order, guarded by it.
+     */
+    private long weight;
+
+    private final LongAdder hits = new LongAdder(),
+                            misses = new LongAdder(),
+                            evictions = new LongAdder();
+
+    private ClassCache(long maxSize, long maxWeight, ToLongFunction<ClassFile> weigher, boolean soft) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        queue = soft ? new ReferenceQueue<>() : null;
+    }
+
+    /**
+     * @return A new cache which never evicts any classes.
+     */
+    public static ClassCache unbounded() {
+        return new ClassCache(Long.MAX_VALUE, Long.MAX_VALUE, null, false);
+    }
+
+    /**
+     * @param maxSize The maximum number of classes which are kept.
+     *
+     * @return A new cache which evicts the least recently used classes once it holds more than the given
+     *         number of classes.
+     */
+    public static ClassCache lru(int maxSize) {
+        if(maxSize <= 0)
+            throw new IllegalArgumentException("maxSize=" + maxSize);
+        return new ClassCache(maxSize, Long.MAX_VALUE, null, false);
+    }
+
+    /**
+     * @param maxBytes The maximum number of bytes the classes kept may occupy.
+     *
+     * @return A new cache which evicts the least recently used classes once their total size estimated by
+     *         {@link #estimateSize(ClassFile)} exceeds the given number of bytes.
+     */
+    public static ClassCache weighted(long maxBytes) {
+        return weighted(maxBytes, ClassCache::estimateSize);
+    }
+
+    /**
+     * @param maxWeight The maximum total weight of the classes kept.
+     * @param weigher The function computing the weight of a class.
+     *
+     * @return A new cache which evicts the least recently used classes once their total weight exceeds the
+     *         given weight.
+     */
+    public static ClassCache weighted(long maxWeight, ToLongFunction<ClassFile> weigher) {
+        if(maxWeight <= 0)
+            throw new IllegalArgumentException("maxWeight=" + maxWeight);
+        return new ClassCache(Long.MAX_VALUE, maxWeight, weigher, false);
+    }
+
+    /**
+     * @return A new cache which holds the classes using {@link SoftReference}s, leaving their eviction up to
+     *         the garbage collector.
+     */
+    public static ClassCache soft() {
+        return new ClassCache(Long.MAX_VALUE, Long.MAX_VALUE, null, true);
+    }
+
+    /**
+     * Estimates the number of bytes occupied by the given class' tree.
+     *
+     * @param classFile The class whose size should be estimated.
+     *
+     * @return The estimated size of the class in bytes.
+     */
+    public static long estimateSize(ClassFile classFile) {
+        long size = 256 + classFile.getConstantPool().getSize() * 48L;
+        for(FieldNode ignored : classFile.getFieldNodes())
+            size += 64;
+        for(MethodNode methodNode : classFile.getMethodNodes()) {
+            size += 128;
+            final InstructionList instructionList = methodNode.getInstructionList();
+            if(instructionList != null)
+                size += instructionList.size() * 48L;
+        }
+        return size;
+    }
+
+    private boolean isBounded() {
+        return maxSize != Long.MAX_VALUE || maxWeight != Long.MAX_VALUE;
+    }
+
+    /**
+     * @param name The name of the class which should be returned.
+     * @param loader The function used to load the class if it is not cached, it is invoked at most once
+     *               for concurrent requests of the same class.
+     *
+     * @return The cached or loaded class or null if the loader returned null.
+     */
+    public ClassFile get(String name, Function<String, ClassFile> loader) {
+        purge();
+        for(;;) {
+            Node node = map.get(name);
+            if(node == null) {
+                final Node created = new Node(name);
+                node = map.putIfAbsent(name, created);
+                if(node == null) {
+                    misses.increment();
+                    return load(created, loader);
+                }
+            }
+            final ClassFile value = node.await();
+            if(value != null) {
+                hits.increment();
+                if(isBounded())
+                    synchronized(order) {
+                        // moves the class to the end of the access order.
+                        order.get(name);
+                    }
+                return value;
+            }
+            // the loader returned null, just like for the caller which invoked it.
+            if(node.isMissing())
+                return null;
+            // the class was collected.
+            map.remove(name, node);
+        }
+    }
+
+    /**
+     * @param name The name of the class which should be returned.
+     *
+     * @return The cached class or null if it is not cached or still being loaded.
+     */
+    public ClassFile getIfPresent(String name) {
+        final Node node = map.get(name);
+        return node == null ?
+            null : node.getNow();
+    }
+
+    private ClassFile load(Node node, Function<String, ClassFile> loader) {
+        final ClassFile value;
+        try {
+            value = loader.apply(node.name);
+        } catch(RuntimeException | Error e) {
+            map.remove(node.name, node);
+            node.fail(e);
+            throw e;
+        }
+        if(value == null) {
+            map.remove(node.name, node);
+            node.fail(null);
+            return null;
+        }
+        node.complete(value, queue);
+        if(isBounded())
+            synchronized(order) {
+                if(map.get(node.name) != node)
+                    // the class was invalidated while it was loaded.
+                    return value;
+                node.weight = weigher == null ?
+                    1 : weigher.applyAsLong(value);
+                order.put(node.name, node);
+                weight += node.weight;
+                final Iterator<Node> iterator = order.values().iterator();
+                while((order.size() > maxSize || weight > maxWeight) && iterator.hasNext()) {
+                    final Node eldest = iterator.next();
+                    if(eldest == node)
+                        break;
+                    iterator.remove();
+                    weight -= eldest.weight;
+                    map.remove(eldest.name, eldest);
+                    evictions.increment();
+                }
+            }
+        return value;
+    }
+
+    /* Removes all classes which were collected by the garbage collector.
+     */
+    private void purge() {
+        if(queue == null)
+            return;
+        for(Reference<? extends ClassFile> reference; (reference = queue.poll()) != null;)
+            if(map.remove(((NodeReference) reference).node.name, ((NodeReference) reference).node))
+                evictions.increment();
+    }
+
+    /**
+     * Removes the class with the given name from the cache.
+     *
+     * @param name The name of the class which should be removed.
+     */
+    public void invalidate(String name) {
+        final Node node = map.remove(name);
+        if(node != null && isBounded())
+            synchronized(order) {
+                if(order.remove(name, node))
+                    weight -= node.weight;
+            }
+    }
+
+    /**
+     * Removes all classes from the cache.
+     */
+    public void clear() {
+        for(String name : map.keySet())
+            invalidate(name);
+    }
+
+    /**
+     * @return The number of classes which are cached or being loaded.
+     */
+    public int size() {
+        purge();
+        return map.size();
+    }
+
+    /**
+     * @return The total weight of the classes cached, which is always zero for unbounded caches.
+     */
+    public long getWeight() {
+        synchronized(order) {
+            return weight;
+        }
+    }
+
+    /**
+     * @return The number of requests for classes which were already cached.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of requests which caused a class to be loaded.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of classes evicted either due to the cache's bounds or the garbage collector.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /* A class which is being loaded or was loaded.
+     */
+    private static final class Node {
+        private final String name;
+
+        /* The class, its soft reference or null while it is being loaded.
+         */
+        private Object value;
+        private Throwable error;
+        private boolean done;
+
+        /* The weight of the class, guarded by the access order.
+         */
+        private long weight;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        synchronized void complete(ClassFile value, ReferenceQueue<ClassFile> queue) {
+            this.value = queue == null ?
+                value : new NodeReference(value, queue, this);
+            done = true;
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable error) {
+            this.error = error;
+            done = true;
+            notifyAll();
+        }
+
+        /**
+         * @return The class once it was loaded or null if it was collected in the meantime or the loader
+         *         returned null.
+         */
+        synchronized ClassFile await() {
+            boolean interrupted = false;
+            while(!done)
+                try {
+                    wait();
+                } catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            if(interrupted)
+                Thread.currentThread().interrupt();
+            if(error instanceof RuntimeException)
+                throw (RuntimeException) error;
+            if(error instanceof Error)
+                throw (Error) error;
+            return getNow();
+        }
+
+        /**
+         * @return Whether or not the loader returned null.
+         */
+        synchronized boolean isMissing() {
+            return done &&
+                   error == null &&
+                   value == null;
+        }
+
+        synchronized ClassFile getNow() {
+            return value instanceof NodeReference ?
+                ((NodeReference) value).get() :
+                (ClassFile) value;
+        }
+    }
+
+    /* The soft reference of a class remembering the node holding it.
+     */
+    private static final class NodeReference extends SoftReference<ClassFile> {
+        private final Node node;
+
+        NodeReference(ClassFile value, ReferenceQueue<ClassFile> queue, Node node) {
+            super(value, queue);
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import com.nur1popcorn.basm.classfile.tree.ClassFile;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The {@link ClassFileLoader} loads all classes contained by jars and directories into {@link ClassFile}s.
+ * The entries are read and parsed in parallel on a {@link ForkJoinPool}, the result does however not
+ * depend on the order in which the entries are processed: Classes are indexed in the order of the roots
+ * and entries provided, duplicates are resolved in favor of the first class and errors are reported
+ * sorted by the entries' paths.
+ *
+ * @see ClassFile
+ * @see LoadException
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ClassFileLoader {
+    /* The number of entries below which a task is not split any further.
+     */
+    private static final int THRESHOLD = 8;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new {@link ClassFileLoader} using the {@link ForkJoinPool#commonPool()}.
+     */
+    public ClassFileLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool The {@link ForkJoinPool} on which the entries are read and parsed.
+     */
+    public ClassFileLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * A class file entry inside of a jar or a directory.
+     */
+    interface IEntry {
+        /**
+         * @return The path of the entry which is used to report errors.
+         */
+        String getPath();
+
+        /**
+         * @throws IOException If an error occurs during the process of reading the entry.
+         * @return The entry's contents.
+         */
+        byte[] read() throws IOException;
+    }
+
+    /* Reads and parses a range of entries, splitting the range until it is smaller than the threshold.
+     */
+    private static final class LoadTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<IEntry> entries;
+        private final ClassFile classes[];
+        private final Exception errors[];
+        private final int from, to;
+
+        LoadTask(List<IEntry> entries, ClassFile classes[], Exception errors[], int from, int to) {
+            this.entries = entries;
+            this.classes = classes;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                    new LoadTask(entries, classes, errors, from, middle),
+                    new LoadTask(entries, classes, errors, middle, to)
+                );
+            } else
+                for(int i = from; i < to; i++)
+                    try {
+                        classes[i] = new ClassFile(entries.get(i).read());
+                    } catch(IOException | RuntimeException e) {
+                        errors[i] = e;
+                    }
+        }
+    }
+
+    /**
+     * Loads all classes contained by the given jars and directories.
+     *
+     * @param roots The jars and directories which should be loaded.
+     *
+     * @throws LoadException If any of the classes could not be read or parsed.
+     * @throws IOException If any of the roots could not be opened.
+     * @return An immutable map of all classes loaded, indexed by their internal names.
+     */
+    public Map<String, ClassFile> load(Path... roots) throws IOException {
+        final List<ZipFile> zips = new ArrayList<>();
+        try {
+            final List<IEntry> entries = new ArrayList<>();
+            for(Path root : roots)
+                if(Files.isDirectory(root))
+                    listDirectory(root, entries);
+                else {
+                    final ZipFile zip = new ZipFile(root.toFile());
+                    zips.add(zip);
+                    listZip(root, zip, entries);
+                }
+
+            final ClassFile classes[] = new ClassFile[entries.size()];
+            final Exception errors[] = new Exception[entries.size()];
+            pool.invoke(new LoadTask(entries, classes, errors, 0, entries.size()));
+
+            final Map<String, ClassFile> result = new LinkedHashMap<>();
+            final SortedMap<String, Exception> failures = new TreeMap<>();
+            for(int i = 0; i < classes.length; i++)
+                if(errors[i] != null)
+                    failures.put(entries.get(i).getPath(), errors[i]);
+                else
+                    result.putIfAbsent(classes[i].getThisClass(), classes[i]);
+            if(!failures.isEmpty())
+                throw new LoadException(Collections.unmodifiableMap(result), failures);
+            return Collections.unmodifiableMap(result);
+        } finally {
+            for(ZipFile zip : zips)
+                zip.close();
+        }
+    }
+
+    static void listDirectory(Path root, List<IEntry> entries) throws IOException {
+        final List<Path> paths;
+        try(Stream<Path> stream = Files.walk(root)) {
+            paths = stream.filter(path -> path.toString().endsWith(".class") && Files.isRegularFile(path))
+                          .sorted()
+                          .collect(Collectors.toList());
+        }
+        for(Path path : paths)
+            entries.add(new IEntry() {
+                @Override
+                public String getPath() {
+                    return path.toString();
+                }
+
+                @Override
+                public byte[] read() throws IOException {
+                    return Files.readAllBytes(path);
+                }
+            });
+    }
+
+    static void listZip(Path root, ZipFile zip, List<IEntry> entries) {
+        final Enumeration<? extends ZipEntry> enumeration = zip.entries();
+        while(enumeration.hasMoreElements()) {
+            final ZipEntry entry = enumeration.nextElement();
+            if(entry.isDirectory() || !entry.getName().endsWith(".class"))
+                continue;
+            entries.add(new IEntry() {
+                @Override
+                public String getPath() {
+                    return root + "!/" + entry.getName();
+                }
+
+                @Override
+                public byte[] read() throws IOException {
+                    final long size = entry.getSize();
+                    try(InputStream in = zip.getInputStream(entry)) {
+                        if(size < 0 || size > Integer.MAX_VALUE - 8)
+                            return readAll(in);
+                        final byte clazz[] = new byte[(int) size];
+                        new DataInputStream(in)
+                            .readFully(clazz);
+                        return clazz;
+                    }
+                }
+            });
+        }
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        byte buffer[] = new byte[0x2000];
+        int length = 0;
+        for(int read; (read = in.read(buffer, length, buffer.length - length)) != -1;)
+            if((length += read) == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * The {@link LoadException} is thrown if any of the classes could not be loaded. It contains the
+     * classes which were loaded successfully and the errors sorted by the entries' paths.
+     */
+    public static final class LoadException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, ClassFile> classes;
+        private final SortedMap<String, Exception> errors;
+
+        LoadException(Map<String, ClassFile> classes, SortedMap<String, Exception> errors) {
+            super(errors.size() + " entries could not be loaded, first: " + errors.firstKey(),
+                  errors.get(errors.firstKey()));
+            this.classes = classes;
+            this.errors = Collections.unmodifiableSortedMap(errors);
+        }
+
+        /**
+         * @return An immutable map of the classes which were loaded successfully, indexed by their
+         *         internal names.
+         */
+        public Map<String, ClassFile> getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return An immutable map of the errors which occurred, sorted by the entries' paths.
+         */
+        public SortedMap<String, Exception> getErrors() {
+            return errors;
+        }
+    }
+}
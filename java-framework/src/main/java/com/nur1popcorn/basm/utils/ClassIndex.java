@@ -0,0 +1,682 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.nur1popcorn.basm.Constants.CONSTANT_CLASS;
+import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_BODY;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_FIELDS;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HEAD;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_METHODS;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * The {@link ClassIndex} is a persistent index of all classes contained by a set of archives. Each class
+ * is mapped to the archive containing it together with its super class, its interfaces and the descriptors
+ * of its members. The index is stored in a single file which is memory-mapped, a lookup is a single probe
+ * into an open addressing hash table and does not touch any of the archives.
+ *
+ * <p>Each archive is validated using its size and modification time. If either of them changed the hash
+ * of the archive's contents is compared, so that only the archives which were actually modified are
+ * scanned again. The file is rewritten whenever anything changed.</p>
+ *
+ * <p>The records of every archive are stored, including the ones of classes shadowed by a previous archive,
+ * only the records resolved to are part of the hash table. Classes are therefore resolved again whenever
+ * archives are added, removed or reordered without scanning any of the archives which did not change.</p>
+ *
+ * <pre>
+ * index {
+ *     u4 magic;
+ *     u4 version;
+ *     u4 container_count;
+ *     container containers[container_count] {
+ *         utf path;
+ *         u8 size;
+ *         u8 modified;
+ *         u8 hash;
+ *         u4 records_offset;
+ *         u4 records_length;
+ *     }
+ *     u4 capacity;
+ *     slot slots[capacity] {
+ *         u4 hash;
+ *         u4 offset;
+ *     }
+ *     record records[] { // grouped by container
+ *         u4 container;
+ *         utf name;
+ *         utf super_name;
+ *         u2 interface_count;
+ *         utf interfaces[interface_count];
+ *         u2 field_count;
+ *         member fields[field_count];
+ *         u2 method_count;
+ *         member methods[method_count];
+ *     }
+ * }
+ * </pre>
+ *
+ * @see ClassPool
+ * @see Entry
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ClassIndex {
+    private static final int MAGIC = 0x42494458 /* BIDX */,
+                             VERSION = 2;
+
+    /* The size of a single slot of the hash table.
+     */
+    private static final int SLOT_SIZE = 8;
+
+    /* The memory-mapped index, only absolute reads are performed on it which makes lookups thread-safe.
+     */
+    private final ByteBufferDataInput in;
+
+    private final Container containers[];
+
+    /* The offset of the hash table and the number of slots it contains.
+     */
+    private final int table,
+                      capacity;
+
+    /**
+     * @param in The contents of an index file.
+     *
+     * @throws IOException If the index file is malformed.
+     */
+    private ClassIndex(ByteBufferDataInput in) throws IOException {
+        this.in = in;
+        if(in.readInt() != MAGIC || in.readInt() != VERSION)
+            throw new IOException("The index file provided has an invalid header.");
+        containers = new Container[in.readInt()];
+        for(int i = 0; i < containers.length; i++) {
+            containers[i] = new Container(
+                Paths.get(in.readUTF()),
+                in.readLong(),
+                in.readLong(),
+                in.readLong()
+            );
+            containers[i].offset = in.readInt();
+            containers[i].length = in.readInt();
+            if(containers[i].offset < 0 || containers[i].length < 0 ||
+               (long) containers[i].offset + containers[i].length > in.size())
+                throw new IOException("The index file provided has an invalid container: " + containers[i].path);
+        }
+        capacity = in.readInt();
+        if(Integer.bitCount(capacity) != 1 ||
+           (long) capacity * SLOT_SIZE > in.remaining())
+            throw new IOException("The index file provided has an invalid capacity: " + capacity);
+        table = in.position();
+    }
+
+    /**
+     * Opens the index stored in the given file, validating it against the given archives. Archives which
+     * changed or which were not indexed yet are scanned and the file is rewritten, if the file does not
+     * exist or is malformed a new index is created.
+     *
+     * @param file The path of the index file.
+     * @param archives The archives which should be indexed. Classes contained by multiple archives are
+     *                 resolved in favor of the first archive provided.
+     *
+     * @throws IOException If an error occurs during the process of reading an archive or writing the index.
+     * @return The {@link ClassIndex} of the given archives.
+     */
+    public static ClassIndex open(Path file, Collection<Path> archives) throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        for(Path archive : new LinkedHashSet<>(archives))
+            paths.add(archive.toAbsolutePath().normalize());
+
+        ClassIndex index = null;
+        if(Files.isRegularFile(file))
+            try {
+                index = map(file);
+            } catch(IOException | RuntimeException ignored) {
+                // the index is malformed and is therefore rebuilt.
+            }
+
+        boolean dirty = index == null || index.containers.length != paths.size();
+        final Map<Path, Container> valid = new LinkedHashMap<>();
+        if(index != null)
+            for(int i = 0; i < index.containers.length; i++) {
+                final Container container = index.containers[i];
+                final Path path = container.path;
+                if(!paths.contains(path) || !Files.isRegularFile(path)) {
+                    dirty = true;
+                    continue;
+                }
+                dirty |= i >= paths.size() || !paths.get(i).equals(path);
+                final long size = Files.size(path),
+                           modified = Files.getLastModifiedTime(path).toMillis();
+                if(container.size == size && container.modified == modified)
+                    valid.put(path, container);
+                else {
+                    dirty = true;
+                    final long hash = hash(path);
+                    if(container.hash == hash)
+                        valid.put(path, new Container(path, size, modified, hash));
+                }
+            }
+        if(!dirty)
+            return index;
+
+        final Container result[] = new Container[paths.size()];
+        final List<List<Entry>> entries = new ArrayList<>(paths.size());
+        for(int i = 0; i < result.length; i++) {
+            final Path path = paths.get(i);
+            final Container container = valid.get(path);
+            if(container != null) {
+                result[i] = container;
+                entries.add(index.entries(index.find(path)));
+            } else {
+                result[i] = new Container(
+                    path,
+                    Files.size(path),
+                    Files.getLastModifiedTime(path).toMillis(),
+                    hash(path)
+                );
+                entries.add(scan(path));
+            }
+        }
+        write(file, result, entries);
+        return map(file);
+    }
+
+    /**
+     * @param file The path of the index file.
+     *
+     * @throws IOException If an error occurs during the process of mapping the file or if it is malformed.
+     * @return The {@link ClassIndex} stored in the given file.
+     */
+    private static ClassIndex map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file)) {
+            return new ClassIndex(new ByteBufferDataInput(
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        }
+    }
+
+    /**
+     * @param name The internal name of the class which should be found, e.g. "java/lang/Object".
+     *
+     * @return The {@link Entry} of the class or null if none of the archives contains it.
+     */
+    public Entry find(String name) {
+        final int hash = name.hashCode();
+        try {
+            for(int slot = hash & (capacity - 1);; slot = (slot + 1) & (capacity - 1)) {
+                final int position = table + slot * SLOT_SIZE;
+                final int offset = in.readInt(position + 4);
+                if(offset == 0)
+                    return null;
+                if(in.readInt(position) == hash) {
+                    final ByteBufferDataInput record = in.slice(offset, in.size() - offset);
+                    final int container = record.readInt();
+                    if(name.equals(record.readUTF()))
+                        return readEntry(record, containers[container].path, name);
+                }
+            }
+        } catch(IOException e) {
+            throw new IllegalStateException("The index file is malformed.", e);
+        }
+    }
+
+    /**
+     * @return The paths of the archives indexed.
+     */
+    public List<Path> getArchives() {
+        final List<Path> archives = new ArrayList<>(containers.length);
+        for(Container container : containers)
+            archives.add(container.path);
+        return Collections.unmodifiableList(archives);
+    }
+
+    /**
+     * @param path The path of an indexed archive.
+     * @return The indexed archive's {@link Container}.
+     */
+    private Container find(Path path) {
+        for(Container container : containers)
+            if(container.path.equals(path))
+                return container;
+        throw new IllegalArgumentException("The archive is not indexed: " + path);
+    }
+
+    /**
+     * @param container The archive whose entries should be read.
+     *
+     * @throws IOException If the index file is malformed.
+     * @return All entries of the given archive, including the ones shadowed by a previous archive.
+     */
+    private List<Entry> entries(Container container) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        final ByteBufferDataInput records = in.slice(container.offset, container.length);
+        while(records.remaining() > 0) {
+            records.readInt();
+            entries.add(readEntry(records, container.path, records.readUTF()));
+        }
+        return entries;
+    }
+
+    private static Entry readEntry(ByteBufferDataInput record, Path container, String name) throws IOException {
+        final String superName = record.readUTF();
+        final String interfaces[] = new String[record.readUnsignedShort()];
+        for(int i = 0; i < interfaces.length; i++)
+            interfaces[i] = record.readUTF();
+        final Member fields[] = readMembers(record);
+        final Member methods[] = readMembers(record);
+        return new Entry(
+            name,
+            container,
+            superName.isEmpty() ? null : superName,
+            interfaces,
+            fields,
+            methods
+        );
+    }
+
+    private static Member[] readMembers(ByteBufferDataInput record) throws IOException {
+        final Member members[] = new Member[record.readUnsignedShort()];
+        for(int i = 0; i < members.length; i++)
+            members[i] = new Member(
+                record.readUnsignedShort(),
+                record.readUTF(),
+                record.readUTF()
+            );
+        return members;
+    }
+
+    /**
+     * @param file The path of the index file.
+     * @param containers The archives indexed.
+     * @param entries The entries of every archive, classes are resolved in favor of the first archive.
+     *
+     * @throws IOException If an error occurs during the process of writing the index.
+     */
+    private static void write(Path file, Container containers[], List<List<Entry>> entries) throws IOException {
+        // the records of all archives are written, only the first record of every class is resolved to.
+        final Map<String, Integer> resolved = new LinkedHashMap<>();
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        final DataOutputStream recordsOut = new DataOutputStream(records);
+        final int ranges[] = new int[containers.length * 2];
+        for(int i = 0; i < containers.length; i++) {
+            ranges[i * 2] = records.size();
+            for(Entry entry : entries.get(i)) {
+                resolved.putIfAbsent(entry.name, records.size());
+                writeRecord(recordsOut, i, entry);
+            }
+            ranges[i * 2 + 1] = records.size() - ranges[i * 2];
+        }
+
+        int capacity = 2;
+        while(capacity < resolved.size() * 2)
+            capacity <<= 1;
+        // the size of the header does not depend on the offsets of the records.
+        final int base = writeHeader(new ByteArrayOutputStream(), containers, ranges, 0, capacity) +
+                         capacity * SLOT_SIZE;
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final DataOutputStream headerOut = new DataOutputStream(header);
+        writeHeader(header, containers, ranges, base, capacity);
+
+        final int slots[] = new int[capacity * 2];
+        for(Map.Entry<String, Integer> entry : resolved.entrySet()) {
+            final int hash = entry.getKey().hashCode();
+            int slot = hash & (capacity - 1);
+            while(slots[slot * 2 + 1] != 0)
+                slot = (slot + 1) & (capacity - 1);
+            slots[slot * 2] = hash;
+            slots[slot * 2 + 1] = base + entry.getValue();
+        }
+        for(int slot : slots)
+            headerOut.writeInt(slot);
+
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try(OutputStream out = Files.newOutputStream(temp)) {
+                header.writeTo(out);
+                records.writeTo(out);
+            }
+            try {
+                Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return The number of bytes written, which does not include the hash table following the header.
+     */
+    private static int writeHeader(ByteArrayOutputStream header, Container containers[], int ranges[], int base, int capacity) throws IOException {
+        final DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(MAGIC);
+        headerOut.writeInt(VERSION);
+        headerOut.writeInt(containers.length);
+        for(int i = 0; i < containers.length; i++) {
+            final Container container = containers[i];
+            headerOut.writeUTF(container.path.toString());
+            headerOut.writeLong(container.size);
+            headerOut.writeLong(container.modified);
+            headerOut.writeLong(container.hash);
+            headerOut.writeInt(base + ranges[i * 2]);
+            headerOut.writeInt(ranges[i * 2 + 1]);
+        }
+        headerOut.writeInt(capacity);
+        return header.size();
+    }
+
+    private static void writeRecord(DataOutputStream recordsOut, int container, Entry entry) throws IOException {
+        recordsOut.writeInt(container);
+        recordsOut.writeUTF(entry.name);
+        recordsOut.writeUTF(entry.superName == null ? "" : entry.superName);
+        recordsOut.writeShort(entry.interfaces.length);
+        for(String name : entry.interfaces)
+            recordsOut.writeUTF(name);
+        for(Member members[] : new Member[][] { entry.fields, entry.methods }) {
+            recordsOut.writeShort(members.length);
+            for(Member member : members) {
+                recordsOut.writeShort(member.access);
+                recordsOut.writeUTF(member.name);
+                recordsOut.writeUTF(member.desc);
+            }
+        }
+    }
+
+    /**
+     * @param archive The path of the archive whose contents should be hashed.
+     *
+     * @throws IOException If an error occurs during the process of reading the archive.
+     * @return The CRC32 of the archive's contents.
+     */
+    private static long hash(Path archive) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte buffer[] = new byte[0x10000];
+        try(InputStream in = Files.newInputStream(archive)) {
+            for(int read; (read = in.read(buffer)) != -1;)
+                crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Reads the hierarchy and members of all classes contained by the given archive. Classes which can not
+     * be parsed are not indexed.
+     *
+     * @param archive The path of the archive which should be scanned.
+     *
+     * @throws IOException If an error occurs during the process of reading the archive.
+     * @return The entries of all classes contained by the archive.
+     */
+    private static List<Entry> scan(Path archive) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try(ZipFile zip = new ZipFile(archive.toFile())) {
+            final Enumeration<? extends ZipEntry> enumeration = zip.entries();
+            while(enumeration.hasMoreElements()) {
+                final ZipEntry zipEntry = enumeration.nextElement();
+                final String entryName = zipEntry.getName();
+                if(zipEntry.isDirectory() ||
+                   !entryName.endsWith(".class") ||
+                   entryName.startsWith("META-INF/"))
+                    continue;
+                final byte clazz[];
+                try(InputStream in = zip.getInputStream(zipEntry)) {
+                    clazz = ClassFileLoader.readAll(in);
+                }
+                final String name = entryName.substring(0, entryName.length() - ".class".length());
+                final EntryVisitor visitor = new EntryVisitor();
+                try {
+                    new ClassReader(clazz)
+                        .accept(visitor, READ_HEAD | READ_BODY | READ_FIELDS | READ_METHODS | LAZY_POOL);
+                } catch(IOException | RuntimeException e) {
+                    continue;
+                }
+                entries.add(new Entry(
+                    name,
+                    archive,
+                    visitor.superName,
+                    visitor.interfaces,
+                    visitor.fields,
+                    visitor.methods
+                ));
+            }
+        }
+        return entries;
+    }
+
+    /* Collects the hierarchy and the members of a class.
+     */
+    private static final class EntryVisitor implements IClassVisitor {
+        private ConstantPool constantPool;
+        private String superName;
+        private String interfaces[];
+        private Member fields[] = new Member[0],
+                       methods[] = new Member[0];
+
+        @Override
+        public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+            this.constantPool = constantPool;
+        }
+
+        @Override
+        public void visitBody(int access, int thisClass, int superClass, int interfaces[]) {
+            superName = superClass == 0 ?
+                null : className(superClass);
+            this.interfaces = new String[interfaces.length];
+            for(int i = 0; i < interfaces.length; i++)
+                this.interfaces[i] = className(interfaces[i]);
+        }
+
+        @Override
+        public void visitFields(FieldMethodInfo fields[]) {
+            this.fields = members(fields);
+        }
+
+        @Override
+        public void visitMethods(FieldMethodInfo methods[]) {
+            this.methods = members(methods);
+        }
+
+        private String className(int index) {
+            final ConstantName name = constantPool.getEntry(index, CONSTANT_CLASS);
+            return name.indexName(constantPool)
+                .getBytes();
+        }
+
+        private Member[] members(FieldMethodInfo infos[]) {
+            final Member members[] = new Member[infos.length];
+            for(int i = 0; i < infos.length; i++) {
+                final ConstantUTF8 desc = constantPool.getEntry(infos[i].getDescIndex(), CONSTANT_UTF8);
+                members[i] = new Member(
+                    infos[i].getAccessFlags(),
+                    infos[i].getName(),
+                    desc.getBytes()
+                );
+            }
+            return members;
+        }
+    }
+
+    /* An indexed archive and the attributes used to validate it.
+     */
+    private static final class Container {
+        private final Path path;
+        private final long size,
+                           modified,
+                           hash;
+
+        /* The range of the archive's records, only known once the index has been written.
+         */
+        private int offset,
+                    length;
+
+        Container(Path path, long size, long modified, long hash) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The {@link Entry} describes an indexed class.
+     */
+    public static final class Entry {
+        private final String name;
+        private final Path container;
+        private final String superName;
+        private final String interfaces[];
+        private final Member fields[],
+                             methods[];
+
+        Entry(String name, Path container, String superName, String interfaces[], Member fields[], Member methods[]) {
+            this.name = name;
+            this.container = container;
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.fields = fields;
+            this.methods = methods;
+        }
+
+        /**
+         * @return The class' internal name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The path of the archive containing the class.
+         */
+        public Path getContainer() {
+            return container;
+        }
+
+        /**
+         * @return The name of the archive's entry containing the class.
+         */
+        public String getEntryName() {
+            return name + ".class";
+        }
+
+        /**
+         * @return The internal name of the class' super class or null if there is none.
+         */
+        public String getSuperName() {
+            return superName;
+        }
+
+        /**
+         * @return The internal names of the class' interfaces.
+         */
+        public List<String> getInterfaces() {
+            return Collections.unmodifiableList(Arrays.asList(interfaces));
+        }
+
+        /**
+         * @return The class' fields.
+         */
+        public List<Member> getFields() {
+            return Collections.unmodifiableList(Arrays.asList(fields));
+        }
+
+        /**
+         * @return The class' methods.
+         */
+        public List<Member> getMethods() {
+            return Collections.unmodifiableList(Arrays.asList(methods));
+        }
+    }
+
+    /**
+     * The {@link Member} describes a field or a method of an indexed class.
+     */
+    public static final class Member {
+        private final int access;
+        private final String name,
+                             desc;
+
+        Member(int access, String name, String desc) {
+            this.access = access;
+            this.name = name;
+            this.desc = desc;
+        }
+
+        /**
+         * @return The member's access flags.
+         */
+        public int getAccess() {
+            return access;
+        }
+
+        /**
+         * @return The member's name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The member's descriptor.
+         */
+        public String getDesc() {
+            return desc;
+        }
+
+        @Override
+        public String toString() {
+            return name + desc;
+        }
+    }
+}
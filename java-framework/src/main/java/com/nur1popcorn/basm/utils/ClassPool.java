@@ -1,28 +1,84 @@
 package com.nur1popcorn.basm.utils;
 
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.attributes.method.stackmap.ISuperClassResolver;
 import com.nur1popcorn.basm.classfile.tree.ClassFile;
 
 import java.io.*;
-import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
 
-public final class ClassPool {
-    private final Set<String> paths = new HashSet<>();
-    private final Map<String, ClassFile> cache = new HashMap<>();
+import static com.nur1popcorn.basm.classfile.AccessFlags.ACC_INTERFACE;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HIERARCHY;
+
+public final class ClassPool implements Closeable, ISuperClassResolver {
+    private final Set<File> directories = new LinkedHashSet<>();
+
+    /* The archives added to the pool, each of them is opened once when it is first needed and is kept open
+     * until the pool is closed.
+     */
+    private final Map<File, ZipFile> archives = new LinkedHashMap<>();
+
+    /* Maps the name of every entry to the first archive containing it, built from the archives' central
+     * directories when the first class is looked up.
+     */
+    private Map<String, File> entries;
+
+    private final ClassCache cache;
+
+    /* Maps the internal names of the classes whose hierarchy was resolved to their super class and whether
+     * they are interfaces, only the header of the classes is read.
+     */
+    private final Map<String, Hierarchy> hierarchies = new ConcurrentHashMap<>();
+
+    /* The file in which the index of the archives is stored or null if the central directories should be
+     * used instead.
+     */
+    private Path indexFile;
+    private ClassIndex index;
+
+    /* The image providing the platform classes or null if they are contained by the archives.
+     */
+    private BootImage bootImage;
 
     public ClassPool() {
-        addPaths(
-            System.getProperty("sun.boot.class.path")
-                .split(File.pathSeparator));
+        this(ClassCache.unbounded());
+    }
+
+    /**
+     * @param cache The cache in which the classes found are stored, it may be shared by multiple pools.
+     */
+    public ClassPool(ClassCache cache) {
+        this.cache = cache;
+        // the boot class path and the extension directories no longer exist on Java 9+, the platform classes
+        // are provided by the runtime image instead.
+        final String bootClassPath = System.getProperty("sun.boot.class.path");
+        if(bootClassPath != null)
+            addPaths(bootClassPath.split(File.pathSeparator));
+        else
+            try {
+                bootImage = BootImage.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open the runtime image.", e);
+            }
         addPaths(
             System.getProperty("java.class.path")
                 .split(File.pathSeparator));
-        addChildren(
-            System.getProperty("java.ext.dirs")
-                .split(File.pathSeparator));
+        final String extDirs = System.getProperty("java.ext.dirs");
+        if(extDirs != null)
+            addChildren(extDirs.split(File.pathSeparator));
     }
 
     public void addChildren(String... paths) {
@@ -40,29 +96,297 @@ public final class ClassPool {
             addFiles(new File(path));
     }
 
-    public void addFiles(File... files) {
+    /**
+     * Adds the given archives and directories to the pool. Adding a new one may shadow classes found before,
+     * which is why the classes and hierarchies resolved so far are dropped in that case.
+     *
+     * @param files The archives and directories which should be added.
+     *
+     * @see #invalidate()
+     */
+    public synchronized void addFiles(File... files) {
         for(File file : files)
             if(file.exists()) {
-                final String uri = file.toURI().toString();
-                if(file.isFile() && ensureZip(file))
-                    paths.add("jar:" + uri + "!/");
-                else if(file.isDirectory())
-                    paths.add(uri);
+                // the paths are normalized the same way as the containers of the index.
+                final File absolute = file.toPath()
+                    .toAbsolutePath()
+                    .normalize()
+                    .toFile();
+                if(file.isFile() && ensureZip(file)) {
+                    if(!archives.containsKey(absolute)) {
+                        archives.put(absolute, null);
+                        entries = null;
+                        index = null;
+                        invalidate();
+                    }
+                } else if(file.isDirectory() && directories.add(absolute))
+                    invalidate();
             }
     }
 
+    /**
+     * Drops the classes and hierarchies resolved so far since they may no longer be the ones found. The
+     * {@link ClassCache} is cleared as a whole, including the classes of other pools sharing it.
+     */
+    private void invalidate() {
+        hierarchies.clear();
+        cache.clear();
+    }
+
+    /**
+     * Replaces the image providing the platform classes, which allows classes to be resolved against a
+     * different Java runtime than the one running. The previous image is not closed, the classes and
+     * hierarchies resolved so far are dropped.
+     *
+     * @param bootImage The image providing the platform classes or null if they are contained by the
+     *                  archives.
+     *
+     * @see #invalidate()
+     */
+    public synchronized void setBootImage(BootImage bootImage) {
+        this.bootImage = bootImage;
+        invalidate();
+    }
+
+    /**
+     * @return The image providing the platform classes or null if they are contained by the archives.
+     */
+    public synchronized BootImage getBootImage() {
+        return bootImage;
+    }
+
+    /**
+     * Enables the persistent {@link ClassIndex} of the archives added to the pool. The archive containing
+     * a class is looked up in the index which is stored in the given file and only rebuilt for archives
+     * which changed, the central directories of the other archives are never read.
+     *
+     * @param indexFile The file in which the index should be stored or null if it should not be used.
+     */
+    public synchronized void setIndexFile(Path indexFile) {
+        this.indexFile = indexFile;
+        index = null;
+    }
+
+    /**
+     * @throws IOException If an error occurs during the process of opening or building the index.
+     * @return The {@link ClassIndex} of the archives added to the pool or null if no index file was set.
+     */
+    public synchronized ClassIndex getIndex() throws IOException {
+        if(indexFile == null)
+            return null;
+        if(index == null) {
+            final List<Path> paths = new ArrayList<>(archives.size());
+            for(File archive : archives.keySet())
+                paths.add(archive.toPath());
+            index = ClassIndex.open(indexFile, paths);
+        }
+        return index;
+    }
+
+    /**
+     * @return The cache in which the classes found are stored.
+     */
+    public ClassCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Finds the class with the given name, concurrent calls for the same class only read and parse it once.
+     *
+     * @param name The name of the class which should be found.
+     *
+     * @throws IllegalArgumentException If the class could not be found or read.
+     * @return The class with the given name.
+     */
     public ClassFile find(String name) {
-        final String fileName = name.replace('.', '/') + ".class";
-        return cache.computeIfAbsent(fileName, n -> {
-            for(String path : paths)
-                try {
-                    return new ClassFile(new URL(path + fileName).openStream());
-                } catch (IOException ignored) { }
+        final String className = name.replace('.', '/');
+        final String fileName = className + ".class";
+        return cache.get(className, n -> {
+            // the archives are only locked while the class is being located.
+            try(InputStream in = open(className, fileName)) {
+                if(in != null)
+                    return new ClassFile(ClassFileLoader.readAll(in));
+            } catch (IOException e) {
+                throw new IllegalArgumentException(
+                    "Could not read fileName=" + fileName + ".", e);
+            }
             throw new IllegalArgumentException(
                 "Could not find fileName=" + fileName + ".");
         });
     }
 
+    /**
+     * Resolves the common super class of two classes by walking their super classes, only the headers of
+     * the classes are read and the names resolved are cached by the pool.
+     *
+     * @throws IllegalArgumentException If any of the classes could not be found or read.
+     */
+    @Override
+    public String getCommonSuperClass(String first, String second) {
+        final Hierarchy firstHierarchy = getHierarchy(first),
+                        secondHierarchy = getHierarchy(second);
+        if(firstHierarchy.isInterface || secondHierarchy.isInterface)
+            return "java/lang/Object";
+        final Set<String> superClasses = new HashSet<>();
+        for(String className = first.replace('.', '/'); className != null; ) {
+            superClasses.add(className);
+            className = getHierarchy(className).superClass;
+        }
+        for(String className = second.replace('.', '/'); className != null; ) {
+            if(superClasses.contains(className))
+                return className;
+            className = getHierarchy(className).superClass;
+        }
+        return "java/lang/Object";
+    }
+
+    /**
+     * @param name The name of the class whose hierarchy should be resolved.
+     *
+     * @throws IllegalArgumentException If the class could not be found or read.
+     * @return The super class of the class and whether it is an interface.
+     */
+    private Hierarchy getHierarchy(String name) {
+        final String className = name.replace('.', '/');
+        Hierarchy hierarchy = hierarchies.get(className);
+        if(hierarchy != null)
+            return hierarchy;
+        final String fileName = className + ".class";
+        try(InputStream in = open(className, fileName)) {
+            if(in == null)
+                throw new IllegalArgumentException(
+                    "Could not find fileName=" + fileName + ".");
+            final Hierarchy scanned[] = new Hierarchy[1];
+            new ClassReader(ClassFileLoader.readAll(in))
+                .accept(new IClassVisitor() {
+                    @Override
+                    public void visitHierarchy(int access, String thisClass, String superClass, String interfaces[]) {
+                        scanned[0] = new Hierarchy(superClass, (access & ACC_INTERFACE) != 0);
+                    }
+                }, READ_HIERARCHY);
+            hierarchy = hierarchies.putIfAbsent(className, scanned[0]);
+            return hierarchy == null ?
+                scanned[0] : hierarchy;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(
+                "Could not read fileName=" + fileName + ".", e);
+        }
+    }
+
+    /**
+     * @param className The internal name of the class which should be opened.
+     * @param fileName The name of the entry containing the class.
+     *
+     * @throws IOException If an error occurs during the process of opening the entry.
+     * @return An {@link InputStream} of the class' contents or null if the class could not be found.
+     */
+    private synchronized InputStream open(String className, String fileName) throws IOException {
+        // the platform classes are found first, just like the boot class loader would.
+        if(bootImage != null) {
+            final InputStream in = bootImage.open(className);
+            if(in != null)
+                return in;
+        }
+
+        for(File directory : directories) {
+            final File file = new File(directory, fileName);
+            if(file.isFile())
+                return new FileInputStream(file);
+        }
+
+        final File archive;
+        final ClassIndex index = getIndex();
+        if(index != null) {
+            final ClassIndex.Entry entry = index.find(className);
+            archive = entry == null ?
+                null : entry.getContainer().toFile();
+        } else
+            archive = getEntries().get(fileName);
+        if(archive == null)
+            return null;
+        final ZipFile zip = getZip(archive);
+        final ZipEntry entry = zip.getEntry(fileName);
+        return entry == null ?
+            null : zip.getInputStream(entry);
+    }
+
+    /**
+     * @throws IOException If an error occurs during the process of reading a central directory.
+     * @return A map of the names of all entries to the first archive containing them.
+     */
+    private Map<String, File> getEntries() throws IOException {
+        if(entries == null) {
+            final Map<String, File> entries = new HashMap<>();
+            for(File archive : archives.keySet()) {
+                final Enumeration<? extends ZipEntry> enumeration = getZip(archive).entries();
+                while(enumeration.hasMoreElements()) {
+                    final ZipEntry entry = enumeration.nextElement();
+                    if(!entry.isDirectory())
+                        entries.putIfAbsent(entry.getName(), archive);
+                }
+            }
+            this.entries = entries;
+        }
+        return entries;
+    }
+
+    /**
+     * @param archive The archive which should be opened.
+     *
+     * @throws IOException If an error occurs during the process of opening the archive.
+     * @return The {@link ZipFile} of the archive, which is only opened once.
+     */
+    private ZipFile getZip(File archive) throws IOException {
+        ZipFile zip = archives.get(archive);
+        if(zip == null)
+            archives.put(archive, zip = new ZipFile(archive));
+        return zip;
+    }
+
+    /**
+     * Closes all archives opened by the pool and its {@link BootImage}.
+     *
+     * @throws IOException If an error occurs during the process of closing an archive.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        IOException exception = null;
+        for(Map.Entry<File, ZipFile> entry : archives.entrySet())
+            if(entry.getValue() != null)
+                try {
+                    entry.getValue().close();
+                    entry.setValue(null);
+                } catch (IOException e) {
+                    if(exception == null)
+                        exception = e;
+                    else
+                        exception.addSuppressed(e);
+                }
+        if(bootImage != null)
+            try {
+                bootImage.close();
+            } catch (IOException e) {
+                if(exception == null)
+                    exception = e;
+                else
+                    exception.addSuppressed(e);
+            }
+        if(exception != null)
+            throw exception;
+    }
+
+    private static final class Hierarchy {
+        /* The internal name of the super class or null if the class has none.
+         */
+        private final String superClass;
+        private final boolean isInterface;
+
+        private Hierarchy(String superClass, boolean isInterface) {
+            this.superClass = superClass;
+            this.isInterface = isInterface;
+        }
+    }
+
     private static boolean ensureZip(File file) {
         try(DataInputStream in = new DataInputStream(new FileInputStream(file))) {
             return in.readInt() == 0x504b0304;
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The {@link FixedByteArrayOutputStream} writes to a pre-sized byte array which is never resized. Unlike the
+ * {@link java.io.ByteArrayOutputStream} it is not synchronized, bulk writes are a single
+ * {@link System#arraycopy(Object, int, Object, int, int)} and the array is handed out without being copied.
+ *
+ * @see ByteBufferDataInput
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class FixedByteArrayOutputStream extends OutputStream {
+    private final byte buffer[];
+
+    /* The index at which the next byte is written.
+     */
+    private int position;
+
+    /**
+     * @param size The exact number of bytes which are going to be written.
+     */
+    public FixedByteArrayOutputStream(int size) {
+        buffer = new byte[size];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException If the array is already full.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        if(position == buffer.length)
+            throw new IOException("The buffer is full: size=" + buffer.length);
+        buffer[position++] = (byte) b;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IOException If the bytes do not fit into the array.
+     */
+    @Override
+    public void write(byte b[], int off, int len) throws IOException {
+        if(len > buffer.length - position)
+            throw new IOException(
+                "The buffer is full: size=" + buffer.length +
+                ", position=" + position +
+                ", length=" + len);
+        System.arraycopy(b, off, buffer, position, len);
+        position += len;
+    }
+
+    /**
+     * @return The number of bytes written so far.
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * @throws IOException If fewer bytes than the array's size have been written.
+     * @return The array written to, it is not copied.
+     */
+    public byte[] toByteArray() throws IOException {
+        if(position != buffer.length)
+            throw new IOException(
+                "The buffer has not been filled: size=" + buffer.length +
+                ", position=" + position);
+        return buffer;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import java.io.UTFDataFormatException;
+
+/**
+ * The {@link ModifiedUTF8} encodes and decodes strings using the modified UTF-8 used by class files.
+ * <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html#jvms-4.4.7">
+ *     CONSTANT_Utf8 4.4.7
+ * </a>
+ * <p>Since almost all strings inside of class files are ASCII, the bytes are scanned 8 at a time for
+ *    characters which are not ASCII, pure ASCII strings are copied as Latin-1 without being decoded or
+ *    encoded character by character. Unlike {@link java.io.DataInputStream#readUTF()} and
+ *    {@link java.io.DataOutputStream#writeUTF(String)} no temporary buffers are allocated and the bytes are
+ *    read from and written to the caller's buffer.</p>
+ *
+ * @see com.nur1popcorn.basm.classfile.constants.ConstantUTF8
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ModifiedUTF8 {
+    private ModifiedUTF8() {}
+
+    /**
+     * @param raw The bytes which should be scanned.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes which should be scanned.
+     *
+     * @return The number of leading bytes which are ASCII characters.
+     */
+    private static int scanASCII(byte raw[], int offset, int length) {
+        final int end = offset + length;
+        int i = offset;
+        // a byte is negative iff its highest bit is set, hence the or of 8 bytes is negative iff any is.
+        for(; i + 8 <= end; i += 8)
+            if((raw[i] | raw[i + 1] | raw[i + 2] | raw[i + 3] |
+                raw[i + 4] | raw[i + 5] | raw[i + 6] | raw[i + 7]) < 0)
+                break;
+        while(i < end && raw[i] >= 0)
+            i++;
+        return i - offset;
+    }
+
+    /**
+     * @param raw The modified UTF-8 representation of a string excluding the length.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes which should be decoded.
+     *
+     * @throws UTFDataFormatException If the bytes provided are not valid modified UTF-8.
+     * @return The decoded string.
+     */
+    @SuppressWarnings("deprecation")
+    public static String decode(byte raw[], int offset, int length) throws UTFDataFormatException {
+        final int ascii = scanASCII(raw, offset, length);
+        if(ascii == length)
+            // the bytes are used as the characters' lower halves, which is a plain Latin-1 copy.
+            return new String(raw, 0 /* upper half */, offset, length);
+
+        final char chars[] = new char[length];
+        for(int i = 0; i < ascii; i++)
+            chars[i] = (char) raw[offset + i];
+        int count = ascii;
+        final int end = offset + length;
+        for(int i = offset + ascii; i < end; i++) {
+            final int b = raw[i] & 0xff;
+            if((b & 0x80) == 0 /* 0??? ???? */)
+                chars[count++] = (char) b;
+            else if((b & 0xe0) == 0xc0 /* 110? ???? */ && i + 1 < end &&
+                    (raw[i + 1] & 0xc0) == 0x80 /* 10?? ???? */)
+                chars[count++] = (char) ((b & 0x1f) << 6 |
+                                         raw[++i] & 0x3f);
+            else if((b & 0xf0) == 0xe0 /* 1110 ???? */ && i + 2 < end &&
+                    (raw[i + 1] & 0xc0) == 0x80 /* 10?? ???? */ &&
+                    (raw[i + 2] & 0xc0) == 0x80 /* 10?? ???? */)
+                chars[count++] = (char) ((b & 0xf) << 12 |
+                                         (raw[++i] & 0x3f) << 6 |
+                                         raw[++i] & 0x3f);
+            else
+                throw new UTFDataFormatException(
+                    "Malformed modified UTF-8 at: index=" + (i - offset));
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * @param raw The modified UTF-8 representation of a string excluding the length.
+     *
+     * @throws UTFDataFormatException If the bytes provided are not valid modified UTF-8.
+     * @return The decoded string.
+     */
+    public static String decode(byte raw[]) throws UTFDataFormatException {
+        return decode(raw, 0, raw.length);
+    }
+
+    /**
+     * @param string The string whose encoded length should be computed.
+     *
+     * @return The number of bytes the string's modified UTF-8 representation occupies excluding the length.
+     */
+    public static int length(String string) {
+        final int length = string.length();
+        int encoded = length;
+        for(int i = 0; i < length; i++) {
+            final char c = string.charAt(i);
+            // the null character is encoded using 2 bytes.
+            if(c == 0 || c > '\u007f')
+                encoded += c <= '\u07ff' ? 1 : 2;
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes the string into the caller's buffer, the buffer must be large enough to hold
+     * {@link #length(String)} bytes.
+     *
+     * @param string The string which should be encoded.
+     * @param raw The buffer to which the string's modified UTF-8 representation should be written.
+     * @param offset The offset at which the first byte should be written.
+     *
+     * @return The offset following the last byte written.
+     */
+    @SuppressWarnings("deprecation")
+    public static int encode(String string, byte raw[], int offset) {
+        final int length = string.length();
+        int i = 0;
+        while(i < length) {
+            final char c = string.charAt(i);
+            if(c == 0 || c > '\u007f')
+                break;
+            i++;
+        }
+        // the leading ASCII characters' lower halves are copied as they are.
+        string.getBytes(0, i, raw, offset);
+        offset += i;
+        for(; i < length; i++) {
+            final char c = string.charAt(i);
+            if(c != 0 && c <= '\u007f')
+                raw[offset++] = (byte) c;
+            else if(c <= '\u07ff') {
+                raw[offset++] = (byte) (0xc0 /* 110? ???? */ | c >> 6);
+                raw[offset++] = (byte) (0x80 /* 10?? ???? */ | c & 0x3f);
+            } else {
+                raw[offset++] = (byte) (0xe0 /* 1110 ???? */ | c >> 12);
+                raw[offset++] = (byte) (0x80 /* 10?? ???? */ | c >> 6 & 0x3f);
+                raw[offset++] = (byte) (0x80 /* 10?? ???? */ | c & 0x3f);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * @param string The string which should be encoded.
+     *
+     * @return The modified UTF-8 representation of the string excluding the length.
+     */
+    public static byte[] encode(String string) {
+        final byte raw[] = new byte[length(string)];
+        encode(string, raw, 0);
+        return raw;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.utils;
+
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.ReferenceMatcher;
+import com.nur1popcorn.basm.classfile.ReferenceMatcher.Pattern;
+import com.nur1popcorn.basm.utils.ClassFileLoader.IEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.ZipFile;
+
+/**
+ * The {@link ReferenceSearch} finds all classes contained by jars and directories which reference any of the
+ * patterns of a {@link ReferenceMatcher}. The entries are read and matched in parallel on a
+ * {@link ForkJoinPool}, only the constant pool of each class is walked. Classes which are malformed are
+ * ignored, entries which could not be read are collected and reported once all other entries were searched.
+ *
+ * @see ReferenceMatcher
+ * @see ClassFileLoader
+ * @see SearchException
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ReferenceSearch {
+    /* The number of entries below which a task is not split any further.
+     */
+    private static final int THRESHOLD = 16;
+
+    private final ReferenceMatcher matcher;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new {@link ReferenceSearch} using the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param matcher The patterns which should be searched for.
+     */
+    public ReferenceSearch(ReferenceMatcher matcher) {
+        this(matcher, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param matcher The patterns which should be searched for.
+     * @param pool The {@link ForkJoinPool} on which the entries are read and matched.
+     */
+    public ReferenceSearch(ReferenceMatcher matcher, ForkJoinPool pool) {
+        this.matcher = matcher;
+        this.pool = pool;
+    }
+
+    /* Reads and matches a range of entries, splitting the range until it is smaller than the threshold.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<IEntry> entries;
+        private final List<?> results[];
+        private final IOException errors[];
+        private final int from, to;
+
+        SearchTask(List<IEntry> entries, List<?> results[], IOException errors[], int from, int to) {
+            this.entries = entries;
+            this.results = results;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(
+                    new SearchTask(entries, results, errors, from, middle),
+                    new SearchTask(entries, results, errors, middle, to)
+                );
+            } else
+                for(int i = from; i < to; i++) {
+                    final byte clazz[];
+                    try {
+                        clazz = entries.get(i).read();
+                    } catch(IOException e) {
+                        errors[i] = e;
+                        continue;
+                    }
+                    try {
+                        results[i] = matcher.match(clazz);
+                    } catch(IOException | MalformedClassFileException ignored) {
+                        // the class is already read, which is why it is malformed and can not reference anything.
+                    }
+                }
+        }
+    }
+
+    /**
+     * Searches all classes contained by the given jars and directories.
+     *
+     * @param roots The jars and directories which should be searched.
+     *
+     * @throws SearchException If any of the entries could not be read.
+     * @throws IOException If any of the roots could not be opened.
+     * @return The patterns matched by each class which matched any of them, indexed by the entries' paths.
+     */
+    @SuppressWarnings("unchecked")
+    public SortedMap<String, List<Pattern>> search(Path... roots) throws IOException {
+        final List<ZipFile> zips = new ArrayList<>();
+        try {
+            final List<IEntry> entries = new ArrayList<>();
+            for(Path root : roots)
+                if(Files.isDirectory(root))
+                    ClassFileLoader.listDirectory(root, entries);
+                else {
+                    final ZipFile zip = new ZipFile(root.toFile());
+                    zips.add(zip);
+                    ClassFileLoader.listZip(root, zip, entries);
+                }
+
+            final List<?> results[] = new List<?>[entries.size()];
+            final IOException errors[] = new IOException[entries.size()];
+            pool.invoke(new SearchTask(entries, results, errors, 0, entries.size()));
+
+            final SortedMap<String, List<Pattern>> matches = new TreeMap<>();
+            final SortedMap<String, IOException> failures = new TreeMap<>();
+            for(int i = 0; i < results.length; i++)
+                if(errors[i] != null)
+                    failures.put(entries.get(i).getPath(), errors[i]);
+                else if(results[i] != null && !results[i].isEmpty())
+                    matches.put(entries.get(i).getPath(), (List<Pattern>) results[i]);
+            if(!failures.isEmpty())
+                throw new SearchException(Collections.unmodifiableSortedMap(matches), failures);
+            return Collections.unmodifiableSortedMap(matches);
+        } finally {
+            for(ZipFile zip : zips)
+                zip.close();
+        }
+    }
+
+    /**
+     * The {@link SearchException} is thrown if any of the entries could not be read. It contains the matches
+     * of the entries which were searched successfully and the errors sorted by the entries' paths.
+     */
+    public static final class SearchException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final SortedMap<String, List<Pattern>> matches;
+        private final SortedMap<String, IOException> errors;
+
+        SearchException(SortedMap<String, List<Pattern>> matches, SortedMap<String, IOException> errors) {
+            super(errors.size() + " entries could not be read, first: " + errors.firstKey(),
+                  errors.get(errors.firstKey()));
+            this.matches = matches;
+            this.errors = Collections.unmodifiableSortedMap(errors);
+        }
+
+        /**
+         * @return An immutable map of the patterns matched by the classes which were searched successfully,
+         *         indexed by the entries' paths.
+         */
+        public SortedMap<String, List<Pattern>> getMatches() {
+            return matches;
+        }
+
+        /**
+         * @return An immutable map of the errors which occurred, sorted by the entries' paths.
+         */
+        public SortedMap<String, IOException> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.IFieldMethodVisitor;
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.AttributeRaw;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_FIELDS;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HEAD;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HIERARCHY;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_METHODS;
+import static com.nur1popcorn.basm.classfile.ClassReader.STREAM_MEMBERS;
+
+public final class TestClassReader extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/util/HashMap"
+    };
+
+    public static byte[] readClass(String name) throws IOException {
+        try(InputStream in = Object.class.getResourceAsStream("/" + name + ".class")) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte buffer[] = new byte[0x1000];
+            for(int read; (read = in.read(buffer)) != -1;)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+
+    private static final class RecordingVisitor implements IClassVisitor {
+        private ConstantPool constantPool;
+        private int thisClass;
+        private int interfaces[];
+        private final List<String> members = new ArrayList<>();
+        private final List<byte[]> code = new ArrayList<>();
+
+        @Override
+        public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+            this.constantPool = constantPool;
+        }
+
+        @Override
+        public void visitBody(int access, int thisClass, int superClass, int[] interfaces) {
+            this.thisClass = thisClass;
+            this.interfaces = interfaces;
+        }
+
+        @Override
+        public void visitFields(FieldMethodInfo[] fields) {
+            for(FieldMethodInfo field : fields)
+                members.add(field.getName());
+        }
+
+        @Override
+        public void visitMethods(FieldMethodInfo[] methods) {
+            for(FieldMethodInfo method : methods) {
+                members.add(method.getName());
+                final AttributeCode attributeCode = method.getCode();
+                if(attributeCode != null)
+                    code.add(attributeCode.getByteCode());
+            }
+        }
+    }
+
+    private static void assertSame(RecordingVisitor expected, RecordingVisitor actual) {
+        assertTrue(Arrays.equals(
+            expected.constantPool.getEntries(),
+            actual.constantPool.getEntries()));
+        assertEquals(expected.thisClass, actual.thisClass);
+        assertTrue(Arrays.equals(expected.interfaces, actual.interfaces));
+        assertEquals(expected.members, actual.members);
+        assertEquals(expected.code.size(), actual.code.size());
+        for(int i = 0; i < expected.code.size(); i++)
+            assertTrue(Arrays.equals(expected.code.get(i), actual.code.get(i)));
+    }
+
+    @Test
+    public void testBuffer() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            final RecordingVisitor expected = new RecordingVisitor();
+            new ClassReader(new ByteArrayInputStream(clazz))
+                .accept(expected, READ_ALL);
+            final RecordingVisitor actual = new RecordingVisitor();
+            new ClassReader(clazz)
+                .accept(actual, READ_ALL);
+            assertSame(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSlice() throws IOException {
+        final byte clazz[] = readClass("java/lang/String");
+        final byte padded[] = new byte[clazz.length + 7];
+        System.arraycopy(clazz, 0, padded, 3, clazz.length);
+
+        final RecordingVisitor expected = new RecordingVisitor();
+        new ClassReader(clazz)
+            .accept(expected, READ_ALL);
+        final RecordingVisitor actual = new RecordingVisitor();
+        new ClassReader(padded, 3, clazz.length)
+            .accept(actual, READ_ALL);
+        assertSame(expected, actual);
+    }
+
+    @Test
+    public void testDirectBuffer() throws IOException {
+        final byte clazz[] = readClass("java/util/HashMap");
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(clazz.length);
+        buffer.put(clazz)
+              .flip();
+
+        final RecordingVisitor expected = new RecordingVisitor();
+        new ClassReader(clazz)
+            .accept(expected, READ_ALL);
+        final RecordingVisitor actual = new RecordingVisitor();
+        new ClassReader(buffer)
+            .accept(actual, READ_ALL);
+        assertSame(expected, actual);
+        // the buffer provided should not be modified.
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testLazyPool() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            final RecordingVisitor expected = new RecordingVisitor();
+            new ClassReader(clazz)
+                .accept(expected, READ_ALL);
+            final ConstantInfo entries[] = expected.constantPool.getEntries();
+
+            final RecordingVisitor buffer = new RecordingVisitor();
+            new ClassReader(clazz)
+                .accept(buffer, READ_HEAD | LAZY_POOL);
+            final RecordingVisitor stream = new RecordingVisitor();
+            new ClassReader(new ByteArrayInputStream(clazz))
+                .accept(stream, READ_HEAD | LAZY_POOL);
+            for(RecordingVisitor actual : new RecordingVisitor[] { buffer, stream }) {
+                final ConstantPool constantPool = actual.constantPool;
+                assertEquals(entries.length, constantPool.getSize());
+                // the entries are decoded in reverse order to force referenced entries to be decoded first.
+                for(int i = entries.length - 1; i > 0; i--) {
+                    assertEquals(entries[i] == null ? 0 : entries[i].getTag(), constantPool.getTag(i));
+                    assertEquals(entries[i], constantPool.getEntry(i));
+                }
+                assertTrue(Arrays.equals(entries, constantPool.getEntries()));
+            }
+
+            final RecordingVisitor actual = new RecordingVisitor();
+            new ClassReader(clazz)
+                .accept(actual, READ_ALL | LAZY_POOL);
+            assertSame(expected, actual);
+        }
+    }
+
+    @Test
+    public void testHierarchy() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            final RecordingVisitor expected = new RecordingVisitor();
+            new ClassReader(clazz)
+                .accept(expected, READ_ALL);
+            final ConstantPool constantPool = expected.constantPool;
+
+            final List<String> names = new ArrayList<>();
+            new ClassReader(clazz)
+                .accept(new IClassVisitor() {
+                    @Override
+                    public void visitHierarchy(int access, String thisClass, String superClass, String[] interfaces) {
+                        names.add(thisClass);
+                        names.add(superClass);
+                        names.addAll(Arrays.asList(interfaces));
+                    }
+                }, READ_HIERARCHY);
+            assertEquals(name, names.get(0));
+            assertEquals(name.equals("java/lang/Object") ?
+                null : name.equals("java/lang/String") ?
+                    "java/lang/Object" : "java/util/AbstractMap", names.get(1));
+            assertEquals(expected.interfaces.length, names.size() - 2);
+            for(int i = 0; i < expected.interfaces.length; i++)
+                assertEquals(
+                    ((ConstantName) constantPool.getEntry(expected.interfaces[i]))
+                        .indexName(constantPool)
+                        .getBytes(),
+                    names.get(i + 2));
+        }
+    }
+
+    @Test
+    public void testSkipBody() throws IOException {
+        // java/lang/String implements several interfaces which must be skipped correctly.
+        final byte clazz[] = readClass("java/lang/String");
+        final RecordingVisitor expected = new RecordingVisitor();
+        new ClassReader(clazz)
+            .accept(expected, READ_ALL);
+        final RecordingVisitor actual = new RecordingVisitor();
+        new ClassReader(clazz)
+            .accept(actual, READ_HEAD | READ_FIELDS | READ_METHODS);
+        assertEquals(expected.members, actual.members);
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        final ClassReader classReader = new ClassReader();
+        for(int round = 0; round < 2; round++)
+            for(String name : CLASSES) {
+                final byte clazz[] = readClass(name);
+                final byte padded[] = new byte[clazz.length + 5];
+                System.arraycopy(clazz, 0, padded, 5, clazz.length);
+
+                final RecordingVisitor expected = new RecordingVisitor();
+                new ClassReader(clazz)
+                    .accept(expected, READ_ALL);
+                final RecordingVisitor actual = new RecordingVisitor();
+                classReader.reset(padded, 5, clazz.length)
+                    .accept(actual, READ_ALL);
+                assertSame(expected, actual);
+
+                final List<String> names = new ArrayList<>();
+                classReader.reset(clazz, 0, clazz.length)
+                    .accept(new IClassVisitor() {
+                        @Override
+                        public void visitHierarchy(int access, String thisClass, String superClass, String[] interfaces) {
+                            names.add(thisClass);
+                        }
+                    }, READ_HIERARCHY);
+                assertEquals(Collections.singletonList(name), names);
+            }
+    }
+
+    @Test
+    public void testStreamMembers() throws IOException {
+        final byte clazz[] = readClass("java/lang/String");
+        final RecordingVisitor expected = new RecordingVisitor();
+        new ClassReader(clazz)
+            .accept(expected, READ_ALL);
+        final List<byte[]> expectedCode = new ArrayList<>();
+        new ClassReader(clazz)
+            .accept(new IClassVisitor() {
+                @Override
+                public void visitMethods(FieldMethodInfo[] methods) {
+                    for(FieldMethodInfo method : methods)
+                        if(method.getName().equals("length"))
+                            expectedCode.add(method.getCode().getByteCode());
+                }
+            }, READ_ALL);
+
+        for(ClassReader classReader : new ClassReader[] {
+            new ClassReader(clazz),
+            new ClassReader(new ByteArrayInputStream(clazz))
+        }) {
+            final List<String> members = new ArrayList<>();
+            final List<byte[]> code = new ArrayList<>();
+            classReader.accept(new IClassVisitor() {
+                private ConstantPool constantPool;
+
+                @Override
+                public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                    this.constantPool = constantPool;
+                }
+
+                @Override
+                public IFieldMethodVisitor visitField(int access, int nameIndex, int descIndex) {
+                    members.add(((ConstantUTF8) constantPool.getEntry(nameIndex)).getBytes());
+                    return null;
+                }
+
+                @Override
+                public IFieldMethodVisitor visitMethod(int access, int nameIndex, int descIndex) {
+                    final String name = ((ConstantUTF8) constantPool.getEntry(nameIndex)).getBytes();
+                    members.add(name);
+                    // only the attributes of the methods named "length" are read.
+                    return !name.equals("length") ?
+                        null : new IFieldMethodVisitor() {
+                            @Override
+                            public void visitAttribute(AttributeInfo attribute) throws IOException {
+                                final AttributeInfo resolved = ((AttributeRaw) attribute).resolve(constantPool);
+                                if(resolved instanceof AttributeCode)
+                                    code.add(((AttributeCode) resolved).getByteCode());
+                            }
+                        };
+                }
+            }, READ_ALL | STREAM_MEMBERS);
+            assertEquals(expected.members, members);
+            assertEquals(1, code.size());
+            assertTrue(Arrays.equals(expectedCode.get(0), code.get(0)));
+        }
+    }
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ClassWriter;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeStackMapTable;
+import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
+import com.nur1popcorn.basm.utils.ClassPool;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+import static com.nur1popcorn.basm.classfile.AccessFlags.ACC_SYNTHETIC;
+import static com.nur1popcorn.basm.classfile.ClassReader.KEEP_SOURCE;
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HEAD;
+import static com.nur1popcorn.basm.classfile.ClassWriter.COMPACT_POOL;
+import static com.nur1popcorn.basm.classfile.ClassWriter.COMPUTE_FRAMES;
+import static com.nur1popcorn.basm.classfile.ClassWriter.COMPUTE_MAXS;
+import static com.nur1popcorn.basm.classfile.ClassWriter.COPY_UNMODIFIED;
+
+public final class TestClassWriter extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/lang/invoke/MethodHandles"
+    };
+
+    /* Classes with loops, handlers, switches and lambdas whose frames are computed.
+     */
+    private static final String FRAME_CLASSES[] = {
+        "com/nur1popcorn/basm/utils/ClassCache",
+        "com/nur1popcorn/basm/utils/ClassFileLoader",
+        "com/nur1popcorn/basm/utils/ModifiedUTF8",
+        "com/nur1popcorn/basm/classfile/attributes/method/stackmap/FrameComputer"
+    };
+
+    /* A class whose method is patched to contain dead code.
+     */
+    static final class DeadCode {
+        static void method(int a) {
+            a++;
+        }
+    }
+
+    /* Delegates to a ClassWriter, modifying the first method.
+     */
+    private static final class ModifyingVisitor implements IClassVisitor {
+        private final IClassVisitor next;
+        private FieldMethodInfo modified;
+
+        ModifyingVisitor(IClassVisitor next) {
+            this.next = next;
+        }
+
+        @Override
+        public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) throws IOException {
+            next.visitHead(minorVersion, majorVersion, constantPool);
+        }
+
+        @Override
+        public void visitBody(int access, int thisClass, int superClass, int[] interfaces) throws IOException {
+            next.visitBody(access, thisClass, superClass, interfaces);
+        }
+
+        @Override
+        public void visitFields(FieldMethodInfo[] fields) throws IOException {
+            next.visitFields(fields);
+        }
+
+        @Override
+        public void visitMethods(FieldMethodInfo[] methods) throws IOException {
+            modified = methods[0];
+            modified.setAccessFlags(modified.getAccessFlags() ^ ACC_SYNTHETIC);
+            assertNull(modified.getSource());
+            assertNotNull(methods[methods.length - 1].getSource());
+            next.visitMethods(methods);
+        }
+
+        @Override
+        public void visitFooter(AttributeInfo[] attributes) throws IOException {
+            next.visitFooter(attributes);
+        }
+    }
+
+    private static byte[] write(ClassReader classReader, int flags) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        classReader.accept(new ClassWriter(new DataOutputStream(out), flags), READ_ALL | KEEP_SOURCE);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            assertTrue(Arrays.equals(clazz, write(new ClassReader(new ByteArrayInputStream(clazz)), 0)));
+            assertTrue(Arrays.equals(clazz, write(new ClassReader(new ByteArrayInputStream(clazz)), COPY_UNMODIFIED)));
+            assertTrue(Arrays.equals(clazz, write(new ClassReader(clazz), 0)));
+            assertTrue(Arrays.equals(clazz, write(new ClassReader(clazz), COPY_UNMODIFIED)));
+        }
+    }
+
+    private static byte[] toByteArray(ClassReader classReader, int read, int flags) throws IOException {
+        return toByteArray(classReader, read, flags, null);
+    }
+
+    private static byte[] toByteArray(ClassReader classReader, int read, int flags, ClassPool classPool) throws IOException {
+        final ClassWriter classWriter = classPool == null ?
+            new ClassWriter(flags) : new ClassWriter(flags, classPool);
+        classReader.accept(classWriter, read);
+        return classWriter.toByteArray();
+    }
+
+    @Test
+    public void testToByteArray() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            assertTrue(Arrays.equals(clazz, toByteArray(new ClassReader(new ByteArrayInputStream(clazz)), READ_ALL, 0)));
+            assertTrue(Arrays.equals(clazz, toByteArray(new ClassReader(clazz), READ_ALL, 0)));
+            assertTrue(Arrays.equals(clazz, toByteArray(new ClassReader(clazz), READ_ALL | KEEP_SOURCE, COPY_UNMODIFIED)));
+            assertTrue(Arrays.equals(clazz, toByteArray(new ClassReader(clazz), READ_ALL | LAZY_POOL, 0)));
+
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new ClassReader(clazz)
+                .accept(new ModifyingVisitor(new ClassWriter(new DataOutputStream(expected))), READ_ALL | KEEP_SOURCE);
+            final ClassWriter classWriter = new ClassWriter(COPY_UNMODIFIED);
+            new ClassReader(clazz)
+                .accept(new ModifyingVisitor(classWriter), READ_ALL | KEEP_SOURCE);
+            assertTrue(Arrays.equals(expected.toByteArray(), classWriter.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testCopyModified() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new ClassReader(clazz)
+                .accept(new ModifyingVisitor(new ClassWriter(new DataOutputStream(expected))), READ_ALL | KEEP_SOURCE);
+            final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            final ModifyingVisitor visitor = new ModifyingVisitor(
+                new ClassWriter(new DataOutputStream(actual), COPY_UNMODIFIED));
+            new ClassReader(clazz)
+                .accept(visitor, READ_ALL | KEEP_SOURCE);
+            assertTrue(Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+            assertFalse(Arrays.equals(clazz, actual.toByteArray()));
+
+            // reverting the modification makes the method copyable again.
+            visitor.modified.setAccessFlags(visitor.modified.getAccessFlags() ^ ACC_SYNTHETIC);
+            assertNotNull(visitor.modified.getSource());
+        }
+    }
+
+    /* Lists whether the constant pool and every field and method kept its source.
+     */
+    private static List<Boolean> listSources(byte clazz[], int read) throws IOException {
+        final List<Boolean> sources = new ArrayList<>();
+        new ClassReader(clazz).accept(new IClassVisitor() {
+            @Override
+            public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                sources.add(constantPool.getSource() != null);
+            }
+
+            @Override
+            public void visitFields(FieldMethodInfo[] fields) {
+                for(FieldMethodInfo field : fields)
+                    sources.add(field.getSource() != null);
+            }
+
+            @Override
+            public void visitMethods(FieldMethodInfo[] methods) {
+                for(FieldMethodInfo method : methods)
+                    sources.add(method.getSource() != null);
+            }
+        }, read);
+        return sources;
+    }
+
+    @Test
+    public void testKeepSource() throws IOException {
+        for(String name : CLASSES) {
+            final byte clazz[] = readClass(name);
+            // an eagerly read class does not keep the buffer alive unless asked to.
+            assertFalse(listSources(clazz, READ_ALL).contains(true));
+            assertFalse(listSources(clazz, READ_ALL | KEEP_SOURCE).contains(false));
+            assertFalse(listSources(clazz, READ_ALL | LAZY_POOL).contains(false));
+            assertTrue(Arrays.equals(clazz, toByteArray(new ClassReader(clazz), READ_ALL, COPY_UNMODIFIED)));
+
+            // lazily read entries are decoded without moving the source's cursor.
+            new ClassReader(clazz).accept(new IClassVisitor() {
+                @Override
+                public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                    for(int i = 1; i < constantPool.getSize(); i++)
+                        constantPool.getEntry(i);
+                    assertEquals(0, constantPool.getSource().position());
+                }
+            }, READ_HEAD | LAZY_POOL);
+        }
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try(InputStream in = TestClassWriter.class.getResourceAsStream("/" + name + ".class")) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte buffer[] = new byte[0x1000];
+            for(int read; (read = in.read(buffer)) != -1;)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+
+    /* Lists the max stack and max locals of every method's code.
+     */
+    private static List<Integer> listMaxs(byte clazz[]) throws IOException {
+        final List<Integer> maxs = new ArrayList<>();
+        new ClassReader(clazz).accept(new IClassVisitor() {
+            @Override
+            public void visitMethods(FieldMethodInfo[] methods) {
+                for(FieldMethodInfo method : methods) {
+                    final AttributeCode code = method.getCode();
+                    if(code == null)
+                        continue;
+                    maxs.add(code.getMaxStack());
+                    maxs.add(code.getMaxLocals());
+                }
+            }
+        }, READ_ALL);
+        return maxs;
+    }
+
+    @Test
+    public void testEditCode() throws IOException {
+        final byte clazz[] = readResource("com/nur1popcorn/basm/TestClassWriter$DeadCode");
+        // replace 'iinc 0 1' with 'return, nop, nop'.
+        final byte body[] = { (byte) 0x84, 0, 1, (byte) 0xb1 };
+        final byte expected[] = clazz.clone();
+        for(int i = 0; i + body.length <= expected.length; i++)
+            if(Arrays.equals(body, Arrays.copyOfRange(expected, i, i + body.length))) {
+                expected[i] = (byte) 0xb1;
+                expected[i + 1] = expected[i + 2] = 0;
+            }
+        assertFalse(Arrays.equals(clazz, expected));
+
+        for(int flags : new int[] { 0, COPY_UNMODIFIED }) {
+            final ClassWriter classWriter = new ClassWriter(flags);
+            new ClassReader(clazz).accept(new IClassVisitor() {
+                @Override
+                public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) throws IOException {
+                    classWriter.visitHead(minorVersion, majorVersion, constantPool);
+                }
+
+                @Override
+                public void visitBody(int access, int thisClass, int superClass, int[] interfaces) throws IOException {
+                    classWriter.visitBody(access, thisClass, superClass, interfaces);
+                }
+
+                @Override
+                public void visitFields(FieldMethodInfo[] fields) throws IOException {
+                    classWriter.visitFields(fields);
+                }
+
+                @Override
+                public void visitMethods(FieldMethodInfo[] methods) throws IOException {
+                    for(FieldMethodInfo method : methods)
+                        if(method.getName().equals("method")) {
+                            // the code is edited in place and written instead of the raw attribute.
+                            final byte code[] = method.getCode().getByteCode();
+                            code[0] = (byte) 0xb1;
+                            code[1] = code[2] = 0;
+                            assertNull(method.getSource());
+                        }
+                    classWriter.visitMethods(methods);
+                }
+
+                @Override
+                public void visitFooter(AttributeInfo[] attributes) throws IOException {
+                    classWriter.visitFooter(attributes);
+                }
+            }, READ_ALL | KEEP_SOURCE);
+            assertTrue(Arrays.equals(expected, classWriter.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testComputeMaxs() throws IOException {
+        for(String name : FRAME_CLASSES) {
+            final byte clazz[] = readResource(name);
+            // the maxs computed are the same as the ones javac emitted.
+            assertEquals(listMaxs(clazz), listMaxs(write(new ClassReader(clazz), COMPUTE_MAXS)));
+            assertEquals(listMaxs(clazz), listMaxs(toByteArray(new ClassReader(clazz), READ_ALL, COMPUTE_MAXS)));
+        }
+    }
+
+    /* Lists the number of frames of every method's code.
+     */
+    private static List<Integer> countFrames(byte clazz[]) throws IOException {
+        final List<Integer> counts = new ArrayList<>();
+        new ClassReader(clazz).accept(new IClassVisitor() {
+            private ConstantPool constantPool;
+
+            @Override
+            public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                this.constantPool = constantPool;
+            }
+
+            @Override
+            public void visitMethods(FieldMethodInfo[] methods) throws IOException {
+                for(FieldMethodInfo method : methods) {
+                    final AttributeCode code = method.getCode();
+                    if(code == null)
+                        continue;
+                    final AttributeStackMapTable stackMapTable = (AttributeStackMapTable)
+                        AttributeInfo.find(code.getAttributes(), "StackMapTable", constantPool);
+                    counts.add(stackMapTable == null ?
+                        0 : stackMapTable.getEntries().length);
+                }
+            }
+        }, READ_ALL);
+        return counts;
+    }
+
+    @Test
+    public void testComputeFramesCopyUnmodified() throws IOException {
+        try(ClassPool classPool = new ClassPool()) {
+            for(String name : FRAME_CLASSES) {
+                final byte clazz[] = readResource(name);
+                final ClassWriter expected = new ClassWriter(COMPUTE_FRAMES | COMPUTE_MAXS, classPool);
+                new ClassReader(clazz)
+                    .accept(expected, READ_ALL);
+                // the constant pool is rebuilt, which is why nothing is copied.
+                final ClassWriter actual = new ClassWriter(COPY_UNMODIFIED | COMPUTE_FRAMES | COMPUTE_MAXS, classPool);
+                new ClassReader(clazz)
+                    .accept(actual, READ_ALL | KEEP_SOURCE);
+                assertTrue(Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+                assertEquals(listMaxs(clazz), listMaxs(actual.toByteArray()));
+            }
+        }
+    }
+
+    @Test
+    public void testComputeFrames() throws IOException, ReflectiveOperationException {
+        final Map<String, byte[]> classes = new HashMap<>();
+        try(ClassPool classPool = new ClassPool()) {
+            for(String name : FRAME_CLASSES) {
+                final byte clazz[] = readResource(name);
+                final ClassWriter classWriter = new ClassWriter(COMPUTE_FRAMES | COMPUTE_MAXS, classPool);
+                new ClassReader(clazz)
+                    .accept(classWriter, READ_ALL);
+                // frames are required at the same offsets as the ones javac emitted.
+                assertEquals(countFrames(clazz), countFrames(classWriter.toByteArray()));
+                classes.put(name.replace('/', '.'), classWriter.toByteArray());
+            }
+        }
+
+        initialize(classes);
+    }
+
+    /* Defines the classes using a new class loader and initializes them, which is when they are verified.
+     */
+    private static void initialize(Map<String, byte[]> classes) throws ReflectiveOperationException {
+        final ClassLoader classLoader = new ClassLoader(TestClassWriter.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                synchronized(getClassLoadingLock(name)) {
+                    final byte clazz[] = classes.get(name);
+                    if(clazz == null)
+                        return super.loadClass(name, resolve);
+                    final Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ?
+                        loaded : defineClass(name, clazz, 0, clazz.length);
+                }
+            }
+        };
+        for(String name : classes.keySet())
+            assertSame(classLoader, Class.forName(name, true, classLoader).getClassLoader());
+    }
+
+    /* Delegates to a ClassWriter, adding an entry which is not referenced to the constant pool.
+     */
+    private static final class UnusedEntryVisitor implements IClassVisitor {
+        private final IClassVisitor next;
+
+        UnusedEntryVisitor(IClassVisitor next) {
+            this.next = next;
+        }
+
+        @Override
+        public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) throws IOException {
+            final ConstantPoolGenerator generator = new ConstantPoolGenerator(constantPool.getEntries().clone());
+            generator.findUTF8("unused");
+            generator.trimToSize();
+            next.visitHead(minorVersion, majorVersion, generator);
+        }
+
+        @Override
+        public void visitBody(int access, int thisClass, int superClass, int[] interfaces) throws IOException {
+            next.visitBody(access, thisClass, superClass, interfaces);
+        }
+
+        @Override
+        public void visitFields(FieldMethodInfo[] fields) throws IOException {
+            next.visitFields(fields);
+        }
+
+        @Override
+        public void visitMethods(FieldMethodInfo[] methods) throws IOException {
+            next.visitMethods(methods);
+        }
+
+        @Override
+        public void visitFooter(AttributeInfo[] attributes) throws IOException {
+            next.visitFooter(attributes);
+        }
+    }
+
+    /* Lists the size of the constant pool and the number of fields, methods and attributes.
+     */
+    private static List<Integer> listSizes(byte clazz[]) throws IOException {
+        final List<Integer> sizes = new ArrayList<>();
+        new ClassReader(clazz).accept(new IClassVisitor() {
+            @Override
+            public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                sizes.add(constantPool.getSize());
+            }
+
+            @Override
+            public void visitFields(FieldMethodInfo[] fields) {
+                sizes.add(fields.length);
+            }
+
+            @Override
+            public void visitMethods(FieldMethodInfo[] methods) {
+                sizes.add(methods.length);
+            }
+
+            @Override
+            public void visitFooter(AttributeInfo[] attributes) {
+                sizes.add(attributes.length);
+            }
+        }, READ_ALL);
+        return sizes;
+    }
+
+    @Test
+    public void testCompactPool() throws IOException, ReflectiveOperationException {
+        try {
+            new ClassWriter(new DataOutputStream(new ByteArrayOutputStream()), COMPACT_POOL);
+            fail();
+        } catch (IllegalArgumentException ignored) {}
+
+        for(String name : CLASSES)
+            assertCompacted(readClass(name));
+
+        final Map<String, byte[]> classes = new HashMap<>(),
+                                  framedClasses = new HashMap<>();
+        try(ClassPool classPool = new ClassPool()) {
+            for(String name : FRAME_CLASSES) {
+                final byte clazz[] = readResource(name);
+                final byte compacted[] = assertCompacted(clazz);
+                classes.put(name.replace('/', '.'), compacted);
+
+                final byte framed[] = toByteArray(new ClassReader(clazz), READ_ALL, COMPUTE_FRAMES | COMPUTE_MAXS | COMPACT_POOL, classPool);
+                assertEquals(countFrames(clazz), countFrames(framed));
+                framedClasses.put(name.replace('/', '.'), framed);
+            }
+        }
+        initialize(classes);
+        initialize(framedClasses);
+    }
+
+    /* Compacts the class, checking that nothing but the constant pool changed.
+     */
+    private static byte[] assertCompacted(byte clazz[]) throws IOException {
+        final byte compacted[] = toByteArray(new ClassReader(clazz), READ_ALL, COMPACT_POOL);
+        assertTrue(compacted.length <= clazz.length);
+        assertEquals(listMaxs(clazz), listMaxs(compacted));
+        assertEquals(countFrames(clazz), countFrames(compacted));
+
+        // the unused entry is dropped, the compacted class is not compacted any further.
+        final ClassWriter unused = new ClassWriter(0);
+        new ClassReader(clazz)
+            .accept(new UnusedEntryVisitor(unused), READ_ALL);
+        final ClassWriter classWriter = new ClassWriter(COMPACT_POOL);
+        new ClassReader(unused.toByteArray())
+            .accept(new UnusedEntryVisitor(classWriter), READ_ALL);
+        assertTrue(classWriter.toByteArray().length < unused.toByteArray().length);
+        assertTrue(Arrays.equals(compacted, classWriter.toByteArray()));
+        assertTrue(Arrays.equals(compacted, toByteArray(new ClassReader(compacted), READ_ALL | LAZY_POOL, COMPACT_POOL)));
+
+        final List<Integer> sizes = listSizes(clazz),
+                            compactedSizes = listSizes(compacted);
+        assertTrue(compactedSizes.get(0) <= sizes.get(0));
+        assertEquals(sizes.subList(1, sizes.size()), compactedSizes.subList(1, compactedSizes.size()));
+        return compacted;
+    }
+
+    @Test
+    public void testComputeFramesDeadCode() throws IOException, ReflectiveOperationException {
+        final String name = "com/nur1popcorn/basm/TestClassWriter$DeadCode";
+        final byte clazz[] = readResource(name);
+        // replace 'iinc 0 1, return' with 'return, nop, nop, return'.
+        final byte body[] = { (byte) 0x84, 0, 1, (byte) 0xb1 };
+        int offset = -1;
+        for(int i = 0; i + body.length <= clazz.length && offset < 0; i++)
+            if(Arrays.equals(body, Arrays.copyOfRange(clazz, i, i + body.length)))
+                offset = i;
+        assertTrue(offset >= 0);
+        clazz[offset] = (byte) 0xb1;
+        clazz[offset + 1] = 0;
+        clazz[offset + 2] = 0;
+
+        final byte computed[];
+        try(ClassPool classPool = new ClassPool()) {
+            final ClassWriter classWriter = new ClassWriter(COMPUTE_FRAMES | COMPUTE_MAXS, classPool);
+            new ClassReader(clazz)
+                .accept(classWriter, READ_ALL);
+            computed = classWriter.toByteArray();
+        }
+        // the dead code is replaced with a block throwing the exception on the stack.
+        assertEquals(Arrays.asList(1, 1, 1, 1), listMaxs(computed));
+
+        final ClassLoader classLoader = new ClassLoader(TestClassWriter.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+                synchronized(getClassLoadingLock(className)) {
+                    if(!className.equals(name.replace('/', '.')))
+                        return super.loadClass(className, resolve);
+                    final Class<?> loaded = findLoadedClass(className);
+                    return loaded != null ?
+                        loaded : defineClass(className, computed, 0, computed.length);
+                }
+            }
+        };
+        assertSame(classLoader, Class.forName(name.replace('/', '.'), true, classLoader).getClassLoader());
+    }
+}
@@ -19,8 +19,104 @@
 
 package com.nur1popcorn.basm;
 
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantLong;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
+import com.nur1popcorn.basm.classfile.tree.methods.ExceptionHandler;
+import com.nur1popcorn.basm.classfile.tree.methods.InstructionHandle;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.CPInstruction;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.InstructionFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.nur1popcorn.basm.Constants.*;
+
 public final class TestConstantPool extends TestBase {
     public void test() {
 
     }
+
+    @Test
+    public void testCompact() {
+        final ConstantInfo entries[] = new ConstantInfo[310];
+        entries[1] = new ConstantUTF8("unused");
+        entries[2] = new ConstantUTF8("java/lang/Object");
+        entries[3] = new ConstantName(CONSTANT_CLASS, 2);
+        entries[4] = new ConstantLong(42L);
+        for(int i = 6; i < 308; i++)
+            entries[i] = new ConstantUTF8("s" + i);
+        entries[308] = new ConstantName(CONSTANT_STRING, 307);
+        entries[309] = new ConstantName(CONSTANT_CLASS, 1);
+        final ConstantPoolGenerator cp = new ConstantPoolGenerator(entries);
+        for(ConstantInfo info : entries)
+            if(info instanceof ConstantName)
+                ((ConstantName) info).attach(cp);
+
+        final InstructionFactory factory = new InstructionFactory(cp);
+        final CPInstruction instructions[] = {
+            factory.createLDC(3),
+            factory.createLDC(308),
+            factory.createLDC(308)
+        };
+        for(CPInstruction instruction : instructions)
+            instruction.attach(cp);
+        assertEquals(LDC, instructions[0].getOpcode());
+        assertEquals(LDC_W, instructions[1].getOpcode());
+
+        final int indices[] = cp.compact();
+        // the string is loaded most often, followed by the class and the referenced names.
+        assertEquals(1, indices[308]);
+        assertEquals(2, indices[3]);
+        assertEquals(3, indices[2]);
+        assertEquals(4, indices[307]);
+        assertEquals(0, indices[1]);
+        assertEquals(0, indices[4]);
+        assertEquals(0, indices[309]);
+        assertEquals(5, cp.getSize());
+
+        assertEquals(LDC, instructions[1].getOpcode());
+        assertEquals(1, instructions[1].getIndex());
+        assertEquals(2, instructions[0].getIndex());
+        assertEquals("s307", ((ConstantName) cp.getEntry(1)).indexName(cp).getBytes());
+        assertEquals("java/lang/Object", ((ConstantName) cp.getEntry(2)).indexName(cp).getBytes());
+
+        // entries added afterwards are appended and deduplicated.
+        assertEquals(5, cp.findUTF8("added"));
+        assertEquals(3, cp.findUTF8("java/lang/Object"));
+    }
+
+    @Test
+    public void testCompactReferences() {
+        final ConstantInfo entries[] = new ConstantInfo[7];
+        entries[1] = new ConstantUTF8("unused");
+        entries[2] = new ConstantUTF8("java/lang/Throwable");
+        entries[3] = new ConstantName(CONSTANT_CLASS, 2);
+        entries[4] = new ConstantUTF8("Code");
+        entries[5] = new ConstantUTF8("java/lang/Object");
+        entries[6] = new ConstantName(CONSTANT_CLASS, 5);
+        // the entries are attached to each other by the compaction itself.
+        final ConstantPoolGenerator cp = new ConstantPoolGenerator(entries);
+        final ExceptionHandler handler = new ExceptionHandler(
+            new InstructionHandle(InstructionFactory.NOP), null,
+            new InstructionHandle(InstructionFactory.NOP), 3);
+        handler.attach(cp);
+
+        // the attribute name and the class loaded by 'ldc' are referenced from outside of the cp.
+        final int references[] = new int[entries.length],
+                  loads[] = new int[entries.length];
+        references[4] = 1;
+        references[6] = loads[6] = 1;
+        final int indices[] = cp.compact(references, loads);
+        assertEquals(1, indices[6]);
+        assertEquals(0, indices[1]);
+        assertEquals(Arrays.asList(2, 3, 4, 5), Arrays.asList(indices[2], indices[3], indices[4], indices[5]));
+        assertEquals(6, cp.getSize());
+
+        assertEquals(3, handler.getCatchType());
+        assertEquals("java/lang/Object", ((ConstantName) cp.getEntry(1)).indexName(cp).getBytes());
+        assertEquals("java/lang/Throwable", ((ConstantName) cp.getEntry(3)).indexName(cp).getBytes());
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.bench;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.attributes.AttributeInfo;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
+
+/**
+ * The {@link ClassReaderBenchmark} compares the throughput of the {@link ClassReader} reading a byte array
+ * using a {@link ByteBufferDataInput} to the one reading a {@link DataInputStream} on all classes of the
+ * running jdk's java.base module. It is not a unit test and must be run manually:
+ * <pre>
+ *     java -cp target/classes:target/test-classes com.nur1popcorn.basm.bench.ClassReaderBenchmark
+ * </pre>
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ClassReaderBenchmark {
+    private static final int WARMUP_ROUNDS = 5,
+                             MEASURED_ROUNDS = 10;
+
+    /* Consumes the results of the readers in order for them not to be eliminated as dead code.
+     */
+    private static volatile long blackhole;
+
+    private ClassReaderBenchmark() {}
+
+    private interface Reader {
+        ClassReader open(byte clazz[]) throws IOException;
+    }
+
+    /* Touches everything that is read, the sum is consumed by the blackhole.
+     */
+    private static final class SinkVisitor implements IClassVisitor {
+        private long sink;
+
+        @Override
+        public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+            sink += constantPool.getSize();
+        }
+
+        @Override
+        public void visitBody(int access, int thisClass, int superClass, int[] interfaces) {
+            sink += thisClass ^ superClass ^ interfaces.length;
+        }
+
+        @Override
+        public void visitFields(FieldMethodInfo[] fields) {
+            sink += fields.length;
+        }
+
+        @Override
+        public void visitMethods(FieldMethodInfo[] methods) {
+            sink += methods.length;
+        }
+
+        @Override
+        public void visitFooter(AttributeInfo[] attributes) {
+            sink += attributes.length;
+        }
+    }
+
+    private static long run(List<byte[]> classes, Reader reader, int read) throws IOException {
+        final SinkVisitor visitor = new SinkVisitor();
+        for(byte clazz[] : classes)
+            reader.open(clazz)
+                .accept(visitor, read);
+        return visitor.sink;
+    }
+
+    private static double measure(List<byte[]> classes, long bytes, Reader reader, int read) throws IOException {
+        long sink = 0;
+        for(int i = 0; i < WARMUP_ROUNDS; i++)
+            sink += run(classes, reader, read);
+        final long start = System.nanoTime();
+        for(int i = 0; i < MEASURED_ROUNDS; i++)
+            sink += run(classes, reader, read);
+        final long elapsed = System.nanoTime() - start;
+        blackhole = sink;
+        return (bytes * MEASURED_ROUNDS / (1024d * 1024d)) / (elapsed / 1e9);
+    }
+
+    public static void main(String args[]) throws IOException {
+        final List<byte[]> classes = new ArrayList<>();
+        long bytes = 0;
+        final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try(Stream<Path> paths = Files.walk(jrt.getPath("/modules/java.base"))) {
+            for(Path path : (Iterable<Path>) paths::iterator)
+                if(path.toString().endsWith(".class")) {
+                    final byte clazz[] = Files.readAllBytes(path);
+                    classes.add(clazz);
+                    bytes += clazz.length;
+                }
+        }
+        System.out.printf("corpus: %d classes, %d bytes%n", classes.size(), bytes);
+
+        final Reader stream = clazz -> new ClassReader(new ByteArrayInputStream(clazz)),
+                     buffer = ClassReader::new;
+        System.out.printf("read stream:       %10.2f MB/s%n", measure(classes, bytes, stream, READ_ALL));
+        System.out.printf("read buffer:       %10.2f MB/s%n", measure(classes, bytes, buffer, READ_ALL));
+        System.out.printf("read stream lazy:  %10.2f MB/s%n", measure(classes, bytes, stream, READ_ALL | LAZY_POOL));
+        System.out.printf("read buffer lazy:  %10.2f MB/s%n", measure(classes, bytes, buffer, READ_ALL | LAZY_POOL));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.bench;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.utils.ModifiedUTF8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HEAD;
+
+/**
+ * The {@link ModifiedUTF8Benchmark} compares {@link ModifiedUTF8} to {@link DataInputStream#readUTF()} and
+ * {@link DataOutputStream#writeUTF(String)} on all 'CONSTANT_Utf8s' of the running jdk's java.base module.
+ * It is not a unit test and must be run manually:
+ * <pre>
+ *     java -cp target/classes:target/test-classes com.nur1popcorn.basm.bench.ModifiedUTF8Benchmark
+ * </pre>
+ *
+ * @author nur1popcorn
+ * @since 1.0.0-alpha
+ */
+public final class ModifiedUTF8Benchmark {
+    private static final int WARMUP_ROUNDS = 5,
+                             MEASURED_ROUNDS = 10;
+
+    /* Consumes the results of the codecs in order for them not to be eliminated as dead code.
+     */
+    private static volatile long blackhole;
+
+    private ModifiedUTF8Benchmark() {}
+
+    private interface Codec {
+        long run() throws IOException;
+    }
+
+    private static double measure(long bytes, Codec codec) throws IOException {
+        long sink = 0;
+        for(int i = 0; i < WARMUP_ROUNDS; i++)
+            sink += codec.run();
+        final long start = System.nanoTime();
+        for(int i = 0; i < MEASURED_ROUNDS; i++)
+            sink += codec.run();
+        final long elapsed = System.nanoTime() - start;
+        blackhole = sink;
+        return (bytes * MEASURED_ROUNDS / (1024d * 1024d)) / (elapsed / 1e9);
+    }
+
+    public static void main(String args[]) throws IOException {
+        final List<byte[]> raws = new ArrayList<>();
+        final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try(Stream<Path> paths = Files.walk(jrt.getPath("/modules/java.base"))) {
+            for(Path path : (Iterable<Path>) paths::iterator)
+                if(path.toString().endsWith(".class"))
+                    new ClassReader(Files.readAllBytes(path))
+                        .accept(new IClassVisitor() {
+                            @Override
+                            public void visitHead(int minorVersion, int majorVersion, ConstantPool constantPool) {
+                                for(ConstantInfo info : constantPool.getEntries())
+                                    if(info instanceof ConstantUTF8)
+                                        raws.add(((ConstantUTF8) info).getRawBytes());
+                            }
+                        }, READ_HEAD);
+        }
+
+        // the strings prefixed with their lengths, as they are read by the DataInputStream.
+        final ByteArrayOutputStream prefixed = new ByteArrayOutputStream();
+        final DataOutputStream os = new DataOutputStream(prefixed);
+        final String strings[] = new String[raws.size()];
+        long bytes = 0;
+        for(int i = 0; i < strings.length; i++) {
+            final byte raw[] = raws.get(i);
+            os.writeShort(raw.length);
+            os.write(raw);
+            strings[i] = ModifiedUTF8.decode(raw);
+            bytes += raw.length;
+        }
+        final byte input[] = prefixed.toByteArray();
+        System.out.printf("corpus: %d strings, %d bytes%n", strings.length, bytes);
+
+        System.out.printf("decode jdk:   %10.2f MB/s%n", measure(bytes, () -> {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(input));
+            long sink = 0;
+            for(int i = 0; i < strings.length; i++)
+                sink += in.readUTF().length();
+            return sink;
+        }));
+        System.out.printf("decode basm:  %10.2f MB/s%n", measure(bytes, () -> {
+            long sink = 0;
+            for(byte raw[] : raws)
+                sink += ModifiedUTF8.decode(raw, 0, raw.length).length();
+            return sink;
+        }));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+        final DataOutputStream dataOut = new DataOutputStream(out);
+        System.out.printf("encode jdk:   %10.2f MB/s%n", measure(bytes, () -> {
+            out.reset();
+            for(String string : strings)
+                dataOut.writeUTF(string);
+            return out.size();
+        }));
+        final byte output[] = new byte[input.length];
+        System.out.printf("encode basm:  %10.2f MB/s%n", measure(bytes, () -> {
+            int offset = 0;
+            for(String string : strings) {
+                final int length = ModifiedUTF8.length(string);
+                output[offset++] = (byte) (length >>> 8);
+                output[offset++] = (byte) length;
+                offset = ModifiedUTF8.encode(string, output, offset);
+            }
+            return offset;
+        }));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile.attributes;
+
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public final class TestAttributeRaw extends TestCase {
+    private static final byte ATTRIBUTES[] = {
+        0, 2,          // attributes_count
+        0, 1,          // attribute_name_index
+        0, 0, 0, 3,    // attribute_length
+        1, 2, 3,       // info
+        0, 2,          // attribute_name_index
+        0, 0, 0, 2,    // attribute_length
+        0x12, 0x34     // info
+    };
+
+    private static final class AttributeTest extends AttributeInfo {
+        private final int value;
+
+        AttributeTest(int nameIndex, DataInput in) throws IOException {
+            super(nameIndex, in);
+            value = in.readUnsignedShort();
+        }
+    }
+
+    private static ConstantPool constantPool() {
+        return new ConstantPool(new ConstantInfo[] {
+            null,
+            new ConstantUTF8("Unknown"),
+            new ConstantUTF8("TestAttributeRaw")
+        });
+    }
+
+    @Test
+    public void testOpaque() throws IOException {
+        AttributeInfo.register("TestAttributeRaw", (nameIndex, in, constantPool) -> new AttributeTest(nameIndex, in));
+        final DataInput inputs[] = {
+            new ByteBufferDataInput(ATTRIBUTES),
+            new DataInputStream(new ByteArrayInputStream(ATTRIBUTES))
+        };
+        for(DataInput in : inputs) {
+            final ConstantPool constantPool = constantPool();
+            final AttributeInfo attributes[] = AttributeInfo.read(in, constantPool);
+            assertEquals(2, attributes.length);
+
+            final AttributeRaw unknown = (AttributeRaw) attributes[0];
+            assertFalse(unknown.isKnown());
+            assertSame(unknown, unknown.resolve(constantPool));
+            assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, unknown.getBody()));
+
+            final AttributeRaw known = (AttributeRaw) attributes[1];
+            assertTrue(known.isKnown());
+            assertEquals(0x1234, ((AttributeTest) known.resolve(constantPool)).value);
+            assertSame(known.resolve(constantPool), AttributeInfo.find(attributes, "TestAttributeRaw", constantPool));
+
+            // unparsed attributes are written back verbatim.
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final DataOutputStream os = new DataOutputStream(out);
+            os.writeShort(attributes.length);
+            unknown.write(os, constantPool);
+            new AttributeRaw(2, new ByteBufferDataInput(ATTRIBUTES, 13, 6), null)
+                .write(os, constantPool);
+            assertTrue(Arrays.equals(ATTRIBUTES, out.toByteArray()));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.classfile.constants;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
+
+public final class TestConstantUTF8 extends TestCase {
+    private static final String STRINGS[] = {
+        "",
+        "java/lang/Object",
+        "\u0000",
+        "\u00e4\u00f6\u00fc\u07ff",
+        "\u0800\uffff",
+        "\ud83d\ude00"
+    };
+
+    private static byte[] writeUTF(String string) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataOutputStream(out)
+            .writeUTF(string);
+        final byte raw[] = out.toByteArray();
+        return Arrays.copyOfRange(raw, 2, raw.length);
+    }
+
+    @Test
+    public void testEncode() throws IOException {
+        for(String string : STRINGS)
+            assertTrue(Arrays.equals(writeUTF(string), new ConstantUTF8(string).getRawBytes()));
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        for(String string : STRINGS) {
+            final ConstantUTF8 constantUtf8 = new ConstantUTF8(writeUTF(string));
+            assertEquals(string, constantUtf8.getBytes());
+            assertEquals(new ConstantUTF8(string), constantUtf8);
+            assertEquals(new ConstantUTF8(string).hashCode(), constantUtf8.hashCode());
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        for(String string : STRINGS) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new ConstantUTF8(writeUTF(string))
+                .write(new DataOutputStream(out));
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(CONSTANT_UTF8, in.readByte());
+            assertEquals(string, in.readUTF());
+        }
+    }
+
+    @Test
+    public void testStartsWith() throws IOException {
+        final ConstantUTF8 constantUtf8 = new ConstantUTF8(writeUTF("java/net/Socket"));
+        assertTrue(constantUtf8.startsWith(writeUTF("java/net/")));
+        assertFalse(constantUtf8.startsWith(writeUTF("java/io/")));
+        assertFalse(constantUtf8.startsWith(writeUTF("java/net/Socket/")));
+    }
+}
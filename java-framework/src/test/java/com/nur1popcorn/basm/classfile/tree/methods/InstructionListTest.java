@@ -2,15 +2,30 @@ package com.nur1popcorn.basm.classfile.tree.methods;
 
 import com.nur1popcorn.basm.Constants;
 import com.nur1popcorn.basm.TestBase;
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.FieldMethodInfo;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode;
+import com.nur1popcorn.basm.classfile.attributes.method.AttributeCode.ExceptionTableEntry;
 import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
 import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.classfile.tree.ClassFile;
 import com.nur1popcorn.basm.classfile.tree.ConstantPoolGenerator;
 import com.nur1popcorn.basm.classfile.tree.methods.instructions.InstructionFactory;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.JumpInstruction;
+import com.nur1popcorn.basm.classfile.tree.methods.instructions.SwitchInstruction;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
 
 public class InstructionListTest extends TestBase {
     @Test
@@ -45,12 +60,191 @@ public class InstructionListTest extends TestBase {
         final InstructionList il = new InstructionList();
         for(int i = 0; i < 16; i++)
             il.add(new InstructionHandle(InstructionFactory.NOP));
+        final InstructionHandle first = il.remove(0);
+        assertFalse(il.contains(first));
+        assertEquals(15, il.size());
+        final InstructionHandle middle = il.get(7);
+        assertTrue(il.remove(middle));
+        assertFalse(il.remove(middle));
+        assertEquals(14, il.size());
+        assertEquals(-1, il.indexOf(middle));
+        // the removed handles can be inserted again.
+        il.insertAfter(il.get(6), middle);
+        assertEquals(7, il.indexOf(middle));
+        il.add(0, first);
+        assertSame(first, il.getFirst());
+        assertEquals(16, il.size());
+    }
+
+    @Test
+    public void testPointers() throws IOException {
+        final InstructionList il = createJumps(16);
+        final InstructionHandle back = il.get(18);
+        final InstructionHandle target = ((JumpInstruction) back.getHandle()).getTarget();
+        // inserting in front of every handle keeps the jumps pointing at their targets.
+        for(InstructionHandle ih : il.toArray(new InstructionHandle[0]))
+            il.insertBefore(ih, new InstructionHandle(InstructionFactory.NOP));
+        assertSame(target, ((JumpInstruction) back.getHandle()).getTarget());
+        assertEquals(40, il.size());
+        try {
+            il.remove(target);
+            fail();
+        } catch(InstructionLostException e) {
+            assertSame(back.getHandle(), e.getPointers()[0]);
+        }
+
+        // replacing a handle redirects the jumps pointing at it.
+        final InstructionList replaced = createJumps(16);
+        final InstructionHandle start = new InstructionHandle(InstructionFactory.ILOAD_1);
+        replaced.set(0, start);
+        assertSame(start, ((JumpInstruction) replaced.get(18).getHandle()).getTarget());
+        // the jump no longer points at the handle once it has been removed itself.
+        replaced.remove(18);
+        assertFalse(start.hasPointers());
+        replaced.remove(start);
 
+        final byte code[] = writeCode(il);
+        final InstructionList read = new InstructionList(code, new ConstantPoolGenerator(new ConstantInfo[1]));
+        assertSame(read.getLast(), ((JumpInstruction) read.get(3).getHandle()).getTarget());
+        assertSame(read.get(1), ((JumpInstruction) read.get(37).getHandle()).getTarget());
     }
 
     @Test
-    public void testPointers() {
+    public void testExceptionHandlers() throws IOException {
+        final InstructionList il = new InstructionList();
+        for(int i = 0; i < 8; i++)
+            il.add(new InstructionHandle(InstructionFactory.NOP));
+        final ExceptionHandler handler = new ExceptionHandler(il.get(1), il.get(3), il.get(5), 0);
+        handler.attach(il);
+        assertEquals(Arrays.asList(1, 3, 5), listOffsets(handler.toEntry(il)));
+        // the offsets follow the handles.
+        il.insertBefore(il.get(1), new InstructionHandle(InstructionFactory.NOP));
+        assertEquals(Arrays.asList(2, 4, 6), listOffsets(handler.toEntry(il)));
+        try {
+            il.remove(handler.getStart());
+            fail();
+        } catch(InstructionLostException e) {
+            assertSame(handler, e.getPointers()[0]);
+        }
+
+        // replacing a handle redirects the handler.
+        final InstructionHandle start = new InstructionHandle(InstructionFactory.ICONST_0);
+        final InstructionHandle replaced = il.set(2, start);
+        assertSame(start, handler.getStart());
+        assertFalse(replaced.hasPointers());
+        assertSame(handler, start.getPointers()[0]);
+        assertEquals(Arrays.asList(2, 4, 6), listOffsets(handler.toEntry(il)));
 
+        handler.dispose(il);
+        il.remove(start);
+        assertEquals(8, il.size());
+
+        // the handlers read are the ones of the code.
+        final byte clazz[] = readClass("java/lang/String");
+        final List<ExceptionTableEntry[]> expected = new ArrayList<>();
+        new ClassReader(clazz).accept(new IClassVisitor() {
+            @Override
+            public void visitMethods(FieldMethodInfo[] methods) {
+                for(FieldMethodInfo method : methods) {
+                    final AttributeCode code = method.getCode();
+                    expected.add(code == null ?
+                        new ExceptionTableEntry[0] : code.getExceptionTable());
+                }
+            }
+        }, READ_ALL);
+        final List<MethodNode> methodNodes = new ClassFile(clazz).getMethodNodes();
+        int handlers = 0;
+        for(int i = 0; i < methodNodes.size(); i++) {
+            final ExceptionTableEntry actual[] = methodNodes.get(i).getExceptionTable();
+            assertEquals(expected.get(i).length, actual.length);
+            for(int j = 0; j < actual.length; j++) {
+                assertEquals(listOffsets(expected.get(i)[j]), listOffsets(actual[j]));
+                assertEquals(expected.get(i)[j].getCatchType(), actual[j].getCatchType());
+            }
+            handlers += actual.length;
+        }
+        assertTrue(handlers > 0);
+    }
+
+    private static List<Integer> listOffsets(ExceptionTableEntry entry) {
+        return Arrays.asList(entry.getStartPc(), entry.getEndPc(), entry.getHandlerPc());
+    }
+
+    /* Creates a sequence incrementing the local variable 1, which is injected by the tests.
+     */
+    private static InstructionList createProbe() {
+        final InstructionList probe = new InstructionList();
+        probe.add(new InstructionHandle(InstructionFactory.ILOAD_1));
+        probe.add(new InstructionHandle(InstructionFactory.ICONST_1));
+        probe.add(new InstructionHandle(InstructionFactory.IADD));
+        probe.add(new InstructionHandle(InstructionFactory.ISTORE_1));
+        return probe;
+    }
+
+    @Test
+    public void testInsertList() {
+        final InstructionList il = createJumps(2);
+        final InstructionHandle end = il.getLast();
+        final InstructionList probe = createProbe();
+        final InstructionHandle first = probe.getFirst();
+        il.insertBefore(end, probe);
+        assertEquals(0, probe.size());
+        assertNull(probe.getFirst());
+        assertEquals(10, il.size());
+        assertSame(first, il.get(5));
+        assertSame(end, il.get(9));
+        // the jump still points at the return rather than the sequence inserted in front of it.
+        assertSame(end, ((JumpInstruction) il.get(1).getHandle()).getTarget());
+
+        il.insertAfter(end, createProbe());
+        assertEquals(Constants.ISTORE_1, il.getLast().getHandle().getOpcode());
+        il.insertAfter(il.getFirst(), new InstructionList());
+        assertEquals(14, il.size());
+        try {
+            il.insertBefore(end, il);
+            fail();
+        } catch(IllegalArgumentException e) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testBatchEditor() throws IOException {
+        final InstructionList il = createJumps(16);
+        final BatchEditor editor = new BatchEditor(il);
+        // the list can be transversed while the edits are collected.
+        for(InstructionHandle ih : il)
+            if(ih.getHandle().getOpcode() == Constants.NOP)
+                editor.insertBefore(ih, createProbe());
+        editor.insertAfter(il.getFirst(), new InstructionHandle(InstructionFactory.NOP));
+        editor.remove(il.get(2));
+        assertEquals(20, il.size());
+        editor.apply();
+        assertEquals(20 + 16 * 4, il.size());
+        assertEquals(Constants.NOP, il.get(1).getHandle().getOpcode());
+        assertEquals(Constants.ILOAD_1, il.get(3).getHandle().getOpcode());
+        // the probe inserted in front of the removed nop is kept.
+        assertEquals(Constants.ILOAD_1, il.get(7).getHandle().getOpcode());
+
+        final InstructionList read = new InstructionList(writeCode(il), new ConstantPoolGenerator(new ConstantInfo[1]));
+        assertEquals(il.size(), read.size());
+        assertSame(read.getLast(), ((JumpInstruction) read.get(2).getHandle()).getTarget());
+        assertSame(read.getFirst(), ((JumpInstruction) read.get(read.size() - 2).getHandle()).getTarget());
+
+        // none of the edits are applied if a handle removed is still pointed at.
+        editor.insertBefore(il.getFirst(), new InstructionHandle(InstructionFactory.NOP));
+        editor.remove(il.getLast());
+        try {
+            editor.apply();
+            fail();
+        } catch(InstructionLostException e) {
+            assertEquals(20 + 16 * 4, il.size());
+        }
+        // the edits are kept, the handle is no longer pointed at if the jump pointing at it is removed as well.
+        editor.remove(il.get(2));
+        editor.remove(il.getLast());
+        editor.apply();
+        assertEquals(20 + 16 * 4 - 1, il.size());
     }
 
     @Test
@@ -84,4 +278,140 @@ public class InstructionListTest extends TestBase {
         for(int i = 0; i < control.size(); i++)
             assertEquals(control.get(i).getHandle(), il.get(i).getHandle());
     }
+
+    /* Writes a tableswitch with the given number of cases, which jump to consecutive nops, and a goto jumping
+     * back to the start of the code, which is the switch's default target.
+     */
+    private static byte[] writeSwitch(int cases) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeByte(Constants.ILOAD_0);
+        dos.writeByte(Constants.TABLESWITCH);
+        while((dos.size() & 0x3) != 0)
+            dos.writeByte(0);
+        final int gotoOffset = dos.size() + 12 + (cases << 2);
+        dos.writeInt(gotoOffset - 1);
+        dos.writeInt(0);
+        dos.writeInt(cases - 1);
+        for(int i = 0; i < cases; i++)
+            dos.writeInt(gotoOffset + 3 + i - 1);
+        dos.writeByte(Constants.GOTO);
+        dos.writeShort(-gotoOffset);
+        for(int i = 0; i < cases; i++)
+            dos.writeByte(Constants.NOP);
+        dos.writeByte(Constants.RETURN);
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testReadTargets() throws IOException {
+        final int cases = 0x1000;
+        final byte code[] = writeSwitch(cases);
+        final InstructionList il = new InstructionList(code, new ConstantPoolGenerator(new ConstantInfo[1]));
+        assertEquals(cases + 4, il.size());
+
+        final SwitchInstruction switchInstruction = (SwitchInstruction) il.get(1).getHandle();
+        assertSame(il.get(2), switchInstruction.getDefaultTarget());
+        for(int i = 0; i < cases; i++)
+            assertSame(il.get(3 + i), switchInstruction.getTarget(i));
+        assertSame(il.get(0), ((JumpInstruction) il.get(2).getHandle()).getTarget());
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        final byte code[] = writeSwitch(0x1000);
+        final InstructionList il = new InstructionList(code, new ConstantPoolGenerator(new ConstantInfo[1]));
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(bos);
+        // the offsets are relative to the start of the code rather than the stream.
+        dos.writeByte(0);
+        il.write(dos);
+        final byte written[] = bos.toByteArray();
+        assertEquals(code.length, il.computeSize());
+        assertTrue(Arrays.equals(code, Arrays.copyOfRange(written, 5, written.length)));
+    }
+
+    @Test
+    public void testOffsets() throws IOException {
+        final InstructionList il = new InstructionList(writeSwitch(2), new ConstantPoolGenerator(new ConstantInfo[1]));
+        // iload_0, tableswitch padded to offset 4, goto, nop, nop, return.
+        assertEquals(1, il.getOffset(1));
+        assertEquals(24, il.getOffset(2));
+        assertEquals(30, il.getOffset(il.size()));
+
+        // inserting an instruction in front of the switch changes its padding.
+        il.add(0, new InstructionHandle(InstructionFactory.NOP));
+        assertEquals(2, il.getOffset(2));
+        assertEquals(24, il.getOffset(3));
+        il.add(0, new InstructionHandle(InstructionFactory.NOP));
+        assertEquals(3, il.getOffset(3));
+        assertEquals(24, il.getOffset(4));
+        il.add(0, new InstructionHandle(InstructionFactory.NOP));
+        assertEquals(28, il.getOffset(5));
+        il.remove(0);
+        assertEquals(24, il.getOffset(4));
+        assertEquals(il.computeIndex(il.get(4)), il.getOffset(4));
+    }
+
+    /* Creates a list whose conditional jump at index 1 skips the nops and the goto at the end jumps back
+     * to the start of the code.
+     */
+    private static InstructionList createJumps(int nops) {
+        final InstructionList il = new InstructionList();
+        final InstructionHandle start = new InstructionHandle(InstructionFactory.ILOAD_0);
+        final InstructionHandle end = new InstructionHandle(InstructionFactory.RETURN);
+        il.add(start);
+        il.add(new InstructionHandle(InstructionFactory.createJump(Constants.IFEQ, end)));
+        for(int i = 0; i < nops; i++)
+            il.add(new InstructionHandle(InstructionFactory.NOP));
+        il.add(new InstructionHandle(InstructionFactory.createJump(Constants.GOTO, start)));
+        il.add(end);
+        return il;
+    }
+
+    private static byte[] writeCode(InstructionList il) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        il.write(new DataOutputStream(bos));
+        final byte written[] = bos.toByteArray();
+        return Arrays.copyOfRange(written, 4, written.length);
+    }
+
+    @Test
+    public void testRelaxJumps() throws IOException {
+        final int nops = 0x8000;
+        final byte code[] = writeCode(createJumps(nops));
+        final InstructionList il = new InstructionList(code, new ConstantPoolGenerator(new ConstantInfo[1]));
+        // the conditional jump has been inverted in order to skip the goto_w jumping to the target.
+        assertEquals(nops + 5, il.size());
+        final JumpInstruction conditional = (JumpInstruction) il.get(1).getHandle();
+        assertEquals(Constants.IFNE, conditional.getOpcode());
+        assertSame(il.get(3), conditional.getTarget());
+        final JumpInstruction trampoline = (JumpInstruction) il.get(2).getHandle();
+        assertEquals(Constants.GOTO_W, trampoline.getOpcode());
+        assertSame(il.getLast(), trampoline.getTarget());
+        final JumpInstruction back = (JumpInstruction) il.get(nops + 3).getHandle();
+        assertEquals(Constants.GOTO_W, back.getOpcode());
+        assertSame(il.getFirst(), back.getTarget());
+        assertEquals(code.length, il.computeSize());
+
+        // jumps which are in range are not widened.
+        final InstructionList inRange = createJumps(0x7ff0);
+        writeCode(inRange);
+        assertFalse(((JumpInstruction) inRange.get(1).getHandle()).isWide());
+        assertFalse(((JumpInstruction) inRange.get(0x7ff2).getHandle()).isWide());
+    }
+
+    @Test
+    public void testReadInvalidTarget() throws IOException {
+        final byte code[] = writeSwitch(1);
+        // let the goto jump into the middle of the tableswitch.
+        code[code.length - 4] = (byte) 0xff;
+        code[code.length - 3] = (byte) 0xfe;
+        try {
+            new InstructionList(code, new ConstantPoolGenerator(new ConstantInfo[1]));
+            fail();
+        } catch(MalformedClassFileException e) {
+            // expected.
+        }
+    }
 }
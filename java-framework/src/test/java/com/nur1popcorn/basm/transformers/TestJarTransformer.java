@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.transformers;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+import static com.nur1popcorn.basm.classfile.ClassReader.LAZY_POOL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_ALL;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_FOOTER;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HIERARCHY;
+import static com.nur1popcorn.basm.classfile.ClassReader.STREAM_MEMBERS;
+
+public final class TestJarTransformer extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/lang/Integer",
+        "java/util/ArrayList",
+        "java/util/HashMap",
+        "java/util/Arrays"
+    };
+
+    private static Map<String, byte[]> entries() throws IOException {
+        final Map<String, byte[]> entries = new HashMap<>();
+        entries.put("META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\n".getBytes("UTF-8"));
+        for(String clazz : CLASSES)
+            entries.put(clazz + ".class", readClass(clazz));
+        return entries;
+    }
+
+    private static byte[] createJar(Map<String, byte[]> entries) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(ZipOutputStream zip = new ZipOutputStream(out)) {
+            for(Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()));
+                zip.write(entry.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, byte[]> readJar(byte jar[]) throws IOException {
+        final Map<String, byte[]> entries = new HashMap<>();
+        try(ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(jar))) {
+            for(ZipEntry entry; (entry = zip.getNextEntry()) != null;) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte buffer[] = new byte[0x1000];
+                for(int read; (read = zip.read(buffer)) != -1;)
+                    out.write(buffer, 0, read);
+                assertNull(entries.put(entry.getName(), out.toByteArray()));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void testTransform() throws IOException {
+        final Map<String, byte[]> expected = entries();
+        final AtomicInteger transformed = new AtomicInteger();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JarTransformer(new VisitorTransformer(visitor -> {
+            transformed.incrementAndGet();
+            return visitor;
+        }), 2, 2).transform(new ByteArrayInputStream(createJar(expected)), out);
+        assertEquals(CLASSES.length, transformed.get());
+
+        final Map<String, byte[]> actual = readJar(out.toByteArray());
+        assertEquals(expected.keySet(), actual.keySet());
+        for(String name : expected.keySet())
+            assertTrue(Arrays.equals(expected.get(name), actual.get(name)));
+    }
+
+    @Test
+    public void testReadFlags() {
+        new VisitorTransformer(visitor -> visitor, READ_ALL | LAZY_POOL);
+        for(int read : new int[] { READ_ALL & ~READ_FOOTER, READ_HIERARCHY, READ_ALL | STREAM_MEMBERS })
+            try {
+                new VisitorTransformer(visitor -> visitor, read);
+                fail();
+            } catch(IllegalArgumentException ignored) {}
+    }
+
+    @Test
+    public void testInFlight() throws IOException {
+        final AtomicInteger inFlight = new AtomicInteger(),
+                            maxInFlight = new AtomicInteger();
+        new JarTransformer((in, out) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch(InterruptedException ignored) {}
+            inFlight.decrementAndGet();
+        }, 4, 3).transform(new ByteArrayInputStream(createJar(entries())), new ByteArrayOutputStream());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testError() throws IOException {
+        try {
+            new JarTransformer((in, out) -> {
+                throw new IOException("expected");
+            }, 2, 2).transform(new ByteArrayInputStream(createJar(entries())), new ByteArrayOutputStream());
+            fail();
+        } catch(IOException e) {
+            assertEquals("expected", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.classfile.MalformedClassFileException;
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class TestByteBufferDataInput extends TestCase {
+    private static final String LINES[] = {
+        "",
+        "a",
+        "\n",
+        "\r\n\r\n",
+        "a\rb\nc\r\nd",
+        "a\n\rb\r",
+        "äÿ\n\u0000"
+    };
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testReadLine() throws IOException {
+        for(String lines : LINES) {
+            final byte bytes[] = lines.getBytes(StandardCharsets.ISO_8859_1);
+            final DataInputStream expected = new DataInputStream(new ByteArrayInputStream(bytes));
+            final ByteBufferDataInput actual = new ByteBufferDataInput(bytes);
+            for(String line; (line = expected.readLine()) != null;)
+                assertEquals(line, actual.readLine());
+            assertNull(actual.readLine());
+            assertEquals(bytes.length, actual.position());
+        }
+    }
+
+    /* A slice of 8 bytes of a heap and of a direct buffer, each preceded and followed by 4 other bytes.
+     */
+    private static ByteBufferDataInput[] slices() {
+        final byte bytes[] = new byte[16];
+        for(int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) i;
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes)
+              .position(4)
+              .limit(12);
+        return new ByteBufferDataInput[] {
+            new ByteBufferDataInput(bytes, 4, 8),
+            new ByteBufferDataInput(direct)
+        };
+    }
+
+    @Test
+    public void testAbsoluteBounds() {
+        for(ByteBufferDataInput in : slices()) {
+            assertEquals(0x0405060708090a0bL, in.readLong(0));
+            assertEquals(0x0a0b, in.readShort(6));
+            assertEquals(0x0b, in.readByte(7));
+            final byte b[] = new byte[8];
+            in.readFully(0, b, 0, 8);
+            assertEquals(4, b[0]);
+
+            final Runnable outOfBounds[] = {
+                () -> in.readByte(-1),
+                () -> in.readByte(8),
+                () -> in.readUnsignedByte(8),
+                () -> in.readShort(7),
+                () -> in.readUnsignedShort(7),
+                () -> in.readInt(5),
+                () -> in.readLong(1),
+                () -> in.readFully(4, b, 0, 5),
+                () -> in.readFully(8, b, 0, 1)
+            };
+            for(Runnable read : outOfBounds)
+                try {
+                    read.run();
+                    fail();
+                } catch (MalformedClassFileException ignored) {}
+        }
+    }
+
+    @Test
+    public void testConcurrentReadFully() throws InterruptedException {
+        for(ByteBufferDataInput in : slices()) {
+            // absolute reads have no side effects, which is why concurrent ones do not interfere.
+            final AtomicBoolean failed = new AtomicBoolean();
+            final Thread threads[] = new Thread[4];
+            final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+            for(int i = 0; i < threads.length; i++) {
+                final int offset = i;
+                threads[i] = new Thread(() -> {
+                    final byte expected[] = { (byte) (4 + offset), (byte) (5 + offset), (byte) (6 + offset), (byte) (7 + offset) },
+                               actual[] = new byte[4];
+                    try {
+                        barrier.await();
+                        for(int j = 0; j < 1_000_000 && !failed.get(); j++) {
+                            in.readFully(offset, actual, 0, actual.length);
+                            if(!Arrays.equals(expected, actual))
+                                failed.set(true);
+                        }
+                    } catch (Exception e) {
+                        failed.set(true);
+                    }
+                });
+                threads[i].start();
+            }
+            for(Thread thread : threads)
+                thread.join();
+            assertFalse(failed.get());
+        }
+    }
+}
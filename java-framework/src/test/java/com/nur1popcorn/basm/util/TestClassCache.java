@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.classfile.tree.ClassFile;
+import com.nur1popcorn.basm.utils.ClassCache;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+
+public final class TestClassCache extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/util/HashMap"
+    };
+
+    private static final Function<String, ClassFile> LOADER = name -> {
+        try {
+            return new ClassFile(readClass(name));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    };
+
+    @Test
+    public void testLru() {
+        final ClassCache cache = ClassCache.lru(2);
+        final ClassFile object = cache.get(CLASSES[0], LOADER);
+        assertSame(object, cache.get(CLASSES[0], LOADER));
+        cache.get(CLASSES[1], LOADER);
+        // java/lang/Object was used more recently than java/lang/String.
+        cache.get(CLASSES[0], LOADER);
+        cache.get(CLASSES[2], LOADER);
+        assertEquals(2, cache.size());
+        assertSame(object, cache.getIfPresent(CLASSES[0]));
+        assertNull(cache.getIfPresent(CLASSES[1]));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testWeighted() {
+        final long size = ClassCache.estimateSize(LOADER.apply(CLASSES[2]));
+        final ClassCache cache = ClassCache.weighted(size);
+        for(String name : CLASSES)
+            cache.get(name, LOADER);
+        assertNotNull(cache.getIfPresent(CLASSES[2]));
+        assertTrue(cache.getWeight() <= size);
+        assertEquals(CLASSES.length - cache.size(), cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testLoadOnce() throws Exception {
+        final ClassCache cache = ClassCache.unbounded();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<ClassFile>> futures = new ArrayList<>();
+            for(int i = 0; i < 32; i++)
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(CLASSES[1], name -> {
+                        loads.incrementAndGet();
+                        return LOADER.apply(name);
+                    });
+                }));
+            start.countDown();
+            final ClassFile expected = futures.get(0).get();
+            for(Future<ClassFile> future : futures)
+                assertSame(expected, future.get());
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getMisses());
+            assertEquals(31, cache.getHits());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMissing() throws Exception {
+        final ClassCache cache = ClassCache.unbounded();
+        final CountDownLatch loading = new CountDownLatch(1),
+                             release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<ClassFile> loader = executor.submit(() ->
+                cache.get(CLASSES[0], name -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch(InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return null;
+                }));
+            loading.await();
+            final AtomicReference<Thread> waiting = new AtomicReference<>();
+            final Future<ClassFile> waiter = executor.submit(() -> {
+                waiting.set(Thread.currentThread());
+                return cache.get(CLASSES[0], LOADER);
+            });
+            // the waiter is blocked until the load completes.
+            while(waiting.get() == null || waiting.get().getState() != Thread.State.WAITING)
+                Thread.yield();
+            release.countDown();
+            // the waiter sees the same result as the caller which invoked the loader.
+            assertNull(loader.get());
+            assertNull(waiter.get());
+            assertEquals(0, cache.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        final ClassCache cache = ClassCache.soft();
+        try {
+            cache.get(CLASSES[0], name -> {
+                throw new IllegalArgumentException(name);
+            });
+            fail();
+        } catch(IllegalArgumentException ignored) {}
+        // failed loads are not cached.
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get(CLASSES[0], LOADER));
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.classfile.tree.ClassFile;
+import com.nur1popcorn.basm.utils.ClassFileLoader;
+import com.nur1popcorn.basm.utils.ClassFileLoader.LoadException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+
+public final class TestClassFileLoader extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/lang/Integer",
+        "java/lang/Long",
+        "java/lang/Math",
+        "java/util/ArrayList",
+        "java/util/HashMap",
+        "java/util/Arrays",
+        "java/util/Collections",
+        "java/util/TreeMap",
+        "java/util/LinkedList"
+    };
+
+    private Path root;
+
+    @Override
+    protected void setUp() throws IOException {
+        root = Files.createTempDirectory("basm");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try(Stream<Path> paths = Files.walk(root)) {
+            for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    private Path createJar(String name, boolean broken) throws IOException {
+        final Path jar = root.resolve(name);
+        try(OutputStream out = Files.newOutputStream(jar);
+            ZipOutputStream zip = new ZipOutputStream(out)) {
+            for(String clazz : CLASSES) {
+                zip.putNextEntry(new ZipEntry(clazz + ".class"));
+                zip.write(readClass(clazz));
+            }
+            if(broken)
+                for(String clazz : new String[] { "b/Broken", "a/Broken" }) {
+                    zip.putNextEntry(new ZipEntry(clazz + ".class"));
+                    zip.write(new byte[] { (byte) 0xca, (byte) 0xfe });
+                }
+        }
+        return jar;
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        final Path jar = createJar("test.jar", false);
+        final Path directory = root.resolve("classes");
+        for(String clazz : CLASSES) {
+            final Path path = directory.resolve(clazz + ".class");
+            Files.createDirectories(path.getParent());
+            Files.write(path, readClass(clazz));
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(Path path : new Path[] { jar, directory }) {
+                final Map<String, ClassFile> classes = new ClassFileLoader(pool).load(path);
+                assertEquals(CLASSES.length, classes.size());
+                for(String clazz : CLASSES)
+                    assertEquals(clazz, classes.get(clazz).getThisClass());
+                try {
+                    classes.clear();
+                    fail();
+                } catch(UnsupportedOperationException ignored) {}
+            }
+            // duplicates resolve to the first root provided.
+            final Map<String, ClassFile> classes = new ClassFileLoader(pool).load(jar, directory);
+            assertEquals(CLASSES.length, classes.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        final Path jar = createJar("broken.jar", true);
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            new ClassFileLoader(pool).load(jar);
+            fail();
+        } catch(LoadException e) {
+            assertEquals(
+                Arrays.asList(jar + "!/a/Broken.class", jar + "!/b/Broken.class"),
+                new ArrayList<>(e.getErrors().keySet()));
+            assertEquals(CLASSES.length, e.getClasses().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
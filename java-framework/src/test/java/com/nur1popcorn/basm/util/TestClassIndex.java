@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.utils.ClassIndex;
+import com.nur1popcorn.basm.utils.ClassIndex.Entry;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+
+public final class TestClassIndex extends TestCase {
+    private Path root;
+
+    @Override
+    protected void setUp() throws IOException {
+        root = Files.createTempDirectory("basm");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try(Stream<Path> paths = Files.walk(root)) {
+            for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+
+    private Path createJar(String name, String... classes) throws IOException {
+        final Path jar = root.resolve(name);
+        try(OutputStream out = Files.newOutputStream(jar);
+            ZipOutputStream zip = new ZipOutputStream(out)) {
+            for(String clazz : classes) {
+                zip.putNextEntry(new ZipEntry(clazz + ".class"));
+                zip.write(readClass(clazz));
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        final Path first = createJar("first.jar", "java/lang/String", "java/util/HashMap");
+        final Path second = createJar("second.jar", "java/lang/String", "java/lang/Object");
+        final Path file = root.resolve("classes.idx");
+
+        final ClassIndex index = ClassIndex.open(file, Arrays.asList(first, second));
+        final Entry string = index.find("java/lang/String");
+        assertEquals(first.toAbsolutePath(), string.getContainer());
+        assertEquals("java/lang/String.class", string.getEntryName());
+        assertEquals("java/lang/Object", string.getSuperName());
+        assertTrue(string.getInterfaces().contains("java/lang/CharSequence"));
+        assertTrue(string.getMethods().stream()
+            .anyMatch(method -> method.toString().equals("length()I")));
+
+        final Entry object = index.find("java/lang/Object");
+        assertEquals(second.toAbsolutePath(), object.getContainer());
+        assertNull(object.getSuperName());
+        assertNotNull(index.find("java/util/HashMap"));
+        assertNull(index.find("java/util/TreeMap"));
+
+        // the index is reused as long as the archives did not change.
+        final long modified = Files.getLastModifiedTime(file).toMillis();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified - 10000));
+        assertNotNull(ClassIndex.open(file, Arrays.asList(first, second)).find("java/util/HashMap"));
+        assertEquals(modified - 10000, Files.getLastModifiedTime(file).toMillis());
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        final Path jar = createJar("test.jar", "java/lang/String");
+        final Path file = root.resolve("classes.idx");
+        assertNotNull(ClassIndex.open(file, Collections.singletonList(jar)).find("java/lang/String"));
+
+        // touching the archive without modifying it keeps the entries.
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(0));
+        assertNotNull(ClassIndex.open(file, Collections.singletonList(jar)).find("java/lang/String"));
+
+        createJar("test.jar", "java/util/HashMap");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(0));
+        final ClassIndex index = ClassIndex.open(file, Collections.singletonList(jar));
+        assertNull(index.find("java/lang/String"));
+        assertNotNull(index.find("java/util/HashMap"));
+
+        // malformed index files are rebuilt.
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertNotNull(ClassIndex.open(file, Collections.singletonList(jar)).find("java/util/HashMap"));
+    }
+
+    @Test
+    public void testShadowed() throws IOException {
+        final Path first = createJar("first.jar", "java/lang/String");
+        final Path second = createJar("second.jar", "java/lang/String", "java/lang/Object");
+        final Path file = root.resolve("classes.idx");
+        assertEquals(first, ClassIndex.open(file, Arrays.asList(first, second)).find("java/lang/String").getContainer());
+
+        // reordering the archives resolves the class in favor of the new first archive.
+        assertEquals(second, ClassIndex.open(file, Arrays.asList(second, first)).find("java/lang/String").getContainer());
+        assertEquals(first, ClassIndex.open(file, Arrays.asList(first, second)).find("java/lang/String").getContainer());
+
+        // removing the archive the class was resolved to resolves it to the archive it was shadowed by.
+        assertEquals(second, ClassIndex.open(file, Collections.singletonList(second)).find("java/lang/String").getContainer());
+        assertEquals(first, ClassIndex.open(file, Arrays.asList(first, second)).find("java/lang/String").getContainer());
+
+        // the same applies to modifying the archive so that it no longer contains the class.
+        createJar("first.jar", "java/util/HashMap");
+        final ClassIndex index = ClassIndex.open(file, Arrays.asList(first, second));
+        assertEquals(second, index.find("java/lang/String").getContainer());
+        assertEquals(first, index.find("java/util/HashMap").getContainer());
+        assertEquals(second, index.find("java/lang/Object").getContainer());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.utils.BootImage;
+import com.nur1popcorn.basm.utils.ClassPool;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+
+public final class TestClassPool extends TestCase {
+    @Test
+    public void testFind() throws IOException {
+        try(ClassPool classPool = new ClassPool()) {
+            assertEquals("java/lang/String", classPool.find("java.lang.String").getThisClass());
+            assertEquals("java/util/AbstractMap", classPool.find("java/util/HashMap").getSuperClass());
+            // classes found on the class path.
+            assertEquals(
+                "junit/framework/Assert",
+                classPool.find(TestCase.class.getName()).getSuperClass());
+            try {
+                classPool.find("does/not/Exist");
+                fail();
+            } catch(IllegalArgumentException ignored) {}
+        }
+    }
+
+    @Test
+    public void testGetCommonSuperClass() throws IOException {
+        try(ClassPool classPool = new ClassPool()) {
+            assertEquals("java/util/AbstractMap",
+                classPool.getCommonSuperClass("java/util/HashMap", "java.util.TreeMap"));
+            assertEquals("java/util/HashMap",
+                classPool.getCommonSuperClass("java/util/LinkedHashMap", "java/util/HashMap"));
+            assertEquals("java/lang/Object",
+                classPool.getCommonSuperClass("java/lang/String", "java/lang/Integer"));
+            assertEquals("java/lang/Object",
+                classPool.getCommonSuperClass("java/util/HashMap", "java/util/Map"));
+            // only the headers are read, no class is parsed.
+            assertEquals(0, classPool.getCache().size());
+            try {
+                classPool.getCommonSuperClass("java/lang/String", "does/not/Exist");
+                fail();
+            } catch(IllegalArgumentException ignored) {}
+        }
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        final Path directory = Files.createTempDirectory("classpool");
+        final Path shadow = directory.resolve("junit/framework/TestCase.class");
+        try(ClassPool classPool = new ClassPool()) {
+            assertEquals("junit/framework/Assert", classPool.find("junit/framework/TestCase").getSuperClass());
+            assertEquals("junit/framework/Assert",
+                classPool.getCommonSuperClass("junit/framework/TestCase", "junit/framework/Assert"));
+
+            // directories are searched before archives, the class found before is shadowed.
+            Files.createDirectories(shadow.getParent());
+            Files.write(shadow, readClass("java/lang/Object"));
+            classPool.addFiles(directory.toFile());
+            assertEquals(0, classPool.getCache().size());
+            assertNull(classPool.find("junit/framework/TestCase").getSuperClass());
+            assertEquals("java/lang/Object",
+                classPool.getCommonSuperClass("junit/framework/TestCase", "junit/framework/Assert"));
+
+            // the previous image is not closed by the pool.
+            try(BootImage bootImage = classPool.getBootImage()) {
+                if(bootImage == null)
+                    return;
+                classPool.find("java/lang/String");
+                classPool.setBootImage(null);
+                assertEquals(0, classPool.getCache().size());
+                try {
+                    classPool.find("java/lang/String");
+                    fail();
+                } catch(IllegalArgumentException ignored) {}
+            }
+        } finally {
+            Files.deleteIfExists(shadow);
+            Files.deleteIfExists(shadow.getParent());
+            Files.deleteIfExists(shadow.getParent().getParent());
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    public void testBootImage() throws IOException {
+        final BootImage bootImage = BootImage.open();
+        if(bootImage == null)
+            // the runtime has no image.
+            return;
+        assertEquals("java.base", bootImage.getModule("java/lang"));
+        assertEquals("java.sql", bootImage.getModule("java/sql"));
+        assertNull(bootImage.getModule("does/not/exist"));
+        try(InputStream in = bootImage.open("java/lang/Object")) {
+            assertNotNull(in);
+        }
+        assertNull(bootImage.open("java/lang/DoesNotExist"));
+
+        final Path jmods = Paths.get(System.getProperty("java.home"), "jmods");
+        if(!Files.isDirectory(jmods))
+            return;
+        try(BootImage image = BootImage.openJmods(jmods)) {
+            assertEquals("java.base", image.getModule("java/lang"));
+            try(InputStream in = image.open("java/lang/Object")) {
+                assertNotNull(in);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.utils.ByteBufferDataInput;
+import com.nur1popcorn.basm.utils.ModifiedUTF8;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+
+public final class TestModifiedUTF8 extends TestCase {
+    private static final String STRINGS[] = {
+        "",
+        "a",
+        "java/lang/Object",
+        "Ljava/util/Map<Ljava/lang/String;Ljava/lang/Object;>;",
+        "\u0000",
+        "0123456789abcdef\u0000",
+        "0123456789abcdef\u00e4",
+        "\u00e4\u00f6\u00fc\u07ff",
+        "01234567\u0800\uffff89abcdef",
+        "\ud83d\ude00"
+    };
+
+    private static byte[] writeUTF(String string) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DataOutputStream(out)
+            .writeUTF(string);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEncode() throws IOException {
+        for(String string : STRINGS) {
+            final byte expected[] = writeUTF(string);
+            assertEquals(expected.length - 2, ModifiedUTF8.length(string));
+            assertTrue(Arrays.equals(Arrays.copyOfRange(expected, 2, expected.length), ModifiedUTF8.encode(string)));
+
+            // the string is written into the caller's buffer at the offset given.
+            final byte raw[] = new byte[expected.length + 1];
+            assertEquals(expected.length, ModifiedUTF8.encode(string, raw, 2));
+            assertTrue(Arrays.equals(Arrays.copyOfRange(expected, 2, expected.length),
+                                     Arrays.copyOfRange(raw, 2, expected.length)));
+            assertEquals(0, raw[expected.length]);
+        }
+    }
+
+    @Test
+    public void testDecode() throws IOException {
+        for(String string : STRINGS) {
+            final byte raw[] = writeUTF(string);
+            assertEquals(string, ModifiedUTF8.decode(raw, 2, raw.length - 2));
+            assertEquals(string, new ByteBufferDataInput(raw).readUTF());
+        }
+        try {
+            ModifiedUTF8.decode(new byte[] { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', (byte) 0xc0 });
+            fail();
+        } catch(UTFDataFormatException ignored) {}
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) Keanu Poeschko - All Rights Reserved
+ * Unauthorized copying of this file is strictly prohibited
+ *
+ * Created by Keanu Poeschko <nur1popcorn@gmail.com>, August 2017
+ * This file is part of {BASM}.
+ *
+ * Do not copy or distribute files of {BASM} without permission of {Keanu Poeschko}
+ *
+ * Permission to use, copy, modify, and distribute my software for
+ * educational, and research purposes, without a signed licensing agreement
+ * and for free, is hereby granted, provided that the above copyright notice
+ * and this paragraph appear in all copies, modifications, and distributions.
+ *
+ * {BASM} is based on this document: https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html
+ *
+ */
+
+package com.nur1popcorn.basm.util;
+
+import com.nur1popcorn.basm.classfile.ClassReader;
+import com.nur1popcorn.basm.classfile.ConstantPool;
+import com.nur1popcorn.basm.classfile.IClassVisitor;
+import com.nur1popcorn.basm.classfile.ReferenceMatcher;
+import com.nur1popcorn.basm.classfile.ReferenceMatcher.Pattern;
+import com.nur1popcorn.basm.classfile.constants.ConstantInfo;
+import com.nur1popcorn.basm.classfile.constants.ConstantMethodRef;
+import com.nur1popcorn.basm.classfile.constants.ConstantName;
+import com.nur1popcorn.basm.classfile.constants.ConstantNameAndType;
+import com.nur1popcorn.basm.classfile.constants.ConstantUTF8;
+import com.nur1popcorn.basm.utils.ReferenceSearch;
+import com.nur1popcorn.basm.utils.ReferenceSearch.SearchException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.nur1popcorn.basm.Constants.CONSTANT_CLASS;
+import static com.nur1popcorn.basm.Constants.CONSTANT_UTF8;
+import static com.nur1popcorn.basm.TestClassReader.readClass;
+import static com.nur1popcorn.basm.classfile.ClassReader.READ_HEAD;
+
+public final class TestReferenceSearch extends TestCase {
+    private static final String CLASSES[] = {
+        "java/lang/Object",
+        "java/lang/String",
+        "java/lang/Integer",
+        "java/util/ArrayList",
+        "java/util/HashMap",
+        "java/util/Arrays",
+        "java/util/TreeMap",
+        "java/util/LinkedList"
+    };
+
+    /* Computes the patterns matched by a class by decoding its whole constant pool.
+     */
+    private static List<String> expected(byte clazz[]) throws IOException {
+        final ConstantPool constantPool[] = new ConstantPool[1];
+        new ClassReader(clazz)
+            .accept(new IClassVisitor() {
+                @Override
+                public void visitHead(int minorVersion, int majorVersion, ConstantPool cp) {
+                    constantPool[0] = cp;
+                }
+            }, READ_HEAD);
+        final ConstantPool cp = constantPool[0];
+        boolean hashCode = false, equals = false, stringBuilder = false, serialVersionUID = false;
+        for(ConstantInfo info : cp.getEntries()) {
+            if(info == null)
+                continue;
+            if(info instanceof ConstantMethodRef) {
+                final ConstantMethodRef ref = (ConstantMethodRef) info;
+                final ConstantNameAndType nameAndType = ref.indexNameAndType(cp);
+                final String owner = ref.indexClass(cp).indexName(cp).getBytes();
+                final String name = nameAndType.indexName(cp).getBytes();
+                final String desc = nameAndType.indexDesc(cp).getBytes();
+                hashCode |= owner.equals("java/lang/Object") && name.equals("hashCode");
+                equals |= name.equals("equals") && desc.equals("(Ljava/lang/Object;)Z");
+            } else if(info.getTag() == CONSTANT_CLASS)
+                stringBuilder |= ((ConstantName) info).indexName(cp).getBytes().equals("java/lang/StringBuilder");
+            else if(info.getTag() == CONSTANT_UTF8)
+                serialVersionUID |= ((ConstantUTF8) info).getBytes().equals("serialVersionUID");
+        }
+        final List<String> result = new ArrayList<>();
+        if(hashCode)
+            result.add("java/lang/Object.hashCode");
+        if(equals)
+            result.add("*.equals(Ljava/lang/Object;)Z");
+        if(stringBuilder)
+            result.add("java/lang/StringBuilder");
+        if(serialVersionUID)
+            result.add("\"serialVersionUID\"");
+        return result;
+    }
+
+    @Test
+    public void testSearch() throws IOException {
+        final Path root = Files.createTempDirectory("basm");
+        final Path jar = root.resolve("test.jar");
+        try {
+            final SortedMap<String, List<String>> expected = new TreeMap<>();
+            try(OutputStream out = Files.newOutputStream(jar);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+                for(String clazz : CLASSES) {
+                    zip.putNextEntry(new ZipEntry(clazz + ".class"));
+                    final byte bytes[] = readClass(clazz);
+                    zip.write(bytes);
+                    final List<String> patterns = expected(bytes);
+                    if(!patterns.isEmpty())
+                        expected.put(jar + "!/" + clazz + ".class", patterns);
+                }
+                // malformed classes are ignored.
+                zip.putNextEntry(new ZipEntry("a/Broken.class"));
+                zip.write(new byte[] { (byte) 0xca, (byte) 0xfe });
+            }
+            assertFalse(expected.isEmpty());
+
+            final ReferenceMatcher matcher = new ReferenceMatcher()
+                .addMember("java/lang/Object", "hashCode", null)
+                .addMember(null, "equals", "(Ljava/lang/Object;)Z")
+                .addClass("java/lang/StringBuilder")
+                .addUTF8("serialVersionUID");
+            final SortedMap<String, List<String>> actual = new TreeMap<>();
+            for(Map.Entry<String, List<Pattern>> entry : new ReferenceSearch(matcher).search(jar).entrySet()) {
+                final List<String> patterns = new ArrayList<>();
+                for(Pattern pattern : entry.getValue())
+                    patterns.add(pattern.toString());
+                actual.put(entry.getKey(), patterns);
+            }
+            assertEquals(expected, actual);
+        } finally {
+            Files.deleteIfExists(jar);
+            Files.delete(root);
+        }
+    }
+
+    @Test
+    public void testSearchErrors() throws IOException {
+        final Path root = Files.createTempDirectory("basm");
+        final Path jar = root.resolve("test.jar");
+        try {
+            try(OutputStream out = Files.newOutputStream(jar);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+                zip.putNextEntry(new ZipEntry("java/lang/String.class"));
+                zip.write(readClass("java/lang/String"));
+                zip.putNextEntry(new ZipEntry("a/Corrupt.class"));
+                zip.write(readClass("java/lang/Object"));
+                zip.putNextEntry(new ZipEntry("a/Broken.class"));
+                zip.write(new byte[] { (byte) 0xca, (byte) 0xfe });
+            }
+            // the first byte of the deflated data is replaced with a block of an invalid type.
+            final byte bytes[] = Files.readAllBytes(jar);
+            final byte name[] = "a/Corrupt.class".getBytes(StandardCharsets.UTF_8);
+            for(int i = 30; i + name.length <= bytes.length; i++)
+                if(Arrays.equals(name, Arrays.copyOfRange(bytes, i, i + name.length))) {
+                    bytes[i + name.length] = (byte) 0xff;
+                    break;
+                }
+            Files.write(jar, bytes);
+
+            final ReferenceMatcher matcher = new ReferenceMatcher()
+                .addClass("java/lang/StringBuilder");
+            try {
+                new ReferenceSearch(matcher).search(jar);
+                fail();
+            } catch(SearchException e) {
+                // the malformed class is ignored, the other classes are still searched.
+                assertEquals(1, e.getErrors().size());
+                assertTrue(e.getErrors().containsKey(jar + "!/a/Corrupt.class"));
+                assertTrue(e.getMatches().containsKey(jar + "!/java/lang/String.class"));
+            }
+        } finally {
+            Files.deleteIfExists(jar);
+            Files.delete(root);
+        }
+    }
+}